@@ -0,0 +1,61 @@
+#!/usr/bin/env bash
+# Measures time-to-started and resident memory for the packaged backend in three modes:
+#   baseline  - plain executable jar
+#   lean      - lean profile (lazy init, no index creation during context refresh) on the AOT-processed context
+#   lean+cds  - same, plus the Class Data Sharing archive from the training run
+#
+# Usage: scripts/startup-benchmark.sh <extracted-dir> [runs] [max-lean-cds-ms]
+# The extracted dir comes from `java -Djarmode=tools -jar app.jar extract` (done by `mvn -Plean package`).
+set -euo pipefail
+
+DIR=${1:?extracted application directory required}
+RUNS=${2:-3}
+MAX_MS=${3:-0}
+JAR=$(ls "$DIR"/*.jar | head -n 1)
+JAVA=${JAVA_HOME:+$JAVA_HOME/bin/}java
+PORT=${BENCHMARK_PORT:-18080}
+
+measure() {
+  local label=$1; shift
+  local total_ms=0 total_rss=0
+  for ((i = 1; i <= RUNS; i++)); do
+    local log
+    log=$(mktemp)
+    local start_ns
+    start_ns=$(date +%s%N)
+    (cd "$DIR" && exec "$JAVA" "$@" -jar "$JAR" --server.port="$PORT") >"$log" 2>&1 &
+    local pid=$!
+    local elapsed_ms=0
+    while ! grep -q "Started LibraryManagementSystemApplication" "$log"; do
+      if ! kill -0 "$pid" 2>/dev/null; then
+        echo "[$label] application exited before starting:" >&2
+        tail -n 40 "$log" >&2
+        exit 1
+      fi
+      sleep 0.02
+    done
+    elapsed_ms=$(( ($(date +%s%N) - start_ns) / 1000000 ))
+    local rss_kb
+    rss_kb=$(awk '/VmRSS/ {print $2}' "/proc/$pid/status")
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+    rm -f "$log"
+    total_ms=$((total_ms + elapsed_ms))
+    total_rss=$((total_rss + rss_kb))
+  done
+  local avg_ms=$((total_ms / RUNS))
+  printf '%-10s startup %6d ms   RSS %6d MB\n' "$label" "$avg_ms" $((total_rss / RUNS / 1024))
+  LAST_MS=$avg_ms
+}
+
+echo "Startup benchmark ($RUNS runs each, wall clock until 'Started')"
+measure baseline
+measure lean -Dspring.aot.enabled=true -Dspring.profiles.active=lean
+if [[ -f "$DIR/application.jsa" ]]; then
+  measure lean+cds -XX:SharedArchiveFile=application.jsa -Dspring.aot.enabled=true -Dspring.profiles.active=lean
+fi
+
+if [[ "$MAX_MS" -gt 0 && "$LAST_MS" -gt "$MAX_MS" ]]; then
+  echo "Lean startup ${LAST_MS} ms exceeds budget of ${MAX_MS} ms" >&2
+  exit 1
+fi
@@ -0,0 +1,69 @@
+package com.library.config;
+
+import com.library.model.Book;
+import com.library.model.Reservation;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Before the unique partial user_book_active index existed, concurrent or retried requests
+// could leave several ACTIVE reservations for the same (userId, bookId), and the index build
+// fails on them. Keeps the oldest of each group, cancels the rest and gives their copies back.
+@Component
+@Order(1)
+public class ActiveReservationDedupe implements MongoMigration {
+
+    private static final Logger log = LoggerFactory.getLogger(ActiveReservationDedupe.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public void migrate() {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("status").is(Reservation.ReservationStatus.ACTIVE)),
+                Aggregation.sort(Sort.by("reservationDate", "_id")),
+                Aggregation.group("userId", "bookId").push("_id").as("ids").count().as("count"),
+                Aggregation.match(Criteria.where("count").gt(1)))
+                .withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+
+        int cancelled = 0;
+        for (Document group : mongoTemplate.aggregate(aggregation, Reservation.class, Document.class)) {
+            Document key = group.get("_id", Document.class);
+            String userId = key.getString("userId");
+            String bookId = key.getString("bookId");
+            List<?> duplicates = group.getList("ids", Object.class).subList(1, group.getInteger("count"));
+
+            long modified = mongoTemplate.updateMulti(
+                    Query.query(Criteria.where("userId").is(userId)
+                            .and("_id").in(duplicates)
+                            .and("status").is(Reservation.ReservationStatus.ACTIVE)),
+                    new Update()
+                            .set("status", Reservation.ReservationStatus.CANCELLED)
+                            .set("updatedAt", LocalDateTime.now()),
+                    Reservation.class).getModifiedCount();
+            if (modified > 0) {
+                // Each duplicate took a copy when it was created
+                mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(bookId)),
+                        new Update().inc("availableCopies", (int) modified), Book.class);
+                cancelled += (int) modified;
+            }
+        }
+        if (cancelled > 0) {
+            log.warn("Cancelled {} duplicate ACTIVE reservations before building user_book_active", cancelled);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.library.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+// Marks the servlet thread while it serves an API request. The sync Mongo driver reports a
+// command on the thread that issued it, so MongoLatencyListener can tell user-facing commands
+// from scheduled jobs, audit batches and change-stream polling, which run on their own threads.
+// Exports stream huge cursors by design and are left unmarked as well.
+public class ApiRequestFilter extends OncePerRequestFilter {
+
+    private static final ThreadLocal<Boolean> ACTIVE = new ThreadLocal<>();
+
+    public static boolean isActive() {
+        return ACTIVE.get() != null;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        return !uri.startsWith("/api/") || uri.startsWith("/api/export/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        ACTIVE.set(Boolean.TRUE);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ACTIVE.remove();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.library.config;
+
+import com.library.model.Book;
+import com.library.model.BranchInventory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Books given branch inventory before the branchStocked flag existed: without it a PUT could
+// replace their copy counts, which the next flush then overwrites
+@Component
+@Order(4)
+public class BranchStockedFlagBackfill implements MongoMigration {
+
+    private static final Logger log = LoggerFactory.getLogger(BranchStockedFlagBackfill.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public void migrate() {
+        List<String> bookIds = mongoTemplate.findDistinct(new Query(), "bookId", BranchInventory.class, String.class);
+        if (bookIds.isEmpty()) {
+            return;
+        }
+        long updated = mongoTemplate.updateMulti(
+                Query.query(Criteria.where("_id").in(bookIds).and("branchStocked").ne(true)),
+                new Update().set("branchStocked", true).inc("version", 1L), Book.class).getModifiedCount();
+        if (updated > 0) {
+            log.info("Flagged {} books as branch-stocked", updated);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.library.config;
+
+import com.library.service.DatabaseCircuitBreaker;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Set;
+
+// Read-only mode: while the database circuit is open, API writes get a 503 straight away
+// instead of queueing on a dead connection pool. Reads pass through to the snapshot fallback.
+public class DegradedModeFilter extends OncePerRequestFilter {
+
+    private static final Set<String> READ_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+
+    private final DatabaseCircuitBreaker databaseCircuitBreaker;
+
+    public DegradedModeFilter(DatabaseCircuitBreaker databaseCircuitBreaker) {
+        this.databaseCircuitBreaker = databaseCircuitBreaker;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (READ_METHODS.contains(request.getMethod()) || !request.getRequestURI().startsWith("/api/")
+                || !databaseCircuitBreaker.isRejecting()) {
+            chain.doFilter(request, response);
+            return;
+        }
+        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        response.setHeader("Retry-After", Long.toString(databaseCircuitBreaker.retryAfterSeconds()));
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.getWriter().write("The library is in read-only mode while the database is unavailable; please retry later");
+    }
+}
@@ -0,0 +1,43 @@
+package com.library.config;
+
+import com.library.model.Book;
+import com.library.model.Reservation;
+import com.library.model.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Documents written before optimistic locking have no version field. Spring Data treats a
+// null version as "new" and would insert instead of update (a DuplicateKeyException on
+// return/cancel), so stamp them with version 0 before the first request can load one. The
+// version filters scan each collection in full, which is fine once: the migrations ledger
+// keeps it off later startups.
+@Component
+@Order(0)
+public class DocumentVersionBackfill implements MongoMigration {
+
+    private static final Logger log = LoggerFactory.getLogger(DocumentVersionBackfill.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public void migrate() {
+        for (Class<?> type : List.of(Book.class, User.class, Reservation.class)) {
+            long updated = mongoTemplate.updateMulti(
+                    Query.query(Criteria.where("version").exists(false)),
+                    new Update().set("version", 0L), type).getModifiedCount();
+            if (updated > 0) {
+                log.info("Initialised version on {} {} documents", updated, type.getSimpleName());
+            }
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.library.config;
+
+import com.library.service.FineCalculator;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(FineProperties.class)
+public class FineConfig {
+
+    @Bean
+    public FineCalculator fineCalculator(FineProperties properties) {
+        return new FineCalculator(properties);
+    }
+}
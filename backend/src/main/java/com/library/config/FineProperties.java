@@ -0,0 +1,62 @@
+package com.library.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Amounts are in cents. Category keys match Book.categories case-insensitively.
+@ConfigurationProperties(prefix = "fines")
+public class FineProperties {
+
+    // Days after the due date that are never charged
+    private int graceDays = 0;
+    private final Rate defaultRate = new Rate(25, 1000);
+    private final Map<String, Rate> categories = new HashMap<>();
+
+    public int getGraceDays() {
+        return graceDays;
+    }
+
+    public void setGraceDays(int graceDays) {
+        this.graceDays = graceDays;
+    }
+
+    public Rate getDefaultRate() {
+        return defaultRate;
+    }
+
+    public Map<String, Rate> getCategories() {
+        return categories;
+    }
+
+    public static class Rate {
+        private long dailyCents;
+        // 0 means uncapped
+        private long capCents;
+
+        public Rate() {
+        }
+
+        public Rate(long dailyCents, long capCents) {
+            this.dailyCents = dailyCents;
+            this.capCents = capCents;
+        }
+
+        public long getDailyCents() {
+            return dailyCents;
+        }
+
+        public void setDailyCents(long dailyCents) {
+            this.dailyCents = dailyCents;
+        }
+
+        public long getCapCents() {
+            return capCents;
+        }
+
+        public void setCapCents(long capCents) {
+            this.capCents = capCents;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.library.config;
+
+import com.library.service.JwtService;
+import io.jsonwebtoken.Claims;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+// Authenticates requests carrying a bearer token. An expired, revoked or forged token gets a
+// 401, which is the client's cue to use its refresh token; requests without a token pass on
+// anonymously. Registered in SecurityConfig only, like RateLimitFilter.
+public class JwtAuthenticationFilter extends OncePerRequestFilter {
+
+    private static final String BEARER = "Bearer ";
+
+    // Token endpoints: a stale access token sent along must not stop a login, refresh or logout
+    private static final Set<String> TOKEN_ENDPOINTS = Set.of(
+            "/api/auth/signup", "/api/auth/login", "/api/auth/refresh", "/api/auth/logout");
+
+    private final JwtService jwtService;
+
+    public JwtAuthenticationFilter(JwtService jwtService) {
+        this.jwtService = jwtService;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return TOKEN_ENDPOINTS.contains(request.getRequestURI());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header == null || !header.startsWith(BEARER)) {
+            chain.doFilter(request, response);
+            return;
+        }
+        Optional<Claims> claims = jwtService.authenticate(header.substring(BEARER.length()));
+        if (claims.isEmpty()) {
+            response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+            response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Bearer error=\"invalid_token\"");
+            return;
+        }
+        SecurityContextHolder.getContext().setAuthentication(
+                UsernamePasswordAuthenticationToken.authenticated(claims.get().getSubject(), null, List.of()));
+        chain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,34 @@
+package com.library.config;
+
+import com.library.model.Reservation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.stereotype.Component;
+
+// status_updated was replaced by status_updated_id, whose extra _id key gives the archival
+// scan its (updatedAt, _id) order. Index creation never drops indexes, so existing databases
+// would otherwise keep maintaining the old one on every reservation write.
+@Component
+@Order(5)
+public class LegacyReservationIndexDrop implements MongoMigration {
+
+    static final String LEGACY_INDEX = "status_updated";
+
+    private static final Logger log = LoggerFactory.getLogger(LegacyReservationIndexDrop.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public void migrate() {
+        IndexOperations indexOps = mongoTemplate.indexOps(Reservation.class);
+        if (indexOps.getIndexInfo().stream().anyMatch(index -> LEGACY_INDEX.equals(index.getName()))) {
+            indexOps.dropIndex(LEGACY_INDEX);
+            log.info("Dropped the {} index on reservations", LEGACY_INDEX);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.library.config;
+
+import com.library.service.AdaptiveConcurrencyLimiter;
+import com.library.service.DatabaseCircuitBreaker;
+import com.mongodb.ReadPreference;
+import com.mongodb.WriteConcern;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.config.EnableMongoAuditing;
+import org.springframework.data.mongodb.observability.ContextProviderFactory;
+import org.springframework.data.mongodb.observability.MongoObservationCommandListener;
+
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+@EnableConfigurationProperties(MongoTuningProperties.class)
+// Fills the @CreatedDate/@LastModifiedDate fields on repository and template saves
+@EnableMongoAuditing
+public class MongoConfig {
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoLatencyCustomizer(AdaptiveConcurrencyLimiter concurrencyLimiter,
+                                                                      DatabaseCircuitBreaker databaseCircuitBreaker) {
+        return builder -> builder.addCommandListener(new MongoLatencyListener(concurrencyLimiter, databaseCircuitBreaker));
+    }
+
+    // A span per Mongo command, parented to the observation current on the calling thread
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoTracingCustomizer(ObservationRegistry observationRegistry) {
+        return builder -> builder
+                .contextProvider(ContextProviderFactory.create(observationRegistry))
+                .addCommandListener(new MongoObservationCommandListener(observationRegistry));
+    }
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoTuningCustomizer(MongoTuningProperties properties,
+                                                                     ObjectProvider<MeterRegistry> meterRegistry) {
+        return builder -> {
+            MongoTuningProperties.Pool pool = properties.getPool();
+            builder.applyToConnectionPoolSettings(settings -> {
+                if (pool.getMaxSize() != null) {
+                    settings.maxSize(pool.getMaxSize());
+                }
+                if (pool.getMinSize() != null) {
+                    settings.minSize(pool.getMinSize());
+                }
+                if (pool.getMaxWaitTime() != null) {
+                    settings.maxWaitTime(pool.getMaxWaitTime().toMillis(), TimeUnit.MILLISECONDS);
+                }
+                if (pool.getMaxConnectionIdleTime() != null) {
+                    settings.maxConnectionIdleTime(pool.getMaxConnectionIdleTime().toMillis(), TimeUnit.MILLISECONDS);
+                }
+                if (pool.getMaxConnectionLifeTime() != null) {
+                    settings.maxConnectionLifeTime(pool.getMaxConnectionLifeTime().toMillis(), TimeUnit.MILLISECONDS);
+                }
+                if (pool.getMaxConnecting() != null) {
+                    settings.maxConnecting(pool.getMaxConnecting());
+                }
+                meterRegistry.ifAvailable(registry -> settings.addConnectionPoolListener(new MongoPoolMetricsListener(registry)));
+            });
+
+            MongoTuningProperties.Socket socket = properties.getSocket();
+            builder.applyToSocketSettings(settings -> {
+                if (socket.getConnectTimeout() != null) {
+                    settings.connectTimeout((int) socket.getConnectTimeout().toMillis(), TimeUnit.MILLISECONDS);
+                }
+                if (socket.getReadTimeout() != null) {
+                    settings.readTimeout((int) socket.getReadTimeout().toMillis(), TimeUnit.MILLISECONDS);
+                }
+            });
+            if (socket.getServerSelectionTimeout() != null) {
+                builder.applyToClusterSettings(settings -> settings.serverSelectionTimeout(
+                        socket.getServerSelectionTimeout().toMillis(), TimeUnit.MILLISECONDS));
+            }
+
+            if (properties.getReadPreference() != null) {
+                builder.readPreference(ReadPreference.valueOf(properties.getReadPreference()));
+            }
+            WriteConcern writeConcern = writeConcern(properties.getWrite());
+            if (writeConcern != null) {
+                builder.writeConcern(writeConcern);
+            }
+        };
+    }
+
+    private static WriteConcern writeConcern(MongoTuningProperties.Write write) {
+        if (write.getConcern() == null && write.getJournal() == null && write.getTimeout() == null) {
+            return null;
+        }
+        WriteConcern concern = WriteConcern.ACKNOWLEDGED;
+        if (write.getConcern() != null) {
+            concern = write.getConcern().chars().allMatch(Character::isDigit)
+                    ? new WriteConcern(Integer.parseInt(write.getConcern()))
+                    : new WriteConcern(write.getConcern());
+        }
+        if (write.getJournal() != null) {
+            concern = concern.withJournal(write.getJournal());
+        }
+        if (write.getTimeout() != null) {
+            concern = concern.withWTimeout(write.getTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        }
+        return concern;
+    }
+}
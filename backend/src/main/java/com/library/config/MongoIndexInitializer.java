@@ -0,0 +1,107 @@
+package com.library.config;
+
+import com.library.model.Book;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReplaceOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.type.filter.AnnotationTypeFilter;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.util.Date;
+import java.util.List;
+
+// Runs the MongoMigrations not yet applied and, when auto-index-creation is off, builds the
+// annotation-declared indexes once all singletons exist, which is still before the web
+// server starts: migrated data and the unique indexes the services rely on are in place
+// before the first request. Auto index creation can't be used with migrations: it builds
+// the indexes before any of them had a chance to run. A failed migration or index build
+// fails startup.
+//
+// Applied migrations are recorded in the migrations collection by class name, so each runs
+// once per database. Nodes starting together may both run a pending one; migrations are
+// idempotent, so that only costs time.
+@Component
+public class MongoIndexInitializer implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(MongoIndexInitializer.class);
+
+    static final String MIGRATIONS_COLLECTION = "migrations";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MongoMappingContext mappingContext;
+
+    @Autowired
+    private List<MongoMigration> migrations;
+
+    @Value("${spring.data.mongodb.auto-index-creation:false}")
+    private boolean autoIndexCreation;
+
+    // Only for tests and tools that start the context without a database
+    @Value("${library.indexes.ensure-on-startup:true}")
+    private boolean ensureOnStartup;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!ensureOnStartup) {
+            return;
+        }
+        MongoCollection<org.bson.Document> applied = mongoTemplate.getCollection(MIGRATIONS_COLLECTION);
+        for (MongoMigration migration : migrations) {
+            String name = ClassUtils.getUserClass(migration).getSimpleName();
+            if (applied.countDocuments(Filters.eq("_id", name)) > 0) {
+                continue;
+            }
+            long start = System.nanoTime();
+            try {
+                migration.migrate();
+            } catch (Exception e) {
+                throw new IllegalStateException("Migration " + name + " failed", e);
+            }
+            applied.replaceOne(Filters.eq("_id", name), new org.bson.Document("_id", name).append("appliedAt", new Date()),
+                    new ReplaceOptions().upsert(true));
+            log.info("Applied migration {} in {} ms", name, (System.nanoTime() - start) / 1_000_000);
+        }
+        if (!autoIndexCreation) {
+            ensureIndexes();
+        }
+    }
+
+    private void ensureIndexes() {
+        long start = System.nanoTime();
+        IndexResolver resolver = new MongoPersistentEntityIndexResolver(mappingContext);
+        ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false);
+        scanner.addIncludeFilter(new AnnotationTypeFilter(Document.class));
+        int created = 0;
+        for (var candidate : scanner.findCandidateComponents(Book.class.getPackageName())) {
+            try {
+                Class<?> type = ClassUtils.forName(candidate.getBeanClassName(), getClass().getClassLoader());
+                MongoPersistentEntity<?> entity = mappingContext.getRequiredPersistentEntity(type);
+                IndexOperations indexOps = mongoTemplate.indexOps(entity.getCollection());
+                for (var definition : resolver.resolveIndexFor(entity.getTypeInformation())) {
+                    indexOps.createIndex(definition);
+                    created++;
+                }
+            } catch (Exception e) {
+                throw new IllegalStateException("Failed to ensure indexes for " + candidate.getBeanClassName(), e);
+            }
+        }
+        log.info("Ensured {} Mongo indexes in {} ms", created, (System.nanoTime() - start) / 1_000_000);
+    }
+}
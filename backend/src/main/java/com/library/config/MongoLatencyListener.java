@@ -0,0 +1,41 @@
+package com.library.config;
+
+import com.library.service.AdaptiveConcurrencyLimiter;
+import com.library.service.DatabaseCircuitBreaker;
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandSucceededEvent;
+
+import java.util.concurrent.TimeUnit;
+
+// Only commands issued while serving an API request (see ApiRequestFilter) feed the
+// concurrency limiter and count as slow calls for the circuit breaker: background jobs would
+// otherwise hold the latency average above target, or open the circuit, while they run.
+public class MongoLatencyListener implements CommandListener {
+
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final DatabaseCircuitBreaker databaseCircuitBreaker;
+
+    public MongoLatencyListener(AdaptiveConcurrencyLimiter concurrencyLimiter, DatabaseCircuitBreaker databaseCircuitBreaker) {
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.databaseCircuitBreaker = databaseCircuitBreaker;
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        long elapsed = event.getElapsedTime(TimeUnit.NANOSECONDS);
+        boolean requestPath = ApiRequestFilter.isActive();
+        if (requestPath) {
+            concurrencyLimiter.recordMongoLatency(elapsed);
+        }
+        databaseCircuitBreaker.onCommandSucceeded(elapsed, requestPath);
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        if (ApiRequestFilter.isActive()) {
+            concurrencyLimiter.recordMongoLatency(event.getElapsedTime(TimeUnit.NANOSECONDS));
+        }
+        databaseCircuitBreaker.onCommandFailed(event.getThrowable());
+    }
+}
@@ -0,0 +1,10 @@
+package com.library.config;
+
+// Idempotent data fix that must run before the annotation-declared indexes are built, e.g.
+// because an index would reject the existing data. Run by MongoIndexInitializer in @Order order,
+// once per database: the class name is recorded when it succeeds, so renaming a migration runs
+// it again.
+public interface MongoMigration {
+
+    void migrate();
+}
@@ -0,0 +1,38 @@
+package com.library.config;
+
+import com.mongodb.event.ConnectionCheckOutFailedEvent;
+import com.mongodb.event.ConnectionCheckedOutEvent;
+import com.mongodb.event.ConnectionPoolListener;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+
+// Records how long requests wait for a pooled connection; pool size and in-use counts
+// come from Spring Boot's MongoMetricsConnectionPoolListener
+public class MongoPoolMetricsListener implements ConnectionPoolListener {
+
+    private final Timer checkoutWait;
+    private final Timer checkoutFailedWait;
+
+    public MongoPoolMetricsListener(MeterRegistry registry) {
+        this.checkoutWait = Timer.builder("mongodb.driver.pool.checkout.wait")
+                .description("Time spent waiting to check out a pooled connection")
+                .tag("outcome", "success")
+                .register(registry);
+        this.checkoutFailedWait = Timer.builder("mongodb.driver.pool.checkout.wait")
+                .description("Time spent waiting to check out a pooled connection")
+                .tag("outcome", "failed")
+                .register(registry);
+    }
+
+    @Override
+    public void connectionCheckedOut(ConnectionCheckedOutEvent event) {
+        checkoutWait.record(event.getElapsedTime(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void connectionCheckOutFailed(ConnectionCheckOutFailedEvent event) {
+        checkoutFailedWait.record(event.getElapsedTime(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,30 @@
+package com.library.config;
+
+import com.mongodb.ReadPreference;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+// Routes read-only queries that tolerate bounded staleness to secondaries
+@Component
+public class MongoReadRouting {
+
+    private final ReadPreference staleTolerantReads;
+
+    public MongoReadRouting(MongoTuningProperties properties) {
+        MongoTuningProperties.SecondaryReads secondaryReads = properties.getSecondaryReads();
+        this.staleTolerantReads = secondaryReads.isEnabled()
+                ? ReadPreference.secondaryPreferred(secondaryReads.getMaxStaleness().toSeconds(), TimeUnit.SECONDS)
+                : null;
+    }
+
+    public Query staleTolerant(Query query) {
+        return staleTolerantReads != null ? query.withReadPreference(staleTolerantReads) : query;
+    }
+
+    public AggregationOptions.Builder staleTolerant(AggregationOptions.Builder options) {
+        return staleTolerantReads != null ? options.readPreference(staleTolerantReads) : options;
+    }
+}
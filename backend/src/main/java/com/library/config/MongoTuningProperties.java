@@ -0,0 +1,183 @@
+package com.library.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+// Driver settings left null fall back to the connection string, then to driver defaults
+@ConfigurationProperties(prefix = "library.mongo")
+public class MongoTuningProperties {
+
+    private final Pool pool = new Pool();
+    private final Socket socket = new Socket();
+    private final Write write = new Write();
+    private final SecondaryReads secondaryReads = new SecondaryReads();
+
+    // primary, primaryPreferred, secondary, secondaryPreferred or nearest
+    private String readPreference;
+
+    public Pool getPool() {
+        return pool;
+    }
+
+    public Socket getSocket() {
+        return socket;
+    }
+
+    public Write getWrite() {
+        return write;
+    }
+
+    public SecondaryReads getSecondaryReads() {
+        return secondaryReads;
+    }
+
+    public String getReadPreference() {
+        return readPreference;
+    }
+
+    public void setReadPreference(String readPreference) {
+        this.readPreference = readPreference;
+    }
+
+    public static class Pool {
+        private Integer maxSize;
+        private Integer minSize;
+        private Duration maxWaitTime;
+        private Duration maxConnectionIdleTime;
+        private Duration maxConnectionLifeTime;
+        private Integer maxConnecting;
+
+        public Integer getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(Integer maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public Integer getMinSize() {
+            return minSize;
+        }
+
+        public void setMinSize(Integer minSize) {
+            this.minSize = minSize;
+        }
+
+        public Duration getMaxWaitTime() {
+            return maxWaitTime;
+        }
+
+        public void setMaxWaitTime(Duration maxWaitTime) {
+            this.maxWaitTime = maxWaitTime;
+        }
+
+        public Duration getMaxConnectionIdleTime() {
+            return maxConnectionIdleTime;
+        }
+
+        public void setMaxConnectionIdleTime(Duration maxConnectionIdleTime) {
+            this.maxConnectionIdleTime = maxConnectionIdleTime;
+        }
+
+        public Duration getMaxConnectionLifeTime() {
+            return maxConnectionLifeTime;
+        }
+
+        public void setMaxConnectionLifeTime(Duration maxConnectionLifeTime) {
+            this.maxConnectionLifeTime = maxConnectionLifeTime;
+        }
+
+        public Integer getMaxConnecting() {
+            return maxConnecting;
+        }
+
+        public void setMaxConnecting(Integer maxConnecting) {
+            this.maxConnecting = maxConnecting;
+        }
+    }
+
+    public static class Socket {
+        private Duration connectTimeout;
+        private Duration readTimeout;
+        private Duration serverSelectionTimeout;
+
+        public Duration getConnectTimeout() {
+            return connectTimeout;
+        }
+
+        public void setConnectTimeout(Duration connectTimeout) {
+            this.connectTimeout = connectTimeout;
+        }
+
+        public Duration getReadTimeout() {
+            return readTimeout;
+        }
+
+        public void setReadTimeout(Duration readTimeout) {
+            this.readTimeout = readTimeout;
+        }
+
+        public Duration getServerSelectionTimeout() {
+            return serverSelectionTimeout;
+        }
+
+        public void setServerSelectionTimeout(Duration serverSelectionTimeout) {
+            this.serverSelectionTimeout = serverSelectionTimeout;
+        }
+    }
+
+    public static class Write {
+        // "majority" or a number of acknowledging members
+        private String concern;
+        private Boolean journal;
+        private Duration timeout;
+
+        public String getConcern() {
+            return concern;
+        }
+
+        public void setConcern(String concern) {
+            this.concern = concern;
+        }
+
+        public Boolean getJournal() {
+            return journal;
+        }
+
+        public void setJournal(Boolean journal) {
+            this.journal = journal;
+        }
+
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(Duration timeout) {
+            this.timeout = timeout;
+        }
+    }
+
+    // Read-only catalog and history queries can go to secondaries
+    public static class SecondaryReads {
+        private boolean enabled = false;
+        // Minimum the server accepts is 90 seconds
+        private Duration maxStaleness = Duration.ofSeconds(90);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getMaxStaleness() {
+            return maxStaleness;
+        }
+
+        public void setMaxStaleness(Duration maxStaleness) {
+            this.maxStaleness = maxStaleness;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.library.config;
+
+import com.library.model.Book;
+import com.library.model.BookRecommendation;
+import com.library.model.Branch;
+import com.library.model.BranchAvailability;
+import com.library.model.BranchInventory;
+import com.library.model.CacheInvalidation;
+import com.library.model.CatalogEvent;
+import com.library.model.CheckInResult;
+import com.library.model.CirculationEvent;
+import com.library.model.FineBalance;
+import com.library.model.IdempotencyRecord;
+import com.library.model.RefreshToken;
+import com.library.model.Reservation;
+import com.library.model.RevokedToken;
+import com.library.model.User;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+// Reachability metadata for the native image (mvn -Pnative native:compile). Mongo entities and
+// request/response types are bound reflectively; jjwt 0.11 loads its implementation by class name.
+@Configuration
+@ImportRuntimeHints(NativeConfig.JjwtRuntimeHints.class)
+@RegisterReflectionForBinding({
+        Book.class, User.class, Reservation.class, IdempotencyRecord.class,
+        CatalogEvent.class, CheckInResult.class, CacheInvalidation.class,
+        CirculationEvent.class, BookRecommendation.class, FineBalance.class,
+        Branch.class, BranchInventory.class, BranchAvailability.class,
+        RefreshToken.class, RevokedToken.class
+})
+public class NativeConfig {
+
+    static class JjwtRuntimeHints implements RuntimeHintsRegistrar {
+
+        private static final String[] REFLECTIVE_TYPES = {
+                "io.jsonwebtoken.impl.DefaultJwtBuilder",
+                "io.jsonwebtoken.impl.DefaultJwtParser",
+                "io.jsonwebtoken.impl.DefaultJwtParserBuilder",
+                "io.jsonwebtoken.impl.DefaultClaims",
+                "io.jsonwebtoken.impl.DefaultHeader",
+                "io.jsonwebtoken.impl.DefaultJwsHeader",
+                "io.jsonwebtoken.impl.compression.DeflateCompressionCodec",
+                "io.jsonwebtoken.impl.compression.GzipCompressionCodec",
+                "io.jsonwebtoken.jackson.io.JacksonSerializer",
+                "io.jsonwebtoken.jackson.io.JacksonDeserializer"
+        };
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            for (String type : REFLECTIVE_TYPES) {
+                hints.reflection().registerType(TypeReference.of(type),
+                        MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS);
+            }
+            hints.resources().registerPattern("META-INF/services/io.jsonwebtoken.*");
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.library.config;
+
+import com.library.model.Reservation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Returns and cancellations saved before auditing was enabled have no updatedAt, so the
+// archival scan (which selects on it) would never pick them up. Uses the return date, or the
+// reservation date for cancellations, as the best available approximation.
+@Component
+@Order(2)
+public class ReservationUpdatedAtBackfill implements MongoMigration {
+
+    private static final Logger log = LoggerFactory.getLogger(ReservationUpdatedAtBackfill.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public void migrate() {
+        long updated = mongoTemplate.updateMulti(
+                Query.query(Criteria.where("status").in(List.of(Reservation.ReservationStatus.RETURNED,
+                                Reservation.ReservationStatus.CANCELLED))
+                        .and("updatedAt").exists(false)),
+                AggregationUpdate.update().set("updatedAt").toValue(
+                        ConditionalOperators.ifNull("actualReturnDate").then("$reservationDate")),
+                Reservation.class).getModifiedCount();
+        if (updated > 0) {
+            log.info("Set updatedAt on {} returned/cancelled reservations", updated);
+        }
+    }
+}
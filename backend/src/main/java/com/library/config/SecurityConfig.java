@@ -1,9 +1,18 @@
 package com.library.config;
 
+import com.library.service.AdaptiveConcurrencyLimiter;
+import com.library.service.DatabaseCircuitBreaker;
+import com.library.service.JwtService;
+import com.library.service.RateLimiter;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.AnonymousAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
@@ -14,15 +23,33 @@ import java.util.List;
 public class SecurityConfig {
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, RateLimiter rateLimiter,
+                                                   AdaptiveConcurrencyLimiter concurrencyLimiter,
+                                                   DatabaseCircuitBreaker databaseCircuitBreaker,
+                                                   JwtService jwtService) throws Exception {
         http
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .csrf(csrf -> csrf.disable())
+                .addFilterBefore(new ApiRequestFilter(), AnonymousAuthenticationFilter.class)
+                .addFilterBefore(new JwtAuthenticationFilter(jwtService), AnonymousAuthenticationFilter.class)
+                // Keyed by the user for requests with a valid bearer token, by client IP otherwise
+                .addFilterAfter(new RateLimitFilter(rateLimiter, concurrencyLimiter), AnonymousAuthenticationFilter.class)
+                .addFilterAfter(new DegradedModeFilter(databaseCircuitBreaker), RateLimitFilter.class)
                 .authorizeHttpRequests(auth -> auth
                         .anyRequest().permitAll());
         return http.build();
     }
 
+    @Bean
+    public PasswordEncoder passwordEncoder() {
+        return new BCryptPasswordEncoder();
+    }
+
+    @Bean
+    public AuthenticationManager authenticationManager(AuthenticationConfiguration configuration) throws Exception {
+        return configuration.getAuthenticationManager();
+    }
+
     @Bean
     public CorsConfigurationSource corsConfigurationSource() {
         CorsConfiguration configuration = new CorsConfiguration();
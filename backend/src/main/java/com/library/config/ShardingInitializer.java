@@ -0,0 +1,71 @@
+package com.library.config;
+
+import com.library.model.Book;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.type.filter.AnnotationTypeFilter;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.CompoundIndexDefinition;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.Sharded;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+// Shards the collections of @Sharded entities using their declared shard keys. Must talk to a
+// mongos; runs once all singletons exist, before the web server starts, so the collections
+// are sharded before the app takes traffic.
+// Users stay unsharded: username and email are both globally unique, which a sharded
+// collection can only enforce for indexes prefixed by the shard key.
+@Component
+@ConditionalOnProperty(name = "library.sharding.enabled", havingValue = "true")
+public class ShardingInitializer implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardingInitializer.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MongoMappingContext mappingContext;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        String database = mongoTemplate.getDb().getName();
+        runAdminCommand(new Document("enableSharding", database));
+
+        ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false);
+        scanner.addIncludeFilter(new AnnotationTypeFilter(Sharded.class));
+        for (var candidate : scanner.findCandidateComponents(Book.class.getPackageName())) {
+            try {
+                Class<?> type = ClassUtils.forName(candidate.getBeanClassName(), getClass().getClassLoader());
+                MongoPersistentEntity<?> entity = mappingContext.getRequiredPersistentEntity(type);
+                Document shardKey = entity.getShardKey().getDocument();
+                // shardCollection only creates the key's index on empty collections
+                mongoTemplate.indexOps(entity.getCollection()).createIndex(new CompoundIndexDefinition(shardKey));
+                Document result = runAdminCommand(new Document("shardCollection", database + "." + entity.getCollection())
+                        .append("key", shardKey));
+                if (result != null) {
+                    log.info("Sharded {} on {}", entity.getCollection(), shardKey.toJson());
+                }
+            } catch (Exception e) {
+                log.warn("Failed to shard collection for {}: {}", candidate.getBeanClassName(), e.getMessage());
+            }
+        }
+    }
+
+    // Null when the command failed, e.g. because the collection is already sharded
+    private Document runAdminCommand(Document command) {
+        try {
+            return mongoTemplate.getMongoDatabaseFactory().getMongoDatabase("admin").runCommand(command);
+        } catch (RuntimeException e) {
+            log.debug("{} failed: {}", command.keySet().iterator().next(), e.getMessage());
+            return null;
+        }
+    }
+}
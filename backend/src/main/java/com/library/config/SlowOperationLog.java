@@ -0,0 +1,140 @@
+package com.library.config;
+
+import com.library.service.TokenBucket;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import io.micrometer.observation.ObservationView;
+import io.micrometer.tracing.handler.TracingObservationHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// Logs the whole observation tree of any request (or scheduled job) slower than the threshold,
+// whether or not its trace was sampled for export. Every observation keeps a start/end time and
+// its finished children until the root completes; rendering only happens for slow roots, and at
+// most max-per-second trees are written so a general slowdown can't flood the log.
+@Component
+public class SlowOperationLog implements ObservationHandler<Observation.Context> {
+
+    private static final Logger log = LoggerFactory.getLogger(SlowOperationLog.class);
+    private static final int MAX_CHILDREN = 200;
+
+    private final boolean enabled;
+    private final long thresholdNanos;
+    private final TokenBucket budget;
+    private final Consumer<String> sink;
+
+    @Autowired
+    public SlowOperationLog(@Value("${tracing.slow-log.enabled:true}") boolean enabled,
+                            @Value("${tracing.slow-log.threshold-ms:1000}") long thresholdMs,
+                            @Value("${tracing.slow-log.max-per-second:1}") double maxPerSecond) {
+        this(enabled, thresholdMs, maxPerSecond, log::warn);
+    }
+
+    SlowOperationLog(boolean enabled, long thresholdMs, double maxPerSecond, Consumer<String> sink) {
+        this.enabled = enabled;
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMs);
+        this.budget = new TokenBucket(Math.max(1, (int) Math.ceil(maxPerSecond)), maxPerSecond, System.nanoTime());
+        this.sink = sink;
+    }
+
+    @Override
+    public boolean supportsContext(Observation.Context context) {
+        return enabled;
+    }
+
+    @Override
+    public void onStart(Observation.Context context) {
+        context.put(Node.class, new Node(context, System.nanoTime()));
+    }
+
+    @Override
+    public void onStop(Observation.Context context) {
+        Node node = context.get(Node.class);
+        if (node == null) {
+            return;
+        }
+        node.endNanos = System.nanoTime();
+        ObservationView parent = context.getParentObservation();
+        if (parent != null) {
+            Node parentNode = parent.getContextView().get(Node.class);
+            if (parentNode != null) {
+                parentNode.add(node);
+            }
+            return;
+        }
+        if (node.endNanos - node.startNanos >= thresholdNanos && budget.tryAcquire(node.endNanos)) {
+            sink.accept(render(node));
+        }
+    }
+
+    private static String render(Node root) {
+        StringBuilder out = new StringBuilder("Slow operation: ")
+                .append(root.name()).append(" took ").append(millis(root.endNanos - root.startNanos)).append(" ms");
+        TracingObservationHandler.TracingContext tracing = root.context.get(TracingObservationHandler.TracingContext.class);
+        if (tracing != null && tracing.getSpan() != null) {
+            out.append(" (trace ").append(tracing.getSpan().context().traceId()).append(')');
+        }
+        appendChildren(out, root, root.startNanos, 1);
+        return out.toString();
+    }
+
+    private static void appendChildren(StringBuilder out, Node node, long rootStart, int depth) {
+        List<Node> children;
+        int omitted;
+        synchronized (node) {
+            children = new ArrayList<>(node.children);
+            omitted = node.omitted;
+        }
+        children.sort(Comparator.comparingLong(child -> child.startNanos));
+        for (Node child : children) {
+            out.append(System.lineSeparator()).append("  ".repeat(depth))
+                    .append('+').append(millis(child.startNanos - rootStart)).append(" ms ")
+                    .append(millis(child.endNanos - child.startNanos)).append(" ms ")
+                    .append(child.name());
+            appendChildren(out, child, rootStart, depth + 1);
+        }
+        if (omitted > 0) {
+            out.append(System.lineSeparator()).append("  ".repeat(depth)).append("... ").append(omitted).append(" more");
+        }
+    }
+
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    private static final class Node {
+
+        private final Observation.Context context;
+        private final long startNanos;
+        private volatile long endNanos;
+        private final List<Node> children = new ArrayList<>();
+        private int omitted;
+
+        Node(Observation.Context context, long startNanos) {
+            this.context = context;
+            this.startNanos = startNanos;
+        }
+
+        synchronized void add(Node child) {
+            if (children.size() < MAX_CHILDREN) {
+                children.add(child);
+            } else {
+                omitted++;
+            }
+        }
+
+        // Read at render time: some contextual names (e.g. HTTP routes) are only set on stop
+        String name() {
+            return context.getContextualName() != null ? context.getContextualName() : context.getName();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.library.config;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.util.ReflectionUtils;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@Configuration
+public class StartupConfig {
+
+    // With spring.main.lazy-initialization=true, beans that only do work from schedules,
+    // events or lifecycle callbacks would never be created; keep those eager
+    @Bean
+    public static LazyInitializationExcludeFilter backgroundWorkExcludeFilter() {
+        return (beanName, beanDefinition, beanType) -> {
+            if (beanType == null) {
+                return false;
+            }
+            if (SmartLifecycle.class.isAssignableFrom(beanType)) {
+                return true;
+            }
+            AtomicBoolean background = new AtomicBoolean();
+            ReflectionUtils.doWithMethods(beanType, method -> background.set(true),
+                    method -> AnnotatedElementUtils.hasAnnotation(method, Scheduled.class)
+                            || AnnotatedElementUtils.hasAnnotation(method, EventListener.class));
+            return background.get();
+        };
+    }
+}
@@ -0,0 +1,42 @@
+package com.library.config;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+// One observation (and so one span) per public controller and service call. Calls a bean makes
+// on itself don't pass through the proxy and are covered by the caller's span; Mongo commands
+// get their own spans from the command listener registered in MongoConfig.
+@Aspect
+@Component
+public class TracingAspect {
+
+    private final ObservationRegistry observationRegistry;
+
+    public TracingAspect(ObservationRegistry observationRegistry) {
+        this.observationRegistry = observationRegistry;
+    }
+
+    // Limiters, the circuit breaker and the event buses run on every request or Mongo command;
+    // spans for them would only bury the interesting ones
+    @Around("(@within(org.springframework.web.bind.annotation.RestController)"
+            + " || @within(org.springframework.stereotype.Service))"
+            + " && execution(public * com.library..*(..))"
+            + " && !within(com.library.service.RateLimiter)"
+            + " && !within(com.library.service.AdaptiveConcurrencyLimiter)"
+            + " && !within(com.library.service.DatabaseCircuitBreaker)"
+            + " && !within(com.library.service.CacheInvalidationBus)"
+            + " && !within(com.library.service.CatalogEventBus)")
+    public Object observe(ProceedingJoinPoint joinPoint) throws Throwable {
+        String type = joinPoint.getSignature().getDeclaringType().getSimpleName();
+        String method = joinPoint.getSignature().getName();
+        return Observation.createNotStarted("library.method", observationRegistry)
+                .contextualName(type + "." + method)
+                .lowCardinalityKeyValue("class", type)
+                .lowCardinalityKeyValue("method", method)
+                .observeChecked(() -> joinPoint.proceed());
+    }
+}
@@ -0,0 +1,72 @@
+package com.library.config;
+
+import com.library.model.BranchInventory;
+import com.library.model.Reservation;
+import com.library.service.InventoryService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Books given branch inventory before it took over their book-level stock can have open loans
+// without a branch, whose copies are in no branch total. Each such loan is attributed to the
+// book's first branch and that branch's total grows by the copy; available is unchanged
+// because the copy is still out. Books without branch inventory are left alone.
+//
+// Runs once (see MongoIndexInitializer): loans that later slip past InventoryService's
+// takeover of book-level stock are released through releaseUnattributed instead, and must
+// not grow a branch total on every restart.
+@Component
+@Order(3)
+public class UnattributedLoanMigration implements MongoMigration {
+
+    private static final Logger log = LoggerFactory.getLogger(UnattributedLoanMigration.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Override
+    public void migrate() {
+        Criteria unattributed = Criteria.where("branchId").is(null).and("status").is(Reservation.ReservationStatus.ACTIVE);
+        List<String> changed = new ArrayList<>();
+        long attributed = 0;
+        for (String bookId : mongoTemplate.findDistinct(Query.query(unattributed), "bookId", Reservation.class, String.class)) {
+            BranchInventory branch = mongoTemplate.findOne(Query.query(Criteria.where("bookId").is(bookId))
+                    .with(Sort.by("branchId")), BranchInventory.class);
+            if (branch == null) {
+                continue;
+            }
+            Query loans = Query.query(Criteria.where("bookId").is(bookId)).addCriteria(unattributed);
+            for (Reservation loan : mongoTemplate.find(loans, Reservation.class)) {
+                // Loan first: stopping in between leaves a copy capped on return rather than counted twice
+                Query byLoan = Query.query(Criteria.where("_id").is(loan.getId()).and("userId").is(loan.getUserId()))
+                        .addCriteria(unattributed);
+                if (mongoTemplate.updateFirst(byLoan, new Update().set("branchId", branch.getBranchId())
+                        .set("updatedAt", LocalDateTime.now()).inc("version", 1L), Reservation.class).getModifiedCount() == 0) {
+                    continue;
+                }
+                mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(branch.getId()).and("bookId").is(bookId)),
+                        new Update().inc("total", 1).currentDate("updatedAt"), BranchInventory.class);
+                attributed++;
+            }
+            changed.add(bookId);
+        }
+        if (attributed > 0) {
+            inventoryService.booksChanged(changed);
+            log.info("Attributed {} loans without a branch to branch inventory of {} books", attributed, changed.size());
+        }
+    }
+}
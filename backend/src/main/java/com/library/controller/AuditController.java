@@ -0,0 +1,41 @@
+package com.library.controller;
+
+import com.library.model.CirculationEvent;
+import com.library.service.CirculationAuditLog;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Instant;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/audit")
+@CrossOrigin(origins = "*")
+public class AuditController {
+
+    @Autowired
+    private CirculationAuditLog auditLog;
+
+    @Value("${audit.query.max-limit:1000}")
+    private int maxLimit;
+
+    // Events become visible once their batch is flushed (audit.flush-interval-ms)
+    @GetMapping("/events")
+    public ResponseEntity<?> getEvents(@RequestParam(required = false) String userId,
+                                       @RequestParam(required = false) String bookId,
+                                       @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+                                       @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+                                       @RequestParam(defaultValue = "100") int limit) {
+        if (limit < 1 || limit > maxLimit) {
+            return ResponseEntity.badRequest().body("limit must be between 1 and " + maxLimit);
+        }
+        if (from != null && to != null && !from.isBefore(to)) {
+            return ResponseEntity.badRequest().body("from must be before to");
+        }
+        List<CirculationEvent> events = auditLog.find(userId, bookId, from, to, limit);
+        return ResponseEntity.ok(events);
+    }
+}
@@ -1,10 +1,14 @@
 package com.library.controller;
 
 import com.library.service.JwtService;
+import com.library.service.RefreshTokenService;
+import com.library.service.TokenRevocationList;
 import com.library.service.UserService;
 import com.library.model.User;
 
+import io.jsonwebtoken.Claims;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -13,6 +17,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/auth")
@@ -25,6 +30,12 @@ public class AuthController {
     @Autowired
     private JwtService jwtService;
     
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private TokenRevocationList revocationList;
+
     @Autowired
     private AuthenticationManager authenticationManager;
 
@@ -41,13 +52,15 @@ public class AuthController {
 
             User savedUser = userService.saveUser(user);
             
-            String token = jwtService.generateToken(savedUser.getUsername());
-            
-            Map<String, Object> response = new HashMap<>();
-            response.put("token", token);
+            Map<String, Object> response = tokenResponse(refreshTokenService.issue(savedUser.getUsername()));
             response.put("user", savedUser);
             
             return ResponseEntity.ok(response);
+        } catch (DuplicateKeyException e) {
+            // Taken on another node after the existence checks above passed
+            String message = userService.emailTakenByOther(user.getEmail(), user.getId())
+                    ? "Email already exists" : "Username already exists";
+            return ResponseEntity.badRequest().body(message);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Registration failed: " + e.getMessage());
         }
@@ -64,14 +77,11 @@ public class AuthController {
                 new UsernamePasswordAuthenticationToken(username, password)
             );
 
-            // Generate token
-            String token = jwtService.generateToken(username);
+            // Generate access and refresh tokens
+            Map<String, Object> response = tokenResponse(refreshTokenService.issue(username));
             
             // Get user details
             User user = userService.findByUsername(username).orElse(null);
-            
-            Map<String, Object> response = new HashMap<>();
-            response.put("token", token);
             response.put("user", user);
             
             return ResponseEntity.ok(response);
@@ -80,12 +90,49 @@ public class AuthController {
         }
     }
 
+    // Exchanges a refresh token for a new access token and the next refresh token; each
+    // refresh token works once
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refresh(@RequestBody Map<String, String> request) {
+        String refreshToken = request.get("refreshToken");
+        if (refreshToken == null || refreshToken.isBlank()) {
+            return ResponseEntity.badRequest().body("refreshToken is required");
+        }
+        return refreshTokenService.rotate(refreshToken)
+                .<ResponseEntity<?>>map(issued -> ResponseEntity.ok(tokenResponse(issued)))
+                .orElseGet(() -> ResponseEntity.status(401).body("Invalid or expired refresh token"));
+    }
+
+    // Revokes the refresh token's family and the presented access token
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@RequestBody(required = false) Map<String, String> request,
+                                       @RequestHeader(value = "Authorization", required = false) String token) {
+        if (request != null && request.get("refreshToken") != null) {
+            refreshTokenService.revoke(request.get("refreshToken"));
+        }
+        if (token != null && token.startsWith("Bearer ")) {
+            Optional<Claims> claims = jwtService.authenticate(token.substring(7));
+            claims.ifPresent(c -> {
+                String familyId = c.get(JwtService.FAMILY_CLAIM, String.class);
+                if (familyId != null) {
+                    refreshTokenService.revokeFamily(familyId);
+                } else {
+                    revocationList.revoke(TokenRevocationList.tokenKey(c.getId()), c.getExpiration().toInstant());
+                }
+            });
+        }
+        return ResponseEntity.noContent().build();
+    }
+
     @GetMapping("/me")
     public ResponseEntity<?> getCurrentUser(@RequestHeader("Authorization") String token) {
         try {
             String jwt = token.substring(7); // Remove "Bearer " prefix
-            String username = jwtService.extractUsername(jwt);
-            User user = userService.findByUsername(username).orElse(null);
+            Optional<Claims> claims = jwtService.authenticate(jwt);
+            if (claims.isEmpty()) {
+                return ResponseEntity.status(401).body("Invalid token");
+            }
+            User user = userService.findByUsername(claims.get().getSubject()).orElse(null);
             
             if (user != null) {
                 return ResponseEntity.ok(user);
@@ -96,4 +143,12 @@ public class AuthController {
             return ResponseEntity.status(401).body("Invalid token");
         }
     }
-} 
\ No newline at end of file
+
+    private Map<String, Object> tokenResponse(RefreshTokenService.IssuedTokens issued) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("token", issued.accessToken());
+        response.put("refreshToken", issued.refreshToken());
+        response.put("expiresIn", issued.expiresInSeconds());
+        return response;
+    }
+}
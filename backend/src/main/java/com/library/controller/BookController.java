@@ -1,12 +1,24 @@
 package com.library.controller;
 
 import com.library.model.Book;
+import com.library.model.BookRecommendation;
+import com.library.model.BranchAvailability;
+import com.library.model.BranchInventory;
+import com.library.service.MergePatchMapper;
+import com.library.service.BookResponseCache;
 import com.library.service.BookService;
+import com.library.service.InventoryService;
+import com.library.service.RecommendationService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @RestController
@@ -17,15 +29,49 @@ public class BookController {
     @Autowired
     private BookService bookService;
 
+    @Autowired
+    private RecommendationService recommendationService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private BookResponseCache bookResponseCache;
+
     @GetMapping
     public List<Book> getAllBooks() {
         return bookService.getAllBooks();
     }
 
+    // Hottest endpoint: the body comes pre-encoded (and pre-gzipped when large) from BookResponseCache
     @GetMapping("/{id}")
-    public ResponseEntity<Book> getBookById(@PathVariable String id) {
+    public ResponseEntity<byte[]> getBookById(@PathVariable String id,
+                                              @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
         Optional<Book> book = bookService.getBookById(id);
-        return book.map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
+        if (book.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        BookResponseCache.EncodedBook encoded = bookResponseCache.get(book.get());
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON);
+        if (encoded.gzip() == null) {
+            return response.body(encoded.json());
+        }
+        response.header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (acceptsGzip(acceptEncoding)) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(encoded.gzip());
+        }
+        return response.body(encoded.json());
+    }
+
+    // Served from memory; an unknown book or one nobody has borrowed yet gets an empty list
+    @GetMapping("/{id}/recommendations")
+    public ResponseEntity<?> getRecommendations(@PathVariable String id,
+                                                @RequestParam(defaultValue = "10") int limit) {
+        if (limit < 1 || limit > recommendationService.getMaxResults()) {
+            return ResponseEntity.badRequest().body("limit must be between 1 and " + recommendationService.getMaxResults());
+        }
+        List<BookRecommendation> recommendations = recommendationService.recommend(id, limit);
+        return ResponseEntity.ok(recommendations);
     }
 
     @PostMapping
@@ -33,13 +79,41 @@ public class BookController {
         return bookService.saveBook(book);
     }
 
+    // The body must carry the version it was read at; the save is conditional on it, so
+    // there is no separate existence check on the happy path
     @PutMapping("/{id}")
-    public ResponseEntity<Book> updateBook(@PathVariable String id, @RequestBody Book book) {
-        if (!bookService.getBookById(id).isPresent()) {
-            return ResponseEntity.notFound().build();
+    public ResponseEntity<?> updateBook(@PathVariable String id, @RequestBody Book book) {
+        if (book.getVersion() == null) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_REQUIRED).body("version is required");
         }
         book.setId(id);
-        return ResponseEntity.ok(bookService.saveBook(book));
+        try {
+            return ResponseEntity.ok(bookService.saveBook(book));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (OptimisticLockingFailureException e) {
+            if (!bookService.existsById(id)) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("Book was modified by another request; reload it and retry");
+        }
+    }
+
+    // JSON Merge Patch: only the fields present are written; null removes an optional field.
+    // An optional "version" member makes the patch conditional on it.
+    @PatchMapping(path = "/{id}", consumes = {MergePatchMapper.MEDIA_TYPE, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<?> patchBook(@PathVariable String id, @RequestBody Map<String, Object> patch) {
+        try {
+            Optional<Book> patched = bookService.patchBook(id, patch);
+            if (patched.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.ok(patched.get());
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("Book was modified by another request; reload it and retry");
+        }
     }
 
     @DeleteMapping("/{id}")
@@ -48,9 +122,47 @@ public class BookController {
             return ResponseEntity.notFound().build();
         }
         bookService.deleteBook(id);
+        inventoryService.deleteBook(id);
         return ResponseEntity.noContent().build();
     }
 
+    @GetMapping("/{id}/inventory")
+    public List<BranchInventory> getInventory(@PathVariable String id) {
+        return inventoryService.getInventory(id);
+    }
+
+    // Body: {"total": n}. Once a book has branch inventory its totalCopies/availableCopies are
+    // the sums over its branches
+    @PutMapping("/{id}/inventory/{branchId}")
+    public ResponseEntity<?> setInventory(@PathVariable String id, @PathVariable String branchId,
+                                          @RequestBody Map<String, Integer> request) {
+        Integer total = request.get("total");
+        if (total == null) {
+            return ResponseEntity.badRequest().body("total is required");
+        }
+        try {
+            return ResponseEntity.ok(inventoryService.setTotal(branchId, id, total));
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("Inventory was modified by another request; retry");
+        }
+    }
+
+    // Branches with a copy on the shelf, nearest first
+    @GetMapping("/{id}/availability/near")
+    public ResponseEntity<?> getAvailableNear(@PathVariable String id,
+                                              @RequestParam double longitude,
+                                              @RequestParam double latitude,
+                                              @RequestParam(defaultValue = "25") double maxDistanceKm,
+                                              @RequestParam(defaultValue = "10") int limit) {
+        if (Math.abs(longitude) > 180 || Math.abs(latitude) > 90 || maxDistanceKm <= 0 || limit < 1 || limit > 100) {
+            return ResponseEntity.badRequest().body("Invalid coordinates, maxDistanceKm or limit (1-100)");
+        }
+        List<BranchAvailability> branches = inventoryService.findAvailableNear(id, longitude, latitude, maxDistanceKm, limit);
+        return ResponseEntity.ok(branches);
+    }
+
     @GetMapping("/search")
     public List<Book> searchBooks(@RequestParam String query) {
         return bookService.searchBooks(query);
@@ -80,4 +192,17 @@ public class BookController {
             return ResponseEntity.badRequest().body("Failed to return book");
         }
     }
-} 
\ No newline at end of file
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length == 1 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,52 @@
+package com.library.controller;
+
+import com.library.model.Branch;
+import com.library.model.BranchInventory;
+import com.library.service.InventoryService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/branches")
+@CrossOrigin(origins = "*")
+public class BranchController {
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @GetMapping
+    public List<Branch> getAllBranches() {
+        return inventoryService.getBranches();
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<Branch> getBranchById(@PathVariable String id) {
+        return inventoryService.getBranch(id).map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
+    }
+
+    // Creates or replaces a branch. Body: name, address, longitude, latitude
+    @PutMapping("/{id}")
+    public ResponseEntity<?> saveBranch(@PathVariable String id, @RequestBody Map<String, Object> request) {
+        if (!(request.get("name") instanceof String name) || name.isBlank()
+                || !(request.get("longitude") instanceof Number longitude)
+                || !(request.get("latitude") instanceof Number latitude)) {
+            return ResponseEntity.badRequest().body("name, longitude and latitude are required");
+        }
+        if (Math.abs(longitude.doubleValue()) > 180 || Math.abs(latitude.doubleValue()) > 90) {
+            return ResponseEntity.badRequest().body("longitude must be within ±180 and latitude within ±90");
+        }
+        Object address = request.get("address");
+        Branch branch = new Branch(id, name, address != null ? address.toString() : null,
+                longitude.doubleValue(), latitude.doubleValue());
+        return ResponseEntity.ok(inventoryService.saveBranch(branch));
+    }
+
+    @GetMapping("/{id}/inventory")
+    public List<BranchInventory> getBranchStock(@PathVariable String id) {
+        return inventoryService.getBranchStock(id);
+    }
+}
@@ -0,0 +1,96 @@
+package com.library.controller;
+
+import com.library.service.CoverImageService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+@RestController
+@RequestMapping("/api/books/{id}/cover")
+@CrossOrigin(origins = "*")
+public class CoverImageController {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    @Autowired
+    private CoverImageService coverImageService;
+
+    // For cover URLs without the current version; they must pick up a re-upload quickly
+    @Value("${covers.unversioned-max-age:5m}")
+    private Duration unversionedMaxAge;
+
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> uploadCover(@PathVariable String id, @RequestParam("file") MultipartFile file) {
+        try {
+            String url = coverImageService.store(id, file);
+            return ResponseEntity.ok(Map.of("coverImageUrl", url));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IOException e) {
+            return ResponseEntity.internalServerError().body("Failed to store cover image");
+        }
+    }
+
+    @GetMapping
+    public ResponseEntity<Resource> getCover(@PathVariable String id,
+                                             @RequestParam(defaultValue = "original") String size,
+                                             @RequestParam(name = "v", required = false) Long version,
+                                             HttpServletRequest request) throws IOException {
+        Optional<Path> file = coverImageService.resolve(id, size);
+        if (file.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        Path path = file.get();
+        long length = Files.size(path);
+        long lastModified = Files.getLastModifiedTime(path).toMillis();
+        String etag = "\"" + Long.toHexString(lastModified) + "-" + Long.toHexString(length) + "\"";
+
+        if (new ServletWebRequest(request).checkNotModified(etag, lastModified)) {
+            return ResponseEntity.status(304).build();
+        }
+
+        // Only the URL of the current version is immutable; anything else (no v, an old v) is
+        // cached briefly and revalidated with the ETag, so a re-upload shows up within max-age
+        HttpHeaders headers = new HttpHeaders();
+        boolean current = version != null && coverImageService.currentVersion(id).filter(version::equals).isPresent();
+        headers.setCacheControl(current
+                ? CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable()
+                : CacheControl.maxAge(unversionedMaxAge).cachePublic().mustRevalidate());
+        headers.setContentType(MediaTypeFactory.getMediaType(path.getFileName().toString())
+                .orElse(MediaType.APPLICATION_OCTET_STREAM));
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        // Whole-file responses go out through Tomcat's sendfile (zero-copy from the page cache)
+        if (request.getHeader(HttpHeaders.RANGE) == null && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, path.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, length);
+            headers.setContentLength(length);
+            return ResponseEntity.ok().headers(headers).build();
+        }
+
+        // Range requests (and connectors without sendfile) are streamed as ResourceRegions by Spring MVC
+        return ResponseEntity.ok().headers(headers).body(new FileSystemResource(path));
+    }
+}
@@ -0,0 +1,54 @@
+package com.library.controller;
+
+import com.library.model.User;
+import com.library.service.CatalogEventBus;
+import com.library.service.JwtService;
+import com.library.service.UserService;
+import io.jsonwebtoken.Claims;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/api/events")
+@CrossOrigin(origins = "*")
+public class EventController {
+
+    @Autowired
+    private CatalogEventBus catalogEventBus;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private UserService userService;
+
+    @GetMapping(value = "/books/{id}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeToBook(@PathVariable String id) {
+        return catalogEventBus.subscribe(List.of(id));
+    }
+
+    @GetMapping(value = "/books", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeToBooks(@RequestParam List<String> ids) {
+        return catalogEventBus.subscribe(ids);
+    }
+
+    // Status changes of the caller's own reservations
+    @GetMapping(value = "/reservations", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> subscribeToOwnReservations(
+            @RequestHeader(value = "Authorization", required = false) String token) {
+        if (token == null || !token.startsWith("Bearer ")) {
+            return ResponseEntity.status(401).build();
+        }
+        Optional<User> user = jwtService.authenticate(token.substring(7))
+                .map(Claims::getSubject)
+                .flatMap(userService::findByUsername);
+        return user.map(u -> ResponseEntity.ok(catalogEventBus.subscribeUser(u.getId())))
+                .orElseGet(() -> ResponseEntity.status(401).build());
+    }
+}
@@ -0,0 +1,66 @@
+package com.library.controller;
+
+import com.library.service.ExportService;
+import jakarta.servlet.http.HttpServletResponse;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/export")
+@CrossOrigin(origins = "*")
+public class ExportController {
+
+    private static final Logger log = LoggerFactory.getLogger(ExportController.class);
+
+    @Autowired
+    private ExportService exportService;
+
+    // Written on the request thread straight to the response, so there's no async timeout
+    // and nothing is buffered beyond the writer. A cut-off download resumes with ?after=<last id>.
+    @GetMapping("/{dataset}")
+    public void export(@PathVariable String dataset,
+                       @RequestParam(defaultValue = "csv") String format,
+                       @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                       @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                       @RequestParam(required = false) List<String> status,
+                       @RequestParam(required = false) String after,
+                       HttpServletResponse response) throws IOException {
+        ExportService.Dataset target;
+        Document filter;
+        try {
+            if (!"csv".equalsIgnoreCase(format)) {
+                throw new IllegalArgumentException("Only format=csv is supported");
+            }
+            target = ExportService.Dataset.parse(dataset);
+            filter = exportService.filter(target, from, to, status, after);
+        } catch (IllegalArgumentException e) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            response.setContentType("text/plain;charset=UTF-8");
+            response.getWriter().write(e.getMessage());
+            return;
+        }
+
+        response.setContentType("text/csv;charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + target.fileName() + "\"");
+        Writer out = new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8), 1 << 16);
+        try {
+            long rows = exportService.export(target, filter, after == null, out);
+            log.info("Exported {} {} rows", rows, dataset);
+        } catch (IOException e) {
+            log.info("Export of {} aborted by the client: {}", dataset, e.getMessage());
+        }
+    }
+}
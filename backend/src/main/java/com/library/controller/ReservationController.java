@@ -1,8 +1,19 @@
 package com.library.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.model.CheckInResult;
+import com.library.model.IdempotencyRecord;
 import com.library.model.Reservation;
+import com.library.service.IdempotencyService;
 import com.library.service.ReservationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -14,53 +25,121 @@ import java.util.Optional;
 @RequestMapping("/api/reservations")
 @CrossOrigin(origins = "*")
 public class ReservationController {
+
+    private static final Logger log = LoggerFactory.getLogger(ReservationController.class);
     
     @Autowired
     private ReservationService reservationService;
 
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${check-in.max-batch-size:1000}")
+    private int maxCheckInBatchSize;
+
     @GetMapping
     public List<Reservation> getAllReservations() {
         return reservationService.getAllReservations();
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Reservation> getReservationById(@PathVariable String id) {
-        Optional<Reservation> reservation = reservationService.getReservationById(id);
+    public ResponseEntity<Reservation> getReservationById(@PathVariable String id,
+                                                          @RequestParam(required = false) String userId) {
+        Optional<Reservation> reservation = reservationService.getReservationById(id, userId);
         return reservation.map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
     }
 
     @PostMapping
-    public ResponseEntity<?> createReservation(@RequestBody Map<String, String> request) {
+    public ResponseEntity<?> createReservation(@RequestBody Map<String, String> request,
+                                               @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        String userId = request.get("userId");
+        String bookId = request.get("bookId");
+        String branchId = request.get("branchId");
+
+        if (userId == null || bookId == null) {
+            return ResponseEntity.badRequest().body("userId and bookId are required");
+        }
+        if (idempotencyKey == null) {
+            return doCreateReservation(userId, bookId, branchId);
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > 255) {
+            return ResponseEntity.badRequest().body("Idempotency-Key must be 1-255 characters");
+        }
+
+        String scopedKey = "reservations:" + idempotencyKey;
+        String fingerprint = userId + ":" + bookId + (branchId != null ? ":" + branchId : "");
+        Optional<IdempotencyRecord> existing = idempotencyService.claim(scopedKey, fingerprint);
+        if (existing.isPresent()) {
+            return replay(existing.get(), fingerprint);
+        }
+
+        ResponseEntity<?> response = doCreateReservation(userId, bookId, branchId);
+        if (response.getStatusCode().is5xxServerError()) {
+            idempotencyService.abandon(scopedKey);
+            return response;
+        }
         try {
-            String userId = request.get("userId");
-            String bookId = request.get("bookId");
-            
-            if (userId == null || bookId == null) {
-                return ResponseEntity.badRequest().body("userId and bookId are required");
-            }
-            
-            Reservation reservation = reservationService.createReservation(userId, bookId);
+            Object body = response.getBody();
+            boolean plainText = body instanceof String;
+            idempotencyService.complete(scopedKey, response.getStatusCode().value(),
+                    plainText ? MediaType.TEXT_PLAIN_VALUE : MediaType.APPLICATION_JSON_VALUE,
+                    plainText ? (String) body : objectMapper.writeValueAsString(body));
+        } catch (JsonProcessingException e) {
+            idempotencyService.abandon(scopedKey);
+        }
+        return response;
+    }
+
+    private ResponseEntity<?> doCreateReservation(String userId, String bookId, String branchId) {
+        try {
+            Reservation reservation = reservationService.createReservation(userId, bookId, branchId);
             return ResponseEntity.ok(reservation);
-        } catch (Exception e) {
+        } catch (IllegalStateException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            // Never echo driver or server details to the client
+            log.error("Failed to create reservation for user {} and book {}", userId, bookId, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Reservation could not be created; retry");
+        }
+    }
+
+    private ResponseEntity<?> replay(IdempotencyRecord record, String fingerprint) {
+        if (!fingerprint.equals(record.getFingerprint())) {
+            return ResponseEntity.unprocessableEntity().body("Idempotency-Key was already used for a different request");
+        }
+        if (!record.isCompleted()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("A request with this Idempotency-Key is still in progress");
         }
+        return ResponseEntity.status(record.getResponseStatus())
+                .contentType(MediaType.parseMediaType(record.getResponseContentType()))
+                .header("Idempotent-Replayed", "true")
+                .body(record.getResponseBody());
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<Reservation> updateReservation(@PathVariable String id, @RequestBody Reservation reservation) {
-        if (!reservationService.getReservationById(id).isPresent()) {
-            return ResponseEntity.notFound().build();
+    public ResponseEntity<?> updateReservation(@PathVariable String id, @RequestBody Reservation reservation) {
+        if (reservation.getVersion() == null) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_REQUIRED).body("version is required");
         }
         reservation.setId(id);
-        return ResponseEntity.ok(reservationService.saveReservation(reservation));
+        try {
+            return ResponseEntity.ok(reservationService.saveReservation(reservation));
+        } catch (OptimisticLockingFailureException e) {
+            if (!reservationService.existsById(id)) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("Reservation was modified by another request; reload it and retry");
+        }
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteReservation(@PathVariable String id) {
-        if (!reservationService.getReservationById(id).isPresent()) {
+    public ResponseEntity<Void> deleteReservation(@PathVariable String id, @RequestParam(required = false) String userId) {
+        if (!reservationService.deleteReservation(id, userId)) {
             return ResponseEntity.notFound().build();
         }
-        reservationService.deleteReservation(id);
         return ResponseEntity.noContent().build();
     }
 
@@ -80,8 +159,8 @@ public class ReservationController {
     }
 
     @PostMapping("/{id}/return")
-    public ResponseEntity<String> returnBook(@PathVariable String id) {
-        boolean success = reservationService.returnBook(id);
+    public ResponseEntity<String> returnBook(@PathVariable String id, @RequestParam(required = false) String userId) {
+        boolean success = reservationService.returnBook(id, userId);
         if (success) {
             return ResponseEntity.ok("Book returned successfully");
         } else {
@@ -89,9 +168,23 @@ public class ReservationController {
         }
     }
 
+    @PostMapping("/check-in")
+    public ResponseEntity<?> checkIn(@RequestBody Map<String, List<String>> request) {
+        List<String> reservationIds = request.getOrDefault("reservationIds", List.of());
+        List<String> isbns = request.getOrDefault("isbns", List.of());
+        if (reservationIds.isEmpty() && isbns.isEmpty()) {
+            return ResponseEntity.badRequest().body("reservationIds or isbns are required");
+        }
+        if (reservationIds.size() + isbns.size() > maxCheckInBatchSize) {
+            return ResponseEntity.badRequest().body("At most " + maxCheckInBatchSize + " items per check-in");
+        }
+        List<CheckInResult> results = reservationService.checkIn(reservationIds, isbns);
+        return ResponseEntity.ok(results);
+    }
+
     @PostMapping("/{id}/cancel")
-    public ResponseEntity<String> cancelReservation(@PathVariable String id) {
-        boolean success = reservationService.cancelReservation(id);
+    public ResponseEntity<String> cancelReservation(@PathVariable String id, @RequestParam(required = false) String userId) {
+        boolean success = reservationService.cancelReservation(id, userId);
         if (success) {
             return ResponseEntity.ok("Reservation cancelled successfully");
         } else {
@@ -1,12 +1,20 @@
 package com.library.controller;
 
+import com.library.model.FineBalance;
 import com.library.model.User;
+import com.library.service.FineService;
+import com.library.service.MergePatchMapper;
 import com.library.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @RestController
@@ -17,6 +25,9 @@ public class UserController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private FineService fineService;
+
     @GetMapping
     public List<User> getAllUsers() {
         return userService.getAllUsers();
@@ -34,12 +45,36 @@ public class UserController {
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<User> updateUser(@PathVariable String id, @RequestBody User user) {
-        if (!userService.getUserById(id).isPresent()) {
-            return ResponseEntity.notFound().build();
+    public ResponseEntity<?> updateUser(@PathVariable String id, @RequestBody User user) {
+        if (user.getVersion() == null) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_REQUIRED).body("version is required");
         }
         user.setId(id);
-        return ResponseEntity.ok(userService.saveUser(user));
+        try {
+            return ResponseEntity.ok(userService.saveUser(user));
+        } catch (OptimisticLockingFailureException e) {
+            if (!userService.existsById(id)) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("User was modified by another request; reload it and retry");
+        }
+    }
+
+    @PatchMapping(path = "/{id}", consumes = {MergePatchMapper.MEDIA_TYPE, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<?> patchUser(@PathVariable String id, @RequestBody Map<String, Object> patch) {
+        try {
+            Optional<User> patched = userService.patchUser(id, patch);
+            if (patched.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.ok(patched.get());
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (DuplicateKeyException e) {
+            return ResponseEntity.badRequest().body("Username or email already exists");
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("User was modified by another request; reload it and retry");
+        }
     }
 
     @DeleteMapping("/{id}")
@@ -62,4 +97,13 @@ public class UserController {
         Optional<User> user = userService.findByEmail(email);
         return user.map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
     }
+
+    // Outstanding late fines in cents, with the amount charged per reservation
+    @GetMapping("/{id}/fines")
+    public ResponseEntity<FineBalance> getFines(@PathVariable String id) {
+        if (!userService.existsById(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(fineService.getBalance(id));
+    }
 } 
\ No newline at end of file
@@ -2,8 +2,12 @@ package com.library.library_management_system;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
 
-@SpringBootApplication
+@SpringBootApplication(scanBasePackages = "com.library")
+@EnableMongoRepositories(basePackages = "com.library.repository")
+@EntityScan(basePackages = "com.library.model")
 public class LibraryManagementSystemApplication {
 
 	public static void main(String[] args) {
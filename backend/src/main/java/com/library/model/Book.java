@@ -3,8 +3,11 @@ package com.library.model;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.index.TextIndexed;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Sharded;
+import org.springframework.data.mongodb.core.mapping.ShardingStrategy;
 
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
@@ -14,6 +17,8 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Document(collection = "books")
+// Books are always addressed by _id on the write paths; catalog browse/search scatter by nature
+@Sharded(shardingStrategy = ShardingStrategy.HASH)
 public class Book {
 
     @Id
@@ -52,6 +57,13 @@ public class Book {
     @LastModifiedDate
     private LocalDateTime updatedAt;
 
+    // Optimistic-locking version; updates must carry the version they were based on
+    @Version
+    private Long version;
+
+    // Set once the book has branch inventory: its copy counts are then the sums over its branches
+    private boolean branchStocked;
+
     public Book() {
     }
 
@@ -180,4 +192,20 @@ public class Book {
     public void setUpdatedAt(LocalDateTime updatedAt) {
         this.updatedAt = updatedAt;
     }
-}
\ No newline at end of file
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public boolean isBranchStocked() {
+        return branchStocked;
+    }
+
+    public void setBranchStocked(boolean branchStocked) {
+        this.branchStocked = branchStocked;
+    }
+}
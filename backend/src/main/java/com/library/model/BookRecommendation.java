@@ -0,0 +1,63 @@
+package com.library.model;
+
+public class BookRecommendation {
+
+    private String bookId;
+    private String title;
+    private String author;
+    // Members who borrowed both books
+    private int coBorrowers;
+    private double score;
+
+    public BookRecommendation() {
+    }
+
+    public BookRecommendation(String bookId, String title, String author, int coBorrowers, double score) {
+        this.bookId = bookId;
+        this.title = title;
+        this.author = author;
+        this.coBorrowers = coBorrowers;
+        this.score = score;
+    }
+
+    // Getters and Setters
+    public String getBookId() {
+        return bookId;
+    }
+
+    public void setBookId(String bookId) {
+        this.bookId = bookId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getAuthor() {
+        return author;
+    }
+
+    public void setAuthor(String author) {
+        this.author = author;
+    }
+
+    public int getCoBorrowers() {
+        return coBorrowers;
+    }
+
+    public void setCoBorrowers(int coBorrowers) {
+        this.coBorrowers = coBorrowers;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public void setScore(double score) {
+        this.score = score;
+    }
+}
@@ -0,0 +1,72 @@
+package com.library.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+@Document(collection = "branches")
+public class Branch {
+
+    @Id
+    private String id;
+
+    private String name;
+
+    private String address;
+
+    // Copied onto the branch's inventory documents, where the "near me" index lives
+    private GeoJsonPoint location;
+
+    public Branch() {
+    }
+
+    public Branch(String id, String name, String address, double longitude, double latitude) {
+        this.id = id;
+        this.name = name;
+        this.address = address;
+        this.location = new GeoJsonPoint(longitude, latitude);
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    public void setAddress(String address) {
+        this.address = address;
+    }
+
+    @JsonIgnore
+    public GeoJsonPoint getLocation() {
+        return location;
+    }
+
+    public void setLocation(GeoJsonPoint location) {
+        this.location = location;
+    }
+
+    public Double getLongitude() {
+        return location != null ? location.getX() : null;
+    }
+
+    public Double getLatitude() {
+        return location != null ? location.getY() : null;
+    }
+}
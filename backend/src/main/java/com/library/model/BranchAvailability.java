@@ -0,0 +1,52 @@
+package com.library.model;
+
+public class BranchAvailability {
+
+    private String branchId;
+    private String branchName;
+    private int available;
+    private double distanceKm;
+
+    public BranchAvailability() {
+    }
+
+    public BranchAvailability(String branchId, String branchName, int available, double distanceKm) {
+        this.branchId = branchId;
+        this.branchName = branchName;
+        this.available = available;
+        this.distanceKm = distanceKm;
+    }
+
+    // Getters and Setters
+    public String getBranchId() {
+        return branchId;
+    }
+
+    public void setBranchId(String branchId) {
+        this.branchId = branchId;
+    }
+
+    public String getBranchName() {
+        return branchName;
+    }
+
+    public void setBranchName(String branchName) {
+        this.branchName = branchName;
+    }
+
+    public int getAvailable() {
+        return available;
+    }
+
+    public void setAvailable(int available) {
+        this.available = available;
+    }
+
+    public double getDistanceKm() {
+        return distanceKm;
+    }
+
+    public void setDistanceKm(double distanceKm) {
+        this.distanceKm = distanceKm;
+    }
+}
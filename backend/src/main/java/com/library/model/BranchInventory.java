@@ -0,0 +1,126 @@
+package com.library.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Sharded;
+import org.springframework.data.mongodb.core.mapping.ShardingStrategy;
+
+import java.time.Instant;
+
+// Copies of one book at one branch (_id = branchId:bookId). Reservations decrement these
+// instead of the book document, so concurrent loans of a popular title spread over one
+// document per branch; Book.availableCopies/totalCopies become sums maintained by InventoryService.
+@Document(collection = "branch_inventory")
+// A title's branches live on one shard, so "near me" and the per-book sums are single-shard
+@Sharded(shardKey = {"bookId"}, shardingStrategy = ShardingStrategy.HASH, immutableKey = true)
+// Serves "available near me": equality on bookId, distance order from the 2dsphere key,
+// available > 0 filtered in the index
+@CompoundIndex(name = "book_location_available", def = "{'bookId': 1, 'location': '2dsphere', 'available': 1}")
+public class BranchInventory {
+
+    @Id
+    private String id;
+
+    private String bookId;
+
+    @Indexed
+    private String branchId;
+
+    private String branchName;
+
+    private GeoJsonPoint location;
+
+    private int available;
+
+    private int total;
+
+    private Instant updatedAt;
+
+    public BranchInventory() {
+    }
+
+    public BranchInventory(Branch branch, String bookId, int total) {
+        this.id = id(branch.getId(), bookId);
+        this.bookId = bookId;
+        this.branchId = branch.getId();
+        this.branchName = branch.getName();
+        this.location = branch.getLocation();
+        this.available = total;
+        this.total = total;
+        this.updatedAt = Instant.now();
+    }
+
+    public static String id(String branchId, String bookId) {
+        return branchId + ":" + bookId;
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getBookId() {
+        return bookId;
+    }
+
+    public void setBookId(String bookId) {
+        this.bookId = bookId;
+    }
+
+    public String getBranchId() {
+        return branchId;
+    }
+
+    public void setBranchId(String branchId) {
+        this.branchId = branchId;
+    }
+
+    public String getBranchName() {
+        return branchName;
+    }
+
+    public void setBranchName(String branchName) {
+        this.branchName = branchName;
+    }
+
+    @JsonIgnore
+    public GeoJsonPoint getLocation() {
+        return location;
+    }
+
+    public void setLocation(GeoJsonPoint location) {
+        this.location = location;
+    }
+
+    public int getAvailable() {
+        return available;
+    }
+
+    public void setAvailable(int available) {
+        this.available = available;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public void setTotal(int total) {
+        this.total = total;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
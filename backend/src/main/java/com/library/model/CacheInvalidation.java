@@ -0,0 +1,76 @@
+package com.library.model;
+
+import java.util.List;
+
+// "Anything cached for this document older than version is stale". Deletes carry
+// DELETED so no earlier version can be cached again.
+public class CacheInvalidation {
+
+    public static final long DELETED = Long.MAX_VALUE;
+
+    private Type type;
+    private String id;
+    private long version;
+    // Secondary lookup keys (username/email) whose negative cache entries must be dropped
+    private List<String> keys;
+
+    public CacheInvalidation() {
+    }
+
+    public CacheInvalidation(Type type, String id, long version, List<String> keys) {
+        this.type = type;
+        this.id = id;
+        this.version = version;
+        this.keys = keys;
+    }
+
+    public static CacheInvalidation book(String id, Long version) {
+        return new CacheInvalidation(Type.BOOK, id, version != null ? version : 0, List.of());
+    }
+
+    public static CacheInvalidation user(User user) {
+        List<String> keys = user.getEmail() != null ? List.of(user.getUsername(), user.getEmail()) : List.of(user.getUsername());
+        return new CacheInvalidation(Type.USER, user.getId(), user.getVersion() != null ? user.getVersion() : 0, keys);
+    }
+
+    public static CacheInvalidation deleted(Type type, String id) {
+        return new CacheInvalidation(type, id, DELETED, List.of());
+    }
+
+    // Getters and Setters
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public List<String> getKeys() {
+        return keys;
+    }
+
+    public void setKeys(List<String> keys) {
+        this.keys = keys;
+    }
+
+    public enum Type {
+        BOOK, USER
+    }
+}
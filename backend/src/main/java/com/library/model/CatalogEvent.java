@@ -0,0 +1,108 @@
+package com.library.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.time.Instant;
+
+public class CatalogEvent {
+
+    private Type type;
+    private String bookId;
+    // Owner of the reservation; only used for routing, never sent to subscribers
+    @JsonIgnore
+    private String userId;
+    private String reservationId;
+    private Integer availableCopies;
+    private Reservation.ReservationStatus status;
+    private Instant timestamp;
+
+    public CatalogEvent() {
+    }
+
+    public static CatalogEvent availability(String bookId, Integer availableCopies) {
+        CatalogEvent event = new CatalogEvent();
+        event.type = Type.BOOK_AVAILABILITY;
+        event.bookId = bookId;
+        event.availableCopies = availableCopies;
+        event.timestamp = Instant.now();
+        return event;
+    }
+
+    public static CatalogEvent reservationStatus(String bookId, String userId, String reservationId,
+                                                 Reservation.ReservationStatus status) {
+        CatalogEvent event = new CatalogEvent();
+        event.type = Type.RESERVATION_STATUS;
+        event.bookId = bookId;
+        event.userId = userId;
+        event.reservationId = reservationId;
+        event.status = status;
+        event.timestamp = Instant.now();
+        return event;
+    }
+
+    // Events with the same key replace each other while waiting to be flushed
+    public String coalescingKey() {
+        return type == Type.BOOK_AVAILABILITY ? bookId : reservationId;
+    }
+
+    // Getters and Setters
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public String getBookId() {
+        return bookId;
+    }
+
+    public void setBookId(String bookId) {
+        this.bookId = bookId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public String getReservationId() {
+        return reservationId;
+    }
+
+    public void setReservationId(String reservationId) {
+        this.reservationId = reservationId;
+    }
+
+    public Integer getAvailableCopies() {
+        return availableCopies;
+    }
+
+    public void setAvailableCopies(Integer availableCopies) {
+        this.availableCopies = availableCopies;
+    }
+
+    public Reservation.ReservationStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(Reservation.ReservationStatus status) {
+        this.status = status;
+    }
+
+    public Instant getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(Instant timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public enum Type {
+        BOOK_AVAILABILITY, RESERVATION_STATUS
+    }
+}
@@ -0,0 +1,62 @@
+package com.library.model;
+
+public class CheckInResult {
+
+    // The reservation id or ISBN as submitted
+    private String reference;
+    private String reservationId;
+    private String bookId;
+    private Outcome outcome;
+
+    public CheckInResult() {
+    }
+
+    public CheckInResult(String reference, String reservationId, String bookId, Outcome outcome) {
+        this.reference = reference;
+        this.reservationId = reservationId;
+        this.bookId = bookId;
+        this.outcome = outcome;
+    }
+
+    public boolean isReturned() {
+        return outcome == Outcome.RETURNED;
+    }
+
+    // Getters and Setters
+    public String getReference() {
+        return reference;
+    }
+
+    public void setReference(String reference) {
+        this.reference = reference;
+    }
+
+    public String getReservationId() {
+        return reservationId;
+    }
+
+    public void setReservationId(String reservationId) {
+        this.reservationId = reservationId;
+    }
+
+    public String getBookId() {
+        return bookId;
+    }
+
+    public void setBookId(String bookId) {
+        this.bookId = bookId;
+    }
+
+    public Outcome getOutcome() {
+        return outcome;
+    }
+
+    public void setOutcome(Outcome outcome) {
+        this.outcome = outcome;
+    }
+
+    // Outcome enum
+    public enum Outcome {
+        RETURNED, NOT_FOUND, NOT_ACTIVE, NO_ACTIVE_RESERVATION, DUPLICATE
+    }
+}
@@ -0,0 +1,104 @@
+package com.library.model;
+
+import org.bson.types.ObjectId;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.TimeSeries;
+import org.springframework.data.mongodb.core.timeseries.Granularity;
+
+import java.time.Instant;
+
+// Append-only audit record of a reservation state change. Never updated once written.
+@Document(collection = "circulation_events")
+@TimeSeries(timeField = "timestamp", granularity = Granularity.SECONDS)
+public class CirculationEvent {
+
+    @Id
+    private String id;
+
+    private Type type;
+    private String reservationId;
+    private String userId;
+    private String bookId;
+    // API, CHECK_IN
+    private String source;
+    private Instant timestamp;
+
+    public CirculationEvent() {
+    }
+
+    public static CirculationEvent of(Type type, Reservation reservation, String source) {
+        CirculationEvent event = new CirculationEvent();
+        // Assigned here, not by the driver, so a batch retried after a lost acknowledgement
+        // repeats the same ids instead of writing rows that can't be told apart
+        event.id = new ObjectId().toHexString();
+        event.type = type;
+        event.reservationId = reservation.getId();
+        event.userId = reservation.getUserId();
+        event.bookId = reservation.getBookId();
+        event.source = source;
+        event.timestamp = Instant.now();
+        return event;
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public String getReservationId() {
+        return reservationId;
+    }
+
+    public void setReservationId(String reservationId) {
+        this.reservationId = reservationId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public String getBookId() {
+        return bookId;
+    }
+
+    public void setBookId(String bookId) {
+        this.bookId = bookId;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public void setSource(String source) {
+        this.source = source;
+    }
+
+    public Instant getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(Instant timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public enum Type {
+        RESERVED, RETURNED, CANCELLED
+    }
+}
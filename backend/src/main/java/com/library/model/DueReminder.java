@@ -0,0 +1,74 @@
+package com.library.model;
+
+import java.time.LocalDateTime;
+
+public class DueReminder {
+
+    private String reservationId;
+    private String bookId;
+    private String bookTitle;
+    private LocalDateTime expectedReturnDate;
+    private Kind kind;
+
+    public DueReminder() {
+    }
+
+    public DueReminder(String reservationId, String bookId, String bookTitle,
+                       LocalDateTime expectedReturnDate, Kind kind) {
+        this.reservationId = reservationId;
+        this.bookId = bookId;
+        this.bookTitle = bookTitle;
+        this.expectedReturnDate = expectedReturnDate;
+        this.kind = kind;
+    }
+
+    // Key of the durable "already notified" record; each kind is sent once per reservation
+    public String stateKey() {
+        return reservationId + ":" + kind;
+    }
+
+    // Getters and Setters
+    public String getReservationId() {
+        return reservationId;
+    }
+
+    public void setReservationId(String reservationId) {
+        this.reservationId = reservationId;
+    }
+
+    public String getBookId() {
+        return bookId;
+    }
+
+    public void setBookId(String bookId) {
+        this.bookId = bookId;
+    }
+
+    public String getBookTitle() {
+        return bookTitle;
+    }
+
+    public void setBookTitle(String bookTitle) {
+        this.bookTitle = bookTitle;
+    }
+
+    public LocalDateTime getExpectedReturnDate() {
+        return expectedReturnDate;
+    }
+
+    public void setExpectedReturnDate(LocalDateTime expectedReturnDate) {
+        this.expectedReturnDate = expectedReturnDate;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public void setKind(Kind kind) {
+        this.kind = kind;
+    }
+
+    public enum Kind {
+        DUE_SOON, OVERDUE
+    }
+}
@@ -0,0 +1,63 @@
+package com.library.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+// Outstanding fines per user (_id = userId). charges holds the amount already posted for
+// each reservation, so re-posting a reservation's current total only adds the difference.
+@Document(collection = "fine_balances")
+public class FineBalance {
+
+    @Id
+    private String userId;
+
+    private long balanceCents;
+
+    private Map<String, Long> charges = new HashMap<>();
+
+    private Instant updatedAt;
+
+    public FineBalance() {
+    }
+
+    public FineBalance(String userId) {
+        this.userId = userId;
+    }
+
+    // Getters and Setters
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public long getBalanceCents() {
+        return balanceCents;
+    }
+
+    public void setBalanceCents(long balanceCents) {
+        this.balanceCents = balanceCents;
+    }
+
+    public Map<String, Long> getCharges() {
+        return charges;
+    }
+
+    public void setCharges(Map<String, Long> charges) {
+        this.charges = charges;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
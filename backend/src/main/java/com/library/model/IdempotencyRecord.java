@@ -0,0 +1,117 @@
+package com.library.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+@Document(collection = "idempotency_keys")
+public class IdempotencyRecord {
+
+    // Scoped key, e.g. "reservations:<Idempotency-Key header>"; _id gives us the unique index
+    @Id
+    private String id;
+
+    private String fingerprint;
+
+    private Status status = Status.IN_PROGRESS;
+
+    private Integer responseStatus;
+
+    private String responseContentType;
+
+    private String responseBody;
+
+    @Indexed(expireAfter = "24h")
+    private Date createdAt;
+
+    // When the current owner claimed the key; an IN_PROGRESS claim older than the lease
+    // belongs to a request that died and may be taken over by a retry
+    private Date claimedAt;
+
+    // Constructors
+    public IdempotencyRecord() {
+    }
+
+    public IdempotencyRecord(String id, String fingerprint) {
+        this.id = id;
+        this.fingerprint = fingerprint;
+        this.createdAt = new Date();
+        this.claimedAt = this.createdAt;
+    }
+
+    public boolean isCompleted() {
+        return status == Status.COMPLETED;
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public void setFingerprint(String fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public Integer getResponseStatus() {
+        return responseStatus;
+    }
+
+    public void setResponseStatus(Integer responseStatus) {
+        this.responseStatus = responseStatus;
+    }
+
+    public String getResponseContentType() {
+        return responseContentType;
+    }
+
+    public void setResponseContentType(String responseContentType) {
+        this.responseContentType = responseContentType;
+    }
+
+    public String getResponseBody() {
+        return responseBody;
+    }
+
+    public void setResponseBody(String responseBody) {
+        this.responseBody = responseBody;
+    }
+
+    public Date getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Date createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Date getClaimedAt() {
+        return claimedAt;
+    }
+
+    public void setClaimedAt(Date claimedAt) {
+        this.claimedAt = claimedAt;
+    }
+
+    // Status enum
+    public enum Status {
+        IN_PROGRESS, COMPLETED
+    }
+}
@@ -0,0 +1,90 @@
+package com.library.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+// One issued refresh token, stored as the SHA-256 of the token (_id) so a leaked collection
+// can't be replayed. Tokens from the same login form a family: each refresh marks the
+// presented token used and issues the next one in the family.
+@Document(collection = "refresh_tokens")
+public class RefreshToken {
+
+    @Id
+    private String tokenHash;
+
+    private String username;
+
+    @Indexed
+    private String familyId;
+
+    private Instant createdAt;
+
+    // Set when rotated; presenting a used token again revokes the whole family
+    private Instant usedAt;
+
+    @Indexed(name = "expires_ttl", expireAfter = "0s")
+    private Instant expiresAt;
+
+    public RefreshToken() {
+    }
+
+    public RefreshToken(String tokenHash, String username, String familyId, Instant createdAt, Instant expiresAt) {
+        this.tokenHash = tokenHash;
+        this.username = username;
+        this.familyId = familyId;
+        this.createdAt = createdAt;
+        this.expiresAt = expiresAt;
+    }
+
+    // Getters and Setters
+    public String getTokenHash() {
+        return tokenHash;
+    }
+
+    public void setTokenHash(String tokenHash) {
+        this.tokenHash = tokenHash;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getFamilyId() {
+        return familyId;
+    }
+
+    public void setFamilyId(String familyId) {
+        this.familyId = familyId;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Instant getUsedAt() {
+        return usedAt;
+    }
+
+    public void setUsedAt(Instant usedAt) {
+        this.usedAt = usedAt;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
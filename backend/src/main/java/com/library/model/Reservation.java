@@ -3,13 +3,28 @@ package com.library.model;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Sharded;
+import org.springframework.data.mongodb.core.mapping.ShardingStrategy;
 
 import jakarta.validation.constraints.NotNull;
 import java.time.LocalDateTime;
 
 @Document(collection = "reservations")
+// Hashed userId spreads writes evenly and keeps a user's reservations on one shard, so the
+// per-user paths (history, active check, id + userId lookups) are single-shard
+@Sharded(shardKey = {"userId"}, shardingStrategy = ShardingStrategy.HASH, immutableKey = true)
+// At most one ACTIVE reservation per (userId, bookId)
+@CompoundIndex(name = "user_book_active", def = "{'userId': 1, 'bookId': 1}", unique = true,
+        partialFilter = "{'status': 'ACTIVE'}")
+// Supports the archival scan for old terminal-state reservations, which pages on (updatedAt, _id).
+// Replaces status_updated, which LegacyReservationIndexDrop removes from existing databases
+@CompoundIndex(name = "status_updated_id", def = "{'status': 1, 'updatedAt': 1, '_id': 1}")
+// Range scan for due-date reminders
+@CompoundIndex(name = "status_due", def = "{'status': 1, 'expectedReturnDate': 1}")
 public class Reservation {
 
     @Id
@@ -32,6 +47,12 @@ public class Reservation {
 
     private ReservationStatus status = ReservationStatus.ACTIVE;
 
+    // Branch the copy was taken from; null for books stocked only at book level
+    private String branchId;
+
+    // Late fine in cents: accrued nightly while out, final once returned
+    private Long fineCents;
+
     // Reference fields for easier querying
     private String userUsername;
     private String userFirstName;
@@ -42,6 +63,9 @@ public class Reservation {
     @LastModifiedDate
     private LocalDateTime updatedAt;
 
+    @Version
+    private Long version;
+
     // Constructors
     public Reservation() {
     }
@@ -166,6 +190,14 @@ public class Reservation {
         this.bookAuthor = bookAuthor;
     }
 
+    public String getBranchId() {
+        return branchId;
+    }
+
+    public void setBranchId(String branchId) {
+        this.branchId = branchId;
+    }
+
     public LocalDateTime getUpdatedAt() {
         return updatedAt;
     }
@@ -174,6 +206,22 @@ public class Reservation {
         this.updatedAt = updatedAt;
     }
 
+    public Long getFineCents() {
+        return fineCents;
+    }
+
+    public void setFineCents(Long fineCents) {
+        this.fineCents = fineCents;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     // Status enum
     public enum ReservationStatus {
         ACTIVE, RETURNED, CANCELLED, OVERDUE
@@ -0,0 +1,51 @@
+package com.library.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+// Deny-list entry for access tokens (_id = "jti:<token id>" or "family:<refresh family id>").
+// Entries only need to outlive the access tokens they cover, so they expire with them.
+@Document(collection = "revoked_tokens")
+public class RevokedToken {
+
+    @Id
+    private String key;
+
+    // Server time of the revocation; nodes sync incrementally from it
+    @Indexed
+    private Instant revokedAt;
+
+    @Indexed(name = "expires_ttl", expireAfter = "0s")
+    private Instant expiresAt;
+
+    public RevokedToken() {
+    }
+
+    // Getters and Setters
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public Instant getRevokedAt() {
+        return revokedAt;
+    }
+
+    public void setRevokedAt(Instant revokedAt) {
+        this.revokedAt = revokedAt;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
@@ -3,6 +3,7 @@ package com.library.model;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.security.core.GrantedAuthority;
@@ -52,6 +53,9 @@ public class User implements UserDetails {
     @LastModifiedDate
     private LocalDateTime updatedAt;
 
+    @Version
+    private Long version;
+
     // Constructors
     public User() {}
 
@@ -63,6 +67,18 @@ public class User implements UserDetails {
         this.lastName = lastName;
     }
 
+    // Independent copy, so cached users can't be changed through the instances handed out
+    public User copy() {
+        User copy = new User(username, email, password, firstName, lastName);
+        copy.id = id;
+        copy.role = role;
+        copy.enabled = enabled;
+        copy.createdAt = createdAt;
+        copy.updatedAt = updatedAt;
+        copy.version = version;
+        return copy;
+    }
+
     // UserDetails implementation
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
@@ -166,6 +182,14 @@ public class User implements UserDetails {
         this.updatedAt = updatedAt;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     // Role enum
     public enum Role {
         USER, ADMIN
@@ -0,0 +1,8 @@
+package com.library.repository;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import com.library.model.IdempotencyRecord;
+
+public interface IdempotencyRecordRepository extends MongoRepository<IdempotencyRecord, String> {
+}
@@ -5,9 +5,13 @@ import org.springframework.data.mongodb.repository.MongoRepository;
 import com.library.model.Reservation;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface ReservationRepository extends MongoRepository<Reservation, String> {
     List<Reservation> findByUserId(String userId);
+    // Carries the shard key, so it is routed to one shard instead of all of them
+    Optional<Reservation> findByIdAndUserId(String id, String userId);
     List<Reservation> findByBookId(String bookId);
     List<Reservation> findByStatus(Reservation.ReservationStatus status);
+    boolean existsByUserIdAndBookIdAndStatus(String userId, String bookId, Reservation.ReservationStatus status);
 } 
\ No newline at end of file
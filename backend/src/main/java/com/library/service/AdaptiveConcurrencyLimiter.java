@@ -0,0 +1,81 @@
+package com.library.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// AIMD concurrency limit driven by observed Mongo command latency: the limit backs off
+// multiplicatively while latency is above target and grows by one while it is below.
+@Service
+public class AdaptiveConcurrencyLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long targetLatencyNanos;
+    private final double backoffRatio;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong latencyEwmaNanos = new AtomicLong();
+    private volatile int limit;
+
+    public AdaptiveConcurrencyLimiter(@Value("${load-shedding.min-limit:8}") int minLimit,
+                                      @Value("${load-shedding.max-limit:200}") int maxLimit,
+                                      @Value("${load-shedding.initial-limit:50}") int initialLimit,
+                                      @Value("${load-shedding.target-latency-ms:50}") long targetLatencyMs,
+                                      @Value("${load-shedding.backoff-ratio:0.9}") double backoffRatio) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.targetLatencyNanos = TimeUnit.MILLISECONDS.toNanos(targetLatencyMs);
+        this.backoffRatio = backoffRatio;
+    }
+
+    public boolean tryAcquire() {
+        if (inFlight.incrementAndGet() > limit) {
+            inFlight.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    public void recordMongoLatency(long nanos) {
+        // EWMA with alpha = 1/8
+        latencyEwmaNanos.accumulateAndGet(nanos, (current, sample) ->
+                current == 0 ? sample : current + ((sample - current) >> 3));
+    }
+
+    @Scheduled(fixedDelayString = "${load-shedding.adjust-interval-ms:1000}")
+    public void adjustLimit() {
+        long latency = latencyEwmaNanos.get();
+        if (latency == 0) {
+            return;
+        }
+        int current = limit;
+        if (latency > targetLatencyNanos) {
+            limit = Math.max(minLimit, (int) (current * backoffRatio));
+        } else if (inFlight.get() * 2 >= current) {
+            // Only probe upwards while the current limit is actually being used
+            limit = Math.min(maxLimit, current + 1);
+        }
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getLatencyEwmaNanos() {
+        return latencyEwmaNanos.get();
+    }
+}
@@ -0,0 +1,78 @@
+package com.library.service;
+
+import com.library.model.Book;
+import com.library.model.CacheInvalidation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Per-node cache of Book documents by id, kept in step with other nodes through versioned
+// invalidations. A periodic version check repairs anything a missed invalidation left stale.
+// Cached instances are shared between callers and must be treated as read-only.
+@Component
+public class BookCache {
+
+    private static final Logger log = LoggerFactory.getLogger(BookCache.class);
+    private static final int RECONCILE_BATCH_SIZE = 500;
+
+    private final VersionedCache<Book> cache;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    public BookCache(@Value("${cache.books.ttl:10m}") Duration ttl,
+                     @Value("${cache.books.max-entries:50000}") int maxEntries,
+                     CacheInvalidationBus invalidationBus) {
+        this.cache = new VersionedCache<>(ttl, maxEntries);
+        invalidationBus.subscribe(invalidation -> {
+            if (invalidation.getType() == CacheInvalidation.Type.BOOK) {
+                invalidate(invalidation);
+            }
+        });
+        invalidationBus.onReset(cache::clear);
+    }
+
+    public Book get(String id) {
+        return cache.get(id);
+    }
+
+    public void put(Book book) {
+        if (book.getId() != null) {
+            cache.put(book.getId(), book, book.getVersion() != null ? book.getVersion() : 0);
+        }
+    }
+
+    public void invalidate(CacheInvalidation invalidation) {
+        cache.invalidate(invalidation.getId(), invalidation.getVersion());
+    }
+
+    @Scheduled(fixedDelayString = "${cache.reconcile-interval-ms:30000}")
+    public void reconcile() {
+        List<String> ids = cache.cachedIds();
+        int dropped = 0;
+        for (int from = 0; from < ids.size(); from += RECONCILE_BATCH_SIZE) {
+            List<String> batch = ids.subList(from, Math.min(ids.size(), from + RECONCILE_BATCH_SIZE));
+            Query query = Query.query(Criteria.where("_id").in(batch));
+            query.fields().include("version");
+            Map<String, Long> versions = new HashMap<>();
+            for (Book book : mongoTemplate.find(query, Book.class)) {
+                versions.put(book.getId(), book.getVersion() != null ? book.getVersion() : 0);
+            }
+            dropped += cache.reconcile(batch, versions);
+        }
+        if (dropped > 0) {
+            log.info("Book cache reconciliation dropped {} stale entries", dropped);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.library.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.model.Book;
+import com.library.model.CacheInvalidation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.zip.GZIPOutputStream;
+
+// Encoded GET /api/books/{id} bodies, so a hit copies bytes instead of running Jackson again.
+// Each entry is tagged with the version of the Book it was encoded from and only served for
+// that version; invalidations on the bus drop entries as soon as a newer version exists.
+@Component
+public class BookResponseCache {
+
+    private final VersionedCache<EncodedBook> cache;
+    private final ObjectMapper objectMapper;
+    private final int gzipMinBytes;
+
+    public BookResponseCache(ObjectMapper objectMapper,
+                             @Value("${cache.books.ttl:10m}") Duration ttl,
+                             @Value("${cache.book-responses.max-entries:50000}") int maxEntries,
+                             @Value("${cache.book-responses.gzip-min-bytes:1024}") int gzipMinBytes,
+                             CacheInvalidationBus invalidationBus) {
+        this.cache = new VersionedCache<>(ttl, maxEntries);
+        this.objectMapper = objectMapper;
+        this.gzipMinBytes = gzipMinBytes;
+        invalidationBus.subscribe(invalidation -> {
+            if (invalidation.getType() == CacheInvalidation.Type.BOOK) {
+                invalidate(invalidation);
+            }
+        });
+        invalidationBus.onReset(cache::clear);
+    }
+
+    public EncodedBook get(Book book) {
+        long version = book.getVersion() != null ? book.getVersion() : 0;
+        EncodedBook cached = cache.get(book.getId());
+        if (cached != null && cached.version() == version) {
+            return cached;
+        }
+        EncodedBook encoded = encode(book, version);
+        cache.put(book.getId(), encoded, version);
+        return encoded;
+    }
+
+    public void invalidate(CacheInvalidation invalidation) {
+        cache.invalidate(invalidation.getId(), invalidation.getVersion());
+    }
+
+    private EncodedBook encode(Book book, long version) {
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(book);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to encode book " + book.getId(), e);
+        }
+        // Small bodies gain little from compression and cost a header either way
+        if (gzipMinBytes < 0 || json.length < gzipMinBytes) {
+            return new EncodedBook(version, json, null);
+        }
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(json.length / 2);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new EncodedBook(version, json, compressed.toByteArray());
+    }
+
+    // gzip is null when the body is below cache.book-responses.gzip-min-bytes. The arrays are
+    // shared by every request that hits the entry and must not be modified.
+    public record EncodedBook(long version, byte[] json, byte[] gzip) {
+    }
+}
@@ -1,71 +1,320 @@
 package com.library.service;
 
+import com.library.config.MongoReadRouting;
 import com.library.model.Book;
+import com.library.model.BranchInventory;
+import com.library.model.CacheInvalidation;
+import com.library.model.CatalogEvent;
 import com.library.repository.BookRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.ComparisonOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Pattern;
 
 @Service
 public class BookService {
-    
+
+    private static final Set<String> PATCHABLE_FIELDS = Set.of(
+            "title", "author", "categories", "totalCopies", "description", "isbn", "publicationYear");
+
+    private static final String BRANCH_STOCKED = "Copies of this book are stocked per branch; change them through its branch inventory";
+
     @Autowired
     private BookRepository bookRepository;
 
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MongoReadRouting readRouting;
+
+    @Autowired
+    private CatalogEventBus catalogEventBus;
+
+    @Autowired
+    private MergePatchMapper mergePatchMapper;
+
+    @Autowired
+    private BookCache bookCache;
+
+    @Autowired
+    private BookResponseCache bookResponseCache;
+
+    @Autowired
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    @Autowired
+    private DatabaseCircuitBreaker databaseCircuitBreaker;
+
+    @Autowired
+    private CatalogSnapshotService catalogSnapshot;
+
+    // Catalog reads fall back to the local snapshot while the database is down or slow
     public List<Book> getAllBooks() {
-        return bookRepository.findAll();
+        return databaseCircuitBreaker.read(
+                () -> mongoTemplate.find(readRouting.staleTolerant(new Query()), Book.class),
+                catalogSnapshot::findAll);
     }
 
     public Optional<Book> getBookById(String id) {
-        return bookRepository.findById(id);
+        Book cached = bookCache.get(id);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        return databaseCircuitBreaker.read(() -> {
+            Optional<Book> book = bookRepository.findById(id);
+            book.ifPresent(bookCache::put);
+            return book;
+        }, () -> catalogSnapshot.findById(id));
     }
 
+    // Books with a version are updated conditionally on it; a stale or missing document
+    // surfaces as OptimisticLockingFailureException
     public Book saveBook(Book book) {
         // Set available copies to total copies if not set
         if (book.getAvailableCopies() == null) {
             book.setAvailableCopies(book.getTotalCopies());
         }
-        return bookRepository.save(book);
+        Book saved = book.getVersion() == null ? bookRepository.save(book) : replaceVersioned(book);
+        written(saved);
+        catalogEventBus.publishLocal(CatalogEvent.availability(saved.getId(), saved.getAvailableCopies()));
+        return saved;
+    }
+
+    // A branch-stocked book's copy counts are the sums over its branches and the next flush
+    // would overwrite any other value, so its replacement must repeat them. Both cases are
+    // conditional replaces; the one the body's branchStocked flag points to is tried first, so
+    // a book sent back as it was read takes one round trip. The stored flag decides, never
+    // the body's.
+    private Book replaceVersioned(Book book) {
+        long version = book.getVersion();
+        List<Boolean> attempts = book.isBranchStocked() ? List.of(true, false) : List.of(false, true);
+        for (boolean branchStocked : attempts) {
+            Criteria criteria = Criteria.where("_id").is(book.getId()).and("version").is(version);
+            if (branchStocked) {
+                criteria.and("branchStocked").is(true)
+                        .and("totalCopies").is(book.getTotalCopies())
+                        .and("availableCopies").is(book.getAvailableCopies());
+            } else {
+                criteria.and("branchStocked").ne(true);
+            }
+            book.setBranchStocked(branchStocked);
+            book.setVersion(version + 1);
+            Book saved = mongoTemplate.findAndReplace(Query.query(criteria), book,
+                    FindAndReplaceOptions.options().returnNew());
+            if (saved != null) {
+                return saved;
+            }
+        }
+        book.setVersion(version);
+        // Failure path only: tell a copy-count change from a lost race
+        if (mongoTemplate.exists(Query.query(Criteria.where("_id").is(book.getId())
+                .and("version").is(version).and("branchStocked").is(true)), Book.class)) {
+            throw new IllegalStateException(BRANCH_STOCKED);
+        }
+        throw new OptimisticLockingFailureException("Book " + book.getId() + " was modified or deleted");
+    }
+
+    // Applies a merge patch as one findAndModify touching only the patched fields. A totalCopies
+    // change shifts availableCopies by the same delta so copies on loan stay accounted for.
+    // Empty when the book doesn't exist.
+    public Optional<Book> patchBook(String id, Map<String, Object> patch) {
+        Map<String, Object> changes = mergePatchMapper.toFieldValues(Book.class, patch, PATCHABLE_FIELDS);
+        Long expectedVersion = mergePatchMapper.expectedVersion(patch);
+        // Without a client version, a lost race on totalCopies is ours to retry
+        int attempts = expectedVersion != null ? 1 : OptimisticRetry.DEFAULT_ATTEMPTS;
+        return OptimisticRetry.run(attempts, () -> {
+            Criteria criteria = Criteria.where("_id").is(id);
+            if (expectedVersion != null) {
+                criteria.and("version").is(expectedVersion);
+            }
+            Update update = mergePatchMapper.toUpdate(changes);
+            boolean copiesPatched = changes.containsKey("totalCopies");
+            Integer readTotal = null;
+            if (copiesPatched) {
+                Optional<Book> current = bookRepository.findById(id);
+                if (current.isEmpty()) {
+                    return Optional.empty();
+                }
+                if (current.get().isBranchStocked()) {
+                    throw new IllegalStateException(BRANCH_STOCKED);
+                }
+                readTotal = current.get().getTotalCopies();
+                Integer readAvailable = current.get().getAvailableCopies();
+                // Books stored without copy counts have none: count a missing total or available as 0
+                int delta = (Integer) changes.get("totalCopies") - (readTotal != null ? readTotal : 0);
+                criteria.and("totalCopies").is(readTotal);
+                if (readAvailable == null) {
+                    if (delta < 0) {
+                        throw new IllegalStateException("totalCopies cannot be lower than the number of copies on loan");
+                    }
+                    criteria.and("availableCopies").is(null);
+                    update.set("availableCopies", delta);
+                } else {
+                    if (delta < 0) {
+                        criteria.and("availableCopies").gte(-delta);
+                    }
+                    update.inc("availableCopies", delta);
+                }
+            }
+            update.inc("version", 1L).currentDate("updatedAt");
+
+            Book updated = mongoTemplate.findAndModify(Query.query(criteria), update,
+                    FindAndModifyOptions.options().returnNew(true), Book.class);
+            if (updated != null) {
+                written(updated);
+                catalogEventBus.publishLocal(CatalogEvent.availability(updated.getId(), updated.getAvailableCopies()));
+                return Optional.of(updated);
+            }
+
+            // Nothing matched; work out which guard failed
+            Optional<Book> current = bookRepository.findById(id);
+            if (current.isEmpty()) {
+                return Optional.empty();
+            }
+            if (expectedVersion != null && !expectedVersion.equals(current.get().getVersion())) {
+                throw new OptimisticLockingFailureException("Book was modified by another request");
+            }
+            if (copiesPatched && Objects.equals(readTotal, current.get().getTotalCopies())) {
+                throw new IllegalStateException("totalCopies cannot be lower than the number of copies on loan");
+            }
+            throw new OptimisticLockingFailureException("Book copies changed while patching");
+        });
+    }
+
+    public void updateCoverImageUrl(String id, String coverImageUrl) {
+        Book updated = mongoTemplate.findAndModify(Query.query(Criteria.where("_id").is(id)),
+                new Update().set("coverImageUrl", coverImageUrl).inc("version", 1L).currentDate("updatedAt"),
+                FindAndModifyOptions.options().returnNew(true), Book.class);
+        if (updated != null) {
+            written(updated);
+        }
     }
 
     public void deleteBook(String id) {
         bookRepository.deleteById(id);
+        CacheInvalidation deleted = CacheInvalidation.deleted(CacheInvalidation.Type.BOOK, id);
+        bookCache.invalidate(deleted);
+        bookResponseCache.invalidate(deleted);
+        cacheInvalidationBus.publishLocal(deleted);
     }
 
     public List<Book> searchBooks(String query) {
-        return bookRepository.findByTitleContainingIgnoreCaseOrAuthorContainingIgnoreCase(query, query);
+        Pattern pattern = Pattern.compile(Pattern.quote(query), Pattern.CASE_INSENSITIVE);
+        Query search = Query.query(new Criteria().orOperator(
+                Criteria.where("title").regex(pattern),
+                Criteria.where("author").regex(pattern)));
+        return databaseCircuitBreaker.read(
+                () -> mongoTemplate.find(readRouting.staleTolerant(search), Book.class),
+                () -> catalogSnapshot.search(query));
     }
 
     public List<Book> findByCategories(List<String> categories) {
-        return bookRepository.findByCategoriesIn(categories);
+        Query byCategories = Query.query(Criteria.where("categories").in(categories));
+        return databaseCircuitBreaker.read(
+                () -> mongoTemplate.find(readRouting.staleTolerant(byCategories), Book.class),
+                () -> catalogSnapshot.findByCategories(categories));
     }
 
-    public boolean reserveBook(String bookId) {
-        Optional<Book> bookOpt = bookRepository.findById(bookId);
-        if (bookOpt.isPresent()) {
-            Book book = bookOpt.get();
-            if (book.isAvailable()) {
-                book.reserveCopy();
-                bookRepository.save(book);
-                return true;
-            }
+    public boolean existsById(String id) {
+        return bookRepository.existsById(id);
+    }
+
+    // Whether the book's copy counts are maintained from branch inventory by InventoryService.
+    // Asks branch_inventory itself, which may be ahead of the book's branchStocked flag.
+    public boolean isBranchStocked(String id) {
+        return mongoTemplate.exists(Query.query(Criteria.where("bookId").is(id)), BranchInventory.class);
+    }
+
+    // Called before a book's first branch inventory is created, so no save can slip in between
+    // with other copy counts
+    public void markBranchStocked(String id) {
+        Book book = mongoTemplate.findAndModify(Query.query(Criteria.where("_id").is(id).and("branchStocked").ne(true)),
+                new Update().set("branchStocked", true).inc("version", 1L),
+                FindAndModifyOptions.options().returnNew(true), Book.class);
+        if (book != null) {
+            written(book);
         }
-        return false;
+    }
+
+    // Single conditional findAndModify instead of read-modify-save, so concurrent reservations
+    // and admin edits can't overwrite each other's availableCopies
+    public boolean reserveBook(String bookId) {
+        Query available = Query.query(Criteria.where("_id").is(bookId).and("availableCopies").gt(0));
+        return adjustAvailableCopies(available, -1);
     }
 
     public boolean returnBook(String bookId) {
-        Optional<Book> bookOpt = bookRepository.findById(bookId);
-        if (bookOpt.isPresent()) {
-            Book book = bookOpt.get();
-            try {
-                book.returnCopy();
-                bookRepository.save(book);
-                return true;
-            } catch (IllegalStateException e) {
-                return false;
-            }
+        Query onLoan = Query.query(Criteria.where("_id").is(bookId)
+                .andOperator(Criteria.expr(ComparisonOperators.valueOf("availableCopies").lessThan("totalCopies"))));
+        return adjustAvailableCopies(onLoan, 1);
+    }
+
+    private boolean adjustAvailableCopies(Query query, int delta) {
+        Update update = new Update().inc("availableCopies", delta).inc("version", 1L).currentDate("updatedAt");
+        Book book = mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), Book.class);
+        if (book == null) {
+            return false;
         }
-        return false;
+        written(book);
+        catalogEventBus.publishLocal(CatalogEvent.availability(book.getId(), book.getAvailableCopies()));
+        return true;
+    }
+
+    // Applies all increments in one bulk write; availableCopies is capped at totalCopies
+    public void returnCopies(Map<String, Integer> copiesByBookId) {
+        if (copiesByBookId.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Book.class);
+        copiesByBookId.forEach((bookId, copies) -> {
+            Document capped = new Document("$min", List.of(
+                    new Document("$add", List.of("$availableCopies", copies)), "$totalCopies"));
+            AggregationUpdate update = AggregationUpdate.update()
+                    .set("availableCopies").toValue(capped)
+                    .set("version").toValue(new Document("$add", List.of(new Document("$ifNull", List.of("$version", 0L)), 1L)))
+                    .set("updatedAt").toValue("$$NOW");
+            bulk.updateOne(Query.query(Criteria.where("_id").is(bookId)), update);
+        });
+        bulk.execute();
+        availabilityChanged(copiesByBookId.keySet());
+    }
+
+    // For counters changed outside this service (bulk returns, branch inventory sums)
+    public void availabilityChanged(Collection<String> bookIds) {
+        Query updated = Query.query(Criteria.where("_id").in(bookIds));
+        updated.fields().include("availableCopies").include("version");
+        for (Book book : mongoTemplate.find(updated, Book.class)) {
+            // Partial documents: invalidate only, never cache
+            CacheInvalidation invalidation = CacheInvalidation.book(book.getId(), book.getVersion());
+            bookCache.invalidate(invalidation);
+            bookResponseCache.invalidate(invalidation);
+            cacheInvalidationBus.publishLocal(invalidation);
+            catalogEventBus.publishLocal(CatalogEvent.availability(book.getId(), book.getAvailableCopies()));
+        }
+    }
+
+    // Caches the fresh copy on this node and tells the other nodes to drop older ones
+    private void written(Book book) {
+        bookCache.put(book);
+        CacheInvalidation invalidation = CacheInvalidation.book(book.getId(), book.getVersion());
+        bookResponseCache.invalidate(invalidation);
+        cacheInvalidationBus.publishLocal(invalidation);
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,86 @@
+package com.library.service;
+
+import com.library.model.CacheInvalidation;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+// Fans versioned invalidations out to this node's caches. With "change-stream" (the default),
+// every node (including the writer) learns about writes from ChangeStreamInvalidationSource.
+// The "local" transport only reaches buses in the same JVM: a single node, or tests that
+// start several application contexts side by side.
+@Service
+public class CacheInvalidationBus {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheInvalidationBus.class);
+
+    public static final String CHANGE_STREAM = "change-stream";
+    public static final String LOCAL = "local";
+
+    private final boolean changeStreams;
+    private final LocalInvalidationBroker broker;
+    private final List<Consumer<CacheInvalidation>> subscribers = new CopyOnWriteArrayList<>();
+    private final List<Runnable> resetListeners = new CopyOnWriteArrayList<>();
+
+    @Autowired
+    public CacheInvalidationBus(@Value("${cache.invalidation.transport:" + CHANGE_STREAM + "}") String transport) {
+        this(transport, LocalInvalidationBroker.shared());
+        if (!changeStreams) {
+            log.warn("cache.invalidation.transport={}: other processes will not see this node's writes; "
+                    + "run a single node or use " + CHANGE_STREAM, transport);
+        }
+    }
+
+    CacheInvalidationBus(String transport, LocalInvalidationBroker broker) {
+        if (!CHANGE_STREAM.equals(transport) && !LOCAL.equals(transport)) {
+            throw new IllegalArgumentException("Unknown cache.invalidation.transport: " + transport);
+        }
+        this.changeStreams = CHANGE_STREAM.equals(transport);
+        this.broker = broker;
+        if (!changeStreams) {
+            broker.register(this);
+        }
+    }
+
+    public void subscribe(Consumer<CacheInvalidation> subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    // Called when invalidations may have been missed (e.g. a change stream restarted)
+    public void onReset(Runnable listener) {
+        resetListeners.add(listener);
+    }
+
+    // Called by services after their own writes
+    public void publishLocal(CacheInvalidation invalidation) {
+        if (!changeStreams) {
+            broker.publish(invalidation);
+        }
+    }
+
+    public void deliver(CacheInvalidation invalidation) {
+        for (Consumer<CacheInvalidation> subscriber : subscribers) {
+            try {
+                subscriber.accept(invalidation);
+            } catch (RuntimeException e) {
+                log.warn("Cache invalidation subscriber failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    public void reset() {
+        resetListeners.forEach(Runnable::run);
+    }
+
+    @PreDestroy
+    public void close() {
+        broker.unregister(this);
+    }
+}
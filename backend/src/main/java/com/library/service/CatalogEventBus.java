@@ -0,0 +1,137 @@
+package com.library.service;
+
+import com.library.model.CatalogEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+public class CatalogEventBus {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogEventBus.class);
+
+    @Value("${events.change-streams.enabled:true}")
+    private boolean changeStreamsEnabled;
+
+    @Value("${events.sse-timeout-ms:1800000}")
+    private long sseTimeoutMs;
+
+    // bookId -> emitters subscribed to that book; these only ever see availability
+    private final Map<String, Set<SseEmitter>> subscriptions = new ConcurrentHashMap<>();
+
+    // userId -> the member's own streams, which get status changes of their reservations
+    private final Map<String, Set<SseEmitter>> userSubscriptions = new ConcurrentHashMap<>();
+
+    // Latest pending event per coalescing key, drained by flush()
+    private final Map<String, CatalogEvent> pending = new ConcurrentHashMap<>();
+
+    public SseEmitter subscribe(Collection<String> bookIds) {
+        return register(subscriptions, bookIds);
+    }
+
+    public SseEmitter subscribeUser(String userId) {
+        return register(userSubscriptions, List.of(userId));
+    }
+
+    // Called by services for in-process delivery; skipped when change streams feed the bus
+    public void publishLocal(CatalogEvent event) {
+        if (!changeStreamsEnabled) {
+            publish(event);
+        }
+    }
+
+    public void publish(CatalogEvent event) {
+        String key = routingKey(event);
+        if (key == null || !routes(event).containsKey(key)) {
+            return;
+        }
+        pending.put(event.coalescingKey(), event);
+    }
+
+    @Scheduled(fixedDelayString = "${events.coalesce-interval-ms:250}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<CatalogEvent> batch = new ArrayList<>(pending.size());
+        for (String key : pending.keySet()) {
+            CatalogEvent event = pending.remove(key);
+            if (event != null) {
+                batch.add(event);
+            }
+        }
+        for (CatalogEvent event : batch) {
+            for (SseEmitter emitter : recipients(event)) {
+                send(emitter, event);
+            }
+        }
+    }
+
+    // Reservation status is personal loan activity, so it only goes to the owner's streams,
+    // never to the unauthenticated per-book streams
+    Set<SseEmitter> recipients(CatalogEvent event) {
+        String key = routingKey(event);
+        Set<SseEmitter> emitters = key == null ? null : routes(event).get(key);
+        return emitters == null ? Set.of() : emitters;
+    }
+
+    public int getSubscriberCount(String bookId) {
+        Set<SseEmitter> emitters = subscriptions.get(bookId);
+        return emitters == null ? 0 : emitters.size();
+    }
+
+    private Map<String, Set<SseEmitter>> routes(CatalogEvent event) {
+        return event.getType() == CatalogEvent.Type.RESERVATION_STATUS ? userSubscriptions : subscriptions;
+    }
+
+    private String routingKey(CatalogEvent event) {
+        return event.getType() == CatalogEvent.Type.RESERVATION_STATUS ? event.getUserId() : event.getBookId();
+    }
+
+    private SseEmitter register(Map<String, Set<SseEmitter>> routes, Collection<String> keys) {
+        SseEmitter emitter = new SseEmitter(sseTimeoutMs);
+        for (String key : keys) {
+            routes.compute(key, (id, emitters) -> {
+                Set<SseEmitter> target = emitters != null ? emitters : ConcurrentHashMap.newKeySet();
+                target.add(emitter);
+                return target;
+            });
+        }
+        Runnable cleanup = () -> unsubscribe(routes, emitter, keys);
+        emitter.onCompletion(cleanup);
+        emitter.onTimeout(cleanup);
+        emitter.onError(e -> cleanup.run());
+        return emitter;
+    }
+
+    private void send(SseEmitter emitter, CatalogEvent event) {
+        try {
+            emitter.send(SseEmitter.event()
+                    .name(event.getType().name())
+                    .data(event));
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Dropping SSE subscriber: {}", e.getMessage());
+            emitter.completeWithError(e);
+        }
+    }
+
+    private void unsubscribe(Map<String, Set<SseEmitter>> routes, SseEmitter emitter, Collection<String> keys) {
+        for (String key : keys) {
+            routes.computeIfPresent(key, (id, emitters) -> {
+                emitters.remove(emitter);
+                return emitters.isEmpty() ? null : emitters;
+            });
+        }
+    }
+}
@@ -0,0 +1,323 @@
+package com.library.service;
+
+import com.library.model.Book;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+// Read-only copy of the books collection in a single memory-mapped file. Opening it maps the
+// file and checks a CRC; records are decoded only when a query touches them.
+//
+// Layout (big-endian):
+//   header   magic "LMSCAT1\0", int format version, int record count, long created-at epoch ms,
+//            long index offset, long CRC32 of everything after the header
+//   records  id, title, author, isbn, description, coverImageUrl as strings;
+//            short category count + strings; totalCopies, availableCopies, publicationYear as
+//            ints; version, createdAt, updatedAt as longs. Strings are an int byte length
+//            (-1 = null) + UTF-8; missing numbers are MIN_VALUE; dates are UTC epoch ms of the
+//            LocalDateTime.
+//   index    int record offsets, ordered by id for binary search
+public class CatalogSnapshot {
+
+    private static final byte[] MAGIC = "LMSCAT1\0".getBytes(StandardCharsets.US_ASCII);
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 40;
+    private static final int NULL_INT = Integer.MIN_VALUE;
+    private static final long NULL_LONG = Long.MIN_VALUE;
+
+    private final ByteBuffer buffer;
+    private final int count;
+    private final Instant createdAt;
+    private final int indexOffset;
+
+    private CatalogSnapshot(ByteBuffer buffer, int count, Instant createdAt, int indexOffset) {
+        this.buffer = buffer;
+        this.count = count;
+        this.createdAt = createdAt;
+        this.indexOffset = indexOffset;
+    }
+
+    // Writes to a temporary file next to target and moves it into place, so readers (and a
+    // crash mid-write) only ever see a complete snapshot
+    public static void write(Path target, Iterable<Book> books) throws IOException {
+        Path directory = target.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+        try {
+            CRC32 crc = new CRC32();
+            List<Map.Entry<String, Integer>> index = new ArrayList<>();
+            long indexOffset;
+            try (OutputStream file = Files.newOutputStream(temp)) {
+                file.write(new byte[HEADER_SIZE]);
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(file, crc), 1 << 16));
+                for (Book book : books) {
+                    long offset = HEADER_SIZE + (long) out.size();
+                    if (offset > Integer.MAX_VALUE || book.getId() == null) {
+                        throw new IOException(book.getId() == null ? "Book without id" : "Catalog snapshot exceeds 2 GB");
+                    }
+                    index.add(new AbstractMap.SimpleImmutableEntry<>(book.getId(), (int) offset));
+                    writeBook(out, book);
+                }
+                index.sort(Map.Entry.comparingByKey());
+                indexOffset = HEADER_SIZE + (long) out.size();
+                for (Map.Entry<String, Integer> entry : index) {
+                    out.writeInt(entry.getValue());
+                }
+                out.flush();
+            }
+            if (indexOffset + 4L * index.size() > Integer.MAX_VALUE) {
+                throw new IOException("Catalog snapshot exceeds 2 GB");
+            }
+            try (RandomAccessFile file = new RandomAccessFile(temp.toFile(), "rw")) {
+                file.write(MAGIC);
+                file.writeInt(FORMAT_VERSION);
+                file.writeInt(index.size());
+                file.writeLong(System.currentTimeMillis());
+                file.writeLong(indexOffset);
+                file.writeLong(crc.getValue());
+                file.getFD().sync();
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    public static CatalogSnapshot open(Path path) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Not a catalog snapshot: " + path);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        byte[] magic = new byte[MAGIC.length];
+        buffer.get(0, magic);
+        if (!Arrays.equals(magic, MAGIC) || buffer.getInt(8) != FORMAT_VERSION) {
+            throw new IOException("Not a catalog snapshot (or an unsupported version): " + path);
+        }
+        int count = buffer.getInt(12);
+        Instant createdAt = Instant.ofEpochMilli(buffer.getLong(16));
+        long indexOffset = buffer.getLong(24);
+        if (count < 0 || indexOffset < HEADER_SIZE || indexOffset + 4L * count != buffer.capacity()) {
+            throw new IOException("Corrupt catalog snapshot header: " + path);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(HEADER_SIZE, buffer.capacity() - HEADER_SIZE));
+        if (crc.getValue() != buffer.getLong(32)) {
+            throw new IOException("Catalog snapshot checksum mismatch: " + path);
+        }
+        return new CatalogSnapshot(buffer, count, createdAt, (int) indexOffset);
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public Optional<Book> findById(String id) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int offset = recordOffset(middle);
+            int comparison = new Cursor(offset).string().compareTo(id);
+            if (comparison == 0) {
+                return Optional.of(new Cursor(offset).book());
+            }
+            if (comparison < 0) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return Optional.empty();
+    }
+
+    public List<Book> findAll() {
+        List<Book> books = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            books.add(new Cursor(recordOffset(i)).book());
+        }
+        return books;
+    }
+
+    // Same matching as BookService.searchBooks: case-insensitive substring of title or author
+    public List<Book> search(String query) {
+        String needle = query.toLowerCase(Locale.ROOT);
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int offset = recordOffset(i);
+            Cursor cursor = new Cursor(offset);
+            cursor.skipString();
+            String title = cursor.string();
+            String author = cursor.string();
+            if ((title != null && title.toLowerCase(Locale.ROOT).contains(needle))
+                    || (author != null && author.toLowerCase(Locale.ROOT).contains(needle))) {
+                books.add(new Cursor(offset).book());
+            }
+        }
+        return books;
+    }
+
+    public List<Book> findByCategories(Collection<String> categories) {
+        Set<String> wanted = new HashSet<>(categories);
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int offset = recordOffset(i);
+            Cursor cursor = new Cursor(offset);
+            for (int field = 0; field < 6; field++) {
+                cursor.skipString();
+            }
+            int categoryCount = cursor.shortValue();
+            for (int c = 0; c < categoryCount; c++) {
+                if (wanted.contains(cursor.string())) {
+                    books.add(new Cursor(offset).book());
+                    break;
+                }
+            }
+        }
+        return books;
+    }
+
+    private int recordOffset(int position) {
+        return buffer.getInt(indexOffset + 4 * position);
+    }
+
+    private static void writeBook(DataOutputStream out, Book book) throws IOException {
+        writeString(out, book.getId());
+        writeString(out, book.getTitle());
+        writeString(out, book.getAuthor());
+        writeString(out, book.getIsbn());
+        writeString(out, book.getDescription());
+        writeString(out, book.getCoverImageUrl());
+        List<String> categories = book.getCategories() != null ? book.getCategories() : List.of();
+        out.writeShort(categories.size());
+        for (String category : categories) {
+            writeString(out, category);
+        }
+        out.writeInt(book.getTotalCopies() != null ? book.getTotalCopies() : NULL_INT);
+        out.writeInt(book.getAvailableCopies() != null ? book.getAvailableCopies() : NULL_INT);
+        out.writeInt(book.getPublicationYear() != null ? book.getPublicationYear() : NULL_INT);
+        out.writeLong(book.getVersion() != null ? book.getVersion() : NULL_LONG);
+        out.writeLong(toMillis(book.getCreatedAt()));
+        out.writeLong(toMillis(book.getUpdatedAt()));
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime != null ? dateTime.toInstant(ZoneOffset.UTC).toEpochMilli() : NULL_LONG;
+    }
+
+    // Sequential reader over one record using absolute gets, so concurrent queries can share
+    // the mapped buffer
+    private class Cursor {
+
+        private int position;
+
+        Cursor(int position) {
+            this.position = position;
+        }
+
+        String string() {
+            int length = buffer.getInt(position);
+            position += 4;
+            if (length < 0) {
+                return null;
+            }
+            byte[] bytes = new byte[length];
+            buffer.get(position, bytes);
+            position += length;
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        void skipString() {
+            int length = buffer.getInt(position);
+            position += 4 + Math.max(0, length);
+        }
+
+        int shortValue() {
+            int value = buffer.getShort(position) & 0xFFFF;
+            position += 2;
+            return value;
+        }
+
+        Integer intValue() {
+            int value = buffer.getInt(position);
+            position += 4;
+            return value == NULL_INT ? null : value;
+        }
+
+        Long longValue() {
+            long value = buffer.getLong(position);
+            position += 8;
+            return value == NULL_LONG ? null : value;
+        }
+
+        LocalDateTime dateTime() {
+            Long millis = longValue();
+            return millis == null ? null : LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneOffset.UTC);
+        }
+
+        Book book() {
+            Book book = new Book();
+            book.setId(string());
+            book.setTitle(string());
+            book.setAuthor(string());
+            book.setIsbn(string());
+            book.setDescription(string());
+            book.setCoverImageUrl(string());
+            int categoryCount = shortValue();
+            List<String> categories = new ArrayList<>(categoryCount);
+            for (int i = 0; i < categoryCount; i++) {
+                categories.add(string());
+            }
+            book.setCategories(categories);
+            book.setTotalCopies(intValue());
+            book.setAvailableCopies(intValue());
+            book.setPublicationYear(intValue());
+            book.setVersion(longValue());
+            book.setCreatedAt(dateTime());
+            book.setUpdatedAt(dateTime());
+            return book;
+        }
+    }
+}
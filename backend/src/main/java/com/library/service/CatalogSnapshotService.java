@@ -0,0 +1,99 @@
+package com.library.service;
+
+import com.library.model.Book;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Keeps the on-disk catalog snapshot fresh and answers catalog reads from it while the
+// database circuit is open. The file survives restarts, so a node that boots during an
+// outage can still serve the catalog as of its last refresh.
+@Service
+public class CatalogSnapshotService {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogSnapshotService.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private DatabaseCircuitBreaker databaseCircuitBreaker;
+
+    @Value("${snapshot.enabled:true}")
+    private boolean enabled;
+
+    @Value("${snapshot.path:data/catalog.snapshot}")
+    private Path path;
+
+    private volatile CatalogSnapshot snapshot;
+
+    @PostConstruct
+    public void load() {
+        if (!enabled || !Files.exists(path)) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            snapshot = CatalogSnapshot.open(path);
+            log.info("Loaded catalog snapshot of {} books taken at {} in {} ms", snapshot.size(),
+                    snapshot.getCreatedAt(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable catalog snapshot {}: {}", path, e.getMessage());
+        }
+    }
+
+    @Scheduled(initialDelayString = "${snapshot.initial-delay-ms:60000}",
+            fixedDelayString = "${snapshot.refresh-interval-ms:300000}")
+    public void refresh() {
+        if (!enabled || databaseCircuitBreaker.isRejecting()) {
+            return;
+        }
+        long start = System.nanoTime();
+        try (Stream<Book> books = mongoTemplate.stream(new Query(), Book.class)) {
+            CatalogSnapshot.write(path, books::iterator);
+            snapshot = CatalogSnapshot.open(path);
+            log.info("Refreshed catalog snapshot with {} books in {} ms", snapshot.size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (IOException | RuntimeException e) {
+            log.warn("Catalog snapshot refresh failed, keeping the previous one: {}", e.getMessage());
+        }
+    }
+
+    public List<Book> findAll() {
+        return current().findAll();
+    }
+
+    public Optional<Book> findById(String id) {
+        return current().findById(id);
+    }
+
+    public List<Book> search(String query) {
+        return current().search(query);
+    }
+
+    public List<Book> findByCategories(List<String> categories) {
+        return current().findByCategories(categories);
+    }
+
+    private CatalogSnapshot current() {
+        CatalogSnapshot current = snapshot;
+        if (current == null) {
+            throw new DatabaseUnavailableException("Database unavailable and no catalog snapshot is loaded");
+        }
+        return current;
+    }
+}
@@ -0,0 +1,79 @@
+package com.library.service;
+
+import com.library.model.CatalogEvent;
+import com.library.model.Reservation;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.messaging.ChangeStreamRequest;
+import org.springframework.data.mongodb.core.messaging.DefaultMessageListenerContainer;
+import org.springframework.data.mongodb.core.messaging.Message;
+import org.springframework.data.mongodb.core.messaging.MessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+// Feeds the CatalogEventBus from Mongo change streams (requires a replica set). On by default,
+// like the change-stream cache invalidation transport.
+@Component
+@ConditionalOnProperty(name = "events.change-streams.enabled", havingValue = "true", matchIfMissing = true)
+public class ChangeStreamEventSource implements SmartLifecycle {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private CatalogEventBus catalogEventBus;
+
+    private MessageListenerContainer container;
+
+    @Override
+    public void start() {
+        ChangeStreamSupport.requireReplicaSet(mongoTemplate, "events.change-streams.enabled");
+        container = new DefaultMessageListenerContainer(mongoTemplate);
+        container.register(ChangeStreamRequest.builder(this::onBookChange)
+                .collection("books")
+                .fullDocumentLookup(FullDocument.UPDATE_LOOKUP)
+                .build(), Document.class);
+        container.register(ChangeStreamRequest.builder(this::onReservationChange)
+                .collection("reservations")
+                .fullDocumentLookup(FullDocument.UPDATE_LOOKUP)
+                .build(), Document.class);
+        container.start();
+    }
+
+    @Override
+    public void stop() {
+        if (container != null) {
+            container.stop();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return container != null && container.isRunning();
+    }
+
+    private void onBookChange(Message<ChangeStreamDocument<Document>, Document> message) {
+        Document book = message.getBody();
+        if (book == null || book.get("_id") == null) {
+            return;
+        }
+        catalogEventBus.publish(CatalogEvent.availability(
+                book.get("_id").toString(), book.getInteger("availableCopies")));
+    }
+
+    private void onReservationChange(Message<ChangeStreamDocument<Document>, Document> message) {
+        Document reservation = message.getBody();
+        if (reservation == null || reservation.getString("status") == null) {
+            return;
+        }
+        catalogEventBus.publish(CatalogEvent.reservationStatus(
+                reservation.getString("bookId"),
+                reservation.getString("userId"),
+                reservation.get("_id").toString(),
+                Reservation.ReservationStatus.valueOf(reservation.getString("status"))));
+    }
+}
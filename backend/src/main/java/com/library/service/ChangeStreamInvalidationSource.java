@@ -0,0 +1,162 @@
+package com.library.service;
+
+import com.library.model.CacheInvalidation;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.messaging.ChangeStreamRequest;
+import org.springframework.data.mongodb.core.messaging.DefaultMessageListenerContainer;
+import org.springframework.data.mongodb.core.messaging.Message;
+import org.springframework.data.mongodb.core.messaging.MessageListenerContainer;
+import org.springframework.data.mongodb.core.messaging.Subscription;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Cluster-wide invalidation channel: every node watches books and users and invalidates its
+// own caches, whichever node made the write. Requires a replica set.
+@Component
+@ConditionalOnProperty(name = "cache.invalidation.transport", havingValue = CacheInvalidationBus.CHANGE_STREAM)
+public class ChangeStreamInvalidationSource implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(ChangeStreamInvalidationSource.class);
+    private static final Duration STREAM_START_TIMEOUT = Duration.ofSeconds(10);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private CacheInvalidationBus invalidationBus;
+
+    @Value("${cache.invalidation.restart-delay-ms:1000}")
+    private long restartDelayMs;
+
+    private final ScheduledExecutorService restarts = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "cache-invalidation-restart");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean restartPending = new AtomicBoolean();
+    private volatile MessageListenerContainer container;
+    private volatile boolean running;
+
+    // Streams are opened off the startup thread: waiting for them to become active must not
+    // hold up readiness. The topology check is quick and runs first, so a standalone server
+    // fails startup rather than the restart loop.
+    @Override
+    public void start() {
+        ChangeStreamSupport.requireReplicaSet(mongoTemplate, "cache.invalidation.transport=" + CacheInvalidationBus.CHANGE_STREAM);
+        running = true;
+        restarts.execute(this::listen);
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        if (container != null) {
+            container.stop();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // A failed cursor ends its subscription for good, so a stream error replaces the whole
+    // container; whatever changed in between was missed, so the caches start over
+    void onStreamError(Throwable error) {
+        if (!running || !restartPending.compareAndSet(false, true)) {
+            return;
+        }
+        log.warn("Cache invalidation change stream failed, restarting in {} ms: {}", restartDelayMs, error.getMessage());
+        restarts.schedule(() -> {
+            restartPending.set(false);
+            listen();
+        }, restartDelayMs, TimeUnit.MILLISECONDS);
+    }
+
+    // Opens the streams first and clears the caches once they are active, so no write can fall
+    // between the reset and the first change seen
+    private void listen() {
+        Subscription books;
+        Subscription users;
+        synchronized (this) {
+            if (!running) {
+                return;
+            }
+            if (container != null) {
+                container.stop();
+            }
+            try {
+                container = createContainer();
+                books = container.register(ChangeStreamRequest.builder(
+                                (Message<ChangeStreamDocument<Document>, Document> message) -> onChange(CacheInvalidation.Type.BOOK, message))
+                        .collection("books")
+                        .fullDocumentLookup(FullDocument.UPDATE_LOOKUP)
+                        .build(), Document.class);
+                users = container.register(ChangeStreamRequest.builder(
+                                (Message<ChangeStreamDocument<Document>, Document> message) -> onChange(CacheInvalidation.Type.USER, message))
+                        .collection("users")
+                        .fullDocumentLookup(FullDocument.UPDATE_LOOKUP)
+                        .build(), Document.class);
+                container.start();
+            } catch (RuntimeException e) {
+                onStreamError(e);
+                return;
+            }
+        }
+        try {
+            books.await(STREAM_START_TIMEOUT);
+            users.await(STREAM_START_TIMEOUT);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        invalidationBus.reset();
+    }
+
+    MessageListenerContainer createContainer() {
+        return new DefaultMessageListenerContainer(mongoTemplate, new SimpleAsyncTaskExecutor(), this::onStreamError);
+    }
+
+    private void onChange(CacheInvalidation.Type type, Message<ChangeStreamDocument<Document>, Document> message) {
+        ChangeStreamDocument<Document> change = message.getRaw();
+        if (change == null || change.getDocumentKey() == null) {
+            return;
+        }
+        BsonValue key = change.getDocumentKey().get("_id");
+        String id = key.isObjectId() ? key.asObjectId().getValue().toHexString() : key.asString().getValue();
+        Document document = message.getBody();
+        if (change.getOperationType() == OperationType.DELETE || document == null) {
+            // A null full document means it was deleted before the lookup ran
+            invalidationBus.deliver(CacheInvalidation.deleted(type, id));
+            return;
+        }
+        Number version = document.get("version", Number.class);
+        List<String> keys = new ArrayList<>();
+        if (type == CacheInvalidation.Type.USER) {
+            for (String field : List.of("username", "email")) {
+                if (document.getString(field) != null) {
+                    keys.add(document.getString(field));
+                }
+            }
+        }
+        invalidationBus.deliver(new CacheInvalidation(type, id, version != null ? version.longValue() : 0, keys));
+    }
+}
@@ -0,0 +1,23 @@
+package com.library.service;
+
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+// Change streams only exist on replica sets and sharded clusters. On a standalone server they
+// fail as soon as they are opened, so the change-stream features check the topology when they
+// start and stop startup with a pointer to the setting, instead of retrying forever.
+public final class ChangeStreamSupport {
+
+    private ChangeStreamSupport() {
+    }
+
+    public static void requireReplicaSet(MongoTemplate mongoTemplate, String setting) {
+        Document hello = mongoTemplate.executeCommand(new Document("hello", 1));
+        boolean replicaSet = hello.getString("setName") != null;
+        boolean mongos = "isdbgrid".equals(hello.getString("msg"));
+        if (!replicaSet && !mongos) {
+            throw new IllegalStateException(setting + " needs Mongo change streams, but spring.data.mongodb.uri points at "
+                    + "a standalone server. Connect to a replica set (a single-member one will do) or turn " + setting + " off.");
+        }
+    }
+}
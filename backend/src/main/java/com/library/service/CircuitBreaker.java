@@ -0,0 +1,104 @@
+package com.library.service;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+// Consecutive-failure circuit breaker. OPEN rejects calls for openDuration, then HALF_OPEN
+// lets one probe through at a time: a success closes the circuit, a failure re-opens it.
+// A probe that never reports back is replaced after another openDuration.
+public class CircuitBreaker {
+
+    private static final long NO_PROBE = Long.MIN_VALUE;
+
+    private final int failureThreshold;
+    private final long openNanos;
+    private final LongSupplier clock;
+
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicLong probeStartedAt = new AtomicLong(NO_PROBE);
+    private volatile State state = State.CLOSED;
+    private volatile long openedAt;
+
+    public CircuitBreaker(int failureThreshold, Duration openDuration) {
+        this(failureThreshold, openDuration, System::nanoTime);
+    }
+
+    CircuitBreaker(int failureThreshold, Duration openDuration, LongSupplier clock) {
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openDuration.toNanos();
+        this.clock = clock;
+    }
+
+    public boolean allowRequest() {
+        State current = state;
+        if (current == State.CLOSED) {
+            return true;
+        }
+        long now = clock.getAsLong();
+        if (current == State.OPEN) {
+            if (now - openedAt < openNanos) {
+                return false;
+            }
+            synchronized (this) {
+                if (state == State.OPEN) {
+                    state = State.HALF_OPEN;
+                    probeStartedAt.set(NO_PROBE);
+                }
+            }
+        }
+        long started = probeStartedAt.get();
+        if (started != NO_PROBE && now - started < openNanos) {
+            return false;
+        }
+        return probeStartedAt.compareAndSet(started, now);
+    }
+
+    public void recordSuccess() {
+        consecutiveFailures.set(0);
+        if (state == State.HALF_OPEN) {
+            synchronized (this) {
+                if (state == State.HALF_OPEN) {
+                    state = State.CLOSED;
+                    probeStartedAt.set(NO_PROBE);
+                }
+            }
+        }
+    }
+
+    public void recordFailure() {
+        State current = state;
+        if (current == State.HALF_OPEN
+                || (current == State.CLOSED && consecutiveFailures.incrementAndGet() >= failureThreshold)) {
+            trip();
+        }
+    }
+
+    // True while calls are being turned away without trying the database
+    public boolean isRejecting() {
+        return state == State.OPEN && clock.getAsLong() - openedAt < openNanos;
+    }
+
+    public long remainingOpenNanos() {
+        return state == State.OPEN ? Math.max(0, openNanos - (clock.getAsLong() - openedAt)) : 0;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    private synchronized void trip() {
+        if (state == State.OPEN) {
+            return;
+        }
+        openedAt = clock.getAsLong();
+        state = State.OPEN;
+        consecutiveFailures.set(0);
+        probeStartedAt.set(NO_PROBE);
+    }
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+}
@@ -0,0 +1,271 @@
+package com.library.service;
+
+import com.library.config.MongoReadRouting;
+import com.library.model.CirculationEvent;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.WriteConcern;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.model.InsertManyOptions;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.CollectionOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.timeseries.Granularity;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Append-only circulation audit trail, written off the request path. record() is a single
+// CAS into a bounded ring buffer; one writer thread drains it and inserts batches into the
+// circulation_events time-series collection.
+//
+// Durability: events are held in memory until their batch is acknowledged with
+// audit.write-concern, so a crash loses at most what's buffered (bounded by
+// audit.buffer-capacity and, when Mongo is healthy, about one audit.flush-interval-ms).
+// Failed inserts are retried; while Mongo is down the buffer fills and audit.overflow decides
+// whether callers drop the event ("drop") or wait up to audit.offer-timeout-ms ("wait").
+@Service
+public class CirculationAuditLog {
+
+    private static final Logger log = LoggerFactory.getLogger(CirculationAuditLog.class);
+    private static final String COLLECTION = "circulation_events";
+    private static final long MAX_RETRY_BACKOFF_MS = 5000;
+
+    private final MpscRingBuffer<CirculationEvent> buffer;
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MongoReadRouting readRouting;
+
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistry;
+
+    @Value("${audit.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${audit.flush-interval-ms:200}")
+    private long flushIntervalMs;
+
+    @Value("${audit.overflow:drop}")
+    private String overflow;
+
+    @Value("${audit.offer-timeout-ms:5}")
+    private long offerTimeoutMs;
+
+    @Value("${audit.write-concern:w1}")
+    private String writeConcernName;
+
+    @Value("${audit.retention:0d}")
+    private Duration retention;
+
+    @Value("${audit.shutdown-timeout-ms:5000}")
+    private long shutdownTimeoutMs;
+
+    private WriteConcern writeConcern;
+    private Counter droppedCounter;
+    private volatile boolean running = true;
+    private volatile boolean collectionReady;
+    private Thread writer;
+
+    public CirculationAuditLog(@Value("${audit.buffer-capacity:65536}") int bufferCapacity) {
+        this.buffer = new MpscRingBuffer<>(bufferCapacity);
+    }
+
+    @PostConstruct
+    void start() {
+        writeConcern = switch (writeConcernName.toLowerCase()) {
+            case "unacknowledged" -> WriteConcern.UNACKNOWLEDGED;
+            case "w1" -> WriteConcern.W1;
+            case "journaled" -> WriteConcern.JOURNALED;
+            case "majority" -> WriteConcern.MAJORITY;
+            default -> throw new IllegalStateException("Unknown audit.write-concern: " + writeConcernName);
+        };
+        if (!overflow.equals("drop") && !overflow.equals("wait")) {
+            throw new IllegalStateException("audit.overflow must be 'drop' or 'wait'");
+        }
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry != null) {
+            Gauge.builder("library.audit.buffer.size", buffer, MpscRingBuffer::size)
+                    .description("Circulation events waiting to be written")
+                    .register(registry);
+            Gauge.builder("library.audit.events.written", written, AtomicLong::get).register(registry);
+            droppedCounter = Counter.builder("library.audit.events.dropped")
+                    .description("Circulation events lost because the buffer was full")
+                    .register(registry);
+        }
+        writer = new Thread(this::runWriter, "audit-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public void record(CirculationEvent event) {
+        if (buffer.offer(event)) {
+            return;
+        }
+        LockSupport.unpark(writer);
+        if (overflow.equals("wait")) {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(offerTimeoutMs);
+            while (System.nanoTime() - deadline < 0) {
+                LockSupport.parkNanos(50_000);
+                if (buffer.offer(event)) {
+                    return;
+                }
+            }
+        }
+        if (dropped.incrementAndGet() % 1000 == 1) {
+            log.warn("Audit buffer full, {} circulation events dropped so far", dropped.get());
+        }
+        if (droppedCounter != null) {
+            droppedCounter.increment();
+        }
+    }
+
+    // Newest first. Audit reads tolerate lag, so they may go to secondaries.
+    public List<CirculationEvent> find(String userId, String bookId, Instant from, Instant to, int limit) {
+        Criteria criteria = new Criteria();
+        if (userId != null) {
+            criteria.and("userId").is(userId);
+        }
+        if (bookId != null) {
+            criteria.and("bookId").is(bookId);
+        }
+        if (from != null || to != null) {
+            Criteria timestamp = criteria.and("timestamp");
+            if (from != null) {
+                timestamp.gte(from);
+            }
+            if (to != null) {
+                timestamp.lt(to);
+            }
+        }
+        Query query = Query.query(criteria).with(Sort.by(Sort.Direction.DESC, "timestamp")).limit(limit);
+        return mongoTemplate.find(readRouting.staleTolerant(query), CirculationEvent.class);
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(writer);
+        writer.join(shutdownTimeoutMs);
+        if (!buffer.isEmpty()) {
+            log.warn("Shut down with {} circulation events unwritten", buffer.size());
+        }
+    }
+
+    private void runWriter() {
+        List<CirculationEvent> batch = new ArrayList<>(batchSize);
+        long backoffMs = flushIntervalMs;
+        while (running || !buffer.isEmpty() || !batch.isEmpty()) {
+            if (batch.isEmpty()) {
+                buffer.drainTo(batch, batchSize);
+            }
+            if (batch.isEmpty()) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(flushIntervalMs));
+                continue;
+            }
+            String failure;
+            try {
+                List<CirculationEvent> failed = insert(batch);
+                written.addAndGet(batch.size() - failed.size());
+                batch.clear();
+                if (failed.isEmpty()) {
+                    backoffMs = flushIntervalMs;
+                    if (buffer.size() < batchSize && running) {
+                        // Let the next batch fill up instead of inserting a few events at a time
+                        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(flushIntervalMs));
+                    }
+                    continue;
+                }
+                batch.addAll(failed);
+                failure = failed.size() + " events rejected";
+            } catch (RuntimeException e) {
+                failure = e.getMessage();
+            }
+            if (!running) {
+                log.error("Dropping {} circulation events on shutdown: {}", batch.size(), failure);
+                return;
+            }
+            // Keep the unwritten events and retry; new events wait in the buffer meanwhile
+            log.warn("Audit batch insert failed, retrying {} events in {} ms: {}", batch.size(), backoffMs, failure);
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(backoffMs));
+            backoffMs = Math.min(MAX_RETRY_BACKOFF_MS, backoffMs * 2);
+        }
+    }
+
+    // Returns the events that were not written. An unordered insert writes every document that
+    // isn't listed as a write error, and the time-series collection doesn't enforce _id
+    // uniqueness, so only the listed ones may be retried.
+    List<CirculationEvent> insert(List<CirculationEvent> batch) {
+        ensureCollection();
+        List<Document> documents = new ArrayList<>(batch.size());
+        for (CirculationEvent event : batch) {
+            Document document = new Document();
+            mongoTemplate.getConverter().write(event, document);
+            documents.add(document);
+        }
+        try {
+            mongoTemplate.getCollection(COLLECTION)
+                    .withWriteConcern(writeConcern)
+                    .insertMany(documents, new InsertManyOptions().ordered(false));
+            return List.of();
+        } catch (MongoBulkWriteException e) {
+            if (e.getWriteErrors().isEmpty()) {
+                // Only the write concern wasn't met: the documents are written
+                log.warn("Audit batch written without its write concern: {}", e.getWriteConcernError());
+                return List.of();
+            }
+            List<CirculationEvent> failed = new ArrayList<>(e.getWriteErrors().size());
+            for (BulkWriteError error : e.getWriteErrors()) {
+                failed.add(batch.get(error.getIndex()));
+            }
+            return failed;
+        }
+    }
+
+    // Inserting into a missing collection would create a regular one, so the time-series
+    // collection and its query indexes are created before the first insert
+    private void ensureCollection() {
+        if (collectionReady) {
+            return;
+        }
+        if (!mongoTemplate.collectionExists(COLLECTION)) {
+            CollectionOptions options = CollectionOptions.timeSeries("timestamp", timeSeries -> {
+                timeSeries = timeSeries.granularity(Granularity.SECONDS);
+                return retention.isZero() ? timeSeries : timeSeries.expireAfter(retention);
+            });
+            mongoTemplate.createCollection(COLLECTION, options);
+        }
+        mongoTemplate.indexOps(COLLECTION).createIndex(new Index()
+                .on("userId", Sort.Direction.ASC).on("timestamp", Sort.Direction.DESC).named("user_time"));
+        mongoTemplate.indexOps(COLLECTION).createIndex(new Index()
+                .on("bookId", Sort.Direction.ASC).on("timestamp", Sort.Direction.DESC).named("book_time"));
+        collectionReady = true;
+    }
+}
@@ -0,0 +1,304 @@
+package com.library.service;
+
+import com.library.model.BookRecommendation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Item-to-item co-occurrence model: for every book, how many members also borrowed each
+// other book. Book and user ids are interned to dense ints; each book's row is an
+// IntCountMap of other book -> co-borrower count. Scores are cosine-normalised by each
+// book's borrower count so bestsellers don't top every list.
+//
+// Reads take the read lock; recordLoan takes the write lock for a few microseconds.
+public class CoBorrowIndex {
+
+    private final Map<String, Integer> bookIndex;
+    private final List<String> bookIds;
+    private final List<String> titles;
+    private final List<String> authors;
+    private final List<IntCountMap> rows;
+    private int[] borrowers;
+
+    private final Map<String, Integer> userIndex;
+    // Sorted distinct book indexes per user
+    private final List<int[]> userBooks;
+
+    private final int maxLoansPerUser;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private CoBorrowIndex(Builder builder, List<IntCountMap> rows, int[] borrowers, List<int[]> userBooks) {
+        this.bookIndex = builder.bookIndex;
+        this.bookIds = builder.bookIds;
+        this.titles = builder.titles;
+        this.authors = builder.authors;
+        this.userIndex = builder.userIndex;
+        this.maxLoansPerUser = builder.maxLoansPerUser;
+        this.rows = rows;
+        this.borrowers = borrowers;
+        this.userBooks = userBooks;
+    }
+
+    public static CoBorrowIndex empty(int maxLoansPerUser) {
+        return new Builder(maxLoansPerUser).build(ForkJoinPool.commonPool());
+    }
+
+    // Adds one loan; returns the ids of books whose recommendations changed (empty when the
+    // member had already borrowed this book)
+    public List<String> recordLoan(String userId, String bookId, String title, String author) {
+        lock.writeLock().lock();
+        try {
+            int book = bookIndex.computeIfAbsent(bookId, id -> {
+                bookIds.add(id);
+                titles.add(title);
+                authors.add(author);
+                rows.add(new IntCountMap());
+                if (bookIds.size() > borrowers.length) {
+                    borrowers = Arrays.copyOf(borrowers, Math.max(16, borrowers.length * 2));
+                }
+                return bookIds.size() - 1;
+            });
+            int user = userIndex.computeIfAbsent(userId, id -> {
+                userBooks.add(new int[0]);
+                return userBooks.size() - 1;
+            });
+            int[] books = userBooks.get(user);
+            int position = Arrays.binarySearch(books, book);
+            if (position >= 0) {
+                return List.of();
+            }
+            int insertAt = -position - 1;
+            int[] updated = new int[books.length + 1];
+            System.arraycopy(books, 0, updated, 0, insertAt);
+            updated[insertAt] = book;
+            System.arraycopy(books, insertAt, updated, insertAt + 1, books.length - insertAt);
+            userBooks.set(user, updated);
+            borrowers[book]++;
+
+            List<String> affected = new ArrayList<>();
+            affected.add(bookId);
+            if (books.length < maxLoansPerUser) {
+                for (int other : books) {
+                    rows.get(book).add(other, 1);
+                    rows.get(other).add(book, 1);
+                    affected.add(bookIds.get(other));
+                }
+            }
+            return affected;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<BookRecommendation> topK(String bookId, int k, int minCoBorrowers) {
+        lock.readLock().lock();
+        try {
+            Integer book = bookIndex.get(bookId);
+            if (book == null || k <= 0) {
+                return List.of();
+            }
+            // Insertion into a small sorted buffer; k is tens while rows can be thousands long
+            int[] bestBooks = new int[k];
+            int[] bestCounts = new int[k];
+            double[] bestScores = new double[k];
+            int[] found = new int[1];
+            double ownBorrowers = borrowers[book];
+            rows.get(book).forEach((other, count) -> {
+                if (count < minCoBorrowers) {
+                    return;
+                }
+                double score = count / Math.sqrt(ownBorrowers * borrowers[other]);
+                int n = found[0];
+                if (n == k && !ranksAbove(score, count, other, bestScores[k - 1], bestCounts[k - 1], bestBooks[k - 1])) {
+                    return;
+                }
+                int i = n == k ? k - 1 : n;
+                while (i > 0 && ranksAbove(score, count, other, bestScores[i - 1], bestCounts[i - 1], bestBooks[i - 1])) {
+                    bestBooks[i] = bestBooks[i - 1];
+                    bestCounts[i] = bestCounts[i - 1];
+                    bestScores[i] = bestScores[i - 1];
+                    i--;
+                }
+                bestBooks[i] = other;
+                bestCounts[i] = count;
+                bestScores[i] = score;
+                found[0] = Math.min(k, n + 1);
+            });
+            List<BookRecommendation> recommendations = new ArrayList<>(found[0]);
+            for (int i = 0; i < found[0]; i++) {
+                int other = bestBooks[i];
+                recommendations.add(new BookRecommendation(bookIds.get(other), titles.get(other), authors.get(other),
+                        bestCounts[i], bestScores[i]));
+            }
+            return recommendations;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int bookCount() {
+        lock.readLock().lock();
+        try {
+            return bookIds.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static boolean ranksAbove(double score, int count, int book, double otherScore, int otherCount, int otherBook) {
+        if (score != otherScore) {
+            return score > otherScore;
+        }
+        if (count != otherCount) {
+            return count > otherCount;
+        }
+        return book < otherBook;
+    }
+
+    // Collects (user, book) loans, then builds every row in parallel
+    public static class Builder {
+
+        private final Map<String, Integer> bookIndex = new HashMap<>();
+        private final List<String> bookIds = new ArrayList<>();
+        private final List<String> titles = new ArrayList<>();
+        private final List<String> authors = new ArrayList<>();
+        private final Map<String, Integer> userIndex = new HashMap<>();
+        private final int maxLoansPerUser;
+
+        private int[] loanUsers = new int[1024];
+        private int[] loanBooks = new int[1024];
+        private int loans;
+
+        public Builder(int maxLoansPerUser) {
+            this.maxLoansPerUser = maxLoansPerUser;
+        }
+
+        public Builder add(String userId, String bookId, String title, String author) {
+            int book = bookIndex.computeIfAbsent(bookId, id -> {
+                bookIds.add(id);
+                titles.add(title);
+                authors.add(author);
+                return bookIds.size() - 1;
+            });
+            int user = userIndex.computeIfAbsent(userId, id -> userIndex.size());
+            if (loans == loanUsers.length) {
+                loanUsers = Arrays.copyOf(loanUsers, loans * 2);
+                loanBooks = Arrays.copyOf(loanBooks, loans * 2);
+            }
+            loanUsers[loans] = user;
+            loanBooks[loans] = book;
+            loans++;
+            return this;
+        }
+
+        public CoBorrowIndex build(ForkJoinPool pool) {
+            int bookCount = bookIds.size();
+            int[][] booksByUser = groupDistinct(loanUsers, loanBooks, loans, userIndex.size());
+            loanUsers = null;
+            loanBooks = null;
+
+            // Inverted lists, leaving out heavy users (staff or test accounts) whose n^2 pairs
+            // would dominate the build without saying much about taste
+            int[] inverseUsers = new int[booksByUser.length];
+            int[] inverseBooks = new int[booksByUser.length];
+            int pairs = 0;
+            int[] borrowers = new int[Math.max(16, bookCount)];
+            for (int user = 0; user < booksByUser.length; user++) {
+                for (int book : booksByUser[user]) {
+                    borrowers[book]++;
+                    if (booksByUser[user].length <= maxLoansPerUser) {
+                        if (pairs == inverseUsers.length) {
+                            inverseUsers = Arrays.copyOf(inverseUsers, Math.max(16, pairs * 2));
+                            inverseBooks = Arrays.copyOf(inverseBooks, Math.max(16, pairs * 2));
+                        }
+                        inverseUsers[pairs] = user;
+                        inverseBooks[pairs] = book;
+                        pairs++;
+                    }
+                }
+            }
+            int[][] usersByBook = groupDistinct(inverseBooks, inverseUsers, pairs, bookCount);
+
+            IntCountMap[] rows = new IntCountMap[bookCount];
+            pool.invoke(new RowTask(rows, usersByBook, booksByUser, 0, bookCount));
+            return new CoBorrowIndex(this, new ArrayList<>(Arrays.asList(rows)), borrowers,
+                    new ArrayList<>(Arrays.asList(booksByUser)));
+        }
+
+        // Counting sort of (group, value) pairs into sorted, de-duplicated arrays per group
+        private static int[][] groupDistinct(int[] groups, int[] values, int size, int groupCount) {
+            int[] offsets = new int[groupCount + 1];
+            for (int i = 0; i < size; i++) {
+                offsets[groups[i] + 1]++;
+            }
+            for (int g = 0; g < groupCount; g++) {
+                offsets[g + 1] += offsets[g];
+            }
+            int[] sorted = new int[size];
+            int[] cursor = Arrays.copyOf(offsets, groupCount);
+            for (int i = 0; i < size; i++) {
+                sorted[cursor[groups[i]]++] = values[i];
+            }
+            int[][] grouped = new int[groupCount][];
+            for (int g = 0; g < groupCount; g++) {
+                int[] segment = Arrays.copyOfRange(sorted, offsets[g], offsets[g + 1]);
+                Arrays.sort(segment);
+                int distinct = 0;
+                for (int i = 0; i < segment.length; i++) {
+                    if (i == 0 || segment[i] != segment[i - 1]) {
+                        segment[distinct++] = segment[i];
+                    }
+                }
+                grouped[g] = distinct == segment.length ? segment : Arrays.copyOf(segment, distinct);
+            }
+            return grouped;
+        }
+    }
+
+    // Each task owns a range of rows, so workers never write to the same map
+    private static class RowTask extends RecursiveAction {
+
+        private static final int THRESHOLD = 256;
+
+        private final IntCountMap[] rows;
+        private final int[][] usersByBook;
+        private final int[][] booksByUser;
+        private final int from;
+        private final int to;
+
+        RowTask(IntCountMap[] rows, int[][] usersByBook, int[][] booksByUser, int from, int to) {
+            this.rows = rows;
+            this.usersByBook = usersByBook;
+            this.booksByUser = booksByUser;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > THRESHOLD) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new RowTask(rows, usersByBook, booksByUser, from, middle),
+                        new RowTask(rows, usersByBook, booksByUser, middle, to));
+                return;
+            }
+            for (int book = from; book < to; book++) {
+                IntCountMap row = new IntCountMap(usersByBook[book].length * 4);
+                for (int user : usersByBook[book]) {
+                    for (int other : booksByUser[user]) {
+                        if (other != book) {
+                            row.add(other, 1);
+                        }
+                    }
+                }
+                rows[book] = row;
+            }
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.library.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+// Stores covers on the local filesystem as <storage-dir>/<bookId>/original.<ext> plus
+// thumb-<width>.jpg variants generated once at upload time. The cover's version (the v
+// parameter of its URL) is the original's modification time in millis.
+@Service
+public class CoverImageService {
+
+    private static final Pattern SAFE_ID = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+    private static final Map<String, String> EXTENSIONS = Map.of(
+            MediaType.IMAGE_JPEG_VALUE, "jpg",
+            MediaType.IMAGE_PNG_VALUE, "png");
+
+    @Autowired
+    private BookService bookService;
+
+    @Value("${covers.storage-dir:data/covers}")
+    private Path storageDir;
+
+    @Value("${covers.thumbnail-widths:200,400}")
+    private List<Integer> thumbnailWidths;
+
+    // Checked against the image header before decoding, so a small file that expands to a huge
+    // bitmap (a decompression bomb) is rejected without allocating it
+    @Value("${covers.max-pixels:40000000}")
+    private long maxPixels;
+
+    public String store(String bookId, MultipartFile file) throws IOException {
+        String extension = EXTENSIONS.get(file.getContentType());
+        if (extension == null) {
+            throw new IllegalArgumentException("Cover must be a JPEG or PNG image");
+        }
+        if (bookService.getBookById(bookId).isEmpty()) {
+            throw new IllegalArgumentException("Book not found: " + bookId);
+        }
+
+        Path bookDir = bookDir(bookId);
+        Files.createDirectories(bookDir);
+        // transferTo moves/streams the multipart temp file; the upload is never buffered in memory
+        Path upload = Files.createTempFile(bookDir, "upload-", "." + extension);
+        long version = System.currentTimeMillis();
+        try {
+            file.transferTo(upload);
+            writeThumbnails(upload, bookDir);
+            Files.setLastModifiedTime(upload, FileTime.fromMillis(version));
+            // The new original replaces the old one atomically, so the cover never 404s mid-upload;
+            // only an original with a different extension is left over to delete
+            Path original = bookDir.resolve("original." + extension);
+            Files.move(upload, original, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            deleteOriginalsExcept(bookDir, original);
+        } finally {
+            Files.deleteIfExists(upload);
+        }
+
+        // Versioned URL so clients can cache each image forever
+        String url = "/api/books/" + bookId + "/cover?v=" + version;
+        bookService.updateCoverImageUrl(bookId, url);
+        return url;
+    }
+
+    public Optional<Long> currentVersion(String bookId) {
+        if (!SAFE_ID.matcher(bookId).matches()) {
+            return Optional.empty();
+        }
+        return findOriginal(bookDir(bookId)).flatMap(original -> {
+            try {
+                return Optional.of(Files.getLastModifiedTime(original).toMillis());
+            } catch (IOException e) {
+                return Optional.empty();
+            }
+        });
+    }
+
+    // variant is "original" or a configured thumbnail width
+    public Optional<Path> resolve(String bookId, String variant) {
+        if (!SAFE_ID.matcher(bookId).matches()) {
+            return Optional.empty();
+        }
+        Path bookDir = bookDir(bookId);
+        if ("original".equals(variant)) {
+            return findOriginal(bookDir);
+        }
+        try {
+            if (!thumbnailWidths.contains(Integer.parseInt(variant))) {
+                return Optional.empty();
+            }
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+        Path thumbnail = bookDir.resolve("thumb-" + variant + ".jpg");
+        return Files.isRegularFile(thumbnail) ? Optional.of(thumbnail) : Optional.empty();
+    }
+
+    private Path bookDir(String bookId) {
+        if (!SAFE_ID.matcher(bookId).matches()) {
+            throw new IllegalArgumentException("Invalid book id");
+        }
+        return storageDir.toAbsolutePath().resolve(bookId);
+    }
+
+    // Newest wins while an upload that changed the format is still removing the old original
+    private Optional<Path> findOriginal(Path bookDir) {
+        return EXTENSIONS.values().stream()
+                .map(extension -> bookDir.resolve("original." + extension))
+                .filter(Files::isRegularFile)
+                .max(Comparator.comparingLong(CoverImageService::lastModified));
+    }
+
+    private static long lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private void deleteOriginalsExcept(Path bookDir, Path keep) throws IOException {
+        for (String extension : EXTENSIONS.values()) {
+            Path original = bookDir.resolve("original." + extension);
+            if (!original.equals(keep)) {
+                Files.deleteIfExists(original);
+            }
+        }
+    }
+
+    private BufferedImage decode(Path source) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(source.toFile())) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+            if (readers == null || !readers.hasNext()) {
+                throw new IllegalArgumentException("Cover could not be decoded as an image");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > maxPixels) {
+                    throw new IllegalArgumentException("Cover is too large: " + reader.getWidth(0) + "x"
+                            + reader.getHeight(0) + " exceeds " + maxPixels + " pixels");
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private void writeThumbnails(Path source, Path bookDir) throws IOException {
+        // Decoding is the one step that needs pixels in memory; it happens once per upload
+        BufferedImage image = decode(source);
+        for (int width : thumbnailWidths) {
+            int targetWidth = Math.min(width, image.getWidth());
+            int targetHeight = Math.max(1, (int) Math.round((double) image.getHeight() * targetWidth / image.getWidth()));
+            BufferedImage thumbnail = new BufferedImage(targetWidth, targetHeight, BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = thumbnail.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                // JPEG has no alpha channel, so flatten transparent PNGs onto white
+                graphics.drawImage(image, 0, 0, targetWidth, targetHeight, Color.WHITE, null);
+            } finally {
+                graphics.dispose();
+            }
+            Path target = bookDir.resolve("thumb-" + width + ".jpg");
+            Path temp = Files.createTempFile(bookDir, "thumb-", ".jpg");
+            try {
+                ImageIO.write(thumbnail, "jpg", temp.toFile());
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.library.service;
+
+import java.io.IOException;
+import java.io.Writer;
+
+// RFC 4180 rows written field by field straight to the underlying writer, no per-row
+// allocations. Text starting with =, +, - or @ is prefixed with ' so spreadsheets don't
+// evaluate it as a formula.
+public class CsvWriter {
+
+    private final Writer out;
+    private boolean firstField = true;
+
+    public CsvWriter(Writer out) {
+        this.out = out;
+    }
+
+    public CsvWriter text(String value) throws IOException {
+        separator();
+        if (value == null || value.isEmpty()) {
+            return this;
+        }
+        boolean formula = "=+-@".indexOf(value.charAt(0)) >= 0;
+        if (!formula && !needsQuotes(value)) {
+            out.write(value);
+            return this;
+        }
+        out.write('"');
+        if (formula) {
+            out.write('\'');
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                out.write('"');
+            }
+            out.write(c);
+        }
+        out.write('"');
+        return this;
+    }
+
+    // Numbers, booleans and ISO dates never need quoting
+    public CsvWriter plain(String value) throws IOException {
+        separator();
+        if (value != null) {
+            out.write(value);
+        }
+        return this;
+    }
+
+    public void endRow() throws IOException {
+        out.write("\r\n");
+        firstField = true;
+    }
+
+    private void separator() throws IOException {
+        if (!firstField) {
+            out.write(',');
+        }
+        firstField = false;
+    }
+
+    private static boolean needsQuotes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
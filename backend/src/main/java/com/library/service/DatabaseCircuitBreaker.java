@@ -0,0 +1,111 @@
+package com.library.service;
+
+import com.mongodb.MongoExecutionTimeoutException;
+import com.mongodb.MongoNodeIsRecoveringException;
+import com.mongodb.MongoNotPrimaryException;
+import com.mongodb.MongoSocketException;
+import com.mongodb.MongoTimeoutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Tracks whether Mongo is usable. Every command outcome arrives through MongoLatencyListener:
+// connectivity errors and API-request commands slower than slow-call-ms count as failures,
+// anything else as success. Slow background commands (archival, exports, accrual) are
+// expected and don't count. While the circuit is open, catalog reads are answered from the local snapshot
+// and writes are turned away by DegradedModeFilter.
+@Service
+public class DatabaseCircuitBreaker {
+
+    private static final Logger log = LoggerFactory.getLogger(DatabaseCircuitBreaker.class);
+
+    private final CircuitBreaker breaker;
+    private final long slowCallNanos;
+
+    public DatabaseCircuitBreaker(@Value("${degraded.failure-threshold:5}") int failureThreshold,
+                                  @Value("${degraded.open-duration:30s}") Duration openDuration,
+                                  @Value("${degraded.slow-call-ms:2000}") long slowCallMs) {
+        this.breaker = new CircuitBreaker(failureThreshold, openDuration);
+        this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(slowCallMs);
+    }
+
+    // Runs the database call unless the circuit is open; on an outage the fallback answers
+    // instead (and may itself throw DatabaseUnavailableException)
+    public <T> T read(Supplier<T> database, Supplier<T> fallback) {
+        if (!breaker.allowRequest()) {
+            return fallback.get();
+        }
+        try {
+            return database.get();
+        } catch (RuntimeException e) {
+            if (!isConnectivityFailure(e)) {
+                throw e;
+            }
+            if (causedBy(e, MongoTimeoutException.class)) {
+                // No server could be selected, so no command was sent and the listener never saw it
+                recordFailure();
+            }
+            log.debug("Serving catalog read from snapshot: {}", e.getMessage());
+            return fallback.get();
+        }
+    }
+
+    // requestPath: issued while serving an API request (see ApiRequestFilter)
+    public void onCommandSucceeded(long elapsedNanos, boolean requestPath) {
+        if (requestPath && elapsedNanos > slowCallNanos) {
+            recordFailure();
+        } else {
+            CircuitBreaker.State before = breaker.getState();
+            breaker.recordSuccess();
+            if (before != CircuitBreaker.State.CLOSED && breaker.getState() == CircuitBreaker.State.CLOSED) {
+                log.info("Database reachable again, leaving read-only mode");
+            }
+        }
+    }
+
+    public void onCommandFailed(Throwable failure) {
+        if (isConnectivityFailure(failure)) {
+            recordFailure();
+        }
+    }
+
+    public boolean isRejecting() {
+        return breaker.isRejecting();
+    }
+
+    public long retryAfterSeconds() {
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(breaker.remainingOpenNanos()));
+    }
+
+    private void recordFailure() {
+        CircuitBreaker.State before = breaker.getState();
+        breaker.recordFailure();
+        if (before != CircuitBreaker.State.OPEN && breaker.getState() == CircuitBreaker.State.OPEN) {
+            log.warn("Database unavailable or slow, switching to read-only mode");
+        }
+    }
+
+    static boolean isConnectivityFailure(Throwable failure) {
+        return failure instanceof DataAccessResourceFailureException
+                || causedBy(failure, MongoSocketException.class)
+                || causedBy(failure, MongoTimeoutException.class)
+                || causedBy(failure, MongoNotPrimaryException.class)
+                || causedBy(failure, MongoNodeIsRecoveringException.class)
+                || causedBy(failure, MongoExecutionTimeoutException.class);
+    }
+
+    private static boolean causedBy(Throwable failure, Class<? extends Throwable> type) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (type.isInstance(cause)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
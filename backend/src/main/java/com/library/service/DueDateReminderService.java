@@ -0,0 +1,299 @@
+package com.library.service;
+
+import com.library.model.DueReminder;
+import com.library.model.Reservation;
+import com.library.model.User;
+import com.mongodb.bulk.BulkWriteUpsert;
+import com.mongodb.client.MongoCursor;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Nightly due-soon/overdue reminders. One aggregation walks the (status, expectedReturnDate)
+// index and groups ACTIVE loans per user on the server; users are then handled in chunks:
+// one query skips loans already notified, one bulk upsert claims the rest in
+// reservation_reminders, one query loads the members, and the sends go to a bounded worker
+// pool while the next chunk is prepared. Claims make reminders at-most-once per reservation
+// and kind, also with several nodes running the job; a failed send releases its claims so the
+// next run retries them.
+@Service
+public class DueDateReminderService {
+
+    private static final Logger log = LoggerFactory.getLogger(DueDateReminderService.class);
+    private static final String STATE_COLLECTION = "reservation_reminders";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ReminderSender reminderSender;
+
+    @Value("${reminders.enabled:true}")
+    private boolean enabled;
+
+    @Value("${reminders.due-soon-window:2d}")
+    private Duration dueSoonWindow;
+
+    @Value("${reminders.users-per-batch:500}")
+    private int usersPerBatch;
+
+    @Value("${reminders.workers:16}")
+    private int workerCount;
+
+    @Value("${reminders.queue-capacity:1000}")
+    private int queueCapacity;
+
+    // Claims older than this are forgotten, so a loan still overdue by then is reminded again
+    @Value("${reminders.state-retention:180d}")
+    private Duration stateRetention;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile boolean stateIndexReady;
+    private ThreadPoolExecutor workers;
+
+    @PostConstruct
+    void start() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        // A full queue makes the dispatching thread send itself, which throttles the scan
+        workers = new ThreadPoolExecutor(workerCount, workerCount, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "reminder-worker-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        workers.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    void stop() {
+        workers.shutdownNow();
+    }
+
+    @Scheduled(cron = "${reminders.cron:0 0 1 * * *}")
+    public void scheduledRun() {
+        if (enabled) {
+            sendReminders();
+        }
+    }
+
+    // Returns the number of reminders sent
+    public long sendReminders() {
+        if (!running.compareAndSet(false, true)) {
+            log.info("Due-date reminder run already in progress");
+            return 0;
+        }
+        try {
+            return run(LocalDateTime.now());
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private long run(LocalDateTime now) {
+        long start = System.nanoTime();
+        ensureStateIndex();
+        Stats stats = new Stats();
+        List<Document> pipeline = List.of(
+                new Document("$match", new Document("status", Reservation.ReservationStatus.ACTIVE.name())
+                        .append("expectedReturnDate", new Document("$lt", toDate(now.plus(dueSoonWindow))))),
+                new Document("$group", new Document("_id", "$userId")
+                        .append("loans", new Document("$push", new Document("reservationId", "$_id")
+                                .append("bookId", "$bookId")
+                                .append("bookTitle", "$bookTitle")
+                                .append("due", "$expectedReturnDate")))));
+
+        List<Future<?>> inFlight = List.of();
+        List<Document> chunk = new ArrayList<>(usersPerBatch);
+        try (MongoCursor<Document> cursor = mongoTemplate.getCollection("reservations")
+                .aggregate(pipeline)
+                .allowDiskUse(true)
+                .batchSize(usersPerBatch)
+                .cursor()) {
+            while (cursor.hasNext()) {
+                chunk.add(cursor.next());
+                if (chunk.size() == usersPerBatch || !cursor.hasNext()) {
+                    List<Future<?>> submitted = dispatch(chunk, now, stats);
+                    await(inFlight);
+                    inFlight = submitted;
+                    chunk = new ArrayList<>(usersPerBatch);
+                }
+            }
+        }
+        await(inFlight);
+        log.info("Due-date reminders: {} sent to {} users, {} failed, {} skipped in {} ms",
+                stats.sent.sum(), stats.users.sum(), stats.failed.sum(), stats.skipped.sum(),
+                (System.nanoTime() - start) / 1_000_000);
+        return stats.sent.sum();
+    }
+
+    private List<Future<?>> dispatch(List<Document> groups, LocalDateTime now, Stats stats) {
+        Map<String, List<DueReminder>> byUser = new LinkedHashMap<>();
+        for (Document group : groups) {
+            String userId = group.getString("_id");
+            if (userId == null) {
+                continue;
+            }
+            List<DueReminder> reminders = new ArrayList<>();
+            for (Document loan : group.getList("loans", Document.class)) {
+                LocalDateTime due = LocalDateTime.ofInstant(loan.getDate("due").toInstant(), ZoneId.systemDefault());
+                reminders.add(new DueReminder(String.valueOf(loan.get("reservationId")), loan.getString("bookId"),
+                        loan.getString("bookTitle"), due,
+                        due.isBefore(now) ? DueReminder.Kind.OVERDUE : DueReminder.Kind.DUE_SOON));
+            }
+            byUser.put(userId, reminders);
+        }
+
+        Set<String> claimed = claim(byUser.values());
+        byUser.values().forEach(reminders -> reminders.removeIf(reminder -> !claimed.contains(reminder.stateKey())));
+        byUser.values().removeIf(List::isEmpty);
+        if (byUser.isEmpty()) {
+            return List.of();
+        }
+
+        Map<String, User> users = loadUsers(byUser.keySet());
+        List<Future<?>> futures = new ArrayList<>(byUser.size());
+        byUser.forEach((userId, reminders) -> {
+            User user = users.get(userId);
+            if (user == null || !user.isEnabled()) {
+                // Claims stay in place: deleted or disabled members aren't retried
+                stats.skipped.add(reminders.size());
+                return;
+            }
+            stats.users.increment();
+            futures.add(workers.submit(() -> {
+                try {
+                    reminderSender.send(user, reminders);
+                    stats.sent.add(reminders.size());
+                } catch (RuntimeException e) {
+                    log.warn("Reminder for user {} failed: {}", userId, e.getMessage());
+                    release(reminders);
+                    stats.failed.add(reminders.size());
+                }
+            }));
+        });
+        return futures;
+    }
+
+    // Returns the state keys this run now owns
+    private Set<String> claim(Iterable<List<DueReminder>> reminderLists) {
+        List<String> keys = new ArrayList<>();
+        reminderLists.forEach(reminders -> reminders.forEach(reminder -> keys.add(reminder.stateKey())));
+        if (keys.isEmpty()) {
+            return Set.of();
+        }
+        // Nearly every due loan was handled on an earlier night; a read is cheaper than an upsert
+        Set<String> notified = new HashSet<>();
+        Query existing = Query.query(Criteria.where("_id").in(keys));
+        existing.fields().include("_id");
+        for (Document document : mongoTemplate.find(existing, Document.class, STATE_COLLECTION)) {
+            notified.add(document.getString("_id"));
+        }
+        List<String> candidates = new ArrayList<>(keys.size() - notified.size());
+        for (String key : keys) {
+            if (!notified.contains(key)) {
+                candidates.add(key);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return Set.of();
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, STATE_COLLECTION);
+        Date claimedAt = new Date();
+        for (String key : candidates) {
+            bulk.upsert(Query.query(Criteria.where("_id").is(key)), new Update().setOnInsert("claimedAt", claimedAt));
+        }
+        // Only inserted claims are ours; an existing document means another run got there first
+        Set<String> claimed = new HashSet<>();
+        for (BulkWriteUpsert upsert : bulk.execute().getUpserts()) {
+            claimed.add(candidates.get(upsert.getIndex()));
+        }
+        return claimed;
+    }
+
+    private void release(List<DueReminder> reminders) {
+        List<String> keys = reminders.stream().map(DueReminder::stateKey).toList();
+        try {
+            mongoTemplate.remove(Query.query(Criteria.where("_id").in(keys)), STATE_COLLECTION);
+        } catch (RuntimeException e) {
+            log.warn("Could not release {} reminder claims: {}", keys.size(), e.getMessage());
+        }
+    }
+
+    private Map<String, User> loadUsers(Set<String> userIds) {
+        Query query = Query.query(Criteria.where("_id").in(userIds));
+        query.fields().include("username", "email", "firstName", "lastName", "enabled");
+        Map<String, User> users = new HashMap<>();
+        for (User user : mongoTemplate.find(query, User.class)) {
+            users.put(user.getId(), user);
+        }
+        return users;
+    }
+
+    private void ensureStateIndex() {
+        if (stateIndexReady) {
+            return;
+        }
+        mongoTemplate.indexOps(STATE_COLLECTION).createIndex(new Index()
+                .on("claimedAt", Sort.Direction.ASC).expire(stateRetention).named("claimed_ttl"));
+        stateIndexReady = true;
+    }
+
+    private static void await(List<Future<?>> futures) {
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while sending reminders", e);
+            } catch (ExecutionException e) {
+                log.warn("Reminder task failed: {}", e.getCause().getMessage());
+            }
+        }
+    }
+
+    private static Date toDate(LocalDateTime dateTime) {
+        return Date.from(dateTime.atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    private static class Stats {
+        final LongAdder sent = new LongAdder();
+        final LongAdder failed = new LongAdder();
+        final LongAdder skipped = new LongAdder();
+        final LongAdder users = new LongAdder();
+    }
+}
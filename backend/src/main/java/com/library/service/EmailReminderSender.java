@@ -0,0 +1,53 @@
+package com.library.service;
+
+import com.library.model.DueReminder;
+import com.library.model.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.stereotype.Component;
+
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+@Component
+@ConditionalOnProperty(name = "reminders.channel", havingValue = "email")
+public class EmailReminderSender implements ReminderSender {
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("d MMM yyyy");
+
+    private final JavaMailSender mailSender;
+    private final String from;
+
+    public EmailReminderSender(JavaMailSender mailSender,
+                               @Value("${reminders.email.from:library@localhost}") String from) {
+        this.mailSender = mailSender;
+        this.from = from;
+    }
+
+    @Override
+    public void send(User user, List<DueReminder> reminders) {
+        if (user.getEmail() == null) {
+            throw new IllegalStateException("User " + user.getId() + " has no email address");
+        }
+        boolean overdue = reminders.stream().anyMatch(reminder -> reminder.getKind() == DueReminder.Kind.OVERDUE);
+        StringBuilder body = new StringBuilder()
+                .append("Hello ").append(user.getFirstName() != null ? user.getFirstName() : user.getUsername())
+                .append(",\n\n");
+        for (DueReminder reminder : reminders) {
+            body.append(reminder.getKind() == DueReminder.Kind.OVERDUE ? "OVERDUE since " : "Due on ")
+                    .append(DATE_FORMAT.format(reminder.getExpectedReturnDate()))
+                    .append(": ").append(reminder.getBookTitle() != null ? reminder.getBookTitle() : reminder.getBookId())
+                    .append('\n');
+        }
+        body.append("\nPlease return or renew your loans at the desk.\n");
+
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setFrom(from);
+        message.setTo(user.getEmail());
+        message.setSubject(overdue ? "Overdue library loans" : "Library loans due soon");
+        message.setText(body.toString());
+        mailSender.send(message);
+    }
+}
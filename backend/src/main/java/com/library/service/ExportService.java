@@ -0,0 +1,230 @@
+package com.library.service;
+
+import com.library.model.Reservation;
+import com.mongodb.client.MongoCursor;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.PriorityQueue;
+
+// CSV exports streamed straight from Mongo cursors: raw documents, only the exported fields
+// projected, one row written per document, so memory stays flat whatever the size.
+// Rows come out in _id order and the first column is the id, so an interrupted export
+// resumes with after=<id of the last complete row>. Reservations include the archive
+// partitions: one _id-ordered cursor per collection, merged.
+@Service
+public class ExportService {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ReservationArchiveService archiveService;
+
+    @Value("${export.cursor-batch-size:10000}")
+    private int cursorBatchSize;
+
+    @Value("${export.flush-every-rows:10000}")
+    private int flushEveryRows;
+
+    public enum Dataset {
+        RESERVATIONS("reservations", "reservationDate", "userId", "bookId", "status", "reservationDate",
+                "expectedReturnDate", "actualReturnDate", "fineCents", "userUsername", "bookTitle", "bookAuthor",
+                "updatedAt"),
+        BOOKS("books", "createdAt", "title", "author", "isbn", "categories", "totalCopies", "availableCopies",
+                "publicationYear", "createdAt", "updatedAt"),
+        // No password hashes: only these fields are projected
+        USERS("users", "createdAt", "username", "email", "firstName", "lastName", "role", "enabled",
+                "createdAt", "updatedAt");
+
+        private final String collection;
+        private final String dateField;
+        private final List<String> fields;
+
+        Dataset(String collection, String dateField, String... fields) {
+            this.collection = collection;
+            this.dateField = dateField;
+            this.fields = Arrays.asList(fields);
+        }
+
+        public static Dataset parse(String name) {
+            try {
+                return valueOf(name.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown export: " + name);
+            }
+        }
+
+        public String fileName() {
+            return collection + ".csv";
+        }
+    }
+
+    // from is inclusive and to exclusive, on the dataset's date field; statuses only apply to
+    // reservations. Throws IllegalArgumentException before writing anything if a filter is invalid.
+    public Document filter(Dataset dataset, LocalDate from, LocalDate to, List<String> statuses, String after) {
+        Document filter = new Document();
+        if (from != null || to != null) {
+            if (from != null && to != null && !from.isBefore(to)) {
+                throw new IllegalArgumentException("from must be before to");
+            }
+            Document range = new Document();
+            if (from != null) {
+                range.append("$gte", toDate(from));
+            }
+            if (to != null) {
+                range.append("$lt", toDate(to));
+            }
+            filter.append(dataset.dateField, range);
+        }
+        if (statuses != null && !statuses.isEmpty()) {
+            if (dataset != Dataset.RESERVATIONS) {
+                throw new IllegalArgumentException("status only applies to reservations");
+            }
+            List<String> names = new ArrayList<>();
+            for (String status : statuses) {
+                try {
+                    names.add(Reservation.ReservationStatus.valueOf(status.toUpperCase(Locale.ROOT)).name());
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Unknown status: " + status);
+                }
+            }
+            filter.append("status", new Document("$in", names));
+        }
+        if (after != null) {
+            if (!ObjectId.isValid(after)) {
+                throw new IllegalArgumentException("after must be an id from a previous export");
+            }
+            filter.append("_id", new Document("$gt", new ObjectId(after)));
+        }
+        return filter;
+    }
+
+    // Returns the number of rows written
+    public long export(Dataset dataset, Bson filter, boolean header, Writer out) throws IOException {
+        CsvWriter csv = new CsvWriter(out);
+        if (header) {
+            csv.plain("id");
+            for (String field : dataset.fields) {
+                csv.plain(field);
+            }
+            csv.endRow();
+        }
+        Document projection = new Document();
+        dataset.fields.forEach(field -> projection.append(field, 1));
+        List<String> collections = new ArrayList<>();
+        collections.add(dataset.collection);
+        if (dataset == Dataset.RESERVATIONS) {
+            collections.addAll(archiveService.getPartitions());
+        }
+
+        ZoneId zone = ZoneId.systemDefault();
+        long rows = 0;
+        List<MongoCursor<Document>> cursors = new ArrayList<>(collections.size());
+        try {
+            PriorityQueue<Head> heads = new PriorityQueue<>(Comparator.comparing(Head::id, ExportService::compareIds));
+            for (String collection : collections) {
+                MongoCursor<Document> cursor = mongoTemplate.getCollection(collection)
+                        .find(filter)
+                        .projection(projection)
+                        .sort(new Document("_id", 1))
+                        .batchSize(cursorBatchSize)
+                        .cursor();
+                cursors.add(cursor);
+                Head.next(cursor).ifPresent(heads::add);
+            }
+            Object lastId = null;
+            while (!heads.isEmpty()) {
+                Head head = heads.poll();
+                Head.next(head.cursor()).ifPresent(heads::add);
+                // A reservation being archived is briefly in both the live collection and its partition
+                if (head.id().equals(lastId)) {
+                    continue;
+                }
+                lastId = head.id();
+                Document document = head.document();
+                write(csv, document.get("_id"), zone);
+                for (String field : dataset.fields) {
+                    write(csv, document.get(field), zone);
+                }
+                csv.endRow();
+                if (++rows % flushEveryRows == 0) {
+                    out.flush();
+                }
+            }
+        } finally {
+            cursors.forEach(MongoCursor::close);
+        }
+        out.flush();
+        return rows;
+    }
+
+    // Same order as Mongo's _id sort for the id types in use: strings before ObjectIds
+    private static int compareIds(Object a, Object b) {
+        if (a instanceof ObjectId x && b instanceof ObjectId y) {
+            return x.compareTo(y);
+        }
+        if (a instanceof ObjectId != b instanceof ObjectId) {
+            return a instanceof ObjectId ? 1 : -1;
+        }
+        return a.toString().compareTo(b.toString());
+    }
+
+    private record Head(Object id, Document document, MongoCursor<Document> cursor) {
+
+        static Optional<Head> next(MongoCursor<Document> cursor) {
+            if (!cursor.hasNext()) {
+                return Optional.empty();
+            }
+            Document document = cursor.next();
+            return Optional.of(new Head(document.get("_id"), document, cursor));
+        }
+    }
+
+    private static void write(CsvWriter csv, Object value, ZoneId zone) throws IOException {
+        if (value == null) {
+            csv.plain(null);
+        } else if (value instanceof String text) {
+            csv.text(text);
+        } else if (value instanceof Date date) {
+            // Same local date-times the JSON API returns
+            csv.plain(LocalDateTime.ofInstant(date.toInstant(), zone).toString());
+        } else if (value instanceof ObjectId id) {
+            csv.plain(id.toHexString());
+        } else if (value instanceof Number || value instanceof Boolean) {
+            csv.plain(value.toString());
+        } else if (value instanceof List<?> list) {
+            StringBuilder joined = new StringBuilder();
+            for (Object item : list) {
+                if (!joined.isEmpty()) {
+                    joined.append(';');
+                }
+                joined.append(item);
+            }
+            csv.text(joined.toString());
+        } else {
+            csv.text(value.toString());
+        }
+    }
+
+    private static Date toDate(LocalDate date) {
+        return Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+}
@@ -0,0 +1,60 @@
+package com.library.service;
+
+import com.library.config.FineProperties;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+// Late fee in cents: whole calendar days past the due date (minus the grace period) times
+// the daily rate, capped. A book in several categories is charged at its steepest rate.
+public class FineCalculator {
+
+    private final int graceDays;
+    private final FineProperties.Rate defaultRate;
+    private final Map<String, FineProperties.Rate> ratesByCategory = new HashMap<>();
+
+    public FineCalculator(FineProperties properties) {
+        this.graceDays = properties.getGraceDays();
+        this.defaultRate = properties.getDefaultRate();
+        properties.getCategories().forEach((category, rate) ->
+                ratesByCategory.put(category.toLowerCase(Locale.ROOT), rate));
+    }
+
+    public long calculate(Collection<String> categories, LocalDateTime due, LocalDateTime returnedOrNow) {
+        if (due == null || returnedOrNow == null) {
+            return 0;
+        }
+        long daysLate = ChronoUnit.DAYS.between(due.toLocalDate(), returnedOrNow.toLocalDate()) - graceDays;
+        if (daysLate <= 0) {
+            return 0;
+        }
+        FineProperties.Rate rate = rateFor(categories);
+        long amount = Math.multiplyExact(daysLate, rate.getDailyCents());
+        return rate.getCapCents() > 0 ? Math.min(amount, rate.getCapCents()) : amount;
+    }
+
+    private FineProperties.Rate rateFor(Collection<String> categories) {
+        FineProperties.Rate steepest = null;
+        if (categories != null) {
+            for (String category : categories) {
+                FineProperties.Rate rate = category != null ? ratesByCategory.get(category.toLowerCase(Locale.ROOT)) : null;
+                if (rate != null && (steepest == null || rate.getDailyCents() > steepest.getDailyCents()
+                        || (rate.getDailyCents() == steepest.getDailyCents() && uncappedOrHigher(rate, steepest)))) {
+                    steepest = rate;
+                }
+            }
+        }
+        return steepest != null ? steepest : defaultRate;
+    }
+
+    private static boolean uncappedOrHigher(FineProperties.Rate rate, FineProperties.Rate other) {
+        if (other.getCapCents() <= 0) {
+            return false;
+        }
+        return rate.getCapCents() <= 0 || rate.getCapCents() > other.getCapCents();
+    }
+}
@@ -0,0 +1,204 @@
+package com.library.service;
+
+import com.library.model.Book;
+import com.library.model.FineBalance;
+import com.library.model.Reservation;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Late fines. A reservation's fineCents is its current total: set when it's returned and
+// raised nightly while it's still out. Totals are posted to the user's FineBalance as
+// "this reservation now owes X", which only adds the difference to what was posted before,
+// so re-posting after a retry or a crash never double-charges and the balance never needs a
+// rescan of reservation history.
+@Service
+public class FineService {
+
+    private static final Logger log = LoggerFactory.getLogger(FineService.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private FineCalculator fineCalculator;
+
+    @Value("${fines.enabled:true}")
+    private boolean enabled;
+
+    @Value("${fines.accrual-batch-size:1000}")
+    private int batchSize;
+
+    // Fine for a reservation as of its return date, or now while it's still out
+    public long fineFor(Reservation reservation) {
+        List<String> categories = bookService.getBookById(reservation.getBookId())
+                .map(Book::getCategories)
+                .orElse(List.of());
+        return fineFor(reservation, categories, LocalDateTime.now());
+    }
+
+    // Sets fineCents on each reservation, loading all the books' categories in one query
+    public void applyFines(Collection<Reservation> reservations, LocalDateTime now) {
+        Map<String, List<String>> categories = categoriesByBookId(reservations);
+        for (Reservation reservation : reservations) {
+            reservation.setFineCents(fineFor(reservation, categories.getOrDefault(reservation.getBookId(), List.of()), now));
+        }
+    }
+
+    public void post(Reservation reservation) {
+        post(List.of(reservation));
+    }
+
+    public void post(Collection<Reservation> reservations) {
+        BulkOperations bulk = null;
+        for (Reservation reservation : reservations) {
+            if (reservation.getFineCents() == null || reservation.getFineCents() <= 0) {
+                continue;
+            }
+            if (bulk == null) {
+                bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, FineBalance.class);
+            }
+            bulk.upsert(Query.query(Criteria.where("_id").is(reservation.getUserId())),
+                    chargeUpdate(reservation.getId(), reservation.getFineCents()));
+        }
+        if (bulk != null) {
+            bulk.execute();
+        }
+    }
+
+    public FineBalance getBalance(String userId) {
+        FineBalance balance = mongoTemplate.findById(userId, FineBalance.class);
+        return balance != null ? balance : new FineBalance(userId);
+    }
+
+    // Nightly: raise the fine on every loan that's still out past its due date, one batch of
+    // reservations per round trip and one bulk write each for reservations and balances
+    @Scheduled(cron = "${fines.accrual-cron:0 15 0 * * *}")
+    public void scheduledAccrual() {
+        if (enabled) {
+            accrue();
+        }
+    }
+
+    public int accrue() {
+        long start = System.nanoTime();
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime dueBefore = LocalDate.now().atStartOfDay();
+        LocalDateTime lastDue = null;
+        String lastId = null;
+        int updated = 0;
+        while (true) {
+            Criteria criteria = Criteria.where("status").is(Reservation.ReservationStatus.ACTIVE);
+            if (lastDue == null) {
+                criteria.and("expectedReturnDate").lt(dueBefore);
+            } else {
+                // Keyset pagination along the (status, expectedReturnDate) index
+                criteria.orOperator(
+                        Criteria.where("expectedReturnDate").gt(lastDue).lt(dueBefore),
+                        Criteria.where("expectedReturnDate").is(lastDue).and("_id").gt(lastId));
+            }
+            Query query = Query.query(criteria)
+                    .with(Sort.by("expectedReturnDate", "_id"))
+                    .limit(batchSize);
+            query.fields().include("userId", "bookId", "expectedReturnDate", "fineCents");
+            List<Reservation> batch = mongoTemplate.find(query, Reservation.class);
+            if (batch.isEmpty()) {
+                break;
+            }
+            updated += accrueBatch(batch, now);
+            Reservation last = batch.get(batch.size() - 1);
+            lastDue = last.getExpectedReturnDate();
+            lastId = last.getId();
+            if (batch.size() < batchSize) {
+                break;
+            }
+        }
+        log.info("Fine accrual updated {} overdue loans in {} ms", updated, (System.nanoTime() - start) / 1_000_000);
+        return updated;
+    }
+
+    private int accrueBatch(List<Reservation> batch, LocalDateTime now) {
+        Map<String, List<String>> categories = categoriesByBookId(batch);
+        BulkOperations reservations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Reservation.class);
+        List<Reservation> changed = new ArrayList<>();
+        for (Reservation reservation : batch) {
+            long fine = fineFor(reservation, categories.getOrDefault(reservation.getBookId(), List.of()), now);
+            long previous = reservation.getFineCents() != null ? reservation.getFineCents() : 0;
+            if (fine <= previous) {
+                continue;
+            }
+            reservation.setFineCents(fine);
+            changed.add(reservation);
+            // Not versioned: fineCents only ever grows here, and a return that races with this
+            // recomputes the final amount itself
+            reservations.updateOne(
+                    Query.query(Criteria.where("_id").is(reservation.getId())
+                            .and("userId").is(reservation.getUserId())
+                            .and("status").is(Reservation.ReservationStatus.ACTIVE)),
+                    new Update().max("fineCents", fine));
+        }
+        if (changed.isEmpty()) {
+            return 0;
+        }
+        reservations.execute();
+        post(changed);
+        return changed.size();
+    }
+
+    private long fineFor(Reservation reservation, List<String> categories, LocalDateTime now) {
+        LocalDateTime end = reservation.getActualReturnDate() != null ? reservation.getActualReturnDate() : now;
+        return fineCalculator.calculate(categories, reservation.getExpectedReturnDate(), end);
+    }
+
+    private Map<String, List<String>> categoriesByBookId(Collection<Reservation> reservations) {
+        Set<String> bookIds = new HashSet<>();
+        reservations.forEach(reservation -> bookIds.add(reservation.getBookId()));
+        Query query = Query.query(Criteria.where("_id").in(bookIds));
+        query.fields().include("categories");
+        Map<String, List<String>> categories = new HashMap<>();
+        for (Book book : mongoTemplate.find(query, Book.class)) {
+            categories.put(book.getId(), book.getCategories() != null ? book.getCategories() : List.of());
+        }
+        return categories;
+    }
+
+    // One pipeline update on the balance document: the difference between the new total and
+    // what was posted for this reservation is added (never negative, so a stale lower total
+    // can't undo a newer one), and the posted amount becomes the new total
+    private static AggregationUpdate chargeUpdate(String reservationId, long totalCents) {
+        String posted = "$charges." + reservationId;
+        Document previous = new Document("$ifNull", List.of(posted, 0L));
+        Document set = new Document("balanceCents", new Document("$add", List.of(
+                        new Document("$ifNull", List.of("$balanceCents", 0L)),
+                        new Document("$max", List.of(0L, new Document("$subtract", List.of(totalCents, previous)))))))
+                .append("charges." + reservationId, new Document("$max", List.of(previous, totalCents)))
+                .append("updatedAt", "$$NOW");
+        AggregationOperation stage = context -> new Document("$set", set);
+        return AggregationUpdate.from(List.of(stage));
+    }
+}
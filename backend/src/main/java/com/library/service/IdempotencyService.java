@@ -0,0 +1,88 @@
+package com.library.service;
+
+import com.library.model.IdempotencyRecord;
+import com.library.repository.IdempotencyRecordRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.Optional;
+
+@Service
+public class IdempotencyService {
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    // How long an IN_PROGRESS claim is honoured before a retry may assume its owner died
+    @Value("${idempotency.lease:30s}")
+    private Duration lease;
+
+    // First writer wins: returns empty when the caller claimed the key and should execute
+    // the request, or the record left by the request that got there first
+    public Optional<IdempotencyRecord> claim(String scopedKey, String fingerprint) {
+        for (int attempt = 0; attempt < 2; attempt++) {
+            try {
+                mongoTemplate.insert(new IdempotencyRecord(scopedKey, fingerprint));
+                return Optional.empty();
+            } catch (DuplicateKeyException e) {
+                Optional<IdempotencyRecord> existing = idempotencyRecordRepository.findById(scopedKey);
+                if (existing.isPresent()) {
+                    return takeOverExpired(existing.get(), fingerprint) ? Optional.empty() : existing;
+                }
+                // Expired or abandoned between our insert and read; try to claim it again
+            }
+        }
+        throw new IllegalStateException("Could not claim idempotency key");
+    }
+
+    // Only one retry can win the conditional update, so a dead claim is re-executed at most once
+    private boolean takeOverExpired(IdempotencyRecord record, String fingerprint) {
+        if (record.isCompleted() || !fingerprint.equals(record.getFingerprint())) {
+            return false;
+        }
+        Date cutoff = new Date(System.currentTimeMillis() - lease.toMillis());
+        Date claimedAt = record.getClaimedAt() != null ? record.getClaimedAt() : record.getCreatedAt();
+        if (claimedAt == null || !claimedAt.before(cutoff)) {
+            return false;
+        }
+        Criteria unchanged = record.getClaimedAt() != null
+                ? Criteria.where("claimedAt").is(record.getClaimedAt())
+                : Criteria.where("claimedAt").exists(false);
+        IdempotencyRecord taken = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(record.getId())
+                        .and("status").is(IdempotencyRecord.Status.IN_PROGRESS)
+                        .andOperator(unchanged)),
+                new Update().set("claimedAt", new Date()),
+                FindAndModifyOptions.options().returnNew(true),
+                IdempotencyRecord.class);
+        return taken != null;
+    }
+
+    public void complete(String scopedKey, int responseStatus, String responseContentType, String responseBody) {
+        mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(scopedKey)),
+                new Update()
+                        .set("status", IdempotencyRecord.Status.COMPLETED)
+                        .set("responseStatus", responseStatus)
+                        .set("responseContentType", responseContentType)
+                        .set("responseBody", responseBody),
+                IdempotencyRecord.class);
+    }
+
+    // Releases the key after an unexpected failure so the client can retry with it
+    public void abandon(String scopedKey) {
+        idempotencyRecordRepository.deleteById(scopedKey);
+    }
+}
@@ -0,0 +1,92 @@
+package com.library.service;
+
+// Open-addressing int -> int counter for non-negative keys, without boxing. Two parallel
+// arrays; key slots store key + 1 so that 0 marks an empty slot. Not thread-safe.
+public class IntCountMap {
+
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private int[] keys;
+    private int[] counts;
+    private int size;
+    private int mask;
+
+    public IntCountMap() {
+        this(4);
+    }
+
+    public IntCountMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        keys = new int[capacity];
+        counts = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    public int add(int key, int delta) {
+        if (key < 0) {
+            throw new IllegalArgumentException("Keys must be non-negative");
+        }
+        int slot = find(key);
+        if (keys[slot] == 0) {
+            keys[slot] = key + 1;
+            counts[slot] = delta;
+            if (++size > keys.length * LOAD_FACTOR) {
+                grow();
+            }
+            return delta;
+        }
+        return counts[slot] += delta;
+    }
+
+    public int get(int key) {
+        int slot = find(key);
+        return keys[slot] == 0 ? 0 : counts[slot];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void forEach(IntIntConsumer consumer) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0) {
+                consumer.accept(keys[i] - 1, counts[i]);
+            }
+        }
+    }
+
+    private int find(int key) {
+        int stored = key + 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != 0 && keys[slot] != stored) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        int[] oldCounts = counts;
+        keys = new int[oldKeys.length * 2];
+        counts = new int[oldKeys.length * 2];
+        mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = find(oldKeys[i] - 1);
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+    }
+
+    // Book indexes are dense and sequential; spread them so runs don't cluster
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    @FunctionalInterface
+    public interface IntIntConsumer {
+        void accept(int key, int value);
+    }
+}
@@ -0,0 +1,359 @@
+package com.library.service;
+
+import com.library.model.Book;
+import com.library.model.Branch;
+import com.library.model.BranchAvailability;
+import com.library.model.BranchInventory;
+import com.library.model.Reservation;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.geo.GeoResult;
+import org.springframework.data.geo.Metrics;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.ComparisonOperators;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.NearQuery;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Per-branch copy counters. Loans and returns touch only the branch document; each book's
+// totals are then recomputed from its branches in the background, so the book document sees
+// one write per flush instead of one per loan. Books without branch inventory keep using the
+// book-level counters.
+@Service
+public class InventoryService {
+
+    private static final Logger log = LoggerFactory.getLogger(InventoryService.class);
+    private static final int FLUSH_CHUNK_SIZE = 1000;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private BookService bookService;
+
+    // Books whose branch counters changed since their totals were last recomputed
+    private final Set<String> dirtyBooks = ConcurrentHashMap.newKeySet();
+
+    public List<Branch> getBranches() {
+        return mongoTemplate.findAll(Branch.class);
+    }
+
+    public Optional<Branch> getBranch(String id) {
+        return Optional.ofNullable(mongoTemplate.findById(id, Branch.class));
+    }
+
+    // Also copies the name and location onto the branch's inventory documents
+    public Branch saveBranch(Branch branch) {
+        Branch saved = mongoTemplate.save(branch);
+        mongoTemplate.updateMulti(Query.query(Criteria.where("branchId").is(saved.getId())),
+                new Update().set("branchName", saved.getName()).set("location", saved.getLocation()),
+                BranchInventory.class);
+        return saved;
+    }
+
+    public List<BranchInventory> getInventory(String bookId) {
+        return mongoTemplate.find(Query.query(Criteria.where("bookId").is(bookId)), BranchInventory.class);
+    }
+
+    public List<BranchInventory> getBranchStock(String branchId) {
+        return mongoTemplate.find(Query.query(Criteria.where("branchId").is(branchId)), BranchInventory.class);
+    }
+
+    // Like a totalCopies patch on a book: available shifts by the same delta as total, so
+    // copies on loan from this branch stay accounted for
+    public BranchInventory setTotal(String branchId, String bookId, int total) {
+        if (total < 0) {
+            throw new IllegalArgumentException("total must not be negative");
+        }
+        Branch branch = getBranch(branchId).orElseThrow(() -> new IllegalArgumentException("Unknown branch: " + branchId));
+        if (!bookService.existsById(bookId)) {
+            throw new IllegalArgumentException("Unknown book: " + bookId);
+        }
+        Query byId = byId(branchId, bookId);
+        BranchInventory result = OptimisticRetry.run(() -> {
+            BranchInventory current = mongoTemplate.findOne(byId, BranchInventory.class);
+            if (current == null) {
+                return bookService.isBranchStocked(bookId) ? insert(new BranchInventory(branch, bookId, total))
+                        : adoptBookLevelStock(branch, bookId, total);
+            }
+            int delta = total - current.getTotal();
+            Criteria guard = Criteria.where("_id").is(current.getId()).and("bookId").is(bookId).and("total").is(current.getTotal());
+            if (delta < 0) {
+                guard.and("available").gte(-delta);
+            }
+            BranchInventory updated = mongoTemplate.findAndModify(Query.query(guard),
+                    new Update().set("total", total).inc("available", delta).currentDate("updatedAt"),
+                    FindAndModifyOptions.options().returnNew(true), BranchInventory.class);
+            if (updated != null) {
+                return updated;
+            }
+            BranchInventory reread = mongoTemplate.findOne(byId, BranchInventory.class);
+            if (reread != null && reread.getTotal() == current.getTotal()) {
+                throw new IllegalStateException("More copies are on loan from this branch than the new total");
+            }
+            throw new OptimisticLockingFailureException("Branch inventory was modified concurrently");
+        });
+        dirtyBooks.add(bookId);
+        return result;
+    }
+
+    // A book's first branch takes over its book-level stock: loans taken from the book-level
+    // counter are attributed to the branch and count against the new total, so their copies
+    // come back to it. Loans that slip in between the count and the attribution stay
+    // unattributed and are released through releaseUnattributed.
+    private BranchInventory adoptBookLevelStock(Branch branch, String bookId, int total) {
+        Query unattributed = unattributedLoans(bookId);
+        long onLoan = mongoTemplate.count(unattributed, Reservation.class);
+        if (onLoan > total) {
+            throw new IllegalStateException(onLoan + " copies of this book are on loan; the branch total must be at least that");
+        }
+        bookService.markBranchStocked(bookId);
+        BranchInventory inventory = new BranchInventory(branch, bookId, total);
+        inventory.setAvailable(total - (int) onLoan);
+        BranchInventory inserted = insert(inventory);
+        long attributed = mongoTemplate.updateMulti(unattributed,
+                new Update().set("branchId", branch.getId()).set("updatedAt", LocalDateTime.now()).inc("version", 1L),
+                Reservation.class).getModifiedCount();
+        if (attributed > 0) {
+            log.info("Attributed {} loans of book {} to branch {}", attributed, bookId, branch.getId());
+        }
+        return inserted;
+    }
+
+    private BranchInventory insert(BranchInventory inventory) {
+        try {
+            return mongoTemplate.insert(inventory);
+        } catch (DuplicateKeyException e) {
+            throw new OptimisticLockingFailureException("Branch inventory was created concurrently", e);
+        }
+    }
+
+    // For data fixes that change branch counters outside this service
+    public void booksChanged(Collection<String> bookIds) {
+        dirtyBooks.addAll(bookIds);
+    }
+
+    public void deleteBook(String bookId) {
+        mongoTemplate.remove(Query.query(Criteria.where("bookId").is(bookId)), BranchInventory.class);
+    }
+
+    // Takes a copy for a new loan and returns the branch it came from. Without a requested
+    // branch, branches holding a copy are tried in random order so concurrent loans of one
+    // title land on different documents. Null means the book has no branch inventory and the
+    // book-level counter was used.
+    public String reserve(String bookId, String branchId) {
+        if (branchId != null) {
+            if (!takeCopy(branchId, bookId)) {
+                throw new IllegalStateException("Book is not available at this branch");
+            }
+            return branchId;
+        }
+        Query stocked = Query.query(Criteria.where("bookId").is(bookId));
+        stocked.fields().include("branchId").include("available");
+        List<BranchInventory> branches = mongoTemplate.find(stocked, BranchInventory.class);
+        if (branches.isEmpty()) {
+            if (!bookService.reserveBook(bookId)) {
+                throw new IllegalStateException("Book is not available for reservation");
+            }
+            return null;
+        }
+        List<String> candidates = new ArrayList<>();
+        for (BranchInventory inventory : branches) {
+            if (inventory.getAvailable() > 0) {
+                candidates.add(inventory.getBranchId());
+            }
+        }
+        Collections.shuffle(candidates, ThreadLocalRandom.current());
+        for (String candidate : candidates) {
+            if (takeCopy(candidate, bookId)) {
+                return candidate;
+            }
+        }
+        throw new IllegalStateException("Book is not available for reservation");
+    }
+
+    // Gives a loan's copy back to where it was taken from, never beyond that counter's total
+    public void release(String bookId, String branchId) {
+        if (branchId == null) {
+            if (bookService.isBranchStocked(bookId)) {
+                releaseUnattributed(bookId, 1);
+            } else {
+                bookService.returnBook(bookId);
+            }
+            return;
+        }
+        Query onLoan = byId(branchId, bookId)
+                .addCriteria(Criteria.expr(ComparisonOperators.valueOf("available").lessThan("total")));
+        if (mongoTemplate.updateFirst(onLoan, new Update().inc("available", 1).currentDate("updatedAt"),
+                BranchInventory.class).getModifiedCount() > 0) {
+            dirtyBooks.add(bookId);
+        }
+    }
+
+    // Batch form of release for check-in: one bulk write for branch copies, one for book-level ones
+    public void returnCopies(Collection<Reservation> reservations) {
+        Map<String, Integer> bookLevel = new HashMap<>();
+        Map<String, Map<String, Integer>> byBookAndBranch = new HashMap<>();
+        for (Reservation reservation : reservations) {
+            if (reservation.getBranchId() == null) {
+                bookLevel.merge(reservation.getBookId(), 1, Integer::sum);
+            } else {
+                byBookAndBranch.computeIfAbsent(reservation.getBookId(), id -> new HashMap<>())
+                        .merge(reservation.getBranchId(), 1, Integer::sum);
+            }
+        }
+        if (!byBookAndBranch.isEmpty()) {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, BranchInventory.class);
+            byBookAndBranch.forEach((bookId, copiesByBranch) -> copiesByBranch.forEach((branchId, copies) -> {
+                Document capped = new Document("$min", List.of(
+                        new Document("$add", List.of("$available", copies)), "$total"));
+                bulk.updateOne(byId(branchId, bookId),
+                        AggregationUpdate.update().set("available").toValue(capped).set("updatedAt").toValue("$$NOW"));
+            }));
+            bulk.execute();
+            dirtyBooks.addAll(byBookAndBranch.keySet());
+        }
+        if (!bookLevel.isEmpty()) {
+            List<String> branchStocked = mongoTemplate.findDistinct(
+                    Query.query(Criteria.where("bookId").in(bookLevel.keySet())), "bookId", BranchInventory.class, String.class);
+            for (String bookId : branchStocked) {
+                releaseUnattributed(bookId, bookLevel.remove(bookId));
+            }
+        }
+        bookService.returnCopies(bookLevel);
+    }
+
+    // Loans without a branch on a branch-stocked book predate its branch inventory: each
+    // copy goes to a branch that is missing one
+    private void releaseUnattributed(String bookId, int copies) {
+        Query missingCopy = Query.query(Criteria.where("bookId").is(bookId)
+                .andOperator(Criteria.expr(ComparisonOperators.valueOf("available").lessThan("total"))));
+        for (int i = 0; i < copies; i++) {
+            if (mongoTemplate.updateFirst(missingCopy, new Update().inc("available", 1).currentDate("updatedAt"),
+                    BranchInventory.class).getModifiedCount() == 0) {
+                return;
+            }
+            dirtyBooks.add(bookId);
+        }
+    }
+
+    // Branches within maxDistanceKm holding a copy, nearest first, answered from the
+    // book_location_available index
+    public List<BranchAvailability> findAvailableNear(String bookId, double longitude, double latitude,
+                                                      double maxDistanceKm, int limit) {
+        NearQuery near = NearQuery.near(new GeoJsonPoint(longitude, latitude), Metrics.KILOMETERS)
+                .spherical(true)
+                .maxDistance(maxDistanceKm, Metrics.KILOMETERS)
+                .query(Query.query(Criteria.where("bookId").is(bookId).and("available").gt(0)))
+                .limit(limit);
+        List<BranchAvailability> branches = new ArrayList<>();
+        for (GeoResult<BranchInventory> result : mongoTemplate.geoNear(near, BranchInventory.class)) {
+            BranchInventory inventory = result.getContent();
+            branches.add(new BranchAvailability(inventory.getBranchId(), inventory.getBranchName(),
+                    inventory.getAvailable(), result.getDistance().getValue()));
+        }
+        return branches;
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.aggregate-flush-ms:1000}")
+    public void flushAggregates() {
+        if (dirtyBooks.isEmpty()) {
+            return;
+        }
+        List<String> bookIds = new ArrayList<>(dirtyBooks);
+        // Cleared before summing: a branch update racing with the sum marks its book again
+        dirtyBooks.removeAll(bookIds);
+        for (int from = 0; from < bookIds.size(); from += FLUSH_CHUNK_SIZE) {
+            List<String> chunk = bookIds.subList(from, Math.min(bookIds.size(), from + FLUSH_CHUNK_SIZE));
+            try {
+                mergeTotals(new Document("bookId", new Document("$in", chunk)));
+                bookService.availabilityChanged(chunk);
+            } catch (RuntimeException e) {
+                dirtyBooks.addAll(chunk);
+                log.warn("Failed to update book availability from branch inventory: {}", e.getMessage());
+            }
+        }
+    }
+
+    // Full recompute: repairs totals whose pending flush was lost with a node. Caches pick up
+    // the changed versions through their own reconciliation.
+    @Scheduled(cron = "${inventory.reconcile-cron:0 45 3 * * *}")
+    public void reconcileAggregates() {
+        long start = System.nanoTime();
+        mergeTotals(new Document());
+        log.info("Recomputed book availability from branch inventory in {} ms", (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // Sums the branch counters per book and writes them onto the book documents server-side;
+    // version and updatedAt only move when a total actually changed
+    private void mergeTotals(Document match) {
+        Document unchanged = new Document("$and", List.of(
+                new Document("$eq", List.of("$availableCopies", "$$new.availableCopies")),
+                new Document("$eq", List.of("$totalCopies", "$$new.totalCopies"))));
+        Document set = new Document("availableCopies", "$$new.availableCopies")
+                .append("totalCopies", "$$new.totalCopies")
+                .append("version", new Document("$cond", List.of(unchanged, "$version",
+                        new Document("$add", List.of(new Document("$ifNull", List.of("$version", 0L)), 1L)))))
+                .append("updatedAt", new Document("$cond", List.of(unchanged, "$updatedAt", "$$NOW")));
+        List<Document> pipeline = new ArrayList<>(totalsByBook(match));
+        pipeline.add(new Document("$merge", new Document("into", mongoTemplate.getCollectionName(Book.class))
+                .append("on", "_id")
+                .append("whenMatched", List.of(new Document("$set", set)))
+                .append("whenNotMatched", "discard")));
+        mongoTemplate.getCollection(mongoTemplate.getCollectionName(BranchInventory.class)).aggregate(pipeline).toCollection();
+    }
+
+    // One document per book, keyed by the book's _id, with its branches' summed counters
+    static List<Document> totalsByBook(Document match) {
+        Document bookId = new Document("$convert", new Document("input", "$bookId")
+                .append("to", "objectId").append("onError", "$bookId"));
+        return List.of(
+                new Document("$match", match),
+                new Document("$group", new Document("_id", bookId)
+                        .append("availableCopies", new Document("$sum", "$available"))
+                        .append("totalCopies", new Document("$sum", "$total"))));
+    }
+
+    private boolean takeCopy(String branchId, String bookId) {
+        Query available = byId(branchId, bookId).addCriteria(Criteria.where("available").gt(0));
+        boolean taken = mongoTemplate.updateFirst(available, new Update().inc("available", -1).currentDate("updatedAt"),
+                BranchInventory.class).getModifiedCount() > 0;
+        if (taken) {
+            dirtyBooks.add(bookId);
+        }
+        return taken;
+    }
+
+    private static Query unattributedLoans(String bookId) {
+        return Query.query(Criteria.where("bookId").is(bookId).and("branchId").is(null)
+                .and("status").is(Reservation.ReservationStatus.ACTIVE));
+    }
+
+    // bookId is the shard key, so every single-document write carries it
+    private static Query byId(String branchId, String bookId) {
+        return Query.query(Criteria.where("_id").is(BranchInventory.id(branchId, bookId)).and("bookId").is(bookId));
+    }
+}
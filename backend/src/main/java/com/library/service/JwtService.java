@@ -1,9 +1,13 @@
 package com.library.service;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
@@ -11,36 +15,78 @@ import javax.crypto.SecretKey;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
 import java.util.function.Function;
 
+// Short-lived access tokens (jwt.expiration); clients renew them with refresh tokens from
+// RefreshTokenService instead of logging in again. Validation is signature, expiry and the
+// in-memory revocation list only.
 @Service
 public class JwtService {
-    
+
+    public static final String FAMILY_CLAIM = "fam";
+
     @Value("${jwt.secret}")
     private String jwtSecret;
 
     @Value("${jwt.expiration}")
     private long jwtExpiration;
 
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = jwtSecret.getBytes();
-        return Keys.hmacShaKeyFor(keyBytes);
+    @Autowired
+    private TokenRevocationList revocationList;
+
+    private SecretKey signingKey;
+    private JwtParser parser;
+
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+    }
+
+    public long getExpirationMillis() {
+        return jwtExpiration;
     }
 
     public String generateToken(String username) {
         return generateToken(new HashMap<>(), username);
     }
 
+    // familyId ties the access token to the refresh-token family it was issued with, so
+    // revoking the family (logout, refresh token reuse) also revokes the access token
+    public String generateToken(String username, String familyId) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(FAMILY_CLAIM, familyId);
+        return generateToken(claims, username);
+    }
+
     public String generateToken(Map<String, Object> extraClaims, String username) {
+        long now = System.currentTimeMillis();
         return Jwts.builder()
                 .setClaims(extraClaims)
+                .setId(UUID.randomUUID().toString())
                 .setSubject(username)
-                .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + jwtExpiration))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + jwtExpiration))
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
+    // Claims of a well-signed, unexpired and unrevoked token
+    public Optional<Claims> authenticate(String token) {
+        Claims claims;
+        try {
+            claims = extractAllClaims(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            return Optional.empty();
+        }
+        if (isRevoked(claims)) {
+            return Optional.empty();
+        }
+        return Optional.of(claims);
+    }
+
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
     }
@@ -51,23 +97,19 @@ public class JwtService {
     }
 
     public boolean isTokenValid(String token, String username) {
-        final String extractedUsername = extractUsername(token);
-        return (extractedUsername.equals(username) && !isTokenExpired(token));
-    }
-
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+        return authenticate(token).map(claims -> username.equals(claims.getSubject())).orElse(false);
     }
 
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    private boolean isRevoked(Claims claims) {
+        if (claims.getId() != null && revocationList.isRevoked(TokenRevocationList.tokenKey(claims.getId()))) {
+            return true;
+        }
+        String familyId = claims.get(FAMILY_CLAIM, String.class);
+        return familyId != null && revocationList.isRevoked(TokenRevocationList.familyKey(familyId));
     }
 
+    // Throws for a bad signature or an expired token
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return parser.parseClaimsJws(token).getBody();
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,34 @@
+package com.library.service;
+
+import com.library.model.CacheInvalidation;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// In-process stand-in for a message broker: delivers to every CacheInvalidationBus registered
+// in this JVM, e.g. several application contexts started side by side in one test.
+// Separate processes need the change-stream transport.
+public class LocalInvalidationBroker {
+
+    private static final LocalInvalidationBroker SHARED = new LocalInvalidationBroker();
+
+    private final List<CacheInvalidationBus> buses = new CopyOnWriteArrayList<>();
+
+    public static LocalInvalidationBroker shared() {
+        return SHARED;
+    }
+
+    public void register(CacheInvalidationBus bus) {
+        buses.add(bus);
+    }
+
+    public void unregister(CacheInvalidationBus bus) {
+        buses.remove(bus);
+    }
+
+    public void publish(CacheInvalidation invalidation) {
+        for (CacheInvalidationBus bus : buses) {
+            bus.deliver(invalidation);
+        }
+    }
+}
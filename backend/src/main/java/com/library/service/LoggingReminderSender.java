@@ -0,0 +1,23 @@
+package com.library.service;
+
+import com.library.model.DueReminder;
+import com.library.model.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Default channel until email is configured: reminders only go to the log
+@Component
+@ConditionalOnProperty(name = "reminders.channel", havingValue = "log", matchIfMissing = true)
+public class LoggingReminderSender implements ReminderSender {
+
+    private static final Logger log = LoggerFactory.getLogger(LoggingReminderSender.class);
+
+    @Override
+    public void send(User user, List<DueReminder> reminders) {
+        log.info("Reminder for {}: {} loan(s) due", user.getUsername(), reminders.size());
+    }
+}
@@ -0,0 +1,94 @@
+package com.library.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Turns a JSON Merge Patch (RFC 7386) into field-level $set/$unset updates. Each touched field
+// is converted to its Java type and checked against that field's own constraints only; a
+// "version" member is a precondition, not a field.
+@Component
+public class MergePatchMapper {
+
+    public static final String MEDIA_TYPE = "application/merge-patch+json";
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
+
+    // Returns field -> typed value (null means remove), in patch order
+    public Map<String, Object> toFieldValues(Class<?> type, Map<String, Object> patch, Set<String> patchable) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        List<String> errors = new ArrayList<>();
+        for (Map.Entry<String, Object> entry : patch.entrySet()) {
+            String name = entry.getKey();
+            if ("version".equals(name)) {
+                continue;
+            }
+            if (!patchable.contains(name)) {
+                errors.add(name + ": cannot be patched");
+                continue;
+            }
+            Field field = ReflectionUtils.findField(type, name);
+            if (entry.getValue() == null && field.getType().isPrimitive()) {
+                errors.add(name + ": cannot be removed");
+                continue;
+            }
+            Object value;
+            try {
+                value = entry.getValue() == null ? null
+                        : objectMapper.convertValue(entry.getValue(), objectMapper.constructType(field.getGenericType()));
+            } catch (IllegalArgumentException e) {
+                errors.add(name + ": invalid value");
+                continue;
+            }
+            for (ConstraintViolation<?> violation : validator.validateValue(type, name, value)) {
+                errors.add(name + ": " + violation.getMessage());
+            }
+            values.put(name, value);
+        }
+        if (!errors.isEmpty()) {
+            throw new IllegalArgumentException(String.join("; ", errors));
+        }
+        if (values.isEmpty()) {
+            throw new IllegalArgumentException("Patch does not change any fields");
+        }
+        return values;
+    }
+
+    public Long expectedVersion(Map<String, Object> patch) {
+        Object version = patch.get("version");
+        if (version == null) {
+            return null;
+        }
+        if (!(version instanceof Number number)) {
+            throw new IllegalArgumentException("version: must be a number");
+        }
+        return number.longValue();
+    }
+
+    public Update toUpdate(Map<String, Object> fieldValues) {
+        Update update = new Update();
+        fieldValues.forEach((name, value) -> {
+            if (value == null) {
+                update.unset(name);
+            } else {
+                update.set(name, value);
+            }
+        });
+        return update;
+    }
+}
@@ -0,0 +1,44 @@
+package com.library.service;
+
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+// Re-runs a read-modify-write that ends in a versioned save when another writer got there
+// first. The action must re-read its document on every attempt.
+public final class OptimisticRetry {
+
+    public static final int DEFAULT_ATTEMPTS = 5;
+
+    private OptimisticRetry() {
+    }
+
+    public static <T> T run(Supplier<T> action) {
+        return run(DEFAULT_ATTEMPTS, action);
+    }
+
+    public static <T> T run(int maxAttempts, Supplier<T> action) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return action.get();
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+                backoff(attempt);
+            }
+        }
+    }
+
+    private static void backoff(int attempt) {
+        // Jittered so writers that collided don't collide again in lockstep
+        long maxMillis = Math.min(50, 1L << attempt);
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(maxMillis + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while retrying a concurrent update", e);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.library.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+public class RateLimiter {
+
+    public enum Route {
+        LOGIN, SEARCH, RESERVATIONS
+    }
+
+    private final Map<Route, RouteLimits> limits = new EnumMap<>(Route.class);
+
+    public RateLimiter(@Value("${rate-limit.login.capacity:5}") int loginCapacity,
+                       @Value("${rate-limit.login.refill-per-second:0.2}") double loginRefill,
+                       @Value("${rate-limit.search.capacity:30}") int searchCapacity,
+                       @Value("${rate-limit.search.refill-per-second:10}") double searchRefill,
+                       @Value("${rate-limit.reservations.capacity:10}") int reservationsCapacity,
+                       @Value("${rate-limit.reservations.refill-per-second:2}") double reservationsRefill) {
+        limits.put(Route.LOGIN, new RouteLimits(loginCapacity, loginRefill));
+        limits.put(Route.SEARCH, new RouteLimits(searchCapacity, searchRefill));
+        limits.put(Route.RESERVATIONS, new RouteLimits(reservationsCapacity, reservationsRefill));
+    }
+
+    // Returns 0 when the request may proceed, otherwise the nanos until the client's bucket refills
+    public long tryAcquire(Route route, String clientKey) {
+        RouteLimits routeLimits = limits.get(route);
+        long now = System.nanoTime();
+        TokenBucket bucket = routeLimits.buckets.get(clientKey);
+        if (bucket == null) {
+            bucket = routeLimits.buckets.computeIfAbsent(clientKey,
+                    key -> new TokenBucket(routeLimits.capacity, routeLimits.refillPerSecond, now));
+        }
+        if (bucket.tryAcquire(now)) {
+            return 0;
+        }
+        return Math.max(1, bucket.nanosUntilAvailable(now));
+    }
+
+    // Only the member-facing writes share the reservations bucket: reading reservations and the
+    // librarian endpoints (update, delete, batch check-in) are not limited
+    public static Route resolveRoute(String method, String uri) {
+        if ("POST".equals(method) && (uri.equals("/api/reservations")
+                || (uri.startsWith("/api/reservations/") && (uri.endsWith("/return") || uri.endsWith("/cancel"))))) {
+            return Route.RESERVATIONS;
+        }
+        if ("POST".equals(method) && uri.equals("/api/auth/login")) {
+            return Route.LOGIN;
+        }
+        if ("GET".equals(method) && uri.equals("/api/books/search")) {
+            return Route.SEARCH;
+        }
+        return null;
+    }
+
+    @Scheduled(fixedDelayString = "${rate-limit.eviction-interval-ms:60000}")
+    public void evictIdleBuckets() {
+        long now = System.nanoTime();
+        for (RouteLimits routeLimits : limits.values()) {
+            routeLimits.buckets.values().removeIf(bucket -> bucket.isFull(now));
+        }
+    }
+
+    public int getTrackedClients(Route route) {
+        return limits.get(route).buckets.size();
+    }
+
+    private static final class RouteLimits {
+        final int capacity;
+        final double refillPerSecond;
+        final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+        RouteLimits(int capacity, double refillPerSecond) {
+            this.capacity = capacity;
+            this.refillPerSecond = refillPerSecond;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.library.service;
+
+import com.library.model.BookRecommendation;
+import com.library.model.Reservation;
+import com.mongodb.client.MongoCursor;
+import jakarta.annotation.PostConstruct;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+
+// "Readers also borrowed": serves top-K co-borrowed books per book from an in-memory
+// CoBorrowIndex. The index is rebuilt from the reservations collection and its archive
+// partitions (startup and nightly) and updated in place as new loans are recorded.
+@Service
+public class RecommendationService {
+
+    private static final Logger log = LoggerFactory.getLogger(RecommendationService.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ReservationArchiveService archiveService;
+
+    @Value("${recommendations.build-on-startup:true}")
+    private boolean buildOnStartup;
+
+    @Value("${recommendations.parallelism:0}")
+    private int parallelism;
+
+    @Value("${recommendations.max-loans-per-user:1000}")
+    private int maxLoansPerUser;
+
+    @Value("${recommendations.max-results:50}")
+    private int maxResults;
+
+    @Value("${recommendations.min-co-borrowers:1}")
+    private int minCoBorrowers;
+
+    private volatile Model model;
+
+    // Loans recorded while a rebuild is reading history, replayed into the new index
+    private final Queue<Reservation> loansDuringRebuild = new ConcurrentLinkedQueue<>();
+    private volatile boolean rebuilding;
+
+    @PostConstruct
+    void init() {
+        model = new Model(CoBorrowIndex.empty(maxLoansPerUser));
+    }
+
+    public int getMaxResults() {
+        return maxResults;
+    }
+
+    public List<BookRecommendation> recommend(String bookId, int limit) {
+        Model current = model;
+        List<BookRecommendation> best = current.topK.computeIfAbsent(bookId,
+                id -> current.index.topK(id, maxResults, minCoBorrowers));
+        return best.size() <= limit ? best : best.subList(0, limit);
+    }
+
+    public void recordLoan(Reservation reservation) {
+        if (rebuilding) {
+            loansDuringRebuild.add(reservation);
+        }
+        // Read after the enqueue: a loan that misses the replay is guaranteed to see the new model
+        apply(model, reservation);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildInBackground() {
+        if (!buildOnStartup) {
+            return;
+        }
+        Thread thread = new Thread(this::rebuild, "recommendation-index-builder");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Scheduled(cron = "${recommendations.rebuild-cron:0 0 3 * * *}")
+    public synchronized void rebuild() {
+        long start = System.nanoTime();
+        rebuilding = true;
+        ForkJoinPool pool = parallelism > 0 ? new ForkJoinPool(parallelism) : new ForkJoinPool();
+        try {
+            CoBorrowIndex.Builder builder = new CoBorrowIndex.Builder(maxLoansPerUser);
+            List<String> collections = new ArrayList<>();
+            collections.add("reservations");
+            collections.addAll(archiveService.getPartitions());
+            long loans = 0;
+            for (String collection : collections) {
+                loans += readLoans(collection, builder);
+            }
+            Model built = new Model(builder.build(pool));
+            model = built;
+            rebuilding = false;
+            Reservation reservation;
+            while ((reservation = loansDuringRebuild.poll()) != null) {
+                apply(built, reservation);
+            }
+            log.info("Built recommendation index from {} loans over {} books in {} ms",
+                    loans, built.index.bookCount(), (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException e) {
+            log.warn("Recommendation index build failed: {}", e.getMessage());
+        } finally {
+            rebuilding = false;
+            loansDuringRebuild.clear();
+            pool.shutdown();
+        }
+    }
+
+    private long readLoans(String collection, CoBorrowIndex.Builder builder) {
+        Document filter = new Document("status", new Document("$ne", Reservation.ReservationStatus.CANCELLED.name()));
+        Document projection = new Document("userId", 1).append("bookId", 1)
+                .append("bookTitle", 1).append("bookAuthor", 1).append("_id", 0);
+        long loans = 0;
+        try (MongoCursor<Document> cursor = mongoTemplate.getCollection(collection)
+                .find(filter).projection(projection).batchSize(10_000).cursor()) {
+            while (cursor.hasNext()) {
+                Document loan = cursor.next();
+                String userId = loan.getString("userId");
+                String bookId = loan.getString("bookId");
+                if (userId != null && bookId != null) {
+                    builder.add(userId, bookId, loan.getString("bookTitle"), loan.getString("bookAuthor"));
+                    loans++;
+                }
+            }
+        }
+        return loans;
+    }
+
+    private void apply(Model target, Reservation reservation) {
+        List<String> affected = target.index.recordLoan(reservation.getUserId(), reservation.getBookId(),
+                reservation.getBookTitle(), reservation.getBookAuthor());
+        affected.forEach(target.topK::remove);
+    }
+
+    // The cache lives with its index so a rebuild can't mix results from two generations
+    private record Model(CoBorrowIndex index, Map<String, List<BookRecommendation>> topK) {
+
+        Model(CoBorrowIndex index) {
+            // bookId -> top maxResults, dropped whenever a loan touches that book's row
+            this(index, new ConcurrentHashMap<>());
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.library.service;
+
+import com.library.model.RefreshToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.UUID;
+
+// Rotating refresh tokens. Each token is single-use: refreshing marks it used and issues the
+// next token of its family with a fresh access token. A used token presented again means it
+// was copied, so the whole family is revoked, along with the access tokens issued from it.
+@Service
+public class RefreshTokenService {
+
+    private static final Logger log = LoggerFactory.getLogger(RefreshTokenService.class);
+
+    private final SecureRandom random = new SecureRandom();
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private TokenRevocationList revocationList;
+
+    @Value("${jwt.refresh-expiration:30d}")
+    private Duration refreshExpiration;
+
+    public record IssuedTokens(String accessToken, String refreshToken, long expiresInSeconds) {
+    }
+
+    // After a successful login or signup: starts a new family
+    public IssuedTokens issue(String username) {
+        return issue(username, UUID.randomUUID().toString());
+    }
+
+    public Optional<IssuedTokens> rotate(String refreshToken) {
+        String hash = hash(refreshToken);
+        Instant now = Instant.now();
+        RefreshToken current = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(hash).and("usedAt").is(null).and("expiresAt").gt(now)),
+                new Update().set("usedAt", now),
+                FindAndModifyOptions.options().returnNew(true), RefreshToken.class);
+        if (current != null) {
+            return Optional.of(issue(current.getUsername(), current.getFamilyId()));
+        }
+        RefreshToken presented = mongoTemplate.findById(hash, RefreshToken.class);
+        if (presented != null && presented.getUsedAt() != null) {
+            log.warn("Refresh token reused for user {}; revoking its family", presented.getUsername());
+            revokeFamily(presented.getFamilyId());
+        }
+        return Optional.empty();
+    }
+
+    // Logout: ends the family of the given refresh token
+    public void revoke(String refreshToken) {
+        RefreshToken presented = mongoTemplate.findById(hash(refreshToken), RefreshToken.class);
+        if (presented != null) {
+            revokeFamily(presented.getFamilyId());
+        }
+    }
+
+    public void revokeFamily(String familyId) {
+        mongoTemplate.remove(Query.query(Criteria.where("familyId").is(familyId)), RefreshToken.class);
+        revocationList.revoke(TokenRevocationList.familyKey(familyId),
+                Instant.now().plusMillis(jwtService.getExpirationMillis()));
+    }
+
+    private IssuedTokens issue(String username, String familyId) {
+        byte[] secret = new byte[32];
+        random.nextBytes(secret);
+        String refreshToken = Base64.getUrlEncoder().withoutPadding().encodeToString(secret);
+        Instant now = Instant.now();
+        mongoTemplate.insert(new RefreshToken(hash(refreshToken), username, familyId, now, now.plus(refreshExpiration)));
+        return new IssuedTokens(jwtService.generateToken(username, familyId), refreshToken,
+                jwtService.getExpirationMillis() / 1000);
+    }
+
+    // 256 random bits need no salt or slow hash; SHA-256 keeps lookups a single _id match
+    private static String hash(String refreshToken) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(refreshToken.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
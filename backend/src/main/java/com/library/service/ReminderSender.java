@@ -0,0 +1,14 @@
+package com.library.service;
+
+import com.library.model.DueReminder;
+import com.library.model.User;
+
+import java.util.List;
+
+// Delivery channel for due-date reminders; one call per member with all of their due loans.
+// Called from the reminder worker pool, so implementations must be thread-safe. Throwing
+// marks the member's reminders as unsent so the next run retries them.
+public interface ReminderSender {
+
+    void send(User user, List<DueReminder> reminders);
+}
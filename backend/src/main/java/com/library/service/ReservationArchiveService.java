@@ -0,0 +1,212 @@
+package com.library.service;
+
+import com.library.config.MongoReadRouting;
+import com.library.model.Reservation;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.aggregation.MatchOperation;
+import org.springframework.data.mongodb.core.aggregation.UnionWithOperation;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+// Moves RETURNED/CANCELLED reservations out of the hot collection into monthly
+// partitions named reservations_archive_yyyy_MM (by reservation date)
+@Service
+public class ReservationArchiveService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReservationArchiveService.class);
+
+    public static final String ARCHIVE_PREFIX = "reservations_archive_";
+    private static final DateTimeFormatter PARTITION_FORMAT = DateTimeFormatter.ofPattern("yyyy_MM");
+    private static final List<String> TERMINAL_STATUSES = List.of(
+            Reservation.ReservationStatus.RETURNED.name(), Reservation.ReservationStatus.CANCELLED.name());
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MongoReadRouting readRouting;
+
+    @Value("${archive.reservations.enabled:true}")
+    private boolean enabled;
+
+    @Value("${archive.reservations.min-age:180d}")
+    private Duration minAge;
+
+    @Value("${archive.reservations.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${archive.reservations.max-batches-per-run:1000}")
+    private int maxBatchesPerRun;
+
+    @Value("${archive.reservations.block-compressor:zstd}")
+    private String blockCompressor;
+
+    private final Set<String> partitions = new ConcurrentSkipListSet<>();
+    private volatile boolean partitionsLoaded;
+
+    @Scheduled(cron = "${archive.reservations.cron:0 30 2 * * *}")
+    public void scheduledArchive() {
+        if (enabled) {
+            archive();
+        }
+    }
+
+    // Pages on (updatedAt, _id), the order of the status_updated_id index, so each batch is an
+    // index range scan without a blocking sort. The keyset also moves past any document whose
+    // delete didn't happen (e.g. it was reopened), instead of reading it again.
+    public int archive() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(minAge);
+        int archived = 0;
+        Date lastUpdatedAt = null;
+        Object lastId = null;
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            Criteria criteria = Criteria.where("status").in(TERMINAL_STATUSES).and("updatedAt").lt(cutoff);
+            if (lastUpdatedAt != null) {
+                criteria.orOperator(Criteria.where("updatedAt").gt(lastUpdatedAt),
+                        Criteria.where("updatedAt").is(lastUpdatedAt).and("_id").gt(lastId));
+            }
+            Query query = Query.query(criteria)
+                    .with(Sort.by("updatedAt", "_id"))
+                    .limit(batchSize);
+            List<Document> documents = mongoTemplate.find(query, Document.class, "reservations");
+            if (documents.isEmpty()) {
+                break;
+            }
+            archived += archiveBatch(documents);
+            Document last = documents.get(documents.size() - 1);
+            lastUpdatedAt = last.getDate("updatedAt");
+            lastId = last.get("_id");
+            if (documents.size() < batchSize) {
+                break;
+            }
+        }
+        if (archived > 0) {
+            log.info("Archived {} terminal reservations older than {}", archived, minAge);
+        }
+        return archived;
+    }
+
+    // One round trip however many partitions there are: the first partition's matches plus a
+    // $unionWith per other partition, each using its own userId/bookId index
+    public List<Reservation> findArchived(String field, String value) {
+        List<String> names = new ArrayList<>(getPartitions());
+        if (names.isEmpty()) {
+            return List.of();
+        }
+        MatchOperation match = Aggregation.match(Criteria.where(field).is(value));
+        List<AggregationOperation> stages = new ArrayList<>(names.size());
+        stages.add(match);
+        for (String partition : names.subList(1, names.size())) {
+            stages.add(UnionWithOperation.unionWith(partition).pipeline(match));
+        }
+        Aggregation aggregation = Aggregation.newAggregation(stages)
+                .withOptions(readRouting.staleTolerant(AggregationOptions.builder()).build());
+        return mongoTemplate.aggregate(aggregation, names.get(0), Reservation.class).getMappedResults();
+    }
+
+    public Set<String> getPartitions() {
+        if (!partitionsLoaded) {
+            refreshPartitions();
+        }
+        return partitions;
+    }
+
+    @Scheduled(fixedDelayString = "${archive.reservations.partition-refresh-ms:300000}")
+    public void refreshPartitions() {
+        Set<String> current = new TreeSet<>();
+        for (String name : mongoTemplate.getCollectionNames()) {
+            if (name.startsWith(ARCHIVE_PREFIX)) {
+                current.add(name);
+            }
+        }
+        partitions.addAll(current);
+        partitions.retainAll(current);
+        partitionsLoaded = true;
+    }
+
+    private int archiveBatch(List<Document> documents) {
+        Map<String, List<Document>> byPartition = new LinkedHashMap<>();
+        for (Document document : documents) {
+            byPartition.computeIfAbsent(partitionFor(document), name -> new ArrayList<>()).add(document);
+        }
+
+        // Upserts keep a re-run after a crash between copy and delete idempotent
+        for (Map.Entry<String, List<Document>> entry : byPartition.entrySet()) {
+            ensurePartition(entry.getKey());
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, entry.getKey());
+            for (Document document : entry.getValue()) {
+                bulk.replaceOne(Query.query(Criteria.where("_id").is(document.get("_id"))), document,
+                        FindAndReplaceOptions.options().upsert());
+            }
+            bulk.execute();
+        }
+
+        // One delete per document carrying userId, the shard key, so each goes to a single shard
+        BulkOperations delete = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, "reservations");
+        for (Document document : documents) {
+            delete.remove(Query.query(Criteria.where("_id").is(document.get("_id"))
+                    .and("userId").is(document.get("userId"))
+                    .and("status").in(TERMINAL_STATUSES)));
+        }
+        return delete.execute().getDeletedCount();
+    }
+
+    private String partitionFor(Document document) {
+        Date date = document.getDate("reservationDate");
+        if (date == null) {
+            date = document.getDate("updatedAt");
+        }
+        LocalDateTime month = date != null ? LocalDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault()) : LocalDateTime.now();
+        return ARCHIVE_PREFIX + PARTITION_FORMAT.format(month);
+    }
+
+    private void ensurePartition(String name) {
+        if (partitions.contains(name)) {
+            return;
+        }
+        if (!mongoTemplate.collectionExists(name)) {
+            Document create = new Document("create", name);
+            if (!blockCompressor.isBlank()) {
+                // Archive partitions are read rarely, so trade CPU for a smaller footprint
+                create.append("storageEngine", new Document("wiredTiger",
+                        new Document("configString", "block_compressor=" + blockCompressor)));
+            }
+            try {
+                mongoTemplate.executeCommand(create);
+            } catch (RuntimeException e) {
+                // Another node may have created it concurrently
+                log.debug("Could not create archive partition {}: {}", name, e.getMessage());
+            }
+        }
+        mongoTemplate.indexOps(name).createIndex(new Index().on("userId", Sort.Direction.ASC));
+        mongoTemplate.indexOps(name).createIndex(new Index().on("bookId", Sort.Direction.ASC));
+        partitions.add(name);
+    }
+}
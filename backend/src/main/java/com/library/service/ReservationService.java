@@ -1,11 +1,33 @@
 package com.library.service;
 
+import com.library.config.MongoReadRouting;
+import com.library.model.Book;
+import com.library.model.CatalogEvent;
+import com.library.model.CheckInResult;
+import com.library.model.CirculationEvent;
 import com.library.model.Reservation;
 import com.library.repository.ReservationRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 @Service
 public class ReservationService {
@@ -19,6 +41,30 @@ public class ReservationService {
     @Autowired
     private BookService bookService;
 
+    @Autowired
+    private CatalogEventBus catalogEventBus;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MongoReadRouting readRouting;
+
+    @Autowired
+    private ReservationArchiveService archiveService;
+
+    @Autowired
+    private CirculationAuditLog auditLog;
+
+    @Autowired
+    private RecommendationService recommendationService;
+
+    @Autowired
+    private FineService fineService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
     public List<Reservation> getAllReservations() {
         return reservationRepository.findAll();
     }
@@ -27,22 +73,46 @@ public class ReservationService {
         return reservationRepository.findById(id);
     }
 
+    // With the owning userId the lookup targets a single shard; without it, it scatters
+    public Optional<Reservation> getReservationById(String id, String userId) {
+        return userId == null ? reservationRepository.findById(id) : reservationRepository.findByIdAndUserId(id, userId);
+    }
+
+    // Conditional on the reservation's version when it has one
     public Reservation saveReservation(Reservation reservation) {
         // Populate reference fields
         populateReferenceFields(reservation);
-        return reservationRepository.save(reservation);
+        Reservation saved = reservationRepository.save(reservation);
+        publishStatus(saved);
+        return saved;
     }
 
-    public void deleteReservation(String id) {
-        reservationRepository.deleteById(id);
+    public boolean existsById(String id) {
+        return reservationRepository.existsById(id);
+    }
+
+    public boolean deleteReservation(String id, String userId) {
+        Criteria criteria = Criteria.where("_id").is(id);
+        if (userId != null) {
+            criteria.and("userId").is(userId);
+        }
+        return mongoTemplate.remove(Query.query(criteria), Reservation.class).getDeletedCount() > 0;
     }
 
+    // History lookups tolerate replication lag, so they may be served by secondaries,
+    // and span both the hot collection and the archive partitions
     public List<Reservation> getReservationsByUserId(String userId) {
-        return reservationRepository.findByUserId(userId);
+        Query byUser = Query.query(Criteria.where("userId").is(userId));
+        List<Reservation> reservations = new ArrayList<>(mongoTemplate.find(readRouting.staleTolerant(byUser), Reservation.class));
+        reservations.addAll(archiveService.findArchived("userId", userId));
+        return reservations;
     }
 
     public List<Reservation> getReservationsByBookId(String bookId) {
-        return reservationRepository.findByBookId(bookId);
+        Query byBook = Query.query(Criteria.where("bookId").is(bookId));
+        List<Reservation> reservations = new ArrayList<>(mongoTemplate.find(readRouting.staleTolerant(byBook), Reservation.class));
+        reservations.addAll(archiveService.findArchived("bookId", bookId));
+        return reservations;
     }
 
     public List<Reservation> getReservationsByStatus(Reservation.ReservationStatus status) {
@@ -50,42 +120,181 @@ public class ReservationService {
     }
 
     public Reservation createReservation(String userId, String bookId) {
-        // Check if book is available
-        if (!bookService.reserveBook(bookId)) {
-            throw new IllegalStateException("Book is not available for reservation");
+        return createReservation(userId, bookId, null);
+    }
+
+    // branchId is optional: without it the copy comes from any branch that has one
+    public Reservation createReservation(String userId, String bookId, String branchId) {
+        if (reservationRepository.existsByUserIdAndBookIdAndStatus(userId, bookId, Reservation.ReservationStatus.ACTIVE)) {
+            throw new IllegalStateException("User already has an active reservation for this book");
         }
 
+        // Takes a copy or throws when none is available
+        String reservedAt = inventoryService.reserve(bookId, branchId);
+
         Reservation reservation = new Reservation(userId, bookId);
+        reservation.setBranchId(reservedAt);
         populateReferenceFields(reservation);
-        return reservationRepository.save(reservation);
+        Reservation saved;
+        try {
+            saved = reservationRepository.save(reservation);
+        } catch (DuplicateKeyException e) {
+            // A concurrent request won the unique (userId, bookId, ACTIVE) index; give the copy back
+            inventoryService.release(bookId, reservedAt);
+            throw new IllegalStateException("User already has an active reservation for this book");
+        }
+        auditLog.record(CirculationEvent.of(CirculationEvent.Type.RESERVED, saved, "API"));
+        recommendationService.recordLoan(saved);
+        publishStatus(saved);
+        return saved;
     }
 
-    public boolean returnBook(String reservationId) {
-        Optional<Reservation> reservationOpt = reservationRepository.findById(reservationId);
-        if (reservationOpt.isPresent()) {
-            Reservation reservation = reservationOpt.get();
-            if (reservation.getStatus() == Reservation.ReservationStatus.ACTIVE) {
-                reservation.returnBook();
-                bookService.returnBook(reservation.getBookId());
-                reservationRepository.save(reservation);
-                return true;
+    public boolean returnBook(String reservationId, String userId) {
+        return transitionActive(reservationId, userId, reservation -> {
+            reservation.returnBook();
+            reservation.setFineCents(fineService.fineFor(reservation));
+        }, CirculationEvent.Type.RETURNED);
+    }
+
+    // Batch check-in for drop-box returns: a handful of queries and a few bulk writes
+    // (reservations, branch and book copies, fine balances) regardless of batch size. ISBN
+    // scans return the most overdue ACTIVE loan of that title.
+    public List<CheckInResult> checkIn(List<String> reservationIds, List<String> isbns) {
+        List<CheckInResult> results = new ArrayList<>(reservationIds.size() + isbns.size());
+        Map<String, Reservation> toReturn = new LinkedHashMap<>();
+
+        Map<String, Reservation> byId = new HashMap<>();
+        reservationRepository.findAllById(reservationIds).forEach(r -> byId.put(r.getId(), r));
+        for (String id : reservationIds) {
+            Reservation reservation = byId.get(id);
+            if (reservation == null) {
+                results.add(new CheckInResult(id, null, null, CheckInResult.Outcome.NOT_FOUND));
+            } else if (reservation.getStatus() != Reservation.ReservationStatus.ACTIVE) {
+                results.add(new CheckInResult(id, id, reservation.getBookId(), CheckInResult.Outcome.NOT_ACTIVE));
+            } else if (toReturn.putIfAbsent(id, reservation) != null) {
+                results.add(new CheckInResult(id, id, reservation.getBookId(), CheckInResult.Outcome.DUPLICATE));
+            } else {
+                results.add(new CheckInResult(id, id, reservation.getBookId(), CheckInResult.Outcome.RETURNED));
+            }
+        }
+
+        if (!isbns.isEmpty()) {
+            Map<String, String> bookIdByIsbn = new HashMap<>();
+            Query booksByIsbn = Query.query(Criteria.where("isbn").in(new HashSet<>(isbns)));
+            booksByIsbn.fields().include("isbn");
+            for (Book book : mongoTemplate.find(booksByIsbn, Book.class)) {
+                bookIdByIsbn.putIfAbsent(book.getIsbn(), book.getId());
+            }
+
+            Map<String, Deque<Reservation>> activeByBook = new HashMap<>();
+            Query active = Query.query(Criteria.where("status").is(Reservation.ReservationStatus.ACTIVE)
+                            .and("bookId").in(new HashSet<>(bookIdByIsbn.values())))
+                    .with(Sort.by("expectedReturnDate"));
+            for (Reservation reservation : mongoTemplate.find(active, Reservation.class)) {
+                if (!toReturn.containsKey(reservation.getId())) {
+                    activeByBook.computeIfAbsent(reservation.getBookId(), id -> new ArrayDeque<>()).add(reservation);
+                }
+            }
+
+            for (String isbn : isbns) {
+                String bookId = bookIdByIsbn.get(isbn);
+                Deque<Reservation> candidates = bookId != null ? activeByBook.get(bookId) : null;
+                if (bookId == null) {
+                    results.add(new CheckInResult(isbn, null, null, CheckInResult.Outcome.NOT_FOUND));
+                } else if (candidates == null || candidates.isEmpty()) {
+                    results.add(new CheckInResult(isbn, null, bookId, CheckInResult.Outcome.NO_ACTIVE_RESERVATION));
+                } else {
+                    Reservation reservation = candidates.poll();
+                    toReturn.put(reservation.getId(), reservation);
+                    results.add(new CheckInResult(isbn, reservation.getId(), bookId, CheckInResult.Outcome.RETURNED));
+                }
+            }
+        }
+
+        if (toReturn.isEmpty()) {
+            return results;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        toReturn.values().forEach(reservation -> reservation.setActualReturnDate(now));
+        fineService.applyFines(toReturn.values(), now);
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Reservation.class);
+        for (Reservation reservation : toReturn.values()) {
+            // userId is the shard key: each update goes to one shard
+            bulk.updateOne(
+                    Query.query(Criteria.where("_id").is(reservation.getId())
+                            .and("userId").is(reservation.getUserId())
+                            .and("status").is(Reservation.ReservationStatus.ACTIVE)),
+                    new Update()
+                            .set("status", Reservation.ReservationStatus.RETURNED)
+                            .set("actualReturnDate", now)
+                            .set("fineCents", reservation.getFineCents())
+                            .set("updatedAt", now)
+                            .inc("version", 1L));
+        }
+        int modified = bulk.execute().getModifiedCount();
+
+        Set<String> returnedIds = toReturn.keySet();
+        if (modified < toReturn.size()) {
+            // Some were returned or cancelled concurrently; only count the ones we transitioned
+            returnedIds = new HashSet<>();
+            Query check = Query.query(Criteria.where("_id").in(toReturn.keySet()).and("actualReturnDate").is(now));
+            check.fields().include("_id");
+            for (Reservation reservation : mongoTemplate.find(check, Reservation.class)) {
+                returnedIds.add(reservation.getId());
+            }
+            for (CheckInResult result : results) {
+                if (result.isReturned() && !returnedIds.contains(result.getReservationId())) {
+                    result.setOutcome(CheckInResult.Outcome.NOT_ACTIVE);
+                }
             }
         }
-        return false;
+
+        List<Reservation> returned = new ArrayList<>(returnedIds.size());
+        for (String id : returnedIds) {
+            Reservation reservation = toReturn.get(id);
+            reservation.returnBook();
+            reservation.setActualReturnDate(now);
+            auditLog.record(CirculationEvent.of(CirculationEvent.Type.RETURNED, reservation, "CHECK_IN"));
+            publishStatus(reservation);
+            returned.add(reservation);
+        }
+        inventoryService.returnCopies(returned);
+        fineService.post(returned);
+        return results;
     }
 
-    public boolean cancelReservation(String reservationId) {
-        Optional<Reservation> reservationOpt = reservationRepository.findById(reservationId);
-        if (reservationOpt.isPresent()) {
-            Reservation reservation = reservationOpt.get();
-            if (reservation.getStatus() == Reservation.ReservationStatus.ACTIVE) {
-                reservation.cancelReservation();
-                bookService.returnBook(reservation.getBookId());
-                reservationRepository.save(reservation);
-                return true;
+    public boolean cancelReservation(String reservationId, String userId) {
+        return transitionActive(reservationId, userId, Reservation::cancelReservation, CirculationEvent.Type.CANCELLED);
+    }
+
+    // Versioned save first, copy back second: a concurrent return/cancel of the same
+    // reservation loses the version race and re-reads a non-ACTIVE status, so the copy
+    // is only given back once
+    private boolean transitionActive(String reservationId, String userId, Consumer<Reservation> transition,
+                                     CirculationEvent.Type auditType) {
+        Reservation saved = OptimisticRetry.run(() -> {
+            Optional<Reservation> reservationOpt = getReservationById(reservationId, userId);
+            if (reservationOpt.isEmpty() || reservationOpt.get().getStatus() != Reservation.ReservationStatus.ACTIVE) {
+                return null;
             }
+            Reservation reservation = reservationOpt.get();
+            transition.accept(reservation);
+            return reservationRepository.save(reservation);
+        });
+        if (saved == null) {
+            return false;
         }
-        return false;
+        inventoryService.release(saved.getBookId(), saved.getBranchId());
+        fineService.post(saved);
+        auditLog.record(CirculationEvent.of(auditType, saved, "API"));
+        publishStatus(saved);
+        return true;
+    }
+
+    private void publishStatus(Reservation reservation) {
+        catalogEventBus.publishLocal(CatalogEvent.reservationStatus(
+                reservation.getBookId(), reservation.getUserId(), reservation.getId(), reservation.getStatus()));
     }
 
     private void populateReferenceFields(Reservation reservation) {
@@ -0,0 +1,58 @@
+package com.library.service;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+// Lock-free token bucket implemented as GCRA: the whole state is one long (the theoretical
+// arrival time of the next request), updated with CAS, so acquiring never allocates.
+public final class TokenBucket {
+
+    private static final VarHandle THEORETICAL_ARRIVAL;
+
+    static {
+        try {
+            THEORETICAL_ARRIVAL = MethodHandles.lookup()
+                    .findVarHandle(TokenBucket.class, "theoreticalArrival", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final long emissionIntervalNanos;
+    private final long burstNanos;
+
+    @SuppressWarnings("unused") // accessed through THEORETICAL_ARRIVAL
+    private volatile long theoreticalArrival;
+
+    public TokenBucket(int capacity, double refillPerSecond, long nowNanos) {
+        if (capacity < 1 || refillPerSecond <= 0) {
+            throw new IllegalArgumentException("capacity must be >= 1 and refillPerSecond > 0");
+        }
+        this.emissionIntervalNanos = (long) (1_000_000_000L / refillPerSecond);
+        this.burstNanos = emissionIntervalNanos * capacity;
+        this.theoreticalArrival = nowNanos;
+    }
+
+    public boolean tryAcquire(long nowNanos) {
+        while (true) {
+            long tat = (long) THEORETICAL_ARRIVAL.getVolatile(this);
+            long next = (tat - nowNanos < 0 ? nowNanos : tat) + emissionIntervalNanos;
+            if (next - nowNanos > burstNanos) {
+                return false;
+            }
+            if (THEORETICAL_ARRIVAL.compareAndSet(this, tat, next)) {
+                return true;
+            }
+        }
+    }
+
+    public long nanosUntilAvailable(long nowNanos) {
+        long wait = (long) THEORETICAL_ARRIVAL.getVolatile(this) + emissionIntervalNanos - burstNanos - nowNanos;
+        return Math.max(0, wait);
+    }
+
+    // A bucket that has fully refilled carries no state worth keeping
+    public boolean isFull(long nowNanos) {
+        return (long) THEORETICAL_ARRIVAL.getVolatile(this) - nowNanos <= 0;
+    }
+}
@@ -0,0 +1,79 @@
+package com.library.service;
+
+import com.library.model.RevokedToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// In-memory copy of revoked_tokens, so checking an access token never touches the database.
+// Revocations made on this node apply immediately; other nodes' arrive with the next sync.
+// Entries expire together with the access tokens they cover, which keeps the set small.
+@Service
+public class TokenRevocationList {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenRevocationList.class);
+    // Re-reads a window before the newest revocation seen, for writes that committed late
+    private static final Duration SYNC_OVERLAP = Duration.ofSeconds(30);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private final Map<String, Long> expiresAtMillis = new ConcurrentHashMap<>();
+    private volatile Instant newestSeen = Instant.EPOCH;
+
+    public static String tokenKey(String tokenId) {
+        return "jti:" + tokenId;
+    }
+
+    public static String familyKey(String familyId) {
+        return "family:" + familyId;
+    }
+
+    public boolean isRevoked(String key) {
+        Long expiresAt = expiresAtMillis.get(key);
+        return expiresAt != null && expiresAt > System.currentTimeMillis();
+    }
+
+    public void revoke(String key, Instant expiresAt) {
+        expiresAtMillis.merge(key, expiresAt.toEpochMilli(), Math::max);
+        Update update = new Update().currentDate("revokedAt").max("expiresAt", expiresAt);
+        mongoTemplate.findAndModify(Query.query(Criteria.where("_id").is(key)), update,
+                FindAndModifyOptions.options().upsert(true), RevokedToken.class);
+    }
+
+    @Scheduled(initialDelayString = "${auth.revocation.initial-delay-ms:0}",
+            fixedDelayString = "${auth.revocation.sync-interval-ms:5000}")
+    public void sync() {
+        long now = System.currentTimeMillis();
+        expiresAtMillis.values().removeIf(expiresAt -> expiresAt <= now);
+        Query changed = Query.query(Criteria.where("revokedAt").gte(newestSeen.minus(SYNC_OVERLAP))
+                .and("expiresAt").gt(Instant.ofEpochMilli(now)));
+        try {
+            for (RevokedToken revoked : mongoTemplate.find(changed, RevokedToken.class)) {
+                expiresAtMillis.merge(revoked.getKey(), revoked.getExpiresAt().toEpochMilli(), Math::max);
+                if (revoked.getRevokedAt().isAfter(newestSeen)) {
+                    newestSeen = revoked.getRevokedAt();
+                }
+            }
+        } catch (RuntimeException e) {
+            // Keep enforcing what we have; the next sync picks up from the same point
+            log.warn("Token revocation sync failed: {}", e.getMessage());
+        }
+    }
+
+    public int size() {
+        return expiresAtMillis.size();
+    }
+}
@@ -0,0 +1,182 @@
+package com.library.service;
+
+import com.library.model.CacheInvalidation;
+import com.library.model.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Per-node username/email -> User cache in front of UserRepository. Misses are cached too
+// (with a shorter TTL) so repeated lookups of unknown names don't reach Mongo. Users are
+// copied on the way in and out: callers get their own instance, never the cached one.
+@Component
+public class UserLookupCache {
+
+    private final long ttlNanos;
+    private final long negativeTtlNanos;
+    private final int maxEntries;
+
+    private final Map<String, Entry> byUsername = new ConcurrentHashMap<>();
+    private final Map<String, Entry> byEmail = new ConcurrentHashMap<>();
+    // id -> cached user, so saves and deletes can evict the user's old username/email keys
+    private final Map<String, User> byId = new ConcurrentHashMap<>();
+
+    public UserLookupCache(@Value("${user-cache.ttl:5m}") Duration ttl,
+                           @Value("${user-cache.negative-ttl:30s}") Duration negativeTtl,
+                           @Value("${user-cache.max-entries:100000}") int maxEntries,
+                           CacheInvalidationBus invalidationBus) {
+        this.ttlNanos = ttl.toNanos();
+        this.negativeTtlNanos = negativeTtl.toNanos();
+        this.maxEntries = maxEntries;
+        invalidationBus.subscribe(invalidation -> {
+            if (invalidation.getType() == CacheInvalidation.Type.USER) {
+                invalidate(invalidation.getId(), invalidation.getVersion(), invalidation.getKeys());
+            }
+        });
+        invalidationBus.onReset(this::clear);
+    }
+
+    // Returns null on a cache miss, Optional.empty() for a cached "no such user"
+    public Optional<User> getByUsername(String username) {
+        return get(byUsername, username);
+    }
+
+    public Optional<User> getByEmail(String email) {
+        return get(byEmail, email);
+    }
+
+    public void putUsernameLookup(String username, Optional<User> user) {
+        user.ifPresentOrElse(this::put, () -> putNegative(byUsername, username));
+    }
+
+    public void putEmailLookup(String email, Optional<User> user) {
+        user.ifPresentOrElse(this::put, () -> putNegative(byEmail, email));
+    }
+
+    public void put(User user) {
+        evict(user.getId());
+        makeRoom();
+        user = user.copy();
+        Entry entry = new Entry(user, System.nanoTime() + ttlNanos);
+        byUsername.put(user.getUsername(), entry);
+        if (user.getEmail() != null) {
+            byEmail.put(user.getEmail(), entry);
+        }
+        if (user.getId() != null) {
+            byId.put(user.getId(), user);
+        }
+    }
+
+    public void evict(String userId) {
+        if (userId == null) {
+            return;
+        }
+        User old = byId.remove(userId);
+        if (old != null) {
+            byUsername.remove(old.getUsername());
+            if (old.getEmail() != null) {
+                byEmail.remove(old.getEmail());
+            }
+        }
+    }
+
+    // Drops the user if the cached copy is older than version, plus any (negative) entries
+    // under the given username/email keys, e.g. a name that was just taken on another node
+    public void invalidate(String userId, long version, List<String> keys) {
+        User cached = byId.get(userId);
+        if (cached != null && (cached.getVersion() == null || cached.getVersion() < version)) {
+            evict(userId);
+        }
+        if (keys != null) {
+            for (String key : keys) {
+                removeIfStale(byUsername, key, version);
+                removeIfStale(byEmail, key, version);
+            }
+        }
+    }
+
+    // id -> cached version, for reconciliation against the database
+    public Map<String, Long> cachedVersions() {
+        Map<String, Long> versions = new HashMap<>();
+        byId.forEach((id, user) -> versions.put(id, user.getVersion() != null ? user.getVersion() : 0));
+        return versions;
+    }
+
+    public void clear() {
+        byUsername.clear();
+        byEmail.clear();
+        byId.clear();
+    }
+
+    private Optional<User> get(Map<String, Entry> map, String key) {
+        if (key == null) {
+            return Optional.empty();
+        }
+        Entry entry = map.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAtNanos - System.nanoTime() < 0) {
+            map.remove(key, entry);
+            return null;
+        }
+        return entry.user == null ? Optional.empty() : Optional.of(entry.user.copy());
+    }
+
+    private void removeIfStale(Map<String, Entry> map, String key, long version) {
+        map.computeIfPresent(key, (k, entry) -> entry.user == null || entry.user.getVersion() == null
+                || entry.user.getVersion() < version ? null : entry);
+    }
+
+    private void putNegative(Map<String, Entry> map, String key) {
+        if (key == null) {
+            return;
+        }
+        makeRoom();
+        map.put(key, new Entry(null, System.nanoTime() + negativeTtlNanos));
+    }
+
+    // Drops expired entries first; if that is not enough, evicts about a tenth of the cache.
+    // Hash order makes the victims effectively random, which is good enough for a lookup cache.
+    private void makeRoom() {
+        if (byUsername.size() + byEmail.size() < maxEntries * 2) {
+            return;
+        }
+        long now = System.nanoTime();
+        byUsername.values().removeIf(entry -> entry.expiresAtNanos - now < 0);
+        byEmail.values().removeIf(entry -> entry.expiresAtNanos - now < 0);
+        int excess = byUsername.size() + byEmail.size() - maxEntries * 2 * 9 / 10;
+        for (Map<String, Entry> map : List.of(byUsername, byEmail)) {
+            for (var iterator = map.entrySet().iterator(); excess > 0 && iterator.hasNext(); ) {
+                Entry entry = iterator.next().getValue();
+                if (entry.user != null && entry.user.getId() != null && byId.containsKey(entry.user.getId())) {
+                    evict(entry.user.getId());
+                    excess -= entry.user.getEmail() != null ? 2 : 1;
+                } else {
+                    iterator.remove();
+                    excess--;
+                }
+            }
+        }
+    }
+
+    public int size() {
+        return byUsername.size() + byEmail.size();
+    }
+
+    private static final class Entry {
+        final User user;
+        final long expiresAtNanos;
+
+        Entry(User user, long expiresAtNanos) {
+            this.user = user;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+    }
+}
@@ -1,28 +1,85 @@
 package com.library.service;
 
+import com.library.model.CacheInvalidation;
 import com.library.model.User;
 import com.library.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import org.bson.Document;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class UserService implements UserDetailsService {
-    
+
+    private static final Set<String> PATCHABLE_FIELDS = Set.of(
+            "username", "email", "password", "firstName", "lastName", "role", "enabled");
+
     @Autowired
     private UserRepository userRepository;
     
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private UserLookupCache userLookupCache;
+
+    @Autowired
+    private MergePatchMapper mergePatchMapper;
+
+    @Autowired
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    @Value("${user-cache.bloom.expected-users:1000000}")
+    private long bloomExpectedUsers;
+
+    @Value("${user-cache.bloom.false-positive-rate:0.01}")
+    private double bloomFalsePositiveRate;
+
+    // Existence pre-checks: a negative answer skips Mongo. Null until the first build completes.
+    private volatile BloomFilter usernameFilter;
+    private volatile BloomFilter emailFilter;
+    // Filters under construction also receive new users so none are lost during a rebuild
+    private volatile BloomFilter[] rebuildingFilters;
+    // Orders additions against starting and swapping a rebuild: an addition either lands in the
+    // filters being built or happens before their scan starts, so the scan sees the user
+    private final Object filterLock = new Object();
+
+    // Users created or renamed on other nodes must pass the existence checks here too, or
+    // signup would only find out from the unique index
+    @PostConstruct
+    public void subscribeToInvalidations() {
+        cacheInvalidationBus.subscribe(invalidation -> {
+            if (invalidation.getType() == CacheInvalidation.Type.USER && invalidation.getKeys() != null) {
+                invalidation.getKeys().forEach(this::addKeyToFilters);
+            }
+        });
+    }
+
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        return userRepository.findByUsername(username)
+        return findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
     }
 
@@ -39,26 +96,182 @@ public class UserService implements UserDetailsService {
         if (user.getPassword() != null && !user.getPassword().startsWith("$2a$")) {
             user.setPassword(passwordEncoder.encode(user.getPassword()));
         }
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        userLookupCache.put(saved);
+        cacheInvalidationBus.publishLocal(CacheInvalidation.user(saved));
+        addToFilters(saved);
+        return saved;
+    }
+
+    // Field-level update from a merge patch; the password is only encoded when it is patched.
+    // Empty when the user doesn't exist.
+    public Optional<User> patchUser(String id, Map<String, Object> patch) {
+        Map<String, Object> changes = mergePatchMapper.toFieldValues(User.class, patch, PATCHABLE_FIELDS);
+        Long expectedVersion = mergePatchMapper.expectedVersion(patch);
+        if (changes.get("password") instanceof String password) {
+            changes.put("password", passwordEncoder.encode(password));
+        }
+
+        Criteria criteria = Criteria.where("_id").is(id);
+        if (expectedVersion != null) {
+            criteria.and("version").is(expectedVersion);
+        }
+        Update update = mergePatchMapper.toUpdate(changes).inc("version", 1L).currentDate("updatedAt");
+        User updated = mongoTemplate.findAndModify(Query.query(criteria), update,
+                FindAndModifyOptions.options().returnNew(true), User.class);
+        if (updated == null) {
+            if (!userRepository.existsById(id)) {
+                return Optional.empty();
+            }
+            throw new OptimisticLockingFailureException("User was modified by another request");
+        }
+        // Drops the cached entries under the old username/email as well
+        userLookupCache.put(updated);
+        cacheInvalidationBus.publishLocal(CacheInvalidation.user(updated));
+        addToFilters(updated);
+        return Optional.of(updated);
+    }
+
+    public boolean existsById(String id) {
+        return userRepository.existsById(id);
     }
 
     public void deleteUser(String id) {
         userRepository.deleteById(id);
+        userLookupCache.evict(id);
+        cacheInvalidationBus.publishLocal(CacheInvalidation.deleted(CacheInvalidation.Type.USER, id));
     }
 
     public Optional<User> findByUsername(String username) {
-        return userRepository.findByUsername(username);
+        Optional<User> cached = userLookupCache.getByUsername(username);
+        if (cached != null) {
+            return cached;
+        }
+        Optional<User> user = userRepository.findByUsername(username);
+        userLookupCache.putUsernameLookup(username, user);
+        return user;
     }
 
     public Optional<User> findByEmail(String email) {
-        return userRepository.findByEmail(email);
+        Optional<User> cached = userLookupCache.getByEmail(email);
+        if (cached != null) {
+            return cached;
+        }
+        Optional<User> user = userRepository.findByEmail(email);
+        userLookupCache.putEmailLookup(email, user);
+        return user;
     }
 
     public boolean existsByUsername(String username) {
-        return userRepository.findByUsername(username).isPresent();
+        BloomFilter filter = usernameFilter;
+        if (filter != null && !filter.mightContain(username)) {
+            return false;
+        }
+        return findByUsername(username).isPresent();
     }
 
     public boolean existsByEmail(String email) {
-        return userRepository.findByEmail(email).isPresent();
+        BloomFilter filter = emailFilter;
+        if (filter != null && !filter.mightContain(email)) {
+            return false;
+        }
+        return findByEmail(email).isPresent();
+    }
+
+    // Which unique field a rejected write collided on. Reads the database directly: the cached
+    // lookups and the Bloom filters may predate the user that won the race.
+    public boolean emailTakenByOther(String email, String userId) {
+        return email != null && userRepository.findByEmail(email)
+                .filter(existing -> !existing.getId().equals(userId))
+                .isPresent();
+    }
+
+    // Rebuilt periodically so users created on other nodes are picked up; the unique
+    // indexes on username/email still reject duplicates that slip through in between
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildExistenceFiltersInBackground() {
+        // Off the startup path: exists* checks simply go to Mongo until the filters are ready
+        Thread thread = new Thread(this::rebuildExistenceFilters, "user-bloom-filter-builder");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Scheduled(initialDelayString = "${user-cache.bloom.rebuild-interval-ms:600000}",
+            fixedDelayString = "${user-cache.bloom.rebuild-interval-ms:600000}")
+    public void rebuildExistenceFilters() {
+        BloomFilter usernames = new BloomFilter(bloomExpectedUsers, bloomFalsePositiveRate);
+        BloomFilter emails = new BloomFilter(bloomExpectedUsers, bloomFalsePositiveRate);
+        synchronized (filterLock) {
+            rebuildingFilters = new BloomFilter[] {usernames, emails};
+        }
+        try {
+            Query query = new Query();
+            query.fields().include("username").include("email");
+            mongoTemplate.stream(query, Document.class, "users").forEach(doc -> {
+                if (doc.getString("username") != null) {
+                    usernames.put(doc.getString("username"));
+                }
+                if (doc.getString("email") != null) {
+                    emails.put(doc.getString("email"));
+                }
+            });
+            synchronized (filterLock) {
+                usernameFilter = usernames;
+                emailFilter = emails;
+            }
+        } finally {
+            synchronized (filterLock) {
+                rebuildingFilters = null;
+            }
+        }
+    }
+
+    // Repairs cached users whose invalidation was missed (e.g. dropped during a network blip)
+    @Scheduled(fixedDelayString = "${cache.reconcile-interval-ms:30000}")
+    public void reconcileUserCache() {
+        Map<String, Long> cached = userLookupCache.cachedVersions();
+        if (cached.isEmpty()) {
+            return;
+        }
+        Map<String, Long> current = new HashMap<>();
+        Query query = Query.query(Criteria.where("_id").in(cached.keySet()));
+        query.fields().include("version");
+        for (User user : mongoTemplate.find(query, User.class)) {
+            current.put(user.getId(), user.getVersion() != null ? user.getVersion() : 0);
+        }
+        cached.forEach((id, version) -> {
+            Long stored = current.get(id);
+            if (stored == null || stored > version) {
+                userLookupCache.evict(id);
+            }
+        });
+    }
+
+    private void addToFilters(User user) {
+        synchronized (filterLock) {
+            put(0, usernameFilter, user.getUsername());
+            put(1, emailFilter, user.getEmail());
+        }
+    }
+
+    // Invalidation keys don't say which is the username and which the email, so each goes into
+    // both filters; that only costs a slightly higher false-positive rate
+    private void addKeyToFilters(String key) {
+        synchronized (filterLock) {
+            put(0, usernameFilter, key);
+            put(1, emailFilter, key);
+        }
+    }
+
+    private void put(int index, BloomFilter current, String value) {
+        if (value == null) {
+            return;
+        }
+        if (current != null) {
+            current.put(value);
+        }
+        if (rebuildingFilters != null) {
+            rebuildingFilters[index].put(value);
+        }
     }
 } 
\ No newline at end of file
@@ -0,0 +1,107 @@
+package com.library.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// id -> value cache where every entry carries the document version it was read at.
+// Invalidations leave a version fence behind, so a slow read that started before the
+// invalidation can't put the old version back. Fences expire with the normal TTL.
+public class VersionedCache<T> {
+
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final Map<String, Entry<T>> entries = new ConcurrentHashMap<>();
+
+    public VersionedCache(Duration ttl, int maxEntries) {
+        this.ttlNanos = ttl.toNanos();
+        this.maxEntries = maxEntries;
+    }
+
+    public T get(String id) {
+        Entry<T> entry = entries.get(id);
+        if (entry == null) {
+            return null;
+        }
+        if (isExpired(entry, System.nanoTime())) {
+            entries.remove(id, entry);
+            return null;
+        }
+        return entry.value;
+    }
+
+    public void put(String id, T value, long version) {
+        makeRoom();
+        long now = System.nanoTime();
+        entries.compute(id, (key, current) ->
+                current != null && !isExpired(current, now) && current.version > version
+                        ? current
+                        : new Entry<>(value, version, now + ttlNanos));
+    }
+
+    // Returns true when a cached value was dropped
+    public boolean invalidate(String id, long version) {
+        long now = System.nanoTime();
+        boolean[] dropped = new boolean[1];
+        entries.compute(id, (key, current) -> {
+            if (current != null && !isExpired(current, now) && current.version >= version) {
+                return current;
+            }
+            dropped[0] = current != null && current.value != null;
+            return new Entry<>(null, version, now + ttlNanos);
+        });
+        return dropped[0];
+    }
+
+    // Ids of the values currently cached (fences excluded), for reconciliation
+    public List<String> cachedIds() {
+        List<String> ids = new ArrayList<>();
+        entries.forEach((id, entry) -> {
+            if (entry.value != null) {
+                ids.add(id);
+            }
+        });
+        return ids;
+    }
+
+    // Catches up on missed invalidations: currentVersions holds the stored version of each
+    // checked id, and ids missing from it were deleted. Returns the number of entries dropped.
+    public int reconcile(List<String> checkedIds, Map<String, Long> currentVersions) {
+        int dropped = 0;
+        for (String id : checkedIds) {
+            Long current = currentVersions.get(id);
+            if (invalidate(id, current != null ? current : Long.MAX_VALUE)) {
+                dropped++;
+            }
+        }
+        return dropped;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    private void makeRoom() {
+        if (entries.size() < maxEntries) {
+            return;
+        }
+        long now = System.nanoTime();
+        entries.values().removeIf(entry -> isExpired(entry, now));
+        if (entries.size() >= maxEntries) {
+            clear();
+        }
+    }
+
+    private static boolean isExpired(Entry<?> entry, long now) {
+        return entry.expiresAtNanos - now < 0;
+    }
+
+    private record Entry<T>(T value, long version, long expiresAtNanos) {
+    }
+}
@@ -0,0 +1,62 @@
+package com.library.benchmark;
+
+import com.library.service.AdaptiveConcurrencyLimiter;
+import com.library.service.RateLimiter;
+import com.library.service.TokenBucket;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RateLimiterBenchmark {
+
+    private TokenBucket sharedBucket;
+    private RateLimiter rateLimiter;
+    private AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private String[] clients;
+
+    @Setup
+    public void setup() {
+        // Refill fast enough that the benchmark measures the acquire path, not rejections
+        sharedBucket = new TokenBucket(1_000, 1e9, System.nanoTime());
+        rateLimiter = new RateLimiter(1_000, 1e9, 1_000, 1e9, 1_000, 1e9);
+        concurrencyLimiter = new AdaptiveConcurrencyLimiter(8, 10_000, 10_000, 50, 0.9);
+        clients = new String[1024];
+        for (int i = 0; i < clients.length; i++) {
+            clients[i] = "10.0." + (i / 256) + "." + (i % 256);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadCursor {
+        int next;
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean contendedBucket() {
+        return sharedBucket.tryAcquire(System.nanoTime());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long keyedLookup(ThreadCursor cursor) {
+        String client = clients[cursor.next++ & (clients.length - 1)];
+        return rateLimiter.tryAcquire(RateLimiter.Route.SEARCH, client);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean concurrencyLimiter() {
+        boolean acquired = concurrencyLimiter.tryAcquire();
+        if (acquired) {
+            concurrencyLimiter.release();
+        }
+        return acquired;
+    }
+}
@@ -0,0 +1,65 @@
+package com.library.config;
+
+import com.library.model.Book;
+import com.library.model.Reservation;
+import com.library.support.InMemoryMongo;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ActiveReservationDedupeTests {
+
+	private static final InMemoryMongo mongo = new InMemoryMongo();
+
+	@AfterAll
+	static void stop() {
+		mongo.close();
+	}
+
+	@Test
+	void keepsTheOldestActiveReservationAndReturnsTheOtherCopies() {
+		MongoTemplate template = mongo.template();
+		Book book = new Book();
+		book.setTitle("Dune");
+		book.setTotalCopies(5);
+		book.setAvailableCopies(1);
+		book = template.insert(book);
+
+		Reservation oldest = reservation("u1", book.getId(), LocalDateTime.now().minusDays(3), Reservation.ReservationStatus.ACTIVE);
+		reservation("u1", book.getId(), LocalDateTime.now().minusDays(2), Reservation.ReservationStatus.ACTIVE);
+		reservation("u1", book.getId(), LocalDateTime.now().minusDays(1), Reservation.ReservationStatus.ACTIVE);
+		reservation("u1", book.getId(), LocalDateTime.now().minusDays(9), Reservation.ReservationStatus.RETURNED);
+		Reservation other = reservation("u2", book.getId(), LocalDateTime.now(), Reservation.ReservationStatus.ACTIVE);
+
+		ActiveReservationDedupe dedupe = new ActiveReservationDedupe();
+		ReflectionTestUtils.setField(dedupe, "mongoTemplate", template);
+		dedupe.migrate();
+		dedupe.migrate();
+
+		List<Reservation> active = template.find(Query.query(Criteria.where("status").is(Reservation.ReservationStatus.ACTIVE)),
+				Reservation.class);
+		assertEquals(Set.of(oldest.getId(), other.getId()),
+				active.stream().map(Reservation::getId).collect(Collectors.toSet()));
+		assertEquals(2, template.count(Query.query(Criteria.where("status").is(Reservation.ReservationStatus.CANCELLED)),
+				Reservation.class));
+		assertEquals(3, template.findById(book.getId(), Book.class).getAvailableCopies());
+	}
+
+	private Reservation reservation(String userId, String bookId, LocalDateTime reservedAt, Reservation.ReservationStatus status) {
+		Reservation reservation = new Reservation(userId, bookId);
+		reservation.setReservationDate(reservedAt);
+		reservation.setStatus(status);
+		return mongo.template().insert(reservation);
+	}
+
+}
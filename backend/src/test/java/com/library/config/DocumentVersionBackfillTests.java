@@ -0,0 +1,61 @@
+package com.library.config;
+
+import com.library.model.Reservation;
+import com.library.repository.ReservationRepository;
+import com.library.support.InMemoryMongo;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DocumentVersionBackfillTests {
+
+	private static final InMemoryMongo mongo = new InMemoryMongo();
+
+	private final ReservationRepository reservations = mongo.repository(ReservationRepository.class);
+
+	@BeforeEach
+	void setUp() {
+		mongo.reset();
+		// Written before optimistic locking: no version field
+		mongo.template().getCollection("reservations").insertOne(new Document("_id", "r1")
+				.append("userId", "u1").append("bookId", "b1").append("status", "ACTIVE"));
+	}
+
+	@AfterAll
+	static void stop() {
+		mongo.close();
+	}
+
+	@Test
+	void versionLessDocumentsAreInsertedInsteadOfUpdated() {
+		Reservation legacy = reservations.findById("r1").orElseThrow();
+		assertNull(legacy.getVersion());
+
+		legacy.returnBook();
+		assertThrows(DuplicateKeyException.class, () -> reservations.save(legacy));
+	}
+
+	@Test
+	void backfilledDocumentsSaveAsVersionedUpdates() {
+		DocumentVersionBackfill backfill = new DocumentVersionBackfill();
+		ReflectionTestUtils.setField(backfill, "mongoTemplate", mongo.template());
+		backfill.migrate();
+		backfill.migrate();
+
+		Reservation legacy = reservations.findById("r1").orElseThrow();
+		assertEquals(0L, legacy.getVersion());
+		legacy.returnBook();
+		reservations.save(legacy);
+
+		Reservation saved = reservations.findById("r1").orElseThrow();
+		assertEquals(Reservation.ReservationStatus.RETURNED, saved.getStatus());
+		assertEquals(1L, saved.getVersion());
+	}
+}
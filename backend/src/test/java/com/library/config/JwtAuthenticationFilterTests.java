@@ -0,0 +1,97 @@
+package com.library.config;
+
+import com.library.service.JwtService;
+import com.library.service.TokenRevocationList;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+
+class JwtAuthenticationFilterTests {
+
+	private final TokenRevocationList revocationList = new TokenRevocationList();
+	private final JwtService jwtService = new JwtService();
+	private final JwtAuthenticationFilter filter = new JwtAuthenticationFilter(jwtService);
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(revocationList, "mongoTemplate", mock(MongoTemplate.class));
+		ReflectionTestUtils.setField(jwtService, "jwtSecret", "test-secret-key-that-is-at-least-32-bytes-long");
+		ReflectionTestUtils.setField(jwtService, "jwtExpiration", 60_000L);
+		ReflectionTestUtils.setField(jwtService, "revocationList", revocationList);
+		jwtService.init();
+	}
+
+	@AfterEach
+	void clearContext() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	void validTokenAuthenticatesTheRequest() throws Exception {
+		MockFilterChain chain = new MockFilterChain();
+		MockHttpServletResponse response = filter(get("/api/books", jwtService.generateToken("alice", "family-1")), chain);
+
+		assertEquals(200, response.getStatus());
+		assertNotNull(chain.getRequest());
+		assertEquals("alice", SecurityContextHolder.getContext().getAuthentication().getName());
+	}
+
+	@Test
+	void requestsWithoutATokenPassAnonymously() throws Exception {
+		MockFilterChain chain = new MockFilterChain();
+		filter(get("/api/books", null), chain);
+
+		assertNotNull(chain.getRequest());
+		assertNull(SecurityContextHolder.getContext().getAuthentication());
+	}
+
+	@Test
+	void expiredOrRevokedTokensAreRejectedOutsideTheTokenEndpoints() throws Exception {
+		ReflectionTestUtils.setField(jwtService, "jwtExpiration", -1_000L);
+		String expired = jwtService.generateToken("alice", "family-1");
+		ReflectionTestUtils.setField(jwtService, "jwtExpiration", 60_000L);
+		String revoked = jwtService.generateToken("alice", "family-2");
+		revocationList.revoke(TokenRevocationList.familyKey("family-2"), Instant.now().plusSeconds(60));
+
+		for (String token : new String[] {expired, revoked, revoked + "x"}) {
+			MockFilterChain chain = new MockFilterChain();
+			MockHttpServletResponse response = filter(get("/api/reservations", token), chain);
+			assertEquals(401, response.getStatus());
+			assertNull(chain.getRequest());
+		}
+
+		// A client refreshing or logging out still sends its stale access token
+		MockFilterChain chain = new MockFilterChain();
+		MockHttpServletRequest refresh = get("/api/auth/refresh", expired);
+		refresh.setMethod("POST");
+		assertEquals(200, filter(refresh, chain).getStatus());
+		assertNotNull(chain.getRequest());
+	}
+
+	private MockHttpServletResponse filter(MockHttpServletRequest request, MockFilterChain chain) throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(request, response, chain);
+		return response;
+	}
+
+	private static MockHttpServletRequest get(String uri, String token) {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+		if (token != null) {
+			request.addHeader("Authorization", "Bearer " + token);
+		}
+		return request;
+	}
+}
@@ -0,0 +1,60 @@
+package com.library.config;
+
+import com.library.model.Reservation;
+import com.library.support.InMemoryMongo;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LegacyReservationIndexDropTests {
+
+	private static final InMemoryMongo mongo = new InMemoryMongo();
+
+	private final LegacyReservationIndexDrop migration = new LegacyReservationIndexDrop();
+
+	@BeforeEach
+	void setUp() {
+		mongo.reset();
+		ReflectionTestUtils.setField(migration, "mongoTemplate", mongo.template());
+	}
+
+	@AfterAll
+	static void stop() {
+		mongo.close();
+	}
+
+	@Test
+	void dropsOnlyTheReplacedIndex() {
+		mongo.template().indexOps(Reservation.class).ensureIndex(new Index().named(LegacyReservationIndexDrop.LEGACY_INDEX)
+				.on("status", Sort.Direction.ASC).on("updatedAt", Sort.Direction.ASC));
+		mongo.template().indexOps(Reservation.class).ensureIndex(new Index().named("status_updated_id")
+				.on("status", Sort.Direction.ASC).on("updatedAt", Sort.Direction.ASC).on("_id", Sort.Direction.ASC));
+
+		migration.migrate();
+
+		assertEquals(List.of("_id_", "status_updated_id"), indexNames());
+	}
+
+	@Test
+	void databaseWithoutTheIndexIsLeftAlone() {
+		mongo.template().indexOps(Reservation.class).ensureIndex(new Index().named("status_updated_id")
+				.on("status", Sort.Direction.ASC).on("updatedAt", Sort.Direction.ASC).on("_id", Sort.Direction.ASC));
+
+		migration.migrate();
+
+		assertEquals(List.of("_id_", "status_updated_id"), indexNames());
+	}
+
+	private static List<String> indexNames() {
+		return mongo.template().indexOps(Reservation.class).getIndexInfo().stream()
+				.map(IndexInfo::getName).sorted().toList();
+	}
+}
@@ -0,0 +1,94 @@
+package com.library.config;
+
+import com.mongodb.MongoClientSettings;
+import com.mongodb.ReadPreference;
+import com.mongodb.WriteConcern;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+
+class MongoConfigTests {
+
+	@Test
+	void numericWriteConcernIsAMemberCount() {
+		WriteConcern concern = settings(Map.of(
+				"library.mongo.write.concern", "2",
+				"library.mongo.write.journal", "true",
+				"library.mongo.write.timeout", "5s")).getWriteConcern();
+
+		assertEquals(2, concern.getW());
+		assertEquals(Boolean.TRUE, concern.getJournal());
+		assertEquals(Integer.valueOf(5000), concern.getWTimeout(TimeUnit.MILLISECONDS));
+	}
+
+	@Test
+	void namedWriteConcernIsPassedThrough() {
+		WriteConcern concern = settings(Map.of("library.mongo.write.concern", "majority")).getWriteConcern();
+
+		assertEquals(WriteConcern.MAJORITY, concern);
+	}
+
+	@Test
+	void journalAloneKeepsAcknowledgedWrites() {
+		WriteConcern concern = settings(Map.of("library.mongo.write.journal", "false")).getWriteConcern();
+
+		assertEquals(WriteConcern.ACKNOWLEDGED.withJournal(false), concern);
+	}
+
+	@Test
+	void unsetPropertiesLeaveDriverDefaults() {
+		MongoClientSettings defaults = MongoClientSettings.builder().build();
+		MongoClientSettings settings = settings(Map.of());
+
+		assertEquals(defaults.getWriteConcern(), settings.getWriteConcern());
+		assertEquals(defaults.getReadPreference(), settings.getReadPreference());
+		assertEquals(defaults.getConnectionPoolSettings().getMaxSize(), settings.getConnectionPoolSettings().getMaxSize());
+		assertEquals(defaults.getConnectionPoolSettings().getMaxWaitTime(TimeUnit.MILLISECONDS),
+				settings.getConnectionPoolSettings().getMaxWaitTime(TimeUnit.MILLISECONDS));
+	}
+
+	@Test
+	void poolAndSocketDurationsAreParsed() {
+		MongoClientSettings settings = settings(Map.of(
+				"library.mongo.pool.max-size", "50",
+				"library.mongo.pool.min-size", "5",
+				"library.mongo.pool.max-wait-time", "2s",
+				"library.mongo.pool.max-connection-idle-time", "10m",
+				"library.mongo.pool.max-connecting", "4",
+				"library.mongo.socket.connect-timeout", "3s",
+				"library.mongo.socket.read-timeout", "1500ms",
+				"library.mongo.read-preference", "secondaryPreferred"));
+
+		assertEquals(50, settings.getConnectionPoolSettings().getMaxSize());
+		assertEquals(5, settings.getConnectionPoolSettings().getMinSize());
+		assertEquals(2000L, settings.getConnectionPoolSettings().getMaxWaitTime(TimeUnit.MILLISECONDS));
+		assertEquals(600_000L, settings.getConnectionPoolSettings().getMaxConnectionIdleTime(TimeUnit.MILLISECONDS));
+		assertEquals(4, settings.getConnectionPoolSettings().getMaxConnecting());
+		assertEquals(3000, settings.getSocketSettings().getConnectTimeout(TimeUnit.MILLISECONDS));
+		assertEquals(1500, settings.getSocketSettings().getReadTimeout(TimeUnit.MILLISECONDS));
+		assertEquals(ReadPreference.secondaryPreferred(), settings.getReadPreference());
+	}
+
+	@Test
+	void unknownReadPreferenceFailsStartup() {
+		assertThrows(IllegalArgumentException.class,
+				() -> settings(Map.of("library.mongo.read-preference", "closest")));
+	}
+
+	@SuppressWarnings("unchecked")
+	private static MongoClientSettings settings(Map<String, String> properties) {
+		MongoTuningProperties tuning = new Binder(new MapConfigurationPropertySource(properties))
+				.bindOrCreate("library.mongo", MongoTuningProperties.class);
+		MongoClientSettings.Builder builder = MongoClientSettings.builder();
+		new MongoConfig().mongoTuningCustomizer(tuning, mock(ObjectProvider.class)).customize(builder);
+		return builder.build();
+	}
+}
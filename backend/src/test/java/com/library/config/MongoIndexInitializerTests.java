@@ -0,0 +1,68 @@
+package com.library.config;
+
+import com.library.support.InMemoryMongo;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MongoIndexInitializerTests {
+
+	private static final InMemoryMongo mongo = new InMemoryMongo();
+
+	@BeforeEach
+	void setUp() {
+		mongo.reset();
+	}
+
+	@AfterAll
+	static void stop() {
+		mongo.close();
+	}
+
+	@Test
+	void eachMigrationRunsOncePerDatabase() {
+		CountingMigration migration = new CountingMigration();
+
+		initializer(migration).afterSingletonsInstantiated();
+		initializer(migration).afterSingletonsInstantiated();
+
+		assertEquals(1, migration.runs);
+		assertEquals(1, mongo.template().getCollection(MongoIndexInitializer.MIGRATIONS_COLLECTION)
+				.countDocuments(new org.bson.Document("_id", "CountingMigration")));
+	}
+
+	@Test
+	void failedMigrationsStopStartupAndRunAgainNextTime() {
+		MongoMigration failing = () -> {
+			throw new IllegalStateException("boom");
+		};
+		assertThrows(IllegalStateException.class, () -> initializer(failing).afterSingletonsInstantiated());
+		assertEquals(0, mongo.template().getCollection(MongoIndexInitializer.MIGRATIONS_COLLECTION).countDocuments());
+	}
+
+	private static MongoIndexInitializer initializer(MongoMigration migration) {
+		MongoIndexInitializer initializer = new MongoIndexInitializer();
+		ReflectionTestUtils.setField(initializer, "mongoTemplate", mongo.template());
+		ReflectionTestUtils.setField(initializer, "migrations", List.of(migration));
+		ReflectionTestUtils.setField(initializer, "ensureOnStartup", true);
+		// Leaves the index build to Spring Data, which isn't part of this test
+		ReflectionTestUtils.setField(initializer, "autoIndexCreation", true);
+		return initializer;
+	}
+
+	private static class CountingMigration implements MongoMigration {
+
+		private int runs;
+
+		@Override
+		public void migrate() {
+			runs++;
+		}
+	}
+}
@@ -0,0 +1,77 @@
+package com.library.config;
+
+import com.library.service.AdaptiveConcurrencyLimiter;
+import com.library.service.DatabaseCircuitBreaker;
+import com.mongodb.event.CommandSucceededEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MongoLatencyListenerTests {
+
+	private final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(8, 200, 50, 50, 0.9);
+	private final DatabaseCircuitBreaker breaker = new DatabaseCircuitBreaker(2, Duration.ofSeconds(30), 100);
+	private final MongoLatencyListener listener = new MongoLatencyListener(limiter, breaker);
+
+	@Test
+	void onlyCommandsIssuedByApiRequestsFeedTheLimiter() throws Exception {
+		CommandSucceededEvent slow = event(TimeUnit.MILLISECONDS.toNanos(400));
+		CommandSucceededEvent fast = event(TimeUnit.MILLISECONDS.toNanos(4));
+
+		// Scheduled job on its own thread
+		listener.commandSucceeded(slow);
+		assertEquals(0, limiter.getLatencyEwmaNanos());
+
+		// Export streams its cursor on the request thread but is not marked
+		new ApiRequestFilter().doFilter(request("/api/export/reservations"), new MockHttpServletResponse(),
+				(req, res) -> listener.commandSucceeded(slow));
+		assertEquals(0, limiter.getLatencyEwmaNanos());
+
+		new ApiRequestFilter().doFilter(request("/api/books/search"), new MockHttpServletResponse(),
+				(req, res) -> listener.commandSucceeded(fast));
+		assertEquals(TimeUnit.MILLISECONDS.toNanos(4), limiter.getLatencyEwmaNanos());
+
+		// The marker does not leak past the request
+		listener.commandSucceeded(slow);
+		assertEquals(TimeUnit.MILLISECONDS.toNanos(4), limiter.getLatencyEwmaNanos());
+	}
+
+	@Test
+	void onlySlowApiRequestCommandsOpenTheCircuit() throws Exception {
+		CommandSucceededEvent slow = event(TimeUnit.MILLISECONDS.toNanos(400));
+
+		// A long archival or accrual batch
+		for (int i = 0; i < 5; i++) {
+			listener.commandSucceeded(slow);
+		}
+		new ApiRequestFilter().doFilter(request("/api/export/reservations"), new MockHttpServletResponse(),
+				(req, res) -> listener.commandSucceeded(slow));
+		assertFalse(breaker.isRejecting());
+
+		for (int i = 0; i < 2; i++) {
+			new ApiRequestFilter().doFilter(request("/api/books/search"), new MockHttpServletResponse(),
+					(req, res) -> listener.commandSucceeded(slow));
+		}
+		assertTrue(breaker.isRejecting());
+	}
+
+	private static MockHttpServletRequest request(String uri) {
+		return new MockHttpServletRequest("GET", uri);
+	}
+
+	private static CommandSucceededEvent event(long elapsedNanos) {
+		CommandSucceededEvent event = mock(CommandSucceededEvent.class);
+		when(event.getElapsedTime(TimeUnit.NANOSECONDS)).thenReturn(elapsedNanos);
+		return event;
+	}
+
+}
@@ -0,0 +1,47 @@
+package com.library.config;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SlowOperationLogTests {
+
+	@Test
+	void logsTheWholeTreeOfSlowRootsOnly() {
+		List<String> logged = new ArrayList<>();
+		ObservationRegistry registry = ObservationRegistry.create();
+		registry.observationConfig().observationHandler(new SlowOperationLog(true, 20, 100, logged::add));
+
+		Observation.createNotStarted("http.server.requests", registry)
+				.contextualName("http post /api/reservations")
+				.observe(() -> Observation.createNotStarted("library.method", registry)
+						.contextualName("ReservationService.createReservation")
+						.observe(() -> {
+							Observation.createNotStarted("mongodb", registry).contextualName("find users").observe(() -> { });
+							sleep(25);
+						}));
+		// After the slow one, so class loading on first use can't push it over the threshold
+		Observation.createNotStarted("fast", registry).observe(() -> { });
+
+		assertEquals(1, logged.size());
+		String[] lines = logged.get(0).split(System.lineSeparator());
+		assertEquals(3, lines.length);
+		assertTrue(lines[0].startsWith("Slow operation: http post /api/reservations took "));
+		assertTrue(lines[1].matches("  \\+\\d+ ms \\d+ ms ReservationService.createReservation"));
+		assertTrue(lines[2].matches("    \\+\\d+ ms \\d+ ms find users"));
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
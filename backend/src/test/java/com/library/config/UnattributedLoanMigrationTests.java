@@ -0,0 +1,80 @@
+package com.library.config;
+
+import com.library.model.BranchInventory;
+import com.library.model.Reservation;
+import com.library.service.InventoryService;
+import com.library.support.InMemoryMongo;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+class UnattributedLoanMigrationTests {
+
+	private static final InMemoryMongo mongo = new InMemoryMongo();
+
+	private final InventoryService inventoryService = mock(InventoryService.class);
+
+	private final UnattributedLoanMigration migration = new UnattributedLoanMigration();
+
+	@BeforeEach
+	void setUp() {
+		mongo.reset();
+		ReflectionTestUtils.setField(migration, "mongoTemplate", mongo.template());
+		ReflectionTestUtils.setField(migration, "inventoryService", inventoryService);
+		mongo.template().getCollection("branch_inventory").insertMany(List.of(
+				inventory("main", 2, 1), inventory("east", 1, 1)));
+		mongo.template().getCollection("reservations").insertMany(List.of(
+				loan("r1", "stocked", "main", "ACTIVE"),
+				loan("r2", "stocked", null, "ACTIVE"),
+				loan("r3", "stocked", null, "RETURNED"),
+				loan("r4", "legacy", null, "ACTIVE")));
+	}
+
+	@AfterAll
+	static void stop() {
+		mongo.close();
+	}
+
+	@Test
+	void openLoansWithoutABranchCountInTheFirstBranch() {
+		migration.migrate();
+		migration.migrate();
+
+		assertEquals("east", reservation("r2").getBranchId());
+		assertEquals(1L, reservation("r2").getVersion());
+		assertNull(reservation("r3").getBranchId());
+		// Books without branch inventory keep their book-level loans
+		assertNull(reservation("r4").getBranchId());
+
+		BranchInventory east = mongo.template().findById("east:stocked", BranchInventory.class);
+		assertEquals(2, east.getTotal());
+		assertEquals(1, east.getAvailable());
+		assertEquals(2, mongo.template().findById("main:stocked", BranchInventory.class).getTotal());
+		verify(inventoryService).booksChanged(List.of("stocked"));
+		verifyNoMoreInteractions(inventoryService);
+	}
+
+	private static Document inventory(String branchId, int total, int available) {
+		return new Document("_id", branchId + ":stocked").append("bookId", "stocked").append("branchId", branchId)
+				.append("total", total).append("available", available);
+	}
+
+	private static Document loan(String id, String bookId, String branchId, String status) {
+		return new Document("_id", id).append("userId", "u1").append("bookId", bookId).append("branchId", branchId)
+				.append("status", status).append("version", 0L);
+	}
+
+	private Reservation reservation(String id) {
+		return mongo.template().findById(id, Reservation.class);
+	}
+}
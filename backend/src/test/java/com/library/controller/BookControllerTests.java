@@ -0,0 +1,46 @@
+package com.library.controller;
+
+import com.library.model.Book;
+import com.library.service.BookService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BookControllerTests {
+
+	private final BookService bookService = mock(BookService.class);
+	private final BookController controller = new BookController();
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(controller, "bookService", bookService);
+	}
+
+	@Test
+	void putRequiresTheVersionItWasReadAt() {
+		Book book = new Book();
+
+		assertEquals(428, controller.updateBook("x1", book).getStatusCode().value());
+		verify(bookService, never()).saveBook(any());
+	}
+
+	@Test
+	void putOfAChangedOrMissingBookIsAConflictOrNotFound() {
+		Book book = new Book();
+		book.setVersion(3L);
+		when(bookService.saveBook(any())).thenThrow(new OptimisticLockingFailureException("version 3"));
+		when(bookService.existsById("x1")).thenReturn(true);
+		when(bookService.existsById("x2")).thenReturn(false);
+
+		assertEquals(409, controller.updateBook("x1", book).getStatusCode().value());
+		assertEquals(404, controller.updateBook("x2", book).getStatusCode().value());
+	}
+}
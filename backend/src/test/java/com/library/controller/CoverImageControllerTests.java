@@ -0,0 +1,55 @@
+package com.library.controller;
+
+import com.library.service.CoverImageService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CoverImageControllerTests {
+
+	@TempDir
+	Path dir;
+
+	private final CoverImageService coverImageService = mock(CoverImageService.class);
+	private final CoverImageController controller = new CoverImageController();
+
+	@BeforeEach
+	void setUp() throws IOException {
+		Path original = Files.write(dir.resolve("original.png"), new byte[] { 1, 2, 3 });
+		when(coverImageService.resolve("b1", "original")).thenReturn(Optional.of(original));
+		when(coverImageService.currentVersion("b1")).thenReturn(Optional.of(42L));
+		ReflectionTestUtils.setField(controller, "coverImageService", coverImageService);
+		ReflectionTestUtils.setField(controller, "unversionedMaxAge", Duration.ofMinutes(5));
+	}
+
+	@Test
+	void currentVersionIsImmutable() throws IOException {
+		assertEquals("max-age=31536000, public, immutable", cacheControl(42L));
+	}
+
+	@Test
+	void missingOrStaleVersionIsRevalidated() throws IOException {
+		assertEquals("max-age=300, must-revalidate, public", cacheControl(null));
+		assertEquals("max-age=300, must-revalidate, public", cacheControl(41L));
+	}
+
+	private String cacheControl(Long version) throws IOException {
+		ResponseEntity<?> response = controller.getCover("b1", "original", version, new MockHttpServletRequest());
+		assertEquals(200, response.getStatusCode().value());
+		return response.getHeaders().getFirst(HttpHeaders.CACHE_CONTROL);
+	}
+}
@@ -0,0 +1,62 @@
+package com.library.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.model.Reservation;
+import com.library.service.IdempotencyService;
+import com.library.service.ReservationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReservationControllerTests {
+
+	private final ReservationService reservationService = mock(ReservationService.class);
+	private final ReservationController controller = new ReservationController();
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(controller, "reservationService", reservationService);
+		ReflectionTestUtils.setField(controller, "idempotencyService", mock(IdempotencyService.class));
+		ReflectionTestUtils.setField(controller, "objectMapper", new ObjectMapper());
+	}
+
+	@Test
+	void unexpectedFailuresDoNotExposeTheirMessage() {
+		when(reservationService.createReservation("u1", "b1", null))
+				.thenThrow(new RuntimeException("Timed out after 30000 ms while waiting for a server at mongo-0:27017"));
+
+		ResponseEntity<?> response = controller.createReservation(Map.of("userId", "u1", "bookId", "b1"), null);
+
+		assertEquals(500, response.getStatusCode().value());
+		assertEquals("Reservation could not be created; retry", response.getBody());
+	}
+
+	@Test
+	void putRequiresTheVersionItWasReadAt() {
+		assertEquals(428, controller.updateReservation("r1", new Reservation()).getStatusCode().value());
+		verify(reservationService, never()).saveReservation(any());
+	}
+
+	@Test
+	void putOfAChangedOrMissingReservationIsAConflictOrNotFound() {
+		Reservation reservation = new Reservation();
+		reservation.setVersion(3L);
+		when(reservationService.saveReservation(any())).thenThrow(new OptimisticLockingFailureException("version 3"));
+		when(reservationService.existsById("r1")).thenReturn(true);
+		when(reservationService.existsById("r2")).thenReturn(false);
+
+		assertEquals(409, controller.updateReservation("r1", reservation).getStatusCode().value());
+		assertEquals(404, controller.updateReservation("r2", reservation).getStatusCode().value());
+	}
+}
@@ -0,0 +1,46 @@
+package com.library.controller;
+
+import com.library.model.User;
+import com.library.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserControllerTests {
+
+	private final UserService userService = mock(UserService.class);
+	private final UserController controller = new UserController();
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(controller, "userService", userService);
+	}
+
+	@Test
+	void putRequiresTheVersionItWasReadAt() {
+		User user = new User();
+
+		assertEquals(428, controller.updateUser("x1", user).getStatusCode().value());
+		verify(userService, never()).saveUser(any());
+	}
+
+	@Test
+	void putOfAChangedOrMissingUserIsAConflictOrNotFound() {
+		User user = new User();
+		user.setVersion(3L);
+		when(userService.saveUser(any())).thenThrow(new OptimisticLockingFailureException("version 3"));
+		when(userService.existsById("x1")).thenReturn(true);
+		when(userService.existsById("x2")).thenReturn(false);
+
+		assertEquals(409, controller.updateUser("x1", user).getStatusCode().value());
+		assertEquals(404, controller.updateUser("x2", user).getStatusCode().value());
+	}
+}
@@ -0,0 +1,72 @@
+package com.library.library_management_system;
+
+import com.library.model.Book;
+import com.library.model.User;
+import com.library.service.BookService;
+import com.library.service.UserService;
+import com.library.support.InMemoryMongo;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Two application instances over one database, each with its own caches, connected by the
+// in-JVM transport: a write on one node must not leave the other serving its cached copy
+class CacheInvalidationNodesTests {
+
+	private static final InMemoryMongo mongo = new InMemoryMongo();
+
+	private static ConfigurableApplicationContext first;
+	private static ConfigurableApplicationContext second;
+
+	@BeforeAll
+	static void startNodes() {
+		first = node();
+		second = node();
+	}
+
+	@AfterAll
+	static void stopNodes() {
+		second.close();
+		first.close();
+		mongo.close();
+	}
+
+	private static ConfigurableApplicationContext node() {
+		return new SpringApplicationBuilder(LibraryManagementSystemApplication.class)
+				.properties("server.port=0", "spring.data.mongodb.uri=" + mongo.uri(),
+						"cache.invalidation.transport=local")
+				.run();
+	}
+
+	@Test
+	void bookPatchedOnOneNodeIsNotServedStaleByTheOther() {
+		Book book = first.getBean(BookService.class).saveBook(new Book("Dune", "Frank Herbert", List.of("Sci-Fi"), 3));
+		BookService other = second.getBean(BookService.class);
+		assertEquals("Dune", other.getBookById(book.getId()).orElseThrow().getTitle());
+
+		first.getBean(BookService.class).patchBook(book.getId(), Map.of("title", "Dune Messiah"));
+
+		assertEquals("Dune Messiah", other.getBookById(book.getId()).orElseThrow().getTitle());
+	}
+
+	@Test
+	void renamedUserIsNotFoundUnderTheOldNameOnTheOtherNode() {
+		User user = first.getBean(UserService.class).saveUser(
+				new User("ada", "ada@library.com", "secret123", "Ada", "Lovelace"));
+		UserService other = second.getBean(UserService.class);
+		assertTrue(other.findByUsername("ada").isPresent());
+
+		first.getBean(UserService.class).patchUser(user.getId(), Map.of("username", "ada.l"));
+
+		assertTrue(other.findByUsername("ada").isEmpty());
+		assertEquals(user.getId(), other.findByUsername("ada.l").orElseThrow().getId());
+	}
+}
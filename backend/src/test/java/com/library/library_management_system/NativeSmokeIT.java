@@ -0,0 +1,155 @@
+package com.library.library_management_system;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Runs against the native executable built by `mvn -Pnative native:compile verify`
+@Testcontainers(disabledWithoutDocker = true)
+@EnabledIfSystemProperty(named = "native.binary", matches = ".+")
+class NativeSmokeIT {
+
+	@Container
+	static MongoDBContainer mongo = new MongoDBContainer("mongo:7.0");
+
+	// Spring's own figure: JVM/image start to context refreshed and web server listening
+	private static final Pattern STARTED = Pattern.compile("Started \\w+ in (\\d+\\.\\d+) seconds");
+
+	private static final ObjectMapper objectMapper = new ObjectMapper();
+	private static final HttpClient client = HttpClient.newHttpClient();
+
+	private static Process process;
+	private static Path log;
+	private static String baseUrl;
+	private static long startupMillis;
+	private static long readyMillis;
+
+	@BeforeAll
+	static void startBinary() throws Exception {
+		int port;
+		try (ServerSocket socket = new ServerSocket(0)) {
+			port = socket.getLocalPort();
+		}
+		baseUrl = "http://localhost:" + port;
+		log = Files.createTempFile("native-smoke", ".log");
+
+		long start = System.nanoTime();
+		process = new ProcessBuilder(System.getProperty("native.binary"),
+				"--server.port=" + port,
+				"--spring.data.mongodb.uri=" + mongo.getReplicaSetUrl("library"),
+				"--jwt.secret=native-smoke-secret-that-is-at-least-32-bytes",
+				"--jwt.expiration=60000")
+				.redirectErrorStream(true)
+				.redirectOutput(log.toFile())
+				.start();
+
+		long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+		while (true) {
+			try {
+				if (get("/actuator/health").statusCode() == 200) {
+					break;
+				}
+			} catch (ConnectException e) {
+				// not listening yet
+			}
+			if (System.nanoTime() > deadline || !process.isAlive()) {
+				throw new IllegalStateException("Native binary did not start:\n" + Files.readString(log));
+			}
+			Thread.sleep(5);
+		}
+		readyMillis = (System.nanoTime() - start) / 1_000_000;
+		Matcher started = STARTED.matcher(Files.readString(log));
+		if (!started.find()) {
+			throw new IllegalStateException("No startup line in native log:\n" + Files.readString(log));
+		}
+		startupMillis = Math.round(Double.parseDouble(started.group(1)) * 1000);
+	}
+
+	@AfterAll
+	static void stopBinary() {
+		if (process != null) {
+			process.destroy();
+		}
+	}
+
+	@Test
+	void startsWithinBudget() {
+		// readyMillis also counts process spawn and the health-probe polling, so only the reported startup is gated
+		long budget = Long.getLong("native.max-startup-ms", 100);
+		assertTrue(startupMillis < budget,
+				"native startup took " + startupMillis + " ms (first healthy response after " + readyMillis + " ms)");
+	}
+
+	@Test
+	void signupLoginReserveAndReturn() throws Exception {
+		HttpResponse<String> signup = post("/api/auth/signup", Map.of(
+				"username", "smoke", "email", "smoke@library.com", "password", "secret123",
+				"firstName", "Smoke", "lastName", "Test"), null);
+		assertEquals(200, signup.statusCode(), signup.body());
+		String userId = json(signup).path("user").path("id").asText();
+
+		HttpResponse<String> login = post("/api/auth/login", Map.of("username", "smoke", "password", "secret123"), null);
+		assertEquals(200, login.statusCode(), login.body());
+		String token = json(login).path("token").asText();
+
+		HttpResponse<String> me = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/auth/me"))
+				.header("Authorization", "Bearer " + token).build(), HttpResponse.BodyHandlers.ofString());
+		assertEquals(200, me.statusCode(), me.body());
+
+		HttpResponse<String> book = post("/api/books", Map.of(
+				"title", "The Hobbit", "author", "J.R.R. Tolkien", "categories", new String[] {"Fantasy"},
+				"totalCopies", 2), token);
+		assertEquals(200, book.statusCode(), book.body());
+		String bookId = json(book).path("id").asText();
+
+		HttpResponse<String> reservation = post("/api/reservations", Map.of("userId", userId, "bookId", bookId), token);
+		assertEquals(200, reservation.statusCode(), reservation.body());
+		String reservationId = json(reservation).path("id").asText();
+
+		assertEquals(1, json(get("/api/books/" + bookId)).path("availableCopies").asInt());
+		assertEquals(200, post("/api/reservations/" + reservationId + "/return", Map.of(), token).statusCode());
+		assertEquals(2, json(get("/api/books/" + bookId)).path("availableCopies").asInt());
+	}
+
+	private static HttpResponse<String> get(String path) throws IOException, InterruptedException {
+		return client.send(HttpRequest.newBuilder(URI.create(baseUrl + path)).build(), HttpResponse.BodyHandlers.ofString());
+	}
+
+	private static HttpResponse<String> post(String path, Object body, String token) throws IOException, InterruptedException {
+		HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+				.header("Content-Type", "application/json")
+				.POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)));
+		if (token != null) {
+			request.header("Authorization", "Bearer " + token);
+		}
+		return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+	}
+
+	private static JsonNode json(HttpResponse<String> response) throws IOException {
+		return objectMapper.readTree(response.body());
+	}
+
+}
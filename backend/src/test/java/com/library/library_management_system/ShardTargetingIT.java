@@ -0,0 +1,230 @@
+package com.library.library_management_system;
+
+import com.library.model.Book;
+import com.library.model.Reservation;
+import com.library.model.User;
+import com.library.service.BookService;
+import com.library.service.FineService;
+import com.library.service.ReservationArchiveService;
+import com.library.service.ReservationService;
+import com.library.service.UserService;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Runs the hot paths against a two-shard cluster (see src/test/resources/sharded-cluster),
+// captures the commands they send and explains each one through mongos to count the shards
+// it is routed to. Run with: mvn -Psharded verify
+@SpringBootTest(properties = "library.sharding.enabled=true")
+@EnabledIfSystemProperty(named = "sharded.mongo-uri", matches = ".+")
+class ShardTargetingIT {
+
+	private static final Set<String> SHARDED_COLLECTIONS = Set.of("books", "reservations");
+	private static final Set<String> EXPLAINABLE = Set.of("find", "count", "findAndModify", "update", "delete");
+	private static final Set<String> WRITES = Set.of("findAndModify", "update", "delete");
+	private static final Set<String> SESSION_FIELDS = Set.of(
+			"lsid", "$db", "$clusterTime", "txnNumber", "$readPreference", "readConcern", "writeConcern");
+
+	private static final CommandRecorder recorder = new CommandRecorder();
+
+	@DynamicPropertySource
+	static void mongo(DynamicPropertyRegistry registry) {
+		registry.add("spring.data.mongodb.uri", () -> System.getProperty("sharded.mongo-uri"));
+	}
+
+	@TestConfiguration
+	static class CommandCapture {
+
+		@Bean
+		MongoClientSettingsBuilderCustomizer commandRecorder() {
+			return builder -> builder.addCommandListener(recorder);
+		}
+	}
+
+	@Autowired
+	private BookService bookService;
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private ReservationService reservationService;
+
+	@Autowired
+	private FineService fineService;
+
+	@Autowired
+	private ReservationArchiveService archiveService;
+
+	@Autowired
+	private MongoTemplate mongoTemplate;
+
+	private final List<String> userIds = new ArrayList<>();
+	private Book book;
+	private Reservation reservation;
+
+	@BeforeEach
+	void seed() {
+		String run = Long.toString(System.nanoTime(), 36);
+		book = bookService.saveBook(new Book("Dune " + run, "Frank Herbert", List.of("Sci-Fi"), 50));
+		for (int i = 0; i < 20; i++) {
+			User user = userService.saveUser(new User("shard" + run + i, "shard" + run + i + "@library.com",
+					"secret123", "Shard", "Test"));
+			userIds.add(user.getId());
+			Reservation created = reservationService.createReservation(user.getId(), book.getId());
+			if (i == 0) {
+				reservation = created;
+			}
+		}
+	}
+
+	@Test
+	void hotPathsAreSingleShard() {
+		String userId = reservation.getUserId();
+
+		assertSingleShard(() -> reservationService.getReservationById(reservation.getId(), userId));
+		assertSingleShard(() -> reservationService.getReservationsByUserId(userId));
+		assertSingleShard(() -> bookService.getBookById(book.getId()));
+		assertSingleShard(() -> bookService.reserveBook(book.getId()));
+		assertSingleShard(() -> bookService.returnBook(book.getId()));
+		assertSingleShard(() -> reservationService.createReservation(userIds.get(1), bookService.saveBook(
+				new Book("Second copy", "Frank Herbert", List.of("Sci-Fi"), 5)).getId()));
+		assertSingleShard(() -> reservationService.returnBook(reservation.getId(), userId));
+	}
+
+	// The scans themselves scatter; each write they issue must still carry the shard key
+	@Test
+	void batchJobWritesAreSingleShard() {
+		String userId = reservation.getUserId();
+		Query byId = Query.query(Criteria.where("_id").is(reservation.getId()).and("userId").is(userId));
+
+		mongoTemplate.updateFirst(byId, new Update().set("expectedReturnDate", LocalDateTime.now().minusDays(3)),
+				Reservation.class);
+		assertWritesSingleShard(() -> fineService.accrue());
+
+		reservationService.returnBook(reservation.getId(), userId);
+		mongoTemplate.updateFirst(byId, new Update().set("updatedAt", LocalDateTime.now().minusYears(2)),
+				Reservation.class);
+		assertWritesSingleShard(() -> archiveService.archive());
+	}
+
+	@Test
+	void lookupsWithoutShardKeyScatter() {
+		// Control: proves the cluster really spreads reservations over both shards
+		List<Integer> shards = explainAll(() -> reservationService.getReservationById(reservation.getId()), EXPLAINABLE);
+		assertFalse(shards.isEmpty());
+		assertTrue(shards.stream().anyMatch(count -> count > 1), "expected a scatter-gather, got " + shards);
+	}
+
+	private void assertSingleShard(Runnable action) {
+		assertSingleShard(action, EXPLAINABLE);
+	}
+
+	private void assertWritesSingleShard(Runnable action) {
+		assertSingleShard(action, WRITES);
+	}
+
+	private void assertSingleShard(Runnable action, Set<String> commandNames) {
+		List<Integer> shards = explainAll(action, commandNames);
+		assertFalse(shards.isEmpty(), "no commands on sharded collections were captured");
+		for (int count : shards) {
+			assertEquals(1, count, "command was routed to " + count + " shards");
+		}
+	}
+
+	// Runs the action, then explains every captured command of those names on a sharded collection
+	private List<Integer> explainAll(Runnable action, Set<String> commandNames) {
+		recorder.start();
+		action.run();
+		List<BsonDocument> commands = recorder.stop();
+		List<Integer> shards = new ArrayList<>();
+		for (BsonDocument command : commands) {
+			if (!commandNames.contains(command.getFirstKey())) {
+				continue;
+			}
+			BsonDocument explainable = new BsonDocument();
+			command.forEach((key, value) -> {
+				if (!SESSION_FIELDS.contains(key)) {
+					explainable.put(key, value);
+				}
+			});
+			// explain takes one statement, so bulk updates and deletes are explained one by one
+			String statements = switch (command.getFirstKey()) {
+				case "update" -> "updates";
+				case "delete" -> "deletes";
+				default -> null;
+			};
+			if (statements == null) {
+				shards.add(explain(explainable));
+				continue;
+			}
+			for (BsonValue statement : explainable.getArray(statements)) {
+				BsonDocument single = explainable.clone();
+				single.put(statements, new BsonArray(List.of(statement)));
+				shards.add(explain(single));
+			}
+		}
+		return shards;
+	}
+
+	private int explain(BsonDocument command) {
+		Document explain = mongoTemplate.getDb().runCommand(
+				new Document("explain", command).append("verbosity", "queryPlanner"));
+		Document winningPlan = explain.get("queryPlanner", Document.class).get("winningPlan", Document.class);
+		return winningPlan.getList("shards", Document.class).size();
+	}
+
+	static class CommandRecorder implements CommandListener {
+
+		private final List<BsonDocument> commands = new ArrayList<>();
+		private volatile boolean recording;
+
+		synchronized void start() {
+			commands.clear();
+			recording = true;
+		}
+
+		synchronized List<BsonDocument> stop() {
+			recording = false;
+			return new ArrayList<>(commands);
+		}
+
+		@Override
+		public synchronized void commandStarted(CommandStartedEvent event) {
+			if (!recording || !EXPLAINABLE.contains(event.getCommandName())) {
+				return;
+			}
+			BsonDocument command = event.getCommand();
+			String collection = command.getString(event.getCommandName()).getValue();
+			if (SHARDED_COLLECTIONS.contains(collection)) {
+				commands.add(command.clone());
+			}
+		}
+	}
+}
@@ -0,0 +1,54 @@
+package com.library.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.library.model.Book;
+import com.library.model.CacheInvalidation;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class BookResponseCacheTests {
+
+	private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+	@Test
+	void reusesBytesUntilTheVersionChanges() throws IOException {
+		CacheInvalidationBus bus = new CacheInvalidationBus("local", new LocalInvalidationBroker());
+		BookResponseCache cache = new BookResponseCache(objectMapper, Duration.ofMinutes(1), 100, 1024, bus);
+		Book book = book(3L, "short");
+
+		BookResponseCache.EncodedBook first = cache.get(book);
+		assertArrayEquals(objectMapper.writeValueAsBytes(book), first.json());
+		assertNull(first.gzip());
+		assertSame(first, cache.get(book));
+
+		bus.deliver(CacheInvalidation.book("b1", 4L));
+		Book updated = book(4L, "x".repeat(2000));
+		BookResponseCache.EncodedBook second = cache.get(updated);
+		assertNotSame(first, second);
+		try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(second.gzip()))) {
+			assertArrayEquals(second.json(), gzip.readAllBytes());
+		}
+	}
+
+	private static Book book(long version, String description) {
+		Book book = new Book();
+		book.setId("b1");
+		book.setTitle("Emma");
+		book.setAuthor("Jane Austen");
+		book.setDescription(description);
+		book.setTotalCopies(2);
+		book.setAvailableCopies(1);
+		book.setVersion(version);
+		return book;
+	}
+}
@@ -0,0 +1,122 @@
+package com.library.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.model.Book;
+import com.library.repository.BookRepository;
+import com.library.support.InMemoryMongo;
+import jakarta.validation.Validation;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class BookServicePatchTests {
+
+	private static final InMemoryMongo mongo = new InMemoryMongo();
+
+	private final BookService service = new BookService();
+
+	@BeforeEach
+	void setUp() {
+		mongo.reset();
+		MergePatchMapper mergePatchMapper = new MergePatchMapper();
+		ReflectionTestUtils.setField(mergePatchMapper, "objectMapper", new ObjectMapper());
+		ReflectionTestUtils.setField(mergePatchMapper, "validator",
+				Validation.buildDefaultValidatorFactory().getValidator());
+		ReflectionTestUtils.setField(service, "bookRepository", mongo.repository(BookRepository.class));
+		ReflectionTestUtils.setField(service, "mongoTemplate", mongo.template());
+		ReflectionTestUtils.setField(service, "mergePatchMapper", mergePatchMapper);
+		ReflectionTestUtils.setField(service, "catalogEventBus", mock(CatalogEventBus.class));
+		ReflectionTestUtils.setField(service, "bookCache", mock(BookCache.class));
+		ReflectionTestUtils.setField(service, "bookResponseCache", mock(BookResponseCache.class));
+		ReflectionTestUtils.setField(service, "cacheInvalidationBus", mock(CacheInvalidationBus.class));
+	}
+
+	@AfterAll
+	static void stop() {
+		mongo.close();
+	}
+
+	@Test
+	void settingCopiesOnABookWithoutCountsCountsTheMissingOnesAsZero() {
+		mongo.template().getCollection("books").insertOne(new Document("_id", "b1").append("title", "Dune"));
+
+		Book patched = service.patchBook("b1", Map.of("totalCopies", 3)).orElseThrow();
+
+		assertEquals(3, patched.getTotalCopies());
+		assertEquals(3, patched.getAvailableCopies());
+	}
+
+	@Test
+	void missingAvailableCountIsTreatedAsZeroOnLoan() {
+		mongo.template().getCollection("books").insertOne(new Document("_id", "b1").append("title", "Dune")
+				.append("totalCopies", 2));
+
+		Book patched = service.patchBook("b1", Map.of("totalCopies", 5)).orElseThrow();
+		assertEquals(5, patched.getTotalCopies());
+		assertEquals(3, patched.getAvailableCopies());
+
+		mongo.template().getCollection("books").insertOne(new Document("_id", "b2").append("title", "Emma")
+				.append("totalCopies", 2));
+		assertThrows(IllegalStateException.class, () -> service.patchBook("b2", Map.of("totalCopies", 1)));
+	}
+
+	@Test
+	void totalCannotDropBelowCopiesOnLoan() {
+		Book book = new Book("Dune", "Herbert", null, 3);
+		book.setAvailableCopies(1);
+		book = mongo.template().insert(book);
+		String id = book.getId();
+
+		assertThrows(IllegalStateException.class, () -> service.patchBook(id, Map.of("totalCopies", 1)));
+
+		Book patched = service.patchBook(id, Map.of("totalCopies", 2)).orElseThrow();
+		assertEquals(2, patched.getTotalCopies());
+		assertEquals(0, patched.getAvailableCopies());
+	}
+
+	@Test
+	void copiesOfABranchStockedBookAreLeftToItsBranches() {
+		Book book = mongo.template().insert(new Book("Dune", "Herbert", null, 3));
+		String id = book.getId();
+		service.markBranchStocked(id);
+
+		assertThrows(IllegalStateException.class, () -> service.patchBook(id, Map.of("totalCopies", 5)));
+		assertEquals("Dune 2", service.patchBook(id, Map.of("title", "Dune 2")).orElseThrow().getTitle());
+
+		Book stored = mongo.template().findById(id, Book.class);
+		stored.setTotalCopies(5);
+		assertThrows(IllegalStateException.class, () -> service.saveBook(stored));
+
+		// Counts repeated as read: saved, and a body without the flag can't clear it
+		stored.setTotalCopies(3);
+		stored.setBranchStocked(false);
+		Book saved = service.saveBook(stored);
+		assertEquals("Dune 2", saved.getTitle());
+		assertTrue(saved.isBranchStocked());
+		assertEquals(stored.getVersion(), saved.getVersion());
+	}
+
+	@Test
+	void putIsConditionalOnTheVersion() {
+		Book book = mongo.template().insert(new Book("Dune", "Herbert", null, 3));
+		book.setTotalCopies(4);
+		book.setAvailableCopies(4);
+		Book saved = service.saveBook(book);
+		assertEquals(4, saved.getTotalCopies());
+		assertFalse(saved.isBranchStocked());
+
+		book.setVersion(saved.getVersion() - 1);
+		assertThrows(OptimisticLockingFailureException.class, () -> service.saveBook(book));
+	}
+}
@@ -0,0 +1,70 @@
+package com.library.service;
+
+import com.library.model.CacheInvalidation;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CacheInvalidationTests {
+
+	private final LocalInvalidationBroker broker = new LocalInvalidationBroker();
+
+	private VersionedCache<String> node() {
+		VersionedCache<String> cache = new VersionedCache<>(Duration.ofMinutes(10), 1000);
+		CacheInvalidationBus bus = new CacheInvalidationBus("local", broker);
+		bus.subscribe(invalidation -> cache.invalidate(invalidation.getId(), invalidation.getVersion()));
+		return cache;
+	}
+
+	@Test
+	void writeOnOneNodeInvalidatesOlderCopiesElsewhere() {
+		VersionedCache<String> writer = node();
+		VersionedCache<String> first = node();
+		VersionedCache<String> second = node();
+		first.put("b1", "title v1", 1);
+		second.put("b1", "title v1", 1);
+
+		writer.put("b1", "title v2", 2);
+		broker.publish(CacheInvalidation.book("b1", 2L));
+
+		assertEquals("title v2", writer.get("b1"));
+		assertNull(first.get("b1"));
+		assertNull(second.get("b1"));
+	}
+
+	@Test
+	void lateReadOfAnOldVersionCannotRepopulateTheCache() {
+		VersionedCache<String> reader = node();
+		node();
+
+		broker.publish(CacheInvalidation.book("b1", 3L));
+		// A read that started before the write finishes after the invalidation arrived
+		reader.put("b1", "title v2", 2);
+		assertNull(reader.get("b1"));
+
+		reader.put("b1", "title v3", 3);
+		assertEquals("title v3", reader.get("b1"));
+	}
+
+	@Test
+	void reconciliationRepairsMissedInvalidations() {
+		VersionedCache<String> node = node();
+		node.put("b1", "title v1", 1);
+		node.put("b2", "title v4", 4);
+		node.put("b3", "gone", 1);
+
+		// No messages arrived: b1 moved to v2 and b3 was deleted while the node wasn't listening
+		int dropped = node.reconcile(node.cachedIds(), Map.of("b1", 2L, "b2", 4L));
+
+		assertEquals(2, dropped);
+		assertNull(node.get("b1"));
+		assertEquals("title v4", node.get("b2"));
+		assertNull(node.get("b3"));
+		assertEquals(List.of("b2"), node.cachedIds());
+	}
+}
@@ -0,0 +1,32 @@
+package com.library.service;
+
+import com.library.model.CatalogEvent;
+import com.library.model.Reservation;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CatalogEventBusTests {
+
+	@Test
+	void reservationStatusOnlyReachesTheOwner() {
+		CatalogEventBus bus = new CatalogEventBus();
+		SseEmitter bookStream = bus.subscribe(List.of("dune"));
+		SseEmitter ownerStream = bus.subscribeUser("alice");
+		bus.subscribeUser("bob");
+
+		CatalogEvent status = CatalogEvent.reservationStatus("dune", "alice", "r1", Reservation.ReservationStatus.RETURNED);
+		CatalogEvent availability = CatalogEvent.availability("dune", 2);
+
+		assertEquals(Set.of(ownerStream), bus.recipients(status));
+		assertEquals(Set.of(bookStream), bus.recipients(availability));
+		assertTrue(bus.recipients(CatalogEvent.reservationStatus("dune", "carol", "r2",
+				Reservation.ReservationStatus.ACTIVE)).isEmpty());
+	}
+
+}
@@ -0,0 +1,73 @@
+package com.library.service;
+
+import com.library.model.Book;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CatalogSnapshotTests {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void roundTripsBooksAndAnswersCatalogQueries() throws IOException {
+		Path path = directory.resolve("catalog.snapshot");
+		CatalogSnapshot.write(path, List.of(
+				book("b2", "Dune", "Frank Herbert", List.of("sci-fi")),
+				book("b1", "Emma", "Jane Austen", List.of("classic", "romance")),
+				book("b3", "Persuasion", "Jane Austen", null)));
+
+		CatalogSnapshot snapshot = CatalogSnapshot.open(path);
+
+		assertEquals(3, snapshot.size());
+		Book emma = snapshot.findById("b1").orElseThrow();
+		assertEquals("Emma", emma.getTitle());
+		assertEquals(List.of("classic", "romance"), emma.getCategories());
+		assertEquals(4, emma.getTotalCopies());
+		assertNull(emma.getIsbn());
+		assertEquals(LocalDateTime.of(2024, 5, 1, 12, 30), emma.getCreatedAt());
+		assertTrue(snapshot.findById("b4").isEmpty());
+		assertEquals(List.of("b1", "b3"), ids(snapshot.search("AUSTEN")));
+		assertEquals(List.of("b1", "b2"), ids(snapshot.findByCategories(List.of("romance", "sci-fi"))));
+	}
+
+	@Test
+	void rejectsCorruptedFile() throws IOException {
+		Path path = directory.resolve("catalog.snapshot");
+		CatalogSnapshot.write(path, List.of(book("b1", "Emma", "Jane Austen", List.of("classic"))));
+		try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+			file.seek(50);
+			file.write('X');
+		}
+
+		assertThrows(IOException.class, () -> CatalogSnapshot.open(path));
+	}
+
+	private static Book book(String id, String title, String author, List<String> categories) {
+		Book book = new Book();
+		book.setId(id);
+		book.setTitle(title);
+		book.setAuthor(author);
+		book.setCategories(categories);
+		book.setTotalCopies(4);
+		book.setAvailableCopies(2);
+		book.setVersion(3L);
+		book.setCreatedAt(LocalDateTime.of(2024, 5, 1, 12, 30));
+		return book;
+	}
+
+	private static List<String> ids(List<Book> books) {
+		return books.stream().map(Book::getId).toList();
+	}
+}
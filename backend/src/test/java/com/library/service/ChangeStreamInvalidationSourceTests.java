@@ -0,0 +1,89 @@
+package com.library.service;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.messaging.MessageListenerContainer;
+import org.springframework.data.mongodb.core.messaging.Subscription;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ChangeStreamInvalidationSourceTests {
+
+	private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+	private final List<MessageListenerContainer> containers = new CopyOnWriteArrayList<>();
+	private final Semaphore resets = new Semaphore(0);
+	private final ChangeStreamInvalidationSource source = new ChangeStreamInvalidationSource() {
+		@Override
+		MessageListenerContainer createContainer() {
+			MessageListenerContainer container = mock(MessageListenerContainer.class);
+			when(container.register(any(), any())).thenReturn(mock(Subscription.class));
+			containers.add(container);
+			return container;
+		}
+	};
+
+	ChangeStreamInvalidationSourceTests() {
+		CacheInvalidationBus bus = new CacheInvalidationBus(CacheInvalidationBus.CHANGE_STREAM, new LocalInvalidationBroker());
+		bus.onReset(resets::release);
+		ReflectionTestUtils.setField(source, "invalidationBus", bus);
+		ReflectionTestUtils.setField(source, "mongoTemplate", mongoTemplate);
+		when(mongoTemplate.executeCommand(any(Document.class))).thenReturn(new Document("setName", "rs0"));
+		ReflectionTestUtils.setField(source, "restartDelayMs", 10L);
+	}
+
+	@Test
+	void streamErrorReopensTheStreamsAndClearsTheCaches() throws InterruptedException {
+		source.start();
+		assertTrue(resets.tryAcquire(5, TimeUnit.SECONDS));
+		assertEquals(1, containers.size());
+		verify(containers.get(0)).start();
+
+		// Both streams of the container fail at once: one restart
+		source.onStreamError(new IllegalStateException("cursor killed"));
+		source.onStreamError(new IllegalStateException("cursor killed"));
+
+		assertTrue(resets.tryAcquire(5, TimeUnit.SECONDS));
+		assertFalse(resets.tryAcquire(200, TimeUnit.MILLISECONDS));
+		assertEquals(2, containers.size());
+		verify(containers.get(0)).stop();
+		verify(containers.get(1)).start();
+	}
+
+	@Test
+	void errorsAfterStopDoNotRestart() throws InterruptedException {
+		source.start();
+		assertTrue(resets.tryAcquire(5, TimeUnit.SECONDS));
+		source.stop();
+
+		source.onStreamError(new IllegalStateException("cursor closed"));
+
+		assertFalse(resets.tryAcquire(200, TimeUnit.MILLISECONDS));
+		assertEquals(1, containers.size());
+		verify(containers.get(0)).stop();
+	}
+
+	@Test
+	void standaloneServerFailsStartupInsteadOfRetrying() {
+		when(mongoTemplate.executeCommand(any(Document.class))).thenReturn(new Document("isWritablePrimary", true));
+
+		IllegalStateException error = assertThrows(IllegalStateException.class, source::start);
+
+		assertTrue(error.getMessage().contains("cache.invalidation.transport=change-stream"));
+		assertFalse(source.isRunning());
+		assertTrue(containers.isEmpty());
+	}
+}
@@ -0,0 +1,82 @@
+package com.library.service;
+
+import com.library.model.CirculationEvent;
+import com.library.model.Reservation;
+import com.library.support.InMemoryMongo;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.WriteConcern;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.InsertManyOptions;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CirculationAuditLogTests {
+
+	private static final InMemoryMongo mongo = new InMemoryMongo();
+
+	@AfterAll
+	static void stop() {
+		mongo.close();
+	}
+
+	@Test
+	void eventsCarryTheirIdFromCreation() {
+		Reservation reservation = new Reservation("u1", "b1");
+		CirculationEvent first = CirculationEvent.of(CirculationEvent.Type.RESERVED, reservation, "API");
+		CirculationEvent second = CirculationEvent.of(CirculationEvent.Type.RESERVED, reservation, "API");
+
+		assertNotEquals(first.getId(), second.getId());
+		Document document = new Document();
+		mongo.template().getConverter().write(first, document);
+		assertEquals(first.getId(), document.getObjectId("_id").toHexString());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void onlyTheRejectedEventsOfAnUnorderedBatchAreRetried() {
+		MongoTemplate template = mock(MongoTemplate.class);
+		MongoCollection<Document> collection = mock(MongoCollection.class);
+		when(template.getConverter()).thenReturn(mongo.template().getConverter());
+		when(template.getCollection("circulation_events")).thenReturn(collection);
+		when(collection.withWriteConcern(any())).thenReturn(collection);
+		when(collection.insertMany(anyList(), any(InsertManyOptions.class))).thenThrow(new MongoBulkWriteException(
+				BulkWriteResult.acknowledged(2, 0, 0, 0, List.of(), List.of()),
+				List.of(new BulkWriteError(11000, "rejected", new BsonDocument(), 1)),
+				null, new ServerAddress(), Set.of()));
+
+		CirculationAuditLog auditLog = new CirculationAuditLog(16);
+		ReflectionTestUtils.setField(auditLog, "mongoTemplate", template);
+		ReflectionTestUtils.setField(auditLog, "writeConcern", WriteConcern.W1);
+		ReflectionTestUtils.setField(auditLog, "collectionReady", true);
+		List<CirculationEvent> batch = List.of(event("r1"), event("r2"), event("r3"));
+
+		List<CirculationEvent> failed = auditLog.insert(batch);
+
+		assertEquals(1, failed.size());
+		assertSame(batch.get(1), failed.get(0));
+	}
+
+	private static CirculationEvent event(String reservationId) {
+		Reservation reservation = new Reservation("u1", "b1");
+		reservation.setId(reservationId);
+		return CirculationEvent.of(CirculationEvent.Type.RETURNED, reservation, "CHECK_IN");
+	}
+}
@@ -0,0 +1,58 @@
+package com.library.service;
+
+import com.library.model.BookRecommendation;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CoBorrowIndexTests {
+
+	@Test
+	void ranksBooksBorrowedByTheSameMembersFirst() {
+		CoBorrowIndex index = new CoBorrowIndex.Builder(1000)
+				.add("u1", "dune", null, null).add("u1", "hyperion", null, null)
+				.add("u2", "dune", null, null).add("u2", "hyperion", null, null)
+				.add("u3", "dune", null, null).add("u3", "emma", null, null)
+				.add("u4", "emma", null, null)
+				.add("u1", "dune", null, null)
+				.build(ForkJoinPool.commonPool());
+
+		List<BookRecommendation> recommendations = index.topK("dune", 10, 1);
+
+		assertEquals(List.of("hyperion", "emma"), recommendations.stream().map(BookRecommendation::getBookId).toList());
+		assertEquals(2, recommendations.get(0).getCoBorrowers());
+		assertTrue(index.topK("unknown", 10, 1).isEmpty());
+	}
+
+	@Test
+	void incrementalLoansMatchAFullRebuild() {
+		Random random = new Random(42);
+		CoBorrowIndex.Builder history = new CoBorrowIndex.Builder(1000);
+		CoBorrowIndex.Builder everything = new CoBorrowIndex.Builder(1000);
+		for (int i = 0; i < 5000; i++) {
+			String user = "u" + random.nextInt(300);
+			String book = "b" + random.nextInt(200);
+			history.add(user, book, null, null);
+			everything.add(user, book, null, null);
+		}
+		CoBorrowIndex incremental = history.build(ForkJoinPool.commonPool());
+		for (int i = 0; i < 2000; i++) {
+			String user = "u" + random.nextInt(350);
+			String book = "b" + random.nextInt(220);
+			incremental.recordLoan(user, book, null, null);
+			everything.add(user, book, null, null);
+		}
+		CoBorrowIndex rebuilt = everything.build(ForkJoinPool.commonPool());
+
+		for (int b = 0; b < 220; b++) {
+			List<String> expected = rebuilt.topK("b" + b, 20, 1).stream().map(BookRecommendation::getBookId).toList();
+			List<String> actual = incremental.topK("b" + b, 20, 1).stream().map(BookRecommendation::getBookId).toList();
+			assertEquals(expected, actual, "b" + b);
+		}
+	}
+}
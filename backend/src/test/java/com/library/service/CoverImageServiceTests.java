@@ -0,0 +1,105 @@
+package com.library.service;
+
+import com.library.model.Book;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CoverImageServiceTests {
+
+	@TempDir
+	Path storageDir;
+
+	private final BookService bookService = mock(BookService.class);
+	private final CoverImageService covers = new CoverImageService();
+
+	@BeforeEach
+	void setUp() {
+		when(bookService.getBookById("b1")).thenReturn(Optional.of(new Book()));
+		ReflectionTestUtils.setField(covers, "bookService", bookService);
+		ReflectionTestUtils.setField(covers, "storageDir", storageDir);
+		ReflectionTestUtils.setField(covers, "thumbnailWidths", List.of(200, 400));
+		ReflectionTestUtils.setField(covers, "maxPixels", 1_000_000L);
+	}
+
+	@Test
+	void storesOriginalAndThumbnailsUnderTheVersionInTheUrl() throws IOException {
+		String url = covers.store("b1", image("image/png", "png", 800, 600));
+
+		long version = covers.currentVersion("b1").orElseThrow();
+		assertEquals("/api/books/b1/cover?v=" + version, url);
+		verify(bookService).updateCoverImageUrl("b1", url);
+		assertTrue(covers.resolve("b1", "original").orElseThrow().endsWith("original.png"));
+		BufferedImage thumbnail = ImageIO.read(covers.resolve("b1", "200").orElseThrow().toFile());
+		assertEquals(200, thumbnail.getWidth());
+		assertEquals(150, thumbnail.getHeight());
+		assertTrue(covers.resolve("b1", "300").isEmpty());
+	}
+
+	@Test
+	void reuploadInAnotherFormatReplacesTheOriginalAndBumpsTheVersion() throws IOException {
+		covers.store("b1", image("image/png", "png", 100, 100));
+		long first = covers.currentVersion("b1").orElseThrow();
+		Files.setLastModifiedTime(storageDir.resolve("b1/original.png"),
+				FileTime.fromMillis(first - 10_000));
+
+		covers.store("b1", image("image/jpeg", "jpg", 100, 100));
+
+		assertTrue(covers.resolve("b1", "original").orElseThrow().endsWith("original.jpg"));
+		assertFalse(Files.exists(storageDir.resolve("b1/original.png")));
+		assertTrue(covers.currentVersion("b1").orElseThrow() > first - 10_000);
+		try (var files = Files.list(storageDir.resolve("b1"))) {
+			assertTrue(files.noneMatch(file -> file.getFileName().toString().startsWith("upload-")));
+		}
+	}
+
+	@Test
+	void rejectsImagesWhoseHeaderExceedsThePixelLimitWithoutTouchingTheCurrentCover() throws IOException {
+		covers.store("b1", image("image/png", "png", 100, 100));
+		long version = covers.currentVersion("b1").orElseThrow();
+
+		// 2000 x 1000 is 2 MP against a 1 MP limit; the PNG itself compresses to a few KB
+		IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+				() -> covers.store("b1", image("image/png", "png", 2000, 1000)));
+
+		assertTrue(error.getMessage().startsWith("Cover is too large"));
+		assertEquals(version, covers.currentVersion("b1").orElseThrow());
+	}
+
+	@Test
+	void rejectsUploadsThatAreNotImages() {
+		MockMultipartFile file = new MockMultipartFile("file", "cover.png", "image/png", new byte[] { 1, 2, 3 });
+
+		assertThrows(IllegalArgumentException.class, () -> covers.store("b1", file));
+		verify(bookService, never()).updateCoverImageUrl(anyString(), anyString());
+		assertTrue(covers.currentVersion("b1").isEmpty());
+	}
+
+	private static MockMultipartFile image(String contentType, String format, int width, int height) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), format, bytes);
+		return new MockMultipartFile("file", "cover." + format, contentType, bytes.toByteArray());
+	}
+}
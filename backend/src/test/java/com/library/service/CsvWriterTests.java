@@ -0,0 +1,29 @@
+package com.library.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CsvWriterTests {
+
+	@Test
+	void quotesOnlyWhenNeededAndEscapesQuotes() throws IOException {
+		StringWriter out = new StringWriter();
+		CsvWriter csv = new CsvWriter(out);
+		csv.text("Dune").text("Herbert, Frank").text("The \"Spice\" Saga").plain("42").text(null).endRow();
+		csv.text("line\nbreak").plain(null).endRow();
+
+		assertEquals("Dune,\"Herbert, Frank\",\"The \"\"Spice\"\" Saga\",42,\r\n\"line\nbreak\",\r\n", out.toString());
+	}
+
+	@Test
+	void neutralisesSpreadsheetFormulas() throws IOException {
+		StringWriter out = new StringWriter();
+		new CsvWriter(out).text("=HYPERLINK(\"x\")").text("-1").plain("-1").endRow();
+
+		assertEquals("\"'=HYPERLINK(\"\"x\"\")\",\"'-1\",-1\r\n", out.toString());
+	}
+}
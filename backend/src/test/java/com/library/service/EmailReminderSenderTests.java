@@ -0,0 +1,47 @@
+package com.library.service;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.GreenMailUtil;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.library.model.DueReminder;
+import com.library.model.User;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EmailReminderSenderTests {
+
+	@RegisterExtension
+	static GreenMailExtension smtp = new GreenMailExtension(ServerSetupTest.SMTP);
+
+	@Test
+	void sendsOneMessagePerMemberListingEveryDueLoan() throws Exception {
+		JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+		mailSender.setHost("localhost");
+		mailSender.setPort(smtp.getSmtp().getPort());
+		EmailReminderSender sender = new EmailReminderSender(mailSender, "desk@library.test");
+
+		User user = new User();
+		user.setUsername("ada");
+		user.setFirstName("Ada");
+		user.setEmail("ada@library.test");
+		LocalDateTime now = LocalDateTime.now();
+		sender.send(user, List.of(
+				new DueReminder("r1", "b1", "Dune", now.minusDays(3), DueReminder.Kind.OVERDUE),
+				new DueReminder("r2", "b2", "Emma", now.plusDays(1), DueReminder.Kind.DUE_SOON)));
+
+		MimeMessage[] received = smtp.getReceivedMessages();
+		assertEquals(1, received.length);
+		assertEquals("Overdue library loans", received[0].getSubject());
+		String body = GreenMailUtil.getBody(received[0]);
+		assertTrue(body.contains("Dune"));
+		assertTrue(body.contains("Emma"));
+	}
+}
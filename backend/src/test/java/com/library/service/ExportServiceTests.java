@@ -0,0 +1,102 @@
+package com.library.service;
+
+import com.library.config.MongoReadRouting;
+import com.library.config.MongoTuningProperties;
+import com.library.support.InMemoryMongo;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExportServiceTests {
+
+	private static final InMemoryMongo mongo = new InMemoryMongo();
+
+	private final ExportService exports = new ExportService();
+	private final List<ObjectId> ids = new ArrayList<>();
+
+	@BeforeEach
+	void setUp() {
+		mongo.reset();
+		ReservationArchiveService archive = new ReservationArchiveService();
+		ReflectionTestUtils.setField(archive, "mongoTemplate", mongo.template());
+		ReflectionTestUtils.setField(archive, "readRouting", new MongoReadRouting(new MongoTuningProperties()));
+		ReflectionTestUtils.setField(exports, "mongoTemplate", mongo.template());
+		ReflectionTestUtils.setField(exports, "archiveService", archive);
+		ReflectionTestUtils.setField(exports, "cursorBatchSize", 2);
+		ReflectionTestUtils.setField(exports, "flushEveryRows", 2);
+		for (int i = 0; i < 6; i++) {
+			ids.add(new ObjectId());
+		}
+	}
+
+	@AfterAll
+	static void stop() {
+		mongo.close();
+	}
+
+	@Test
+	void reservationExportMergesArchivePartitionsInIdOrder() throws IOException {
+		insert("reservations", 1, "ACTIVE");
+		insert("reservations", 4, "RETURNED");
+		insert(ReservationArchiveService.ARCHIVE_PREFIX + "2024_01", 0, "RETURNED");
+		insert(ReservationArchiveService.ARCHIVE_PREFIX + "2024_01", 3, "CANCELLED");
+		insert(ReservationArchiveService.ARCHIVE_PREFIX + "2024_02", 2, "RETURNED");
+		// Copied to its partition but not yet deleted from the live collection
+		insert(ReservationArchiveService.ARCHIVE_PREFIX + "2024_02", 4, "RETURNED");
+
+		assertEquals(List.of(0, 1, 2, 3, 4), exportedIds(new Document()));
+		assertEquals(List.of(0, 2, 4), exportedIds(exports.filter(ExportService.Dataset.RESERVATIONS,
+				null, null, List.of("returned"), null)));
+	}
+
+	@Test
+	void resumesAfterTheLastRowAcrossCollections() throws IOException {
+		insert("reservations", 1, "ACTIVE");
+		insert("reservations", 5, "ACTIVE");
+		insert(ReservationArchiveService.ARCHIVE_PREFIX + "2024_01", 0, "RETURNED");
+		insert(ReservationArchiveService.ARCHIVE_PREFIX + "2024_01", 3, "RETURNED");
+
+		assertEquals(List.of(3, 5), exportedIds(exports.filter(ExportService.Dataset.RESERVATIONS,
+				null, null, null, ids.get(1).toHexString())));
+	}
+
+	@Test
+	void otherDatasetsReadOnlyTheirCollection() throws IOException {
+		insert(ReservationArchiveService.ARCHIVE_PREFIX + "2024_01", 0, "RETURNED");
+		mongo.template().getCollection("books").insertOne(new Document("_id", ids.get(1)).append("title", "Dune"));
+
+		StringWriter out = new StringWriter();
+		long rows = exports.export(ExportService.Dataset.BOOKS, new Document(), true, out);
+
+		assertEquals(1, rows);
+		assertTrue(out.toString().split("\r\n")[1].startsWith(ids.get(1).toHexString() + ",Dune,"));
+	}
+
+	private List<Integer> exportedIds(Document filter) throws IOException {
+		StringWriter out = new StringWriter();
+		exports.export(ExportService.Dataset.RESERVATIONS, filter, false, out);
+		List<Integer> exported = new ArrayList<>();
+		for (String row : out.toString().split("\r\n")) {
+			if (!row.isEmpty()) {
+				exported.add(ids.indexOf(new ObjectId(row.substring(0, row.indexOf(',')))));
+			}
+		}
+		return exported;
+	}
+
+	private void insert(String collection, int id, String status) {
+		mongo.template().getCollection(collection).insertOne(new Document("_id", ids.get(id))
+				.append("userId", "u" + id).append("bookId", "b1").append("status", status));
+	}
+}
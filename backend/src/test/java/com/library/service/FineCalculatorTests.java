@@ -0,0 +1,48 @@
+package com.library.service;
+
+import com.library.config.FineProperties;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FineCalculatorTests {
+
+	private static final LocalDateTime DUE = LocalDateTime.of(2025, 3, 10, 17, 0);
+
+	private FineCalculator calculator() {
+		FineProperties properties = new FineProperties();
+		properties.setGraceDays(1);
+		properties.getDefaultRate().setDailyCents(25);
+		properties.getDefaultRate().setCapCents(1000);
+		properties.getCategories().put("Reference", new FineProperties.Rate(100, 2000));
+		properties.getCategories().put("Children", new FineProperties.Rate(10, 0));
+		return new FineCalculator(properties);
+	}
+
+	@Test
+	void chargesNothingOnTimeOrWithinGracePeriod() {
+		FineCalculator calculator = calculator();
+		assertEquals(0, calculator.calculate(List.of(), DUE, DUE.minusDays(2)));
+		assertEquals(0, calculator.calculate(List.of(), DUE, DUE.plusHours(6)));
+		assertEquals(0, calculator.calculate(List.of(), DUE, DUE.plusDays(1)));
+	}
+
+	@Test
+	void chargesWholeCalendarDaysPastGraceUpToTheCap() {
+		FineCalculator calculator = calculator();
+		// Due the 10th, returned the 14th early morning: 4 days late, 1 of grace
+		assertEquals(75, calculator.calculate(List.of("Fiction"), DUE, LocalDateTime.of(2025, 3, 14, 8, 0)));
+		assertEquals(1000, calculator.calculate(List.of("Fiction"), DUE, DUE.plusDays(200)));
+		assertEquals(2000, calculator.calculate(List.of("reference"), DUE, DUE.plusDays(200)));
+		assertEquals(1990, calculator.calculate(List.of("Children"), DUE, DUE.plusDays(200)));
+	}
+
+	@Test
+	void usesTheSteepestRateAmongABooksCategories() {
+		FineCalculator calculator = calculator();
+		assertEquals(300, calculator.calculate(List.of("Children", "Reference"), DUE, DUE.plusDays(4)));
+	}
+}
@@ -0,0 +1,91 @@
+package com.library.service;
+
+import com.library.model.IdempotencyRecord;
+import com.library.repository.IdempotencyRecordRepository;
+import com.library.support.InMemoryMongo;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IdempotencyServiceTests {
+
+	private static final InMemoryMongo mongo = new InMemoryMongo();
+
+	private IdempotencyService service;
+
+	@BeforeEach
+	void setUp() {
+		mongo.reset();
+		service = new IdempotencyService();
+		ReflectionTestUtils.setField(service, "mongoTemplate", mongo.template());
+		ReflectionTestUtils.setField(service, "idempotencyRecordRepository", mongo.repository(IdempotencyRecordRepository.class));
+		ReflectionTestUtils.setField(service, "lease", Duration.ofSeconds(30));
+	}
+
+	@AfterAll
+	static void stop() {
+		mongo.close();
+	}
+
+	@Test
+	void secondClaimSeesTheFirstUntilItCompletes() {
+		assertTrue(service.claim("reservations:k1", "u1:b1").isEmpty());
+
+		Optional<IdempotencyRecord> inProgress = service.claim("reservations:k1", "u1:b1");
+		assertTrue(inProgress.isPresent());
+		assertFalse(inProgress.get().isCompleted());
+
+		service.complete("reservations:k1", 200, "application/json", "{}");
+		IdempotencyRecord completed = service.claim("reservations:k1", "u1:b1").orElseThrow();
+		assertTrue(completed.isCompleted());
+		assertEquals(200, completed.getResponseStatus());
+	}
+
+	@Test
+	void claimOlderThanTheLeaseIsTakenOverOnce() {
+		assertTrue(service.claim("reservations:k2", "u1:b1").isEmpty());
+		ageClaim("reservations:k2", Duration.ofMinutes(5));
+
+		assertTrue(service.claim("reservations:k2", "u1:b1").isEmpty());
+		// The takeover renewed the lease, so the next retry waits again
+		assertTrue(service.claim("reservations:k2", "u1:b1").isPresent());
+	}
+
+	@Test
+	void staleClaimIsNotHandedToADifferentRequest() {
+		assertTrue(service.claim("reservations:k3", "u1:b1").isEmpty());
+		ageClaim("reservations:k3", Duration.ofMinutes(5));
+
+		IdempotencyRecord existing = service.claim("reservations:k3", "u2:b9").orElseThrow();
+		assertEquals("u1:b1", existing.getFingerprint());
+	}
+
+	@Test
+	void legacyClaimWithoutClaimedAtFallsBackToCreatedAt() {
+		assertTrue(service.claim("reservations:k4", "u1:b1").isEmpty());
+		Date old = new Date(System.currentTimeMillis() - Duration.ofMinutes(5).toMillis());
+		mongo.template().updateFirst(Query.query(Criteria.where("_id").is("reservations:k4")),
+				new Update().unset("claimedAt").set("createdAt", old), IdempotencyRecord.class);
+
+		assertTrue(service.claim("reservations:k4", "u1:b1").isEmpty());
+	}
+
+	private void ageClaim(String key, Duration age) {
+		mongo.template().updateFirst(Query.query(Criteria.where("_id").is(key)),
+				new Update().set("claimedAt", new Date(System.currentTimeMillis() - age.toMillis())),
+				IdempotencyRecord.class);
+	}
+
+}
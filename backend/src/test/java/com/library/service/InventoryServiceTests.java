@@ -0,0 +1,194 @@
+package com.library.service;
+
+import com.library.model.Book;
+import com.library.model.Branch;
+import com.library.model.BranchInventory;
+import com.library.model.Reservation;
+import com.library.repository.BookRepository;
+import com.library.support.InMemoryMongo;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class InventoryServiceTests {
+
+	private static final InMemoryMongo mongo = new InMemoryMongo();
+
+	private final BookService bookService = new BookService();
+
+	private final InventoryService service = new InventoryService();
+
+	private String bookId;
+
+	@BeforeEach
+	void setUp() {
+		mongo.reset();
+		ReflectionTestUtils.setField(bookService, "bookRepository", mongo.repository(BookRepository.class));
+		ReflectionTestUtils.setField(bookService, "mongoTemplate", mongo.template());
+		ReflectionTestUtils.setField(bookService, "catalogEventBus", mock(CatalogEventBus.class));
+		ReflectionTestUtils.setField(bookService, "bookCache", mock(BookCache.class));
+		ReflectionTestUtils.setField(bookService, "bookResponseCache", mock(BookResponseCache.class));
+		ReflectionTestUtils.setField(bookService, "cacheInvalidationBus", mock(CacheInvalidationBus.class));
+		ReflectionTestUtils.setField(service, "mongoTemplate", mongo.template());
+		ReflectionTestUtils.setField(service, "bookService", bookService);
+
+		Book book = new Book("Dune", "Herbert", null, 3);
+		book.setAvailableCopies(1);
+		bookId = mongo.template().insert(book).getId();
+		mongo.template().insert(new Branch("main", "Main Library", "1 Main St", -0.12, 51.5));
+		mongo.template().insert(new Branch("east", "East Branch", "2 East St", -0.05, 51.5));
+	}
+
+	@AfterAll
+	static void stop() {
+		mongo.close();
+	}
+
+	@Test
+	void firstBranchTakesOverBookLevelLoans() {
+		Reservation first = loan(null);
+		Reservation second = loan(null);
+
+		assertThrows(IllegalStateException.class, () -> service.setTotal("main", bookId, 1));
+		BranchInventory main = service.setTotal("main", bookId, 4);
+
+		assertEquals(4, main.getTotal());
+		assertEquals(2, main.getAvailable());
+		assertTrue(mongo.template().findById(bookId, Book.class).isBranchStocked());
+		assertEquals("main", reload(first).getBranchId());
+		assertEquals(1L, reload(second).getVersion());
+
+		// Later branches start from their own total
+		assertEquals(2, service.setTotal("east", bookId, 2).getAvailable());
+	}
+
+	@Test
+	void loansAndReturnsMoveOnlyTheBranchCounters() {
+		service.setTotal("main", bookId, 2);
+		service.setTotal("east", bookId, 1);
+
+		assertEquals("east", service.reserve(bookId, "east"));
+		assertThrows(IllegalStateException.class, () -> service.reserve(bookId, "east"));
+		assertEquals("main", service.reserve(bookId, null));
+		assertEquals(1, inventory("main").getAvailable());
+		assertEquals(0, inventory("east").getAvailable());
+
+		service.release(bookId, "east");
+		service.release(bookId, "east");
+		assertEquals(1, inventory("east").getAvailable());
+		// The book document only changes when the aggregates are flushed
+		assertCopies(3, 1);
+	}
+
+	@Test
+	void aggregateSumsTheBranchCountersOfEachBook() {
+		service.setTotal("main", bookId, 2);
+		service.setTotal("east", bookId, 3);
+		service.reserve(bookId, "east");
+
+		List<Document> totals = mongo.template().getCollection("branch_inventory")
+				.aggregate(InventoryService.totalsByBook(new Document())).into(new ArrayList<>());
+
+		assertEquals(1, totals.size());
+		// Keyed like the book document, so $merge finds it
+		assertEquals(new ObjectId(bookId), totals.get(0).get("_id"));
+		assertEquals(5, totals.get(0).getInteger("totalCopies"));
+		assertEquals(4, totals.get(0).getInteger("availableCopies"));
+	}
+
+	@Test
+	void booksWithoutBranchInventoryUseTheBookLevelCounter() {
+		assertNull(service.reserve(bookId, null));
+		assertCopies(3, 0);
+		assertThrows(IllegalStateException.class, () -> service.reserve(bookId, null));
+
+		service.release(bookId, null);
+		assertCopies(3, 1);
+	}
+
+	@Test
+	void unattributedLoansOfABranchStockedBookReturnToABranchMissingACopy() {
+		service.setTotal("main", bookId, 1);
+		service.setTotal("east", bookId, 1);
+		service.reserve(bookId, "east");
+
+		service.release(bookId, null);
+		assertEquals(1, inventory("east").getAvailable());
+
+		// Every branch is full: the copy is not counted anywhere, and the book-level counter is left alone
+		service.returnCopies(List.of(loan(null)));
+		assertEquals(1, inventory("main").getAvailable());
+		assertEquals(1, inventory("east").getAvailable());
+		assertCopies(3, 1);
+	}
+
+	@Test
+	void returnCopiesWritesBranchLoansInOneBulkAndBookLevelLoansToTheBook() {
+		MongoTemplate template = mock(MongoTemplate.class);
+		BulkOperations bulk = mock(BulkOperations.class);
+		BookService books = mock(BookService.class);
+		when(template.bulkOps(BulkOperations.BulkMode.UNORDERED, BranchInventory.class)).thenReturn(bulk);
+		when(template.findDistinct(any(Query.class), eq("bookId"), eq(BranchInventory.class), eq(String.class)))
+				.thenReturn(List.of("stocked"));
+		when(template.updateFirst(any(Query.class), any(UpdateDefinition.class), eq(BranchInventory.class)))
+				.thenReturn(UpdateResult.acknowledged(1, 1L, null));
+		ReflectionTestUtils.setField(service, "mongoTemplate", template);
+		ReflectionTestUtils.setField(service, "bookService", books);
+
+		service.returnCopies(List.of(reservation("b1", "main"), reservation("b1", "main"), reservation("b1", "east"),
+				reservation("legacy", null), reservation("stocked", null)));
+
+		// One capped update per branch counter, however many of its copies came back
+		verify(bulk, times(2)).updateOne(any(Query.class), any(UpdateDefinition.class));
+		verify(bulk).execute();
+		verify(template).updateFirst(any(Query.class), any(UpdateDefinition.class), eq(BranchInventory.class));
+		verify(books).returnCopies(Map.of("legacy", 1));
+	}
+
+	private static Reservation reservation(String bookId, String branchId) {
+		Reservation reservation = new Reservation("u1", bookId);
+		reservation.setBranchId(branchId);
+		return reservation;
+	}
+
+	private Reservation loan(String branchId) {
+		return mongo.template().insert(reservation(bookId, branchId));
+	}
+
+	private Reservation reload(Reservation reservation) {
+		return mongo.template().findById(reservation.getId(), Reservation.class);
+	}
+
+	private BranchInventory inventory(String branchId) {
+		return mongo.template().findById(BranchInventory.id(branchId, bookId), BranchInventory.class);
+	}
+
+	private void assertCopies(int total, int available) {
+		Book book = mongo.template().findById(bookId, Book.class);
+		assertEquals(total, book.getTotalCopies());
+		assertEquals(available, book.getAvailableCopies());
+	}
+}
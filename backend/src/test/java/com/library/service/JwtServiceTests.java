@@ -0,0 +1,41 @@
+package com.library.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class JwtServiceTests {
+
+	private final TokenRevocationList revocationList = new TokenRevocationList();
+	private final JwtService jwtService = new JwtService();
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(revocationList, "mongoTemplate", mock(MongoTemplate.class));
+		ReflectionTestUtils.setField(jwtService, "jwtSecret", "test-secret-key-that-is-at-least-32-bytes-long");
+		ReflectionTestUtils.setField(jwtService, "jwtExpiration", 60_000L);
+		ReflectionTestUtils.setField(jwtService, "revocationList", revocationList);
+		jwtService.init();
+	}
+
+	@Test
+	void revokingTheFamilyRejectsItsAccessTokensOnly() {
+		String revoked = jwtService.generateToken("alice", "family-1");
+		String other = jwtService.generateToken("alice", "family-2");
+		assertEquals("alice", jwtService.authenticate(revoked).orElseThrow().getSubject());
+
+		revocationList.revoke(TokenRevocationList.familyKey("family-1"), Instant.now().plusSeconds(60));
+
+		assertFalse(jwtService.authenticate(revoked).isPresent());
+		assertTrue(jwtService.isTokenValid(other, "alice"));
+		assertFalse(jwtService.authenticate(other + "x").isPresent());
+	}
+}
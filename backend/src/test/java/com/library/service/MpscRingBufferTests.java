@@ -0,0 +1,70 @@
+package com.library.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MpscRingBufferTests {
+
+	@Test
+	void rejectsOffersWhenFullAndAcceptsAgainAfterDraining() {
+		MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(4);
+		for (int i = 0; i < 4; i++) {
+			assertTrue(buffer.offer(i));
+		}
+		assertFalse(buffer.offer(4));
+
+		List<Integer> drained = new ArrayList<>();
+		assertEquals(2, buffer.drainTo(drained, 2));
+		assertEquals(List.of(0, 1), drained);
+		assertTrue(buffer.offer(5));
+		assertEquals(3, buffer.size());
+	}
+
+	@Test
+	void concurrentProducersLoseNothingThatWasAccepted() throws InterruptedException {
+		int producers = 4;
+		int perProducer = 50_000;
+		MpscRingBuffer<Long> buffer = new MpscRingBuffer<>(1024);
+		CountDownLatch done = new CountDownLatch(producers);
+		for (int p = 0; p < producers; p++) {
+			long base = (long) p * perProducer;
+			Thread producer = new Thread(() -> {
+				for (int i = 0; i < perProducer; i++) {
+					while (!buffer.offer(base + i)) {
+						Thread.yield();
+					}
+				}
+				done.countDown();
+			});
+			producer.start();
+		}
+
+		boolean[] seen = new boolean[producers * perProducer];
+		long[] lastPerProducer = new long[producers];
+		Arrays.fill(lastPerProducer, -1);
+		List<Long> batch = new ArrayList<>();
+		int received = 0;
+		while (received < seen.length) {
+			batch.clear();
+			received += buffer.drainTo(batch, 256);
+			for (long value : batch) {
+				int producer = (int) (value / perProducer);
+				assertFalse(seen[(int) value], "duplicate " + value);
+				seen[(int) value] = true;
+				// Each producer's events come out in the order it offered them
+				assertTrue(value > lastPerProducer[producer]);
+				lastPerProducer[producer] = value;
+			}
+		}
+		done.await();
+		assertTrue(buffer.isEmpty());
+	}
+}
@@ -0,0 +1,87 @@
+package com.library.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RateLimiterTests {
+
+	private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+	@Test
+	void tokenBucketAllowsABurstThenRefillsAtTheRate() {
+		TokenBucket bucket = new TokenBucket(3, 2, 0);
+
+		assertTrue(bucket.tryAcquire(0));
+		assertTrue(bucket.tryAcquire(0));
+		assertTrue(bucket.tryAcquire(0));
+		assertFalse(bucket.tryAcquire(0));
+		assertEquals(SECOND / 2, bucket.nanosUntilAvailable(0));
+
+		assertFalse(bucket.tryAcquire(SECOND / 2 - 1));
+		assertTrue(bucket.tryAcquire(SECOND / 2));
+		assertFalse(bucket.tryAcquire(SECOND / 2));
+
+		assertFalse(bucket.isFull(SECOND));
+		assertTrue(bucket.isFull(2 * SECOND));
+	}
+
+	@Test
+	void clientsHaveSeparateBuckets() {
+		RateLimiter limiter = new RateLimiter(1, 0.001, 30, 10, 10, 2);
+
+		assertEquals(0, limiter.tryAcquire(RateLimiter.Route.LOGIN, "10.0.0.1"));
+		assertTrue(limiter.tryAcquire(RateLimiter.Route.LOGIN, "10.0.0.1") > 0);
+		assertEquals(0, limiter.tryAcquire(RateLimiter.Route.LOGIN, "10.0.0.2"));
+		assertEquals(2, limiter.getTrackedClients(RateLimiter.Route.LOGIN));
+	}
+
+	@Test
+	void onlyMemberReservationWritesAreLimited() {
+		assertEquals(RateLimiter.Route.RESERVATIONS, RateLimiter.resolveRoute("POST", "/api/reservations"));
+		assertEquals(RateLimiter.Route.RESERVATIONS, RateLimiter.resolveRoute("POST", "/api/reservations/r1/return"));
+		assertEquals(RateLimiter.Route.RESERVATIONS, RateLimiter.resolveRoute("POST", "/api/reservations/r1/cancel"));
+		assertNull(RateLimiter.resolveRoute("GET", "/api/reservations"));
+		assertNull(RateLimiter.resolveRoute("GET", "/api/reservations/user/u1"));
+		assertNull(RateLimiter.resolveRoute("POST", "/api/reservations/check-in"));
+		assertNull(RateLimiter.resolveRoute("PUT", "/api/reservations/r1"));
+		assertNull(RateLimiter.resolveRoute("DELETE", "/api/reservations/r1"));
+
+		assertEquals(RateLimiter.Route.LOGIN, RateLimiter.resolveRoute("POST", "/api/auth/login"));
+		assertEquals(RateLimiter.Route.SEARCH, RateLimiter.resolveRoute("GET", "/api/books/search"));
+		assertNull(RateLimiter.resolveRoute("GET", "/api/books/b1"));
+	}
+
+	@Test
+	void concurrencyLimitBacksOffWhileSlowAndProbesUpWhileUsed() {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 20, 10, 50, 0.5);
+
+		limiter.recordMongoLatency(TimeUnit.MILLISECONDS.toNanos(200));
+		limiter.adjustLimit();
+		assertEquals(5, limiter.getLimit());
+		limiter.adjustLimit();
+		limiter.adjustLimit();
+		assertEquals(2, limiter.getLimit());
+
+		assertTrue(limiter.tryAcquire());
+		assertTrue(limiter.tryAcquire());
+		assertFalse(limiter.tryAcquire());
+
+		// Latency recovers: the average decays towards the fast samples
+		for (int i = 0; i < 50; i++) {
+			limiter.recordMongoLatency(TimeUnit.MILLISECONDS.toNanos(5));
+		}
+		limiter.adjustLimit();
+		assertEquals(3, limiter.getLimit());
+		limiter.release();
+		limiter.release();
+		limiter.adjustLimit();
+		assertEquals(3, limiter.getLimit(), "an unused limit is not raised");
+	}
+
+}
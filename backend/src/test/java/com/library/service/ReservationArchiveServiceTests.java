@@ -0,0 +1,108 @@
+package com.library.service;
+
+import com.library.config.MongoReadRouting;
+import com.library.config.MongoTuningProperties;
+import com.library.model.Reservation;
+import com.library.support.InMemoryMongo;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReservationArchiveServiceTests {
+
+	private static final InMemoryMongo mongo = new InMemoryMongo();
+
+	private final ReservationArchiveService archive = new ReservationArchiveService();
+
+	@BeforeEach
+	void setUp() {
+		mongo.reset();
+		ReflectionTestUtils.setField(archive, "mongoTemplate", mongo.template());
+		ReflectionTestUtils.setField(archive, "readRouting", new MongoReadRouting(new MongoTuningProperties()));
+		ReflectionTestUtils.setField(archive, "minAge", Duration.ofDays(180));
+		// Small batches so the (updatedAt, _id) paging is exercised
+		ReflectionTestUtils.setField(archive, "batchSize", 2);
+		ReflectionTestUtils.setField(archive, "maxBatchesPerRun", 100);
+		ReflectionTestUtils.setField(archive, "blockCompressor", "");
+	}
+
+	@AfterAll
+	static void stop() {
+		mongo.close();
+	}
+
+	@Test
+	void movesOldTerminalReservationsIntoMonthlyPartitions() {
+		LocalDateTime old = LocalDateTime.of(2024, 1, 20, 10, 0);
+		Reservation returned = reservation("u1", "b1", old, Reservation.ReservationStatus.RETURNED);
+		Reservation cancelled = reservation("u1", "b2", old.plusMonths(1), Reservation.ReservationStatus.CANCELLED);
+		Reservation sameInstant = reservation("u2", "b1", old, Reservation.ReservationStatus.RETURNED);
+		reservation("u1", "b3", old, Reservation.ReservationStatus.ACTIVE);
+		reservation("u1", "b4", LocalDateTime.now().minusDays(3), Reservation.ReservationStatus.RETURNED);
+
+		assertEquals(3, archive.archive());
+
+		assertEquals(Set.of("reservations_archive_2024_01", "reservations_archive_2024_02"), archive.getPartitions());
+		assertEquals(2, mongo.template().count(new Query(), "reservations"));
+		assertEquals(Set.of(returned.getId(), sameInstant.getId()),
+				ids(mongo.template().findAll(Reservation.class, "reservations_archive_2024_01")));
+		assertEquals(Set.of(cancelled.getId()), ids(mongo.template().findAll(Reservation.class, "reservations_archive_2024_02")));
+		assertEquals(0, archive.archive());
+	}
+
+	// The in-process server has no $unionWith, so this checks the single pipeline that is sent
+	@Test
+	void readsAllPartitionsInOneAggregation() {
+		MongoTemplate template = mock(MongoTemplate.class);
+		when(template.getCollectionNames()).thenReturn(Set.of("reservations", "reservations_archive_2024_02",
+				"reservations_archive_2024_01", "reservations_archive_2024_03"));
+		when(template.aggregate(any(Aggregation.class), anyString(), eq(Reservation.class)))
+				.thenReturn(new AggregationResults<>(List.of(), new Document()));
+		ReflectionTestUtils.setField(archive, "mongoTemplate", template);
+
+		archive.findArchived("userId", "u1");
+
+		ArgumentCaptor<Aggregation> aggregation = ArgumentCaptor.forClass(Aggregation.class);
+		verify(template, times(1)).aggregate(aggregation.capture(), eq("reservations_archive_2024_01"), eq(Reservation.class));
+		Document match = new Document("$match", new Document("userId", "u1"));
+		assertEquals(List.of(match,
+				new Document("$unionWith", new Document("coll", "reservations_archive_2024_02").append("pipeline", List.of(match))),
+				new Document("$unionWith", new Document("coll", "reservations_archive_2024_03").append("pipeline", List.of(match)))),
+				aggregation.getValue().toPipeline(Aggregation.DEFAULT_CONTEXT));
+	}
+
+	private static Set<String> ids(List<Reservation> reservations) {
+		return reservations.stream().map(Reservation::getId).collect(Collectors.toSet());
+	}
+
+	private static Reservation reservation(String userId, String bookId, LocalDateTime at, Reservation.ReservationStatus status) {
+		Reservation reservation = new Reservation(userId, bookId);
+		reservation.setReservationDate(at);
+		reservation.setUpdatedAt(at);
+		reservation.setStatus(status);
+		return mongo.template().insert(reservation);
+	}
+
+}
@@ -0,0 +1,168 @@
+package com.library.service;
+
+import com.library.config.MongoReadRouting;
+import com.library.config.MongoTuningProperties;
+import com.library.model.Book;
+import com.library.model.CheckInResult;
+import com.library.model.Reservation;
+import com.library.repository.ReservationRepository;
+import com.library.support.InMemoryMongo;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class ReservationCheckInTests {
+
+	private static final InMemoryMongo mongo = new InMemoryMongo();
+
+	private final ReservationService service = new ReservationService();
+	private final InventoryService inventoryService = mock(InventoryService.class);
+	private final FineService fineService = mock(FineService.class);
+
+	@BeforeEach
+	void setUp() {
+		mongo.reset();
+		ReflectionTestUtils.setField(service, "reservationRepository", mongo.repository(ReservationRepository.class));
+		ReflectionTestUtils.setField(service, "mongoTemplate", mongo.template());
+		ReflectionTestUtils.setField(service, "readRouting", new MongoReadRouting(new MongoTuningProperties()));
+		ReflectionTestUtils.setField(service, "inventoryService", inventoryService);
+		ReflectionTestUtils.setField(service, "fineService", fineService);
+		ReflectionTestUtils.setField(service, "auditLog", mock(CirculationAuditLog.class));
+		ReflectionTestUtils.setField(service, "catalogEventBus", mock(CatalogEventBus.class));
+	}
+
+	@AfterAll
+	static void stop() {
+		mongo.close();
+	}
+
+	@Test
+	void returnsByReservationIdAndReportsMissingInactiveAndDuplicateIds() {
+		Reservation active = reservation("u1", "b1", Reservation.ReservationStatus.ACTIVE, 0);
+		Reservation cancelled = reservation("u2", "b1", Reservation.ReservationStatus.CANCELLED, 0);
+
+		List<CheckInResult> results = service.checkIn(
+				List.of(active.getId(), cancelled.getId(), "missing", active.getId()), List.of());
+
+		assertEquals(List.of(CheckInResult.Outcome.RETURNED, CheckInResult.Outcome.NOT_ACTIVE,
+				CheckInResult.Outcome.NOT_FOUND, CheckInResult.Outcome.DUPLICATE), outcomes(results));
+		Reservation stored = stored(active.getId());
+		assertEquals(Reservation.ReservationStatus.RETURNED, stored.getStatus());
+		assertNotNull(stored.getActualReturnDate());
+		assertEquals(active.getVersion() + 1, stored.getVersion());
+		assertEquals(Reservation.ReservationStatus.CANCELLED, stored(cancelled.getId()).getStatus());
+		assertEquals(Set.of(active.getId()), ids(returnedCopies()));
+	}
+
+	@Test
+	void isbnScansReturnTheMostOverdueActiveLoanOfThatTitle() {
+		book("b1", "isbn-1");
+		book("b2", "isbn-2");
+		book("b3", "isbn-3");
+		Reservation lessOverdue = reservation("u1", "b1", Reservation.ReservationStatus.ACTIVE, -1);
+		Reservation mostOverdue = reservation("u2", "b1", Reservation.ReservationStatus.ACTIVE, -5);
+		reservation("u3", "b2", Reservation.ReservationStatus.RETURNED, -5);
+
+		List<CheckInResult> results = service.checkIn(List.of(),
+				List.of("isbn-1", "isbn-1", "isbn-1", "isbn-2", "unknown"));
+
+		assertEquals(List.of(CheckInResult.Outcome.RETURNED, CheckInResult.Outcome.RETURNED,
+				CheckInResult.Outcome.NO_ACTIVE_RESERVATION, CheckInResult.Outcome.NO_ACTIVE_RESERVATION,
+				CheckInResult.Outcome.NOT_FOUND), outcomes(results));
+		assertEquals(mostOverdue.getId(), results.get(0).getReservationId());
+		assertEquals(lessOverdue.getId(), results.get(1).getReservationId());
+		assertEquals("b2", results.get(3).getBookId());
+		assertEquals(Set.of(mostOverdue.getId(), lessOverdue.getId()), ids(returnedCopies()));
+	}
+
+	@Test
+	void isbnScanSkipsALoanAlreadyReturnedByIdInTheSameBatch() {
+		book("b1", "isbn-1");
+		Reservation only = reservation("u1", "b1", Reservation.ReservationStatus.ACTIVE, -1);
+
+		List<CheckInResult> results = service.checkIn(List.of(only.getId()), List.of("isbn-1"));
+
+		assertEquals(List.of(CheckInResult.Outcome.RETURNED, CheckInResult.Outcome.NO_ACTIVE_RESERVATION),
+				outcomes(results));
+		assertEquals(Set.of(only.getId()), ids(returnedCopies()));
+	}
+
+	@Test
+	void loansCancelledConcurrentlyAreReportedNotActiveAndGiveNoCopyBack() {
+		Reservation kept = reservation("u1", "b1", Reservation.ReservationStatus.ACTIVE, 0);
+		Reservation raced = reservation("u2", "b2", Reservation.ReservationStatus.ACTIVE, 0);
+		// Cancel one between the read and the bulk write
+		doAnswer(invocation -> {
+			mongo.template().updateFirst(Query.query(Criteria.where("_id").is(raced.getId())),
+					new Update().set("status", Reservation.ReservationStatus.CANCELLED), Reservation.class);
+			return null;
+		}).when(fineService).applyFines(any(), any());
+
+		List<CheckInResult> results = service.checkIn(List.of(kept.getId(), raced.getId()), List.of());
+
+		assertEquals(List.of(CheckInResult.Outcome.RETURNED, CheckInResult.Outcome.NOT_ACTIVE), outcomes(results));
+		assertEquals(Reservation.ReservationStatus.CANCELLED, stored(raced.getId()).getStatus());
+		assertEquals(Set.of(kept.getId()), ids(returnedCopies()));
+	}
+
+	@Test
+	void nothingToReturnWritesNothing() {
+		List<CheckInResult> results = service.checkIn(List.of("missing"), List.of());
+
+		assertEquals(List.of(CheckInResult.Outcome.NOT_FOUND), outcomes(results));
+		verify(inventoryService, never()).returnCopies(any());
+		verify(fineService, never()).applyFines(any(), any());
+	}
+
+	@SuppressWarnings("unchecked")
+	private Collection<Reservation> returnedCopies() {
+		ArgumentCaptor<Collection<Reservation>> returned = ArgumentCaptor.forClass(Collection.class);
+		verify(inventoryService).returnCopies(returned.capture());
+		return returned.getValue();
+	}
+
+	private static Set<String> ids(Collection<Reservation> reservations) {
+		return reservations.stream().map(Reservation::getId).collect(Collectors.toSet());
+	}
+
+	private static List<CheckInResult.Outcome> outcomes(List<CheckInResult> results) {
+		return results.stream().map(CheckInResult::getOutcome).toList();
+	}
+
+	private static Reservation stored(String id) {
+		return mongo.template().findById(id, Reservation.class);
+	}
+
+	private static void book(String id, String isbn) {
+		Book book = new Book();
+		book.setId(id);
+		book.setIsbn(isbn);
+		mongo.template().insert(book);
+	}
+
+	private static Reservation reservation(String userId, String bookId, Reservation.ReservationStatus status, int dueInDays) {
+		Reservation reservation = new Reservation(userId, bookId);
+		reservation.setExpectedReturnDate(LocalDateTime.now().plusDays(dueInDays));
+		reservation.setStatus(status);
+		return mongo.template().insert(reservation);
+	}
+}
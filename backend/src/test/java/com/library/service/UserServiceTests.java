@@ -0,0 +1,198 @@
+package com.library.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.controller.AuthController;
+import com.library.controller.UserController;
+import com.library.model.User;
+import com.library.repository.UserRepository;
+import com.library.support.InMemoryMongo;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Two UserService "nodes" sharing one database and one invalidation broker
+class UserServiceTests {
+
+	private static final InMemoryMongo mongo = new InMemoryMongo();
+
+	private final LocalInvalidationBroker broker = new LocalInvalidationBroker();
+
+	@BeforeEach
+	void setUp() {
+		mongo.reset();
+		mongo.template().indexOps(User.class).ensureIndex(new Index("username", Sort.Direction.ASC).unique());
+		mongo.template().indexOps(User.class).ensureIndex(new Index("email", Sort.Direction.ASC).unique());
+	}
+
+	@AfterAll
+	static void stop() {
+		mongo.close();
+	}
+
+	@Test
+	void usersCreatedOnAnotherNodePassTheExistenceChecks() {
+		UserService first = node();
+		UserService second = node();
+		assertFalse(second.existsByUsername("alice"));
+
+		first.saveUser(user("alice"));
+
+		assertTrue(second.existsByUsername("alice"));
+		assertTrue(second.existsByEmail("alice@library.com"));
+		assertTrue(second.findByUsername("alice").isPresent());
+	}
+
+	@Test
+	void signupThatLosesTheRaceToAnotherNodeReportsTheNameAsTaken() {
+		UserService service = node();
+		// Written without an invalidation reaching this node, e.g. while the broker was down
+		mongo.template().insert(user("bob"));
+		assertFalse(service.existsByUsername("bob"));
+
+		AuthController controller = new AuthController();
+		ReflectionTestUtils.setField(controller, "userService", service);
+		User duplicate = user("bob");
+		duplicate.setEmail("other@library.com");
+		ResponseEntity<?> response = controller.signup(duplicate);
+
+		assertEquals(400, response.getStatusCode().value());
+		assertEquals("Username already exists", response.getBody());
+	}
+
+	@Test
+	void signupThatLosesTheRaceOnTheEmailReportsTheEmailAsTaken() {
+		UserService service = node();
+		mongo.template().insert(user("dave"));
+		assertFalse(service.existsByEmail("dave@library.com"));
+
+		AuthController controller = new AuthController();
+		ReflectionTestUtils.setField(controller, "userService", service);
+		User duplicate = user("eve");
+		duplicate.setEmail("dave@library.com");
+		ResponseEntity<?> response = controller.signup(duplicate);
+
+		assertEquals(400, response.getStatusCode().value());
+		assertEquals("Email already exists", response.getBody());
+	}
+
+	@Test
+	void patchedPasswordIsStoredEncoded() {
+		UserService service = node();
+		String id = service.saveUser(user("frank")).getId();
+
+		User patched = service.patchUser(id, Map.of("password", "newSecret456")).orElseThrow();
+
+		assertNotEquals("newSecret456", patched.getPassword());
+		assertTrue(new BCryptPasswordEncoder(4).matches("newSecret456", patched.getPassword()));
+		assertEquals(patched.getPassword(), mongo.template().findById(id, User.class).getPassword());
+	}
+
+	@Test
+	void patchToATakenUsernameOrEmailIsRejected() {
+		UserService service = node();
+		service.saveUser(user("grace"));
+		String id = service.saveUser(user("heidi")).getId();
+		UserController controller = controller(service);
+
+		ResponseEntity<?> username = controller.patchUser(id, Map.of("username", "grace"));
+		ResponseEntity<?> email = controller.patchUser(id, Map.of("email", "grace@library.com"));
+
+		assertEquals(400, username.getStatusCode().value());
+		assertEquals(400, email.getStatusCode().value());
+		assertEquals("heidi", mongo.template().findById(id, User.class).getUsername());
+	}
+
+	@Test
+	void patchWithAStaleVersionConflicts() {
+		UserService service = node();
+		User saved = service.saveUser(user("ivan"));
+		UserController controller = controller(service);
+
+		ResponseEntity<?> current = controller.patchUser(saved.getId(),
+				Map.of("firstName", "Ivan", "version", saved.getVersion()));
+		ResponseEntity<?> stale = controller.patchUser(saved.getId(),
+				Map.of("firstName", "Stale", "version", saved.getVersion()));
+
+		assertEquals(200, current.getStatusCode().value());
+		assertEquals(409, stale.getStatusCode().value());
+		assertEquals("Ivan", mongo.template().findById(saved.getId(), User.class).getFirstName());
+		assertEquals(404, controller.patchUser("missing", Map.of("firstName", "Nobody")).getStatusCode().value());
+	}
+
+	@Test
+	void cachedUsersCannotBeChangedThroughReturnedInstances() {
+		UserService service = node();
+		service.saveUser(user("carol"));
+
+		User returned = service.findByUsername("carol").orElseThrow();
+		String hash = returned.getPassword();
+		returned.setPassword("tampered");
+		returned.setRole(User.Role.ADMIN);
+
+		User again = service.findByUsername("carol").orElseThrow();
+		assertEquals(hash, again.getPassword());
+		assertEquals(User.Role.USER, again.getRole());
+	}
+
+	@Test
+	void fullLookupCacheEvictsSomeEntriesInsteadOfClearing() {
+		UserLookupCache cache = new UserLookupCache(Duration.ofMinutes(5), Duration.ofSeconds(30), 10,
+				new CacheInvalidationBus("local", broker));
+		for (int i = 0; i < 30; i++) {
+			User user = user("user" + i);
+			user.setId("id" + i);
+			cache.put(user);
+		}
+
+		assertTrue(cache.size() <= 20);
+		assertTrue(cache.size() >= 10, "evicted " + (60 - cache.size()) + " of 60 entries");
+		assertNotNull(cache.getByUsername("user29"));
+	}
+
+	private UserService node() {
+		CacheInvalidationBus bus = new CacheInvalidationBus("local", broker);
+		UserService service = new UserService();
+		ReflectionTestUtils.setField(service, "userRepository", mongo.repository(UserRepository.class));
+		ReflectionTestUtils.setField(service, "passwordEncoder", new BCryptPasswordEncoder(4));
+		ReflectionTestUtils.setField(service, "mongoTemplate", mongo.template());
+		ReflectionTestUtils.setField(service, "userLookupCache",
+				new UserLookupCache(Duration.ofMinutes(5), Duration.ofSeconds(30), 1000, bus));
+		ReflectionTestUtils.setField(service, "cacheInvalidationBus", bus);
+		MergePatchMapper mergePatchMapper = new MergePatchMapper();
+		ReflectionTestUtils.setField(mergePatchMapper, "objectMapper", new ObjectMapper());
+		ReflectionTestUtils.setField(mergePatchMapper, "validator",
+				Validation.buildDefaultValidatorFactory().getValidator());
+		ReflectionTestUtils.setField(service, "mergePatchMapper", mergePatchMapper);
+		ReflectionTestUtils.setField(service, "bloomExpectedUsers", 1000L);
+		ReflectionTestUtils.setField(service, "bloomFalsePositiveRate", 0.01);
+		service.subscribeToInvalidations();
+		service.rebuildExistenceFilters();
+		return service;
+	}
+
+	private static UserController controller(UserService service) {
+		UserController controller = new UserController();
+		ReflectionTestUtils.setField(controller, "userService", service);
+		return controller;
+	}
+
+	private static User user(String username) {
+		return new User(username, username + "@library.com", "secret123", "Test", "User");
+	}
+
+}
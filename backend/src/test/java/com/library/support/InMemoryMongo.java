@@ -0,0 +1,40 @@
+package com.library.support;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+
+// In-process Mongo for service tests; one instance per test class, closed after the class
+public class InMemoryMongo implements AutoCloseable {
+
+	private final MongoServer server = new MongoServer(new MemoryBackend());
+	private final String connectionString = server.bindAndGetConnectionString();
+	private final MongoClient client = MongoClients.create(connectionString);
+	private final MongoTemplate template = new MongoTemplate(client, "library");
+
+	// For application contexts started against this server
+	public String uri() {
+		return connectionString + "/library";
+	}
+
+	public MongoTemplate template() {
+		return template;
+	}
+
+	public <T> T repository(Class<T> repositoryInterface) {
+		return new MongoRepositoryFactory(template).getRepository(repositoryInterface);
+	}
+
+	public void reset() {
+		template.getDb().drop();
+	}
+
+	@Override
+	public void close() {
+		client.close();
+		server.shutdown();
+	}
+}
@@ -0,0 +1,35 @@
+// Initiates the config server and shard replica sets, then registers both shards with mongos
+function connect(host) {
+    for (let attempt = 0; ; attempt++) {
+        try {
+            return new Mongo(host);
+        } catch (e) {
+            if (attempt > 120) {
+                throw e;
+            }
+            sleep(500);
+        }
+    }
+}
+
+function initiate(host, id, configsvr) {
+    const admin = connect(host).getDB("admin");
+    try {
+        admin.runCommand({replSetInitiate: {_id: id, configsvr: configsvr, members: [{_id: 0, host: host}]}});
+    } catch (e) {
+        // already initiated
+    }
+    while (!admin.runCommand({hello: 1}).isWritablePrimary) {
+        sleep(500);
+    }
+}
+
+initiate("config:27017", "config", true);
+initiate("shard1:27017", "shard1", false);
+initiate("shard2:27017", "shard2", false);
+
+const mongos = connect("mongos:27017").getDB("admin");
+for (const shard of ["shard1/shard1:27017", "shard2/shard2:27017"]) {
+    printjson(mongos.runCommand({addShard: shard}));
+}
+print("sharded cluster ready");
@@ -15,17 +15,67 @@ export const AuthProvider = ({ children }) => {
       setIsAuthenticated(true);
     }
     setLoading(false);
+
+    // Access tokens are short-lived and the API answers an expired or revoked one with 401: trade
+    // the refresh token for a new pair once and retry. Concurrent 401s share one refresh, since
+    // each refresh token only works once.
+    let refreshing = null;
+    const interceptor = axios.interceptors.response.use(
+      (response) => response,
+      async (error) => {
+        const original = error.config;
+        const refreshToken = localStorage.getItem("refreshToken");
+        if (
+          error.response?.status !== 401 ||
+          !refreshToken ||
+          original._retried ||
+          /\/api\/auth\/(login|signup|refresh|logout)$/.test(original.url ?? "")
+        ) {
+          return Promise.reject(error);
+        }
+        original._retried = true;
+        try {
+          refreshing =
+            refreshing ||
+            axios.post(`${import.meta.env.VITE_BACKEND_URL}/api/auth/refresh`, {
+              refreshToken,
+            });
+          const response = await refreshing;
+          storeTokens(response.data);
+          original.headers["Authorization"] = `Bearer ${response.data.token}`;
+          return axios(original);
+        } catch (refreshError) {
+          clearTokens();
+          setUser(null);
+          setIsAuthenticated(false);
+          return Promise.reject(refreshError);
+        } finally {
+          refreshing = null;
+        }
+      }
+    );
+    return () => axios.interceptors.response.eject(interceptor);
   }, []);
 
+  const storeTokens = ({ token, refreshToken }) => {
+    localStorage.setItem("token", token);
+    localStorage.setItem("refreshToken", refreshToken);
+    axios.defaults.headers.common["Authorization"] = `Bearer ${token}`;
+  };
+
+  const clearTokens = () => {
+    localStorage.removeItem("token");
+    localStorage.removeItem("refreshToken");
+    delete axios.defaults.headers.common["Authorization"];
+  };
+
   const login = async (username, password) => {
     try {
       const response = await axios.post(
         `${import.meta.env.VITE_BACKEND_URL}/api/auth/login`,
         { username, password }
       );
-      const token = response.data.token;
-      localStorage.setItem("token", token);
-      axios.defaults.headers.common["Authorization"] = `Bearer ${token}`;
+      storeTokens(response.data);
       setIsAuthenticated(true);
       return { success: true };
     } catch (error) {
@@ -53,8 +103,12 @@ export const AuthProvider = ({ children }) => {
   };
 
   const logout = () => {
-    localStorage.removeItem("token");
-    delete axios.defaults.headers.common["Authorization"];
+    const refreshToken = localStorage.getItem("refreshToken");
+    // Best effort: revokes the refresh token family server-side
+    axios
+      .post(`${import.meta.env.VITE_BACKEND_URL}/api/auth/logout`, { refreshToken })
+      .catch(() => {});
+    clearTokens();
     setUser(null);
     setIsAuthenticated(false);
   };
@@ -0,0 +1,75 @@
+package com.library.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Latency histogram and outcome counters for one operation
+public class EndpointStats {
+
+    private static final long MAX_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(2);
+
+    private final Recorder recorder = new Recorder(MAX_TRACKABLE_NANOS, 3);
+    private final LongAdder ok = new LongAdder();
+    // 4xx answers that are normal business outcomes (no copies left, duplicate reservation)
+    private final LongAdder rejected = new LongAdder();
+    // 429 from the rate limiter and 503 from load shedding
+    private final LongAdder throttled = new LongAdder();
+    // 5xx, timeouts, connection errors and requests dropped at the in-flight cap
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+
+    public void record(int status, long latencyNanos) {
+        recorder.recordValue(Math.min(latencyNanos, MAX_TRACKABLE_NANOS));
+        if (status == 429 || status == 503) {
+            throttled.increment();
+        } else if (status >= 500) {
+            errors.increment();
+        } else if (status >= 400) {
+            rejected.increment();
+        } else {
+            ok.increment();
+        }
+    }
+
+    public void recordFailure(long latencyNanos) {
+        recorder.recordValue(Math.min(latencyNanos, MAX_TRACKABLE_NANOS));
+        errors.increment();
+    }
+
+    public void recordDropped() {
+        errors.increment();
+    }
+
+    public void recordSkipped() {
+        skipped.increment();
+    }
+
+    public Snapshot snapshot() {
+        Histogram histogram = recorder.getIntervalHistogram();
+        return new Snapshot(histogram, ok.sum(), rejected.sum(), throttled.sum(), errors.sum(), skipped.sum());
+    }
+
+    public record Snapshot(Histogram histogram, long ok, long rejected, long throttled, long errors, long skipped) {
+
+        public long total() {
+            return ok + rejected + throttled + errors;
+        }
+
+        // Throttling counts as failure: the run should not be limited by the service's own guards
+        public double errorRate() {
+            long total = total();
+            return total == 0 ? 0 : (double) (throttled + errors) / total;
+        }
+
+        public double percentileMillis(double percentile) {
+            return histogram.getTotalCount() == 0 ? 0 : histogram.getValueAtPercentile(percentile) / 1_000_000.0;
+        }
+
+        public double maxMillis() {
+            return histogram.getTotalCount() == 0 ? 0 : histogram.getMaxValue() / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.library.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+
+// Thin async client for the endpoints the load test drives
+public class LibraryClient {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient httpClient;
+    private final String baseUrl;
+
+    public LibraryClient(String baseUrl) {
+        this.baseUrl = baseUrl;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+    }
+
+    public CompletableFuture<HttpResponse<String>> getBook(String bookId) {
+        return send(get("/api/books/" + bookId));
+    }
+
+    public CompletableFuture<HttpResponse<String>> search(String query) {
+        return send(get("/api/books/search?query=" + URLEncoder.encode(query, StandardCharsets.UTF_8)));
+    }
+
+    public CompletableFuture<HttpResponse<String>> reserve(String userId, String bookId, String token) {
+        return send(post("/api/reservations", Map.of("userId", userId, "bookId", bookId), token)
+                .header("Idempotency-Key", UUID.randomUUID().toString())
+                .build());
+    }
+
+    public CompletableFuture<HttpResponse<String>> returnReservation(String reservationId, String token) {
+        return send(post("/api/reservations/" + reservationId + "/return", Map.of(), token).build());
+    }
+
+    public CompletableFuture<HttpResponse<String>> login(String username, String password) {
+        return send(post("/api/auth/login", Map.of("username", username, "password", password), null).build());
+    }
+
+    // Blocking calls used while seeding
+
+    public JsonNode signup(String username, String email, String password) throws IOException {
+        return expectOk(send(post("/api/auth/signup", Map.of(
+                "username", username, "email", email, "password", password,
+                "firstName", "Load", "lastName", "Test"), null).build()).join());
+    }
+
+    public JsonNode createBook(String title, String author, String isbn, int copies) throws IOException {
+        return expectOk(send(post("/api/books", Map.of(
+                "title", title, "author", author, "isbn", isbn,
+                "categories", List.of("Load Test"), "totalCopies", copies), null).build()).join());
+    }
+
+    public JsonNode json(HttpResponse<String> response) throws IOException {
+        return objectMapper.readTree(response.body());
+    }
+
+    private JsonNode expectOk(HttpResponse<String> response) throws IOException {
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException(response.request().method() + " " + response.request().uri()
+                    + " returned " + response.statusCode() + ": " + response.body());
+        }
+        return json(response);
+    }
+
+    private CompletableFuture<HttpResponse<String>> send(HttpRequest request) {
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(REQUEST_TIMEOUT).GET().build();
+    }
+
+    private HttpRequest.Builder post(String path, Object body, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json");
+        try {
+            builder.POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)));
+        } catch (IOException e) {
+            throw new IllegalArgumentException(e);
+        }
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder;
+    }
+}
@@ -0,0 +1,261 @@
+package com.library.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+// Seeds users and books, then drives a weighted mix of operations at a fixed arrival rate
+// and checks per-endpoint latency SLOs. Exit status 1 means an SLO was breached.
+public class LoadTest {
+
+    private static final String PASSWORD = "loadtest-password";
+
+    private final LoadTestConfig config;
+    private final LibraryClient client;
+    private final Map<Operation, EndpointStats> stats = new EnumMap<>(Operation.class);
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+
+    private final List<SeededUser> users = new ArrayList<>();
+    private final List<String> bookIds = new ArrayList<>();
+    private final List<String> bookTitles = new ArrayList<>();
+    // Reservations made during the run, consumed by RETURN operations
+    private final Queue<Loan> loans = new ConcurrentLinkedQueue<>();
+
+    private ZipfSampler popularity;
+    private volatile long measureFromNanos;
+
+    public LoadTest(LoadTestConfig config) {
+        this.config = config;
+        this.client = new LibraryClient(config.baseUrl());
+        for (Operation operation : Operation.values()) {
+            stats.put(operation, new EndpointStats());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path configFile = Path.of(args.length > 0 ? args[0] : "loadtest.properties");
+        LoadTest loadTest = new LoadTest(LoadTestConfig.load(configFile));
+        loadTest.seed();
+        loadTest.run();
+        boolean passed = loadTest.report();
+        System.exit(passed ? 0 : 1);
+    }
+
+    void seed() throws IOException {
+        long start = System.nanoTime();
+        for (int i = 0; i < config.seedUsers(); i++) {
+            String username = "lt" + runId + "u" + i;
+            JsonNode response = client.signup(username, username + "@loadtest.local", PASSWORD);
+            users.add(new SeededUser(username, response.path("user").path("id").asText(), response.path("token").asText()));
+        }
+        for (int i = 0; i < config.seedBooks(); i++) {
+            String title = String.format("LT%s Title %05d", runId, i);
+            JsonNode book = client.createBook(title, "Author " + (i % 97), runId + "-" + i, config.copiesPerBook());
+            bookIds.add(book.path("id").asText());
+            bookTitles.add(title);
+        }
+        popularity = new ZipfSampler(bookIds.size(), config.zipfExponent());
+        System.out.printf("Seeded %d users and %d books in %d ms%n", users.size(), bookIds.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    void run() throws InterruptedException {
+        Map<Operation, Integer> mix = config.mix();
+        Operation[] operations = mix.keySet().toArray(new Operation[0]);
+        int[] cumulativeWeights = new int[operations.length];
+        int totalWeight = 0;
+        for (int i = 0; i < operations.length; i++) {
+            totalWeight += mix.get(operations[i]);
+            cumulativeWeights[i] = totalWeight;
+        }
+
+        long intervalNanos = (long) (1_000_000_000L / config.rate());
+        long start = System.nanoTime();
+        measureFromNanos = start + config.warmup().toNanos();
+        long end = measureFromNanos + config.duration().toNanos();
+        Semaphore inFlight = new Semaphore(config.maxInFlight());
+        System.out.printf("Running %.0f req/s for %ds after %ds warmup against %s%n", config.rate(),
+                config.duration().toSeconds(), config.warmup().toSeconds(), config.baseUrl());
+
+        for (long i = 0; ; i++) {
+            long scheduled = start + i * intervalNanos;
+            if (scheduled >= end) {
+                break;
+            }
+            long wait;
+            while ((wait = scheduled - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            int pick = ThreadLocalRandom.current().nextInt(totalWeight);
+            Operation operation = operations[0];
+            for (int j = 0; j < operations.length; j++) {
+                if (pick < cumulativeWeights[j]) {
+                    operation = operations[j];
+                    break;
+                }
+            }
+            if (!inFlight.tryAcquire()) {
+                if (scheduled >= measureFromNanos) {
+                    stats.get(operation).recordDropped();
+                }
+                continue;
+            }
+            CompletableFuture<?> future = execute(operation, scheduled);
+            future.whenComplete((result, error) -> inFlight.release());
+        }
+
+        // Let outstanding requests finish so their latencies are counted
+        if (!inFlight.tryAcquire(config.maxInFlight(), 30, TimeUnit.SECONDS)) {
+            System.out.println("Some requests were still in flight after 30s");
+        }
+    }
+
+    private CompletableFuture<?> execute(Operation operation, long scheduledNanos) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        SeededUser user = users.get(random.nextInt(users.size()));
+        CompletableFuture<HttpResponse<String>> request;
+        switch (operation) {
+            case BROWSE -> request = client.getBook(bookIds.get(popularity.next()));
+            case SEARCH -> request = client.search(bookTitles.get(popularity.next()).substring(runId.length() + 3));
+            case RESERVE -> request = client.reserve(user.id(), bookIds.get(popularity.next()), user.token())
+                    .thenApply(response -> {
+                        if (response.statusCode() == 200) {
+                            rememberLoan(response, user);
+                        }
+                        return response;
+                    });
+            case RETURN -> {
+                Loan loan = loans.poll();
+                if (loan == null) {
+                    if (scheduledNanos >= measureFromNanos) {
+                        stats.get(operation).recordSkipped();
+                    }
+                    return CompletableFuture.completedFuture(null);
+                }
+                request = client.returnReservation(loan.reservationId(), loan.token());
+            }
+            case LOGIN -> request = client.login(user.username(), PASSWORD);
+            default -> throw new IllegalStateException("Unknown operation " + operation);
+        }
+        return request.whenComplete((response, error) -> {
+            if (scheduledNanos < measureFromNanos) {
+                return;
+            }
+            // Measured from the scheduled start, so queueing behind a slow server counts
+            long latency = System.nanoTime() - scheduledNanos;
+            if (error != null) {
+                stats.get(operation).recordFailure(latency);
+            } else {
+                stats.get(operation).record(response.statusCode(), latency);
+            }
+        });
+    }
+
+    private void rememberLoan(HttpResponse<String> response, SeededUser user) {
+        try {
+            String reservationId = client.json(response).path("id").asText(null);
+            if (reservationId != null) {
+                loans.add(new Loan(reservationId, user.token()));
+            }
+        } catch (IOException e) {
+            // Unparseable body; the reservation simply isn't returned later
+        }
+    }
+
+    boolean report() throws IOException {
+        double seconds = config.duration().toNanos() / 1e9;
+        ObjectMapper objectMapper = new ObjectMapper();
+        ObjectNode json = objectMapper.createObjectNode();
+        json.put("baseUrl", config.baseUrl());
+        json.put("rate", config.rate());
+        json.put("durationSeconds", seconds);
+        ArrayNode endpoints = json.putArray("endpoints");
+        List<String> breaches = new ArrayList<>();
+
+        System.out.printf("%n%-36s %8s %9s %8s %8s %8s %8s %8s %7s %7s %7s%n", "endpoint", "count", "req/s",
+                "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "4xx", "thrott", "errors");
+        long total = 0;
+        long failed = 0;
+        for (Operation operation : Operation.values()) {
+            EndpointStats.Snapshot snapshot = stats.get(operation).snapshot();
+            if (snapshot.total() == 0 && snapshot.skipped() == 0) {
+                continue;
+            }
+            total += snapshot.total();
+            failed += snapshot.throttled() + snapshot.errors();
+            System.out.printf("%-36s %8d %9.1f %8.1f %8.1f %8.1f %8.1f %8.1f %7d %7d %7d%n", operation.endpoint(),
+                    snapshot.total(), snapshot.total() / seconds,
+                    snapshot.percentileMillis(50), snapshot.percentileMillis(90), snapshot.percentileMillis(99),
+                    snapshot.percentileMillis(99.9), snapshot.maxMillis(),
+                    snapshot.rejected(), snapshot.throttled(), snapshot.errors());
+
+            ObjectNode endpoint = endpoints.addObject();
+            endpoint.put("operation", operation.key());
+            endpoint.put("endpoint", operation.endpoint());
+            endpoint.put("count", snapshot.total());
+            endpoint.put("throughput", snapshot.total() / seconds);
+            endpoint.put("p50Ms", snapshot.percentileMillis(50));
+            endpoint.put("p90Ms", snapshot.percentileMillis(90));
+            endpoint.put("p99Ms", snapshot.percentileMillis(99));
+            endpoint.put("p999Ms", snapshot.percentileMillis(99.9));
+            endpoint.put("maxMs", snapshot.maxMillis());
+            endpoint.put("ok", snapshot.ok());
+            endpoint.put("rejected", snapshot.rejected());
+            endpoint.put("throttled", snapshot.throttled());
+            endpoint.put("errors", snapshot.errors());
+            endpoint.put("skipped", snapshot.skipped());
+
+            Double slo = config.p99SloMillis(operation);
+            if (slo != null && snapshot.total() > 0 && snapshot.percentileMillis(99) > slo) {
+                breaches.add(String.format("%s p99 %.1f ms > %.1f ms", operation.endpoint(), snapshot.percentileMillis(99), slo));
+            }
+            if (snapshot.skipped() > 0) {
+                System.out.printf("  (%d returns skipped: no outstanding loans)%n", snapshot.skipped());
+            }
+        }
+        double errorRate = total == 0 ? 0 : (double) failed / total;
+        if (errorRate > config.maxErrorRate()) {
+            breaches.add(String.format("error rate %.2f%% > %.2f%%", errorRate * 100, config.maxErrorRate() * 100));
+        }
+        System.out.printf("%ntotal %d requests, %.1f req/s, error rate %.2f%%%n", total, total / seconds, errorRate * 100);
+
+        json.put("errorRate", errorRate);
+        ArrayNode breachesJson = json.putArray("sloBreaches");
+        breaches.forEach(breachesJson::add);
+        Path reportFile = config.reportFile();
+        if (reportFile.getParent() != null) {
+            Files.createDirectories(reportFile.getParent());
+        }
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(reportFile.toFile(), json);
+
+        if (breaches.isEmpty()) {
+            System.out.println("All SLOs met");
+            return true;
+        }
+        breaches.forEach(breach -> System.out.println("SLO BREACH: " + breach));
+        return false;
+    }
+
+    private record SeededUser(String username, String id, String token) {
+    }
+
+    private record Loan(String reservationId, String token) {
+    }
+}
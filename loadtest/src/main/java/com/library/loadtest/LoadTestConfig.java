@@ -0,0 +1,127 @@
+package com.library.loadtest;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Properties;
+
+// Settings come from a properties file (default loadtest.properties); any key can be
+// overridden with -D<key>=<value>
+public class LoadTestConfig {
+
+    private final Properties properties;
+
+    private LoadTestConfig(Properties properties) {
+        this.properties = properties;
+    }
+
+    public static LoadTestConfig load(Path file) throws IOException {
+        Properties properties = new Properties();
+        if (Files.exists(file)) {
+            try (Reader reader = Files.newBufferedReader(file)) {
+                properties.load(reader);
+            }
+        }
+        for (String key : System.getProperties().stringPropertyNames()) {
+            if (properties.containsKey(key) || key.startsWith("mix.") || key.startsWith("slo.") || key.startsWith("seed.")) {
+                properties.setProperty(key, System.getProperty(key));
+            }
+        }
+        return new LoadTestConfig(properties);
+    }
+
+    public String baseUrl() {
+        return string("base-url", "http://localhost:8080").replaceAll("/+$", "");
+    }
+
+    public Duration duration() {
+        return duration("duration", Duration.ofSeconds(60));
+    }
+
+    public Duration warmup() {
+        return duration("warmup", Duration.ofSeconds(10));
+    }
+
+    public double rate() {
+        return Double.parseDouble(string("rate", "200"));
+    }
+
+    public int maxInFlight() {
+        return integer("max-in-flight", 2000);
+    }
+
+    public int seedUsers() {
+        return integer("seed.users", 200);
+    }
+
+    public int seedBooks() {
+        return integer("seed.books", 2000);
+    }
+
+    public int copiesPerBook() {
+        return integer("seed.copies-per-book", 20);
+    }
+
+    public double zipfExponent() {
+        return Double.parseDouble(string("zipf.exponent", "1.1"));
+    }
+
+    public Map<Operation, Integer> mix() {
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            int weight = integer("mix." + operation.key(), 0);
+            if (weight > 0) {
+                mix.put(operation, weight);
+            }
+        }
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("At least one mix.* weight must be positive");
+        }
+        return mix;
+    }
+
+    // Null when no SLO is configured for the operation
+    public Double p99SloMillis(Operation operation) {
+        String value = properties.getProperty("slo." + operation.key() + ".p99-ms");
+        return value == null || value.isBlank() ? null : Double.valueOf(value);
+    }
+
+    public double maxErrorRate() {
+        return Double.parseDouble(string("slo.max-error-rate", "0.01"));
+    }
+
+    public Path reportFile() {
+        return Path.of(string("report.file", "target/loadtest-report.json"));
+    }
+
+    private String string(String key, String defaultValue) {
+        return properties.getProperty(key, defaultValue).trim();
+    }
+
+    private int integer(String key, int defaultValue) {
+        return Integer.parseInt(string(key, Integer.toString(defaultValue)));
+    }
+
+    // Accepts 500ms, 30s, 5m or an ISO-8601 duration
+    private Duration duration(String key, Duration defaultValue) {
+        String value = properties.getProperty(key);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        value = value.trim();
+        if (value.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        }
+        if (value.endsWith("s")) {
+            return Duration.ofSeconds(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        if (value.endsWith("m")) {
+            return Duration.ofMinutes(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        return Duration.parse(value);
+    }
+}
@@ -0,0 +1,25 @@
+package com.library.loadtest;
+
+public enum Operation {
+    BROWSE("browse", "GET /api/books/{id}"),
+    SEARCH("search", "GET /api/books/search"),
+    RESERVE("reserve", "POST /api/reservations"),
+    RETURN("return", "POST /api/reservations/{id}/return"),
+    LOGIN("login", "POST /api/auth/login");
+
+    private final String key;
+    private final String endpoint;
+
+    Operation(String key, String endpoint) {
+        this.key = key;
+        this.endpoint = endpoint;
+    }
+
+    public String key() {
+        return key;
+    }
+
+    public String endpoint() {
+        return endpoint;
+    }
+}